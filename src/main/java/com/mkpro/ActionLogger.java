@@ -10,39 +10,69 @@ import com.mkpro.SimpleWebSocketServer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
 import java.util.Map;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 import java.nio.file.Path;
 import com.mkpro.utils.PathUtils;
 
+/**
+ * Session log. Callers only format the entry and enqueue it on a bounded,
+ * lock-free ring buffer; a single writer thread ("ActionLogger-writer") drains
+ * it and does the slow work in batches:
+ *   - role entries are appended to a {@link SegmentedLogStore} and synced once per batch
+ *   - action entries are appended to action.log through one long-lived buffered writer
+ *   - every entry is then broadcast over the WebSocket and handed to the {@link LogShipper}
+ *
+ * When the queue is full the caller waits for space (mkpro.log.overflow=block,
+ * the default) or the entry is dropped and counted (mkpro.log.overflow=drop).
+ * Reads reflect what the writer has processed; call {@link #flush()} first when
+ * an up-to-date view matters (tests, shutdown).
+ */
 public class ActionLogger {
-    private static DB db;
-    private static List<String> logs;
+    private static volatile SegmentedLogStore store;
     private static SimpleWebSocketServer wsServer;
     private static final ObjectMapper mapper = new ObjectMapper();
-    
+
     private static final List<String> memoryBuffer = Collections.synchronizedList(new ArrayList<>());
     private static final int MAX_BUFFER_SIZE = 500;
     private static final Path ACTION_LOG_PATH = PathUtils.getMkproDataDir().resolve("logs").resolve("action.log");
 
-    private static String instanceName = "unknown";
-    private static final ExecutorService shippingExecutor = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "LogShipper");
-        t.setDaemon(true);
-        return t;
-    });
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(2))
-            .build();
+    private static final int QUEUE_CAPACITY = Integer.getInteger("mkpro.log.queueCapacity", 8192);
+    private static final int MAX_BATCH = 1024;
+    private static final boolean DROP_ON_OVERFLOW = "drop".equalsIgnoreCase(System.getProperty("mkpro.log.overflow"));
+    private static final long FLUSH_TIMEOUT_MS = 5000;
+
+    private static final RingBuffer<LogEvent> queue = new RingBuffer<>(QUEUE_CAPACITY);
+    private static final AtomicLong droppedCount = new AtomicLong();
+    private static final Object writerLock = new Object();
+    private static final Object flushMonitor = new Object();
+    private static volatile Thread writerThread;
+    private static volatile boolean writerParked;
+    private static volatile long processedCount;  // events fully handled by the writer
+    private static final Object actionLogLock = new Object();
+    private static BufferedWriter actionLogWriter; // guarded by actionLogLock
+
+    private enum Kind { RECORD, IMPORT, ACTION }
+
+    private static final class LogEvent {
+        final Kind kind;
+        final String entry;
+
+        LogEvent(Kind kind, String entry) {
+            this.kind = kind;
+            this.entry = entry;
+        }
+    }
+
+    private static final LogShipper shipper = new LogShipper();
 
     public ActionLogger(String dbPath) {
         init(dbPath);
@@ -52,38 +82,96 @@ public class ActionLogger {
         logAction(role, content);
     }
 
+    /**
+     * Opens the log store that lives next to {@code dbPath} ("x_logs.db" -> "x_logs.segments/"),
+     * moving any entries still in the legacy MapDB "logs" list into it first.
+     */
     public static synchronized void init(String dbPath) {
-        if (db == null || db.isClosed()) {
+        if (store == null) {
             if (dbPath == null || ":memory:".equals(dbPath)) {
-                db = DBMaker.memoryDB()
-                        .transactionEnable()
-                        .closeOnJvmShutdown()
-                        .make();
+                store = openTemporaryStore();
             } else {
                 try {
-                    db = DBMaker.fileDB(dbPath)
-                            .cleanerHackEnable()
-                            .transactionEnable()
-                            .closeOnJvmShutdown()
-                            .make();
+                    SegmentedLogStore opened = SegmentedLogStore.open(segmentDirFor(dbPath));
+                    migrateLegacyLogs(dbPath, opened);
+                    store = opened;
                 } catch (Exception e) {
                     System.err.println("\u001b[33m[Warning] Logging database (" + dbPath + ") is locked by another running instance of mkpro. Falling back to in-memory logger.\u001b[0m");
-                    db = DBMaker.memoryDB()
-                            .transactionEnable()
-                            .closeOnJvmShutdown()
-                            .make();
+                    store = openTemporaryStore();
                 }
             }
-            logs = db.indexTreeList("logs", Serializer.STRING).createOrOpen();
         }
     }
 
-    public static synchronized void close() {
-        if (db != null && !db.isClosed()) {
-            db.close();
+    private static SegmentedLogStore openTemporaryStore() {
+        try {
+            return SegmentedLogStore.openTemporary();
+        } catch (IOException e) {
+            System.err.println("[ActionLogger] Could not create a temporary log store: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path segmentDirFor(String dbPath) {
+        Path path = Path.of(dbPath);
+        String name = path.getFileName().toString();
+        String base = name.endsWith(".db") ? name.substring(0, name.length() - 3) : name;
+        return path.resolveSibling(base + ".segments");
+    }
+
+    /**
+     * One-time move of the MapDB "logs" list into the segment store. The list is
+     * cleared afterwards so a restart does not import it twice.
+     */
+    private static void migrateLegacyLogs(String dbPath, SegmentedLogStore target) throws IOException {
+        if (!Files.exists(Path.of(dbPath))) return;
+        DB legacy = DBMaker.fileDB(dbPath).transactionEnable().make();
+        try {
+            if (!legacy.exists("logs")) return;
+            List<String> legacyLogs = legacy.indexTreeList("logs", Serializer.STRING).createOrOpen();
+            if (legacyLogs.isEmpty()) return;
+            long timestamp = 1;
+            for (String entry : legacyLogs) {
+                timestamp = Math.max(timestamp, parseEntryTimestamp(entry));
+                target.append(entry, timestamp);
+            }
+            target.sync();
+            int migrated = legacyLogs.size();
+            legacyLogs.clear();
+            legacy.commit();
+            System.out.println("[ActionLogger] Migrated " + migrated + " log entries from " + dbPath);
+        } finally {
+            legacy.close();
+        }
+    }
+
+    private static long parseEntryTimestamp(String entry) {
+        if (entry != null && entry.startsWith("[")) {
+            int close = entry.indexOf(']');
+            if (close > 1) {
+                try {
+                    return LocalDateTime.parse(entry.substring(1, close))
+                            .atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+                } catch (Exception ignored) {}
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Drains pending entries, then closes the log store and action.log.
+     */
+    public static void close() {
+        flush();
+        synchronized (actionLogLock) {
+            closeActionLog();
+        }
+        synchronized (ActionLogger.class) {
+            if (store != null) {
+                store.close();
+            }
+            store = null;
         }
-        db = null;
-        logs = null;
     }
 
     public static synchronized void setWebSocketServer(SimpleWebSocketServer server) {
@@ -91,73 +179,215 @@ public class ActionLogger {
     }
 
     public static void setInstanceName(String name) {
-        instanceName = name;
+        shipper.setInstanceName(name);
     }
 
-    public static synchronized void logAction(String role, String content) {
-        if (logs == null) return;
-        String entry = String.format("[%s] %s: %s", LocalDateTime.now(), role, content);
-        logs.add(entry);
-        db.commit();
-        broadcastLog(entry);
-        shipLog(entry);
+    public static void logAction(String role, String content) {
+        if (store == null) return;
+        enqueue(new LogEvent(Kind.RECORD, String.format("[%s] %s: %s", LocalDateTime.now(), role, content)));
     }
 
-    public static synchronized void logAction(String action) {
-        String entry = String.format("[%s] ACTION: %s", LocalDateTime.now(), action);
-        
-        try {
-            if (ACTION_LOG_PATH.getParent() != null) {
-                java.nio.file.Files.createDirectories(ACTION_LOG_PATH.getParent());
+    public static void logAction(String action) {
+        enqueue(new LogEvent(Kind.ACTION, String.format("[%s] ACTION: %s", LocalDateTime.now(), action)));
+    }
+
+    public static void importLog(String role, String content, String timestamp) {
+        if (store == null) return;
+        enqueue(new LogEvent(Kind.IMPORT, String.format("[%s] %s: %s", timestamp, role, content)));
+    }
+
+    /**
+     * Blocks until every entry enqueued before this call has been written,
+     * committed and fanned out (or the timeout passes).
+     *
+     * @return false if entries were still pending when the timeout expired
+     */
+    public static boolean flush() {
+        Thread writer = writerThread;
+        if (writer == null || Thread.currentThread() == writer) {
+            return queue.isEmpty();
+        }
+        long target = queue.producedCount();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS);
+        synchronized (flushMonitor) {
+            while (processedCount < target && writer.isAlive()) {
+                LockSupport.unpark(writer);
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) return false;
+                try {
+                    flushMonitor.wait(Math.min(remainingMs, 10));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return processedCount >= target;
+    }
+
+    /** Entries discarded because the queue was full (mkpro.log.overflow=drop). */
+    public static long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private static void enqueue(LogEvent event) {
+        Thread writer = ensureWriter();
+        if (!queue.offer(event)) {
+            // The writer must never wait on itself
+            if (DROP_ON_OVERFLOW || Thread.currentThread() == writer) {
+                droppedCount.incrementAndGet();
+                return;
             }
-            try (FileWriter fw = new FileWriter(ACTION_LOG_PATH.toFile(), true);
-                 PrintWriter pw = new PrintWriter(fw)) {
-                pw.println(entry);
+            int spins = 0;
+            while (!queue.offer(event)) {
+                LockSupport.unpark(writer);
+                if (++spins < 64) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(100_000);
+                }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
 
-        memoryBuffer.add(entry);
-        synchronized (memoryBuffer) {
-            while (memoryBuffer.size() > MAX_BUFFER_SIZE) {
-                memoryBuffer.remove(0);
+    private static Thread ensureWriter() {
+        Thread writer = writerThread;
+        if (writer != null && writer.isAlive()) return writer;
+        synchronized (writerLock) {
+            writer = writerThread;
+            if (writer == null || !writer.isAlive()) {
+                writer = new Thread(ActionLogger::runWriter, "ActionLogger-writer");
+                writer.setDaemon(true);
+                writerThread = writer;
+                writer.start();
             }
+            return writer;
         }
+    }
 
-        broadcastLog(entry);
-        shipLog(entry);
+    private static void runWriter() {
+        List<LogEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (writerThread == Thread.currentThread()) {
+            batch.clear();
+            int drained = queue.drainTo(batch, MAX_BATCH);
+            if (drained == 0) {
+                writerParked = true;
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(50_000_000);
+                }
+                writerParked = false;
+                continue;
+            }
+            try {
+                writeBatch(batch);
+            } catch (Throwable t) {
+                System.err.println("[ActionLogger] Failed to write log batch: " + t.getMessage());
+            }
+            processedCount += drained;
+            synchronized (flushMonitor) {
+                flushMonitor.notifyAll();
+            }
+        }
     }
 
-    private static void shipLog(String entry) {
-        if (!InstanceRegistry.isMaster()) {
-            InstanceRegistry.InstanceInfo master = InstanceRegistry.getMaster();
-            if (master != null) {
-                shippingExecutor.submit(() -> {
-                    try {
-                        Map<String, String> payload = new HashMap<>();
-                        payload.put("instance", instanceName);
-                        payload.put("log", entry);
-                        String json = mapper.writeValueAsString(payload);
+    /**
+     * One sync for the whole batch, then the file, memory buffer and fan-out.
+     */
+    private static void writeBatch(List<LogEvent> batch) {
+        synchronized (ActionLogger.class) {
+            if (store != null) {
+                boolean dirty = false;
+                for (LogEvent event : batch) {
+                    if (event.kind != Kind.ACTION) {
+                        try {
+                            store.append(event.entry);
+                            dirty = true;
+                        } catch (IOException e) {
+                            System.err.println("[ActionLogger] Failed to append log entry: " + e.getMessage());
+                        }
+                    }
+                }
+                if (dirty) {
+                    store.sync();
+                }
+            }
+        }
 
-                        HttpRequest request = HttpRequest.newBuilder()
-                                .uri(URI.create("http://localhost:" + master.httpPort + "/logs/aggregate"))
-                                .header("Content-Type", "application/json")
-                                .POST(HttpRequest.BodyPublishers.ofString(json))
-                                .build();
+        boolean wroteFile = false;
+        synchronized (actionLogLock) {
+            for (LogEvent event : batch) {
+                if (event.kind == Kind.ACTION) {
+                    appendActionLog(event.entry);
+                    memoryBuffer.add(event.entry);
+                    wroteFile = true;
+                }
+            }
+            if (wroteFile && actionLogWriter != null) {
+                try {
+                    actionLogWriter.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    closeActionLog();
+                }
+            }
+        }
+        if (wroteFile) {
+            synchronized (memoryBuffer) {
+                int excess = memoryBuffer.size() - MAX_BUFFER_SIZE;
+                if (excess > 0) {
+                    memoryBuffer.subList(0, excess).clear();
+                }
+            }
+        }
 
-                        httpClient.send(request, HttpResponse.BodyHandlers.discarding());
-                    } catch (Exception e) {
-                        // Fail silently
-                    }
-                });
+        for (LogEvent event : batch) {
+            broadcastLog(event.entry);
+            if (event.kind != Kind.IMPORT) {
+                shipper.add(event.entry);
+            }
+        }
+    }
+
+    private static void appendActionLog(String entry) {
+        try {
+            if (actionLogWriter == null) {
+                if (ACTION_LOG_PATH.getParent() != null) {
+                    Files.createDirectories(ACTION_LOG_PATH.getParent());
+                }
+                actionLogWriter = Files.newBufferedWriter(ACTION_LOG_PATH, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
             }
+            actionLogWriter.write(entry);
+            actionLogWriter.newLine();
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeActionLog();
+        }
+    }
+
+    private static void closeActionLog() {
+        if (actionLogWriter != null) {
+            try {
+                actionLogWriter.close();
+            } catch (IOException ignored) {}
+            actionLogWriter = null;
         }
     }
 
     public static synchronized List<String> getLogs() {
-        if (logs == null) return new ArrayList<>();
-        return new ArrayList<>(logs);
+        if (store == null) return new ArrayList<>();
+        try {
+            return store.getRange(store.firstOffset(), (int) Math.min(Integer.MAX_VALUE, store.size()));
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    public static synchronized long getLogCount() {
+        return store != null ? store.size() : 0;
     }
 
     public static synchronized List<String> getAllLogs() {
@@ -166,6 +396,56 @@ public class ActionLogger {
         return combined;
     }
 
+    /**
+     * A page of {@link #getAllLogs()} counted back from the newest entry: the
+     * {@code limit} entries ending {@code offsetFromEnd} entries before the end.
+     * Reads only the requested entries.
+     */
+    public static synchronized HistoryPage getAllLogsPage(int offsetFromEnd, int limit) {
+        List<String> buffered = getMemoryBuffer();
+        long stored = getLogCount();
+        long total = stored + buffered.size();
+        long end = Math.max(0, total - Math.max(0, offsetFromEnd));
+        long start = Math.max(0, end - Math.max(0, limit));
+
+        List<String> entries = new ArrayList<>((int) (end - start));
+        if (start < stored) {
+            try {
+                entries.addAll(store.getRange(store.firstOffset() + start, (int) (Math.min(end, stored) - start)));
+            } catch (IOException e) {
+                System.err.println("[ActionLogger] Failed to read log page: " + e.getMessage());
+            }
+        }
+        for (long i = Math.max(start, stored); i < end; i++) {
+            entries.add(buffered.get((int) (i - stored)));
+        }
+        return new HistoryPage(entries, total, start > 0);
+    }
+
+    public static final class HistoryPage {
+        public final List<String> entries;
+        public final long total;
+        public final boolean hasMore;
+
+        HistoryPage(List<String> entries, long total, boolean hasMore) {
+            this.entries = entries;
+            this.total = total;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /**
+     * Logged entries with timestamps in [from, to), oldest first.
+     */
+    public static synchronized List<String> getLogsBetween(java.time.Instant from, java.time.Instant to, int limit) {
+        if (store == null) return new ArrayList<>();
+        try {
+            return store.getRangeByTime(from.toEpochMilli(), to.toEpochMilli(), limit);
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+
     public static List<String> getMemoryBuffer() {
         return new ArrayList<>(memoryBuffer);
     }
@@ -173,47 +453,96 @@ public class ActionLogger {
     public static void clearMemoryLogs() {
         memoryBuffer.clear();
     }
-    
+
     public static synchronized List<String> getRecentLogs(int limit) {
-        if (logs == null) return new ArrayList<>();
-        int size = logs.size();
-        int start = Math.max(0, size - limit);
-        List<String> recent = new ArrayList<>();
-        for (int i = start; i < size; i++) {
-            recent.add(logs.get(i));
+        if (store == null) return new ArrayList<>();
+        try {
+            return store.getLatest(0, limit);
+        } catch (IOException e) {
+            return new ArrayList<>();
         }
-        return recent;
-    }
-
-    public static synchronized void importLog(String role, String content, String timestamp) {
-        if (logs == null) return;
-        String entry = String.format("[%s] %s: %s", timestamp, role, content);
-        logs.add(entry);
-        db.commit();
-        broadcastLog(entry);
     }
 
-    private static synchronized void broadcastLog(String entry) {
-        if (wsServer != null) {
+    private static void broadcastLog(String entry) {
+        SimpleWebSocketServer server = wsServer;
+        if (server != null) {
             try {
                 Map<String, String> message = new HashMap<>();
                 message.put("type", "log");
                 message.put("content", entry);
                 String json = mapper.writeValueAsString(message);
-                wsServer.broadcast(json);
+                server.broadcast(json);
             } catch (Exception e) {}
         }
     }
 
     public static void shutdown() {
-        shippingExecutor.shutdown();
-        try {
-            if (!shippingExecutor.awaitTermination(2, java.util.concurrent.TimeUnit.SECONDS)) {
-                shippingExecutor.shutdownNow();
+        close();
+        Thread writer = writerThread;
+        writerThread = null;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+        shipper.shutdown();
+    }
+
+    /**
+     * Bounded multi-producer / single-consumer ring buffer. Producers claim a
+     * slot with one CAS on the tail and publish into it; the consumer takes
+     * published slots in order and frees them by advancing the head.
+     */
+    static final class RingBuffer<E> {
+        private final AtomicReferenceArray<E> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong();
+
+        RingBuffer(int requestedCapacity) {
+            int capacity = 2;
+            while (capacity < requestedCapacity) capacity <<= 1;
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        /** @return false if the buffer is full */
+        boolean offer(E element) {
+            while (true) {
+                long t = tail.get();
+                if (t - head.get() > mask) return false;
+                if (tail.compareAndSet(t, t + 1)) {
+                    slots.lazySet((int) t & mask, element);
+                    return true;
+                }
             }
-        } catch (InterruptedException e) {
-            shippingExecutor.shutdownNow();
         }
-        close();
+
+        /** Consumer only: moves up to {@code max} published elements into {@code sink}. */
+        int drainTo(List<E> sink, int max) {
+            long h = head.get();
+            int n = 0;
+            while (n < max) {
+                int index = (int) h & mask;
+                E element = slots.get(index);
+                if (element == null) break; // empty, or claimed but not yet published
+                slots.lazySet(index, null);
+                sink.add(element);
+                h++;
+                n++;
+            }
+            if (n > 0) head.lazySet(h);
+            return n;
+        }
+
+        long producedCount() {
+            return tail.get();
+        }
+
+        boolean isEmpty() {
+            return tail.get() == head.get();
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
     }
-}
\ No newline at end of file
+}
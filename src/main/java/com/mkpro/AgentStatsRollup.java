@@ -0,0 +1,171 @@
+package com.mkpro;
+
+import com.mkpro.models.AgentStat;
+import com.mkpro.models.StatBucket;
+import com.mkpro.models.StatBucketSerializer;
+import org.mapdb.BTreeMap;
+import org.mapdb.DB;
+import org.mapdb.Serializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental rollups of AgentStat rows, kept in CentralMemory's hot (local) store.
+ *
+ * Every saved stat updates, per agent/provider/model:
+ *   - minute, hour and day buckets  (keys "M|", "H|", "D|" + zero-padded bucket start)
+ *   - its session's totals          (keys "S|" + sessionId)
+ *   - all-time totals               (keys "T|")
+ *
+ * Keys live in one sorted BTreeMap, so a time window or a session is a range
+ * scan proportional to the number of buckets, never to the number of raw rows.
+ * Not thread-safe: CentralMemory calls it while holding the local DB lock.
+ */
+public class AgentStatsRollup {
+
+    public enum Granularity {
+        MINUTE("M", Duration.ofMinutes(1), Duration.ofDays(2)),
+        HOUR("H", Duration.ofHours(1), Duration.ofDays(90)),
+        DAY("D", Duration.ofDays(1), null);
+
+        final String prefix;
+        final long widthMs;
+        final Duration retention; // null = keep forever
+
+        Granularity(String prefix, Duration width, Duration retention) {
+            this.prefix = prefix;
+            this.widthMs = width.toMillis();
+            this.retention = retention;
+        }
+
+        long bucketStart(long epochMs) {
+            return epochMs - Math.floorMod(epochMs, widthMs);
+        }
+    }
+
+    private static final String ROLLUPS = "agent_stat_rollups";
+    private static final String SESSIONS = "agent_stat_sessions";
+    private static final String META = "agent_stat_meta";
+    private static final String SESSION_PREFIX = "S|";
+    private static final String TOTAL_PREFIX = "T|";
+
+    private final BTreeMap<String, StatBucket> rollups;
+    private final Map<String, Long> sessions;   // sessionId -> first seen (epoch ms)
+    private final Map<String, String> meta;
+
+    /**
+     * Opens the rollup maps, backfilling them from the raw list the first time.
+     */
+    AgentStatsRollup(DB localDb, List<AgentStat> rawStats) {
+        boolean backfill = !localDb.exists(ROLLUPS);
+        this.rollups = localDb.treeMap(ROLLUPS, Serializer.STRING, new StatBucketSerializer()).createOrOpen();
+        this.sessions = localDb.hashMap(SESSIONS, Serializer.STRING, Serializer.LONG).createOrOpen();
+        this.meta = localDb.hashMap(META, Serializer.STRING, Serializer.STRING).createOrOpen();
+        if (backfill && !rawStats.isEmpty()) {
+            for (AgentStat stat : rawStats) {
+                if (stat != null) record(stat);
+            }
+            localDb.commit();
+        }
+    }
+
+    /**
+     * Folds one stat into all of its buckets. The caller commits.
+     */
+    void record(AgentStat stat) {
+        long ts = stat.getTimestamp() != null ? stat.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        String combo = comboKey(stat);
+        for (Granularity g : Granularity.values()) {
+            long start = g.bucketStart(ts);
+            addTo(timeKey(g, start) + combo, start, stat);
+        }
+        addTo(TOTAL_PREFIX + combo, 0, stat);
+        if (stat.getSessionId() != null) {
+            addTo(SESSION_PREFIX + stat.getSessionId() + "|" + combo, 0, stat);
+            sessions.putIfAbsent(stat.getSessionId(), ts);
+            meta.put("latest_session", stat.getSessionId());
+        }
+    }
+
+    private void addTo(String key, long bucketStart, AgentStat stat) {
+        StatBucket bucket = rollups.get(key);
+        if (bucket == null) {
+            bucket = new StatBucket(bucketStart, stat.getAgentName(), stat.getProvider(), stat.getModel());
+        }
+        bucket.add(stat);
+        rollups.put(key, bucket);
+    }
+
+    /** All-time totals, one bucket per agent/provider/model. */
+    List<StatBucket> totals() {
+        return scan(TOTAL_PREFIX);
+    }
+
+    /** Totals for one session, one bucket per agent/provider/model. */
+    List<StatBucket> sessionTotals(String sessionId) {
+        return scan(SESSION_PREFIX + sessionId + "|");
+    }
+
+    /** Buckets of the given granularity whose start lies in [from, to). */
+    List<StatBucket> buckets(Granularity g, Instant from, Instant to) {
+        List<StatBucket> result = new ArrayList<>();
+        String lo = timeKey(g, g.bucketStart(from.toEpochMilli()));
+        String hi = timeKey(g, to.toEpochMilli());
+        for (StatBucket bucket : rollups.subMap(lo, true, hi, false).values()) {
+            result.add(bucket);
+        }
+        return result;
+    }
+
+    int sessionCount() {
+        return sessions.size();
+    }
+
+    String latestSessionId() {
+        return meta.get("latest_session");
+    }
+
+    /**
+     * Drops minute/hour buckets past their retention. Day, session and total
+     * buckets are kept. The caller commits.
+     *
+     * @return number of buckets removed
+     */
+    int compactBuckets(Instant now) {
+        int removed = 0;
+        for (Granularity g : Granularity.values()) {
+            if (g.retention == null) continue;
+            String lo = g.prefix + "|";
+            String hi = timeKey(g, now.minus(g.retention).toEpochMilli());
+            Iterator<String> it = rollups.subMap(lo, true, hi, false).keySet().iterator();
+            while (it.hasNext()) {
+                it.next();
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private List<StatBucket> scan(String prefix) {
+        List<StatBucket> result = new ArrayList<>();
+        for (Map.Entry<String, StatBucket> e : rollups.tailMap(prefix, true).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) break;
+            result.add(e.getValue());
+        }
+        return result;
+    }
+
+    private static String timeKey(Granularity g, long bucketStartMs) {
+        return g.prefix + "|" + String.format("%013d", Math.max(0, bucketStartMs)) + "|";
+    }
+
+    private static String comboKey(AgentStat stat) {
+        return stat.getAgentName() + "|" + stat.getProvider() + "|" + stat.getModel();
+    }
+}
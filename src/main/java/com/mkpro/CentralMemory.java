@@ -1,19 +1,34 @@
 package com.mkpro;
 
 import com.mkpro.models.AgentConfig;
+import com.mkpro.models.AgentConfigSerializer;
 import com.mkpro.models.AgentStat;
+import com.mkpro.models.AgentStatSerializer;
 import com.mkpro.models.Goal;
+import com.mkpro.models.GoalSerializer;
+import com.mkpro.models.ListSerializer;
 import com.mkpro.models.McpServer;
+import com.mkpro.models.McpServerSerializer;
 import com.mkpro.models.Provider;
+import com.mkpro.models.StatBucket;
 import com.mkpro.utils.PathUtils;
+import org.mapdb.BTreeMap;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.DataOutput2;
 import org.mapdb.Serializer;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -23,17 +38,44 @@ import java.util.stream.Collectors;
  *
  * HOT STORE (per-instance, always open, zero contention):
  *   - Agent stats (high-frequency writes on every delegation)
+ *   - Stat rollups (minute/hour/day/session/all-time, see AgentStatsRollup),
+ *     updated in the same commit; raw rows older than mkpro.stats.retentionDays
+ *     (default {@value #DEFAULT_STATS_RETENTION_DAYS}) are compacted away in the background, daily
  *   - Located in the project's .mkpro/ directory, named per-instance
  *
  * SHARED STORE (brief file lock, retry on contention):
  *   - Agent configs, goals, memories, MCP servers, Ollama servers
  *   - Located in ~/Documents/mkpro/central_memory.db
- *   - Opened briefly per write operation; reads served from cache
+ *   - Writes are write-behind: applied to the cache immediately, coalesced per
+ *     key and flushed in one transaction after a short window (mkpro.memory.flushMs,
+ *     default {@value #DEFAULT_WRITE_BEHIND_MS}ms; 0 = write-through). Call
+ *     {@link #flush()} when durability matters; {@link #close()} flushes too.
+ *   - Listeners still fire synchronously, in call order, at write time
+ *   - Memories live in a sorted BTreeMap ("memories_sorted") so key namespaces
+ *     (knowledge:, facts:, script:) can be range-scanned via {@link #scanPrefix(String)};
+ *     the legacy "memories" HTreeMap is migrated on first open and left untouched,
+ *     unless legacy mirroring is on (see below)
+ *   - Agent configs, goals, MCP servers and agent stats use compact versioned
+ *     serializers (com.mkpro.models.*Serializer) in "_v2" stores; the shared
+ *     Java-serialized originals are copied over once on first open and, like
+ *     "memories", only kept up to date with legacy mirroring on
  *
  * LOCAL CACHE (in-memory, populated on startup, invalidated on writes):
  *   - Agent configs (read on every runner creation)
  *   - MCP servers (read during tool creation)
+ *   - Memories and goals (read-through, revalidated against the shared file stamp)
  *   - Avoids opening the shared DB for frequent reads
+ *
+ * Memories and goals are written by peer instances too, so their cache is
+ * checked against a stamp (size + mtime of the shared DB and its WAL files)
+ * at most every {@value #STAMP_CHECK_INTERVAL_MS}ms and reloaded when it moves.
+ *
+ * LEGACY MIRRORING (opt-in, -D{@value #LEGACY_MIRROR_PROPERTY}=true):
+ *   - For sharing the file with instances from before the migration, which
+ *     only know the legacy stores
+ *   - Every flush also writes the legacy store; on startup and
+ *     {@link #refreshCache()} entries those instances changed are pulled in.
+ *     Stamp-driven reloads never read the legacy stores
  */
 public class CentralMemory {
 
@@ -43,6 +85,8 @@ public class CentralMemory {
 
     private final Path sharedDbPath;
     private final DB localDb;
+    private final List<AgentStat> agentStats; // guarded by localDb
+    private final AgentStatsRollup statsRollup; // guarded by localDb
     private final List<MemoryListener> listeners = new ArrayList<>();
     private static CentralMemory instance;
 
@@ -53,8 +97,63 @@ public class CentralMemory {
     private volatile String selectedOllamaServerCache = null;
     private volatile boolean configCacheLoaded = false;
 
+    // --- Shared read-through cache (memories + goals) ---
+    // Map references are swapped on reload; writes and reloads serialize on sharedCacheLock.
+    // Sorted, so prefix scans touch only the namespace being listed.
+    private volatile ConcurrentSkipListMap<String, String> memoryCache = new ConcurrentSkipListMap<>();
+    private volatile ConcurrentHashMap<String, List<Goal>> goalsCache = new ConcurrentHashMap<>();
+    private volatile boolean sharedCacheLoaded = false;
+    private volatile String sharedDbStamp = "";
+    private volatile long lastStampCheckNanos = 0;
+    private final Object sharedCacheLock = new Object();
+
+    // --- Write-behind queue (guarded by sharedCacheLock) ---
+    // Keyed by store + key so repeated writes to the same entry coalesce.
+    private final LinkedHashMap<String, PendingWrite> pendingWrites = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private final long writeBehindMs;
+    private final boolean legacyMirror;
+    private final ScheduledExecutorService flushExecutor;
+    // Serializes shared-DB flushes and cache reloads. Lock order: flushLock, then sharedCacheLock.
+    private final Object flushLock = new Object();
+
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 150;
+    private static final long STAMP_CHECK_INTERVAL_MS = 250;
+    private static final int MAX_WAL_FILES_CHECKED = 4;
+    private static final long DEFAULT_WRITE_BEHIND_MS = 100;
+    private static final int DEFAULT_STATS_RETENTION_DAYS = 30;
+    private static final long STATS_COMPACTION_DELAY_SECONDS = 30;
+    private static final long STATS_COMPACTION_INTERVAL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final String LEGACY_MEMORIES = "memories";
+    private static final String SORTED_MEMORIES = "memories_sorted";
+    private static final String COMPACT_SUFFIX = "_v2";
+    private static final String LEGACY_MIRROR_PROPERTY = "mkpro.memory.legacyMirror";
+    private static final String MIRRORED_SUFFIX = "_mirrored";
+
+    private static final AgentStatSerializer AGENT_STAT_SERIALIZER = new AgentStatSerializer();
+    private static final AgentConfigSerializer AGENT_CONFIG_SERIALIZER = new AgentConfigSerializer();
+    private static final ListSerializer<Goal> GOAL_LIST_SERIALIZER = new ListSerializer<>(new GoalSerializer());
+    private static final ListSerializer<McpServer> MCP_LIST_SERIALIZER = new ListSerializer<>(new McpServerSerializer());
+
+    /**
+     * A coalesced write waiting for the next shared-DB flush. A null value removes the key.
+     */
+    private static final class PendingWrite {
+        final String store;
+        final String key;
+        final Object value;
+
+        PendingWrite(String store, String key, Object value) {
+            this.store = store;
+            this.key = key;
+            this.value = value;
+        }
+
+        String id() {
+            return store + '\u0000' + key;
+        }
+    }
 
     /**
      * Singleton accessor for CentralMemory.
@@ -80,7 +179,23 @@ public class CentralMemory {
      * Creates CentralMemory with explicit paths (useful for testing).
      */
     public CentralMemory(Path sharedDbPath, Path localDbPath) {
+        this(sharedDbPath, localDbPath, Long.getLong("mkpro.memory.flushMs", DEFAULT_WRITE_BEHIND_MS));
+    }
+
+    /**
+     * Creates CentralMemory with explicit paths and write-behind window.
+     *
+     * @param writeBehindMs how long shared writes are coalesced before flushing; 0 writes through
+     */
+    public CentralMemory(Path sharedDbPath, Path localDbPath, long writeBehindMs) {
         this.sharedDbPath = sharedDbPath;
+        this.writeBehindMs = Math.max(0, writeBehindMs);
+        this.legacyMirror = Boolean.getBoolean(LEGACY_MIRROR_PROPERTY);
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "CentralMemory-flush");
+            t.setDaemon(true);
+            return t;
+        });
         try {
             PathUtils.ensureDirectoriesExist(sharedDbPath);
             PathUtils.ensureDirectoriesExist(localDbPath);
@@ -93,10 +208,26 @@ public class CentralMemory {
                 .fileMmapEnableIfSupported()
                 .transactionEnable()
                 .make();
+        this.agentStats = openAgentStats(localDb);
+        this.statsRollup = new AgentStatsRollup(localDb, agentStats);
 
         // Populate cache from shared DB on startup
         loadCacheFromShared();
 
+        // Trim old raw stat rows once the session is up, then daily for long-running
+        // sessions; rollups keep their totals
+        int retentionDays = Integer.getInteger("mkpro.stats.retentionDays", DEFAULT_STATS_RETENTION_DAYS);
+        if (retentionDays > 0) {
+            flushExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    compactAgentStats(Duration.ofDays(retentionDays));
+                } catch (Exception e) {
+                    // A failed run must not cancel the later ones
+                    System.err.println("[CentralMemory] Stats compaction failed: " + e.getMessage());
+                }
+            }, STATS_COMPACTION_DELAY_SECONDS, STATS_COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+
         // Register singleton
         instance = this;
     }
@@ -108,9 +239,11 @@ public class CentralMemory {
     }
 
     /**
-     * Closes the local DB. Must be called on shutdown.
+     * Flushes pending shared writes and closes the local DB. Must be called on shutdown.
      */
     public void close() {
+        flush();
+        flushExecutor.shutdownNow();
         try {
             if (localDb != null && !localDb.isClosed()) {
                 localDb.close();
@@ -128,6 +261,20 @@ public class CentralMemory {
      * Opens the shared MapDB with retry logic for concurrent multi-instance access.
      */
     private DB openSharedDB() {
+        DB db = tryOpenSharedDB();
+        if (db != null) {
+            return db;
+        }
+        System.err.println("\u001b[33m[CentralMemory] shared DB locked after " + MAX_RETRIES +
+                " retries. Using in-memory fallback.\u001b[0m");
+        return DBMaker.memoryDB().transactionEnable().make();
+    }
+
+    /**
+     * Opens the shared MapDB with retries, returning null instead of an
+     * in-memory fallback when it stays locked.
+     */
+    private DB tryOpenSharedDB() {
         for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
             try {
                 return DBMaker.fileDB(sharedDbPath.toString())
@@ -141,13 +288,10 @@ public class CentralMemory {
                         Thread.currentThread().interrupt();
                         break;
                     }
-                } else {
-                    System.err.println("\u001b[33m[CentralMemory] shared DB locked after " + MAX_RETRIES +
-                            " retries. Using in-memory fallback.\u001b[0m");
                 }
             }
         }
-        return DBMaker.memoryDB().transactionEnable().make();
+        return null;
     }
 
     @FunctionalInterface
@@ -173,6 +317,324 @@ public class CentralMemory {
         }
     }
 
+    // ==========================================================================
+    // WRITE-BEHIND QUEUE
+    // ==========================================================================
+
+    /**
+     * The sorted memories map. Migrates the legacy HTreeMap on first use, dropping
+     * the empty-string values older versions wrote as deletion markers.
+     */
+    private static BTreeMap<String, String> memoriesStore(DB db) {
+        boolean migrate = !db.exists(SORTED_MEMORIES) && db.exists(LEGACY_MEMORIES);
+        BTreeMap<String, String> sorted = db.treeMap(SORTED_MEMORIES, Serializer.STRING, Serializer.STRING).createOrOpen();
+        if (migrate) {
+            Map<String, String> legacy = db.hashMap(LEGACY_MEMORIES, Serializer.STRING, Serializer.STRING).createOrOpen();
+            legacy.forEach((k, v) -> {
+                if (v != null && !v.isEmpty()) sorted.put(k, v);
+            });
+            db.commit();
+        }
+        return sorted;
+    }
+
+    /** Whether {@code store} replaced a legacy store that older instances still use. */
+    private static boolean hasLegacyStore(String store) {
+        switch (store) {
+            case "memories":
+            case "agent_configs":
+            case "project_goals":
+            case "mcp_servers":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Name of the store that replaced the legacy one; both share the same store id. */
+    private static String currentStoreName(String store) {
+        return "memories".equals(store) ? SORTED_MEMORIES : store + COMPACT_SUFFIX;
+    }
+
+    /** The legacy store older instances read and write instead of {@code store}. */
+    @SuppressWarnings("unchecked")
+    private static <V> Map<String, V> legacyStore(DB db, String store) {
+        if ("memories".equals(store)) {
+            return (Map<String, V>) (Map<String, ?>) db.hashMap(LEGACY_MEMORIES, Serializer.STRING, Serializer.STRING).createOrOpen();
+        }
+        return (Map<String, V>) db.hashMap(store, Serializer.STRING, Serializer.JAVA).createOrOpen();
+    }
+
+    /**
+     * Records that {@code store} was written without its legacy mirror, so the
+     * next mirrored start re-seeds the mirror instead of trusting it.
+     */
+    private static void markUnmirrored(DB db, String store) {
+        String marker = currentStoreName(store) + MIRRORED_SUFFIX;
+        if (db.exists(marker)) {
+            db.atomicBoolean(marker).open().set(false);
+        }
+    }
+
+    /**
+     * Pulls what older instances wrote to the legacy stores since we last looked.
+     * Reads every legacy entry, so it only runs on startup and refresh.
+     */
+    private static void pullLegacyWrites(DB db) {
+        boolean changed = pullLegacyWrites(db, "memories", memoriesStore(db), legacyStore(db, "memories"), Serializer.STRING);
+        changed |= pullLegacyWrites(db, "agent_configs", agentConfigsStore(db), legacyStore(db, "agent_configs"), AGENT_CONFIG_SERIALIZER);
+        changed |= pullLegacyWrites(db, "project_goals", goalsStore(db), legacyStore(db, "project_goals"), GOAL_LIST_SERIALIZER);
+        changed |= pullLegacyWrites(db, "mcp_servers", mcpServersStore(db), legacyStore(db, "mcp_servers"), MCP_LIST_SERIALIZER);
+        if (changed) {
+            db.commit();
+        }
+    }
+
+    /**
+     * While mirrored, both stores are written in the same commit, so a legacy
+     * entry that differs was written by an older instance and wins; an empty
+     * string is how those instances delete a memory. A key missing from the
+     * legacy store is never taken as a deletion. If the store was written while
+     * mirroring was off, the legacy store is stale instead: it is re-seeded from
+     * the store, and only keys the store lacks are taken from it.
+     *
+     * @return true if anything changed and needs a commit
+     */
+    private static <V> boolean pullLegacyWrites(DB db, String store, Map<String, V> current, Map<String, V> legacy,
+                                                Serializer<V> serializer) {
+        org.mapdb.Atomic.Boolean mirrored = db.atomicBoolean(currentStoreName(store) + MIRRORED_SUFFIX).createOrOpen();
+        if (!mirrored.get()) {
+            legacy.forEach((k, v) -> {
+                if (isLive(v) && !current.containsKey(k)) current.put(k, v);
+            });
+            current.forEach((k, v) -> {
+                if (!sameValue(serializer, v, legacy.get(k))) legacy.put(k, v);
+            });
+            mirrored.set(true);
+            return true;
+        }
+        boolean changed = false;
+        for (Map.Entry<String, V> e : legacy.entrySet()) {
+            V value = current.get(e.getKey());
+            if (!isLive(e.getValue())) {
+                if (value != null) {
+                    current.remove(e.getKey());
+                    changed = true;
+                }
+            } else if (!sameValue(serializer, e.getValue(), value)) {
+                current.put(e.getKey(), e.getValue());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Older versions deleted memories by writing an empty string. */
+    private static boolean isLive(Object value) {
+        return value != null && !"".equals(value);
+    }
+
+    /** Compares by serialized form, since the stored types don't all define equals. */
+    private static <V> boolean sameValue(Serializer<V> serializer, V a, V b) {
+        if (a == null || b == null) return a == b;
+        try {
+            DataOutput2 outA = new DataOutput2();
+            DataOutput2 outB = new DataOutput2();
+            serializer.serialize(outA, a);
+            serializer.serialize(outB, b);
+            return Arrays.equals(outA.copyBytes(), outB.copyBytes());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, AgentConfig> agentConfigsStore(DB db) {
+        return compactStore(db, "agent_configs", AGENT_CONFIG_SERIALIZER);
+    }
+
+    private static Map<String, List<Goal>> goalsStore(DB db) {
+        return compactStore(db, "project_goals", GOAL_LIST_SERIALIZER);
+    }
+
+    private static Map<String, List<McpServer>> mcpServersStore(DB db) {
+        return compactStore(db, "mcp_servers", MCP_LIST_SERIALIZER);
+    }
+
+    /**
+     * Opens the compact "_v2" variant of a shared store, copying the
+     * Java-serialized legacy store into it the first time it is opened.
+     * After that the legacy store is only written with legacy mirroring on.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> Map<String, V> compactStore(DB db, String legacyName, Serializer<V> serializer) {
+        String name = legacyName + COMPACT_SUFFIX;
+        boolean migrate = !db.exists(name) && db.exists(legacyName);
+        Map<String, V> store = db.hashMap(name, Serializer.STRING, serializer).createOrOpen();
+        if (migrate) {
+            Map<String, V> legacy = db.hashMap(legacyName, Serializer.STRING, Serializer.JAVA).createOrOpen();
+            legacy.forEach((k, v) -> {
+                if (v != null) store.put(k, v);
+            });
+            db.commit();
+        }
+        return store;
+    }
+
+    /**
+     * Opens the compact local stats list. The Java-serialized legacy list is
+     * instance-private, so it is emptied once migrated to reclaim space.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<AgentStat> openAgentStats(DB localDb) {
+        String name = "agent_stats" + COMPACT_SUFFIX;
+        boolean migrate = !localDb.exists(name) && localDb.exists("agent_stats");
+        List<AgentStat> stats = localDb.indexTreeList(name, AGENT_STAT_SERIALIZER).createOrOpen();
+        if (migrate) {
+            List<AgentStat> legacy = (List<AgentStat>) localDb.indexTreeList("agent_stats", Serializer.JAVA).createOrOpen();
+            for (AgentStat stat : legacy) {
+                if (stat != null) stats.add(stat);
+            }
+            legacy.clear();
+            localDb.commit();
+        }
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> openStore(DB db, String store) {
+        switch (store) {
+            case "memories":
+                return (Map<String, Object>) (Map<String, ?>) memoriesStore(db);
+            case "agent_configs":
+                return (Map<String, Object>) (Map<String, ?>) agentConfigsStore(db);
+            case "project_goals":
+                return (Map<String, Object>) (Map<String, ?>) goalsStore(db);
+            case "mcp_servers":
+                return (Map<String, Object>) (Map<String, ?>) mcpServersStore(db);
+            default:
+                break;
+        }
+        if ("selected_ollama_server".equals(store)) {
+            return (Map<String, Object>) (Map<String, ?>) db.hashMap(store, Serializer.STRING, Serializer.STRING).createOrOpen();
+        }
+        return (Map<String, Object>) (Map<String, ?>) db.hashMap(store, Serializer.STRING, Serializer.JAVA).createOrOpen();
+    }
+
+    /**
+     * Queues a shared-DB write, replacing any pending write for the same key.
+     * Caller must hold sharedCacheLock and call {@link #afterSharedWrite()} once it is released.
+     */
+    private void enqueueWriteLocked(String store, String key, Object value) {
+        PendingWrite write = new PendingWrite(store, key, value);
+        pendingWrites.remove(write.id());
+        pendingWrites.put(write.id(), write);
+        if (writeBehindMs > 0 && !flushScheduled) {
+            flushScheduled = true;
+            try {
+                flushExecutor.schedule(() -> { flush(); }, writeBehindMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                flushScheduled = false; // executor shut down; close()/flush() picks it up
+            }
+        }
+    }
+
+    /**
+     * In write-through mode, persists what was just queued. Must not hold sharedCacheLock.
+     */
+    private void afterSharedWrite() {
+        if (writeBehindMs <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Synchronously writes all pending shared writes in a single transaction.
+     *
+     * @return true if nothing is left pending; false if the shared DB stayed
+     *         locked (writes are kept and retried on the next flush)
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            List<PendingWrite> batch;
+            synchronized (sharedCacheLock) {
+                flushScheduled = false;
+                if (pendingWrites.isEmpty()) {
+                    return true;
+                }
+                batch = new ArrayList<>(pendingWrites.values());
+                pendingWrites.clear();
+            }
+
+            // A moved stamp means a peer wrote since we last looked; reload after our write
+            boolean peerChanged = sharedCacheLoaded && !computeSharedDbStamp().equals(sharedDbStamp);
+
+            DB db = tryOpenSharedDB();
+            if (db == null) {
+                requeue(batch);
+                System.err.println("[CentralMemory] Warning: shared DB locked, " + batch.size() + " write(s) deferred");
+                return false;
+            }
+            try (db) {
+                for (PendingWrite w : batch) {
+                    Map<String, Object> map = openStore(db, w.store);
+                    Map<String, Object> legacy = null;
+                    if (hasLegacyStore(w.store)) {
+                        if (legacyMirror) legacy = legacyStore(db, w.store);
+                        else markUnmirrored(db, w.store);
+                    }
+                    if (w.value == null) {
+                        map.remove(w.key);
+                        if (legacy != null) legacy.remove(w.key);
+                    } else {
+                        map.put(w.key, w.value);
+                        if (legacy != null) legacy.put(w.key, w.value);
+                    }
+                }
+                db.commit();
+            } catch (Exception e) {
+                requeue(batch);
+                System.err.println("[CentralMemory] Warning: flush failed, " + batch.size() + " write(s) deferred: " + e.getMessage());
+                return false;
+            }
+
+            synchronized (sharedCacheLock) {
+                if (peerChanged) {
+                    sharedCacheLoaded = false;
+                } else {
+                    markSharedCacheCurrent();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Puts a failed batch back without clobbering newer writes queued meanwhile, and retries later.
+     */
+    private void requeue(List<PendingWrite> batch) {
+        synchronized (sharedCacheLock) {
+            LinkedHashMap<String, PendingWrite> merged = new LinkedHashMap<>();
+            for (PendingWrite w : batch) {
+                merged.put(w.id(), w);
+            }
+            for (PendingWrite w : pendingWrites.values()) {
+                merged.remove(w.id());
+                merged.put(w.id(), w);
+            }
+            pendingWrites.clear();
+            pendingWrites.putAll(merged);
+            if (!flushScheduled) {
+                try {
+                    flushExecutor.schedule(() -> { flush(); },
+                            Math.max(writeBehindMs, RETRY_DELAY_MS * MAX_RETRIES), TimeUnit.MILLISECONDS);
+                    flushScheduled = true;
+                } catch (Exception e) {
+                    // Executor shut down; the caller's flush()/close() reports the failure
+                }
+            }
+        }
+    }
+
     // ==========================================================================
     // CACHE MANAGEMENT
     // ==========================================================================
@@ -180,13 +642,17 @@ public class CentralMemory {
     private void loadCacheFromShared() {
         try {
             withSharedDbVoid(db -> {
+                if (legacyMirror) {
+                    pullLegacyWrites(db);
+                }
+
                 // Load agent configs
-                Map<String, AgentConfig> configs = db.hashMap("agent_configs", Serializer.STRING, Serializer.JAVA).createOrOpen();
+                Map<String, AgentConfig> configs = agentConfigsStore(db);
                 configCache.putAll(configs);
                 configCacheLoaded = true;
 
                 // Load MCP servers
-                Map<String, List<McpServer>> mcpMap = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
+                Map<String, List<McpServer>> mcpMap = mcpServersStore(db);
                 List<McpServer> servers = mcpMap.get("all");
                 mcpServerCache = servers != null ? new ArrayList<>(servers) : new ArrayList<>();
 
@@ -210,11 +676,109 @@ public class CentralMemory {
      * Useful when receiving sync notifications from other instances.
      */
     public void refreshCache() {
+        flush();
         configCache.clear();
         mcpServerCache = null;
         ollamaServerCache = null;
         selectedOllamaServerCache = null;
         loadCacheFromShared();
+        sharedCacheLoaded = false;
+    }
+
+    /**
+     * Makes sure the memories/goals cache reflects the shared DB.
+     * Cheap in the common case: a nanoTime comparison, and at most every
+     * STAMP_CHECK_INTERVAL_MS a few file stats. Only a moved stamp (a write by
+     * another instance) triggers a full reload.
+     */
+    private void ensureSharedCacheFresh() {
+        long now = System.nanoTime();
+        if (sharedCacheLoaded
+                && now - lastStampCheckNanos < TimeUnit.MILLISECONDS.toNanos(STAMP_CHECK_INTERVAL_MS)) {
+            return;
+        }
+        lastStampCheckNanos = now;
+        if (sharedCacheLoaded && computeSharedDbStamp().equals(sharedDbStamp)) {
+            return;
+        }
+        reloadSharedCache();
+    }
+
+    private void reloadSharedCache() {
+        synchronized (flushLock) {
+            synchronized (sharedCacheLock) {
+                DB db = tryOpenSharedDB();
+                if (db == null) {
+                    // Keep serving the previous snapshot; the next check retries
+                    System.err.println("[CentralMemory] Warning: shared DB locked, serving cached memories/goals");
+                    return;
+                }
+                try (db) {
+                    Map<String, List<Goal>> project_goals = goalsStore(db);
+                    ConcurrentSkipListMap<String, String> mem = new ConcurrentSkipListMap<>(memoriesStore(db));
+                    ConcurrentHashMap<String, List<Goal>> goals = new ConcurrentHashMap<>();
+                    project_goals.forEach((k, v) -> goals.put(k, v != null ? new ArrayList<>(v) : new ArrayList<>()));
+                    // Our own unflushed writes win over the snapshot
+                    applyPendingTo(mem, goals);
+                    memoryCache = mem;
+                    goalsCache = goals;
+                } catch (Exception e) {
+                    System.err.println("[CentralMemory] Warning: could not reload memories/goals: " + e.getMessage());
+                    return;
+                }
+                // Stamp taken after close so our own read-only open/close is not seen as a change
+                sharedDbStamp = computeSharedDbStamp();
+                lastStampCheckNanos = System.nanoTime();
+                sharedCacheLoaded = true;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyPendingTo(Map<String, String> mem, Map<String, List<Goal>> goals) {
+        for (PendingWrite w : pendingWrites.values()) {
+            if ("memories".equals(w.store)) {
+                if (w.value == null) mem.remove(w.key); else mem.put(w.key, (String) w.value);
+            } else if ("project_goals".equals(w.store)) {
+                if (w.value == null) goals.remove(w.key); else goals.put(w.key, new ArrayList<>((List<Goal>) w.value));
+            }
+        }
+    }
+
+    /**
+     * Re-stamps after one of our own writes so it doesn't trigger a reload.
+     * Must be called while holding sharedCacheLock, after the shared DB is closed.
+     */
+    private void markSharedCacheCurrent() {
+        if (sharedCacheLoaded) {
+            sharedDbStamp = computeSharedDbStamp();
+            lastStampCheckNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Size + mtime of the shared DB file and its WAL segments. MapDB writes
+     * commits through the WAL, so any peer commit moves at least one of these.
+     */
+    private String computeSharedDbStamp() {
+        StringBuilder sb = new StringBuilder();
+        appendFileStamp(sb, sharedDbPath);
+        for (int i = 0; i < MAX_WAL_FILES_CHECKED; i++) {
+            Path wal = sharedDbPath.resolveSibling(sharedDbPath.getFileName() + ".wal." + i);
+            if (!appendFileStamp(sb, wal)) break;
+        }
+        return sb.toString();
+    }
+
+    private static boolean appendFileStamp(StringBuilder sb, Path file) {
+        try {
+            sb.append(Files.size(file)).append('@')
+              .append(Files.getLastModifiedTime(file).toMillis()).append(';');
+            return true;
+        } catch (IOException e) {
+            sb.append("-;");
+            return false;
+        }
     }
 
     public void addListener(MemoryListener l) {
@@ -237,19 +801,90 @@ public class CentralMemory {
 
     public void saveAgentStat(AgentStat stat) {
         synchronized (localDb) {
-            @SuppressWarnings("unchecked")
-            List<AgentStat> agent_stats = (List<AgentStat>) localDb.indexTreeList("agent_stats", Serializer.JAVA).createOrOpen();
-            agent_stats.add(stat);
+            agentStats.add(stat);
+            statsRollup.record(stat);
             localDb.commit();
         }
         notifyListeners("agent_stats", stat);
     }
 
+    /**
+     * Raw stat rows still within the retention window. Prefer the rollup
+     * queries below for aggregates; this copies the whole list.
+     */
     public List<AgentStat> getAgentStats() {
         synchronized (localDb) {
-            @SuppressWarnings("unchecked")
-            List<AgentStat> agent_stats = (List<AgentStat>) localDb.indexTreeList("agent_stats", Serializer.JAVA).createOrOpen();
-            return new ArrayList<>(agent_stats);
+            return new ArrayList<>(agentStats);
+        }
+    }
+
+    /**
+     * All-time totals, one bucket per agent/provider/model. O(combinations).
+     */
+    public List<StatBucket> getAgentStatTotals() {
+        synchronized (localDb) {
+            return statsRollup.totals();
+        }
+    }
+
+    /**
+     * Totals for one session, one bucket per agent/provider/model.
+     */
+    public List<StatBucket> getSessionStatTotals(String sessionId) {
+        synchronized (localDb) {
+            return statsRollup.sessionTotals(sessionId);
+        }
+    }
+
+    /**
+     * Minute/hour/day buckets whose start lies in [from, to). Minute buckets are
+     * kept for 2 days and hour buckets for 90; day buckets are kept forever.
+     */
+    public List<StatBucket> getAgentStatBuckets(AgentStatsRollup.Granularity granularity, Instant from, Instant to) {
+        synchronized (localDb) {
+            return statsRollup.buckets(granularity, from, to);
+        }
+    }
+
+    public int getStatSessionCount() {
+        synchronized (localDb) {
+            return statsRollup.sessionCount();
+        }
+    }
+
+    public String getLatestStatSessionId() {
+        synchronized (localDb) {
+            return statsRollup.latestSessionId();
+        }
+    }
+
+    /**
+     * Removes raw stat rows older than {@code retention} and expired minute/hour
+     * buckets. Rollup totals are unaffected.
+     *
+     * @return number of raw rows removed
+     */
+    public int compactAgentStats(Duration retention) {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(retention);
+        synchronized (localDb) {
+            if (localDb.isClosed()) return 0;
+            List<AgentStat> kept = new ArrayList<>();
+            for (AgentStat stat : agentStats) {
+                if (stat != null && stat.getTimestamp() != null && !stat.getTimestamp().isBefore(cutoff)) {
+                    kept.add(stat);
+                }
+            }
+            int removed = agentStats.size() - kept.size();
+            if (removed > 0) {
+                agentStats.clear();
+                agentStats.addAll(kept);
+            }
+            int bucketsRemoved = statsRollup.compactBuckets(now);
+            if (removed > 0 || bucketsRemoved > 0) {
+                localDb.commit();
+            }
+            return removed;
         }
     }
 
@@ -281,24 +916,20 @@ public class CentralMemory {
     }
 
     public void saveAgentConfig(String agentName, AgentConfig config) {
-        // Write to shared DB
-        withSharedDbVoid(db -> {
-            Map<String, AgentConfig> agent_configs = db.hashMap("agent_configs", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            agent_configs.put(agentName, config);
-            db.commit();
-        });
-        // Update local cache
-        configCache.put(agentName, config);
+        synchronized (sharedCacheLock) {
+            configCache.put(agentName, config);
+            enqueueWriteLocked("agent_configs", agentName, config);
+        }
+        afterSharedWrite();
         notifyListeners("agent_config:" + agentName, config);
     }
 
     public void deleteAgentConfig(String agentName) {
-        withSharedDbVoid(db -> {
-            Map<String, AgentConfig> agent_configs = db.hashMap("agent_configs", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            agent_configs.remove(agentName);
-            db.commit();
-        });
-        configCache.remove(agentName);
+        synchronized (sharedCacheLock) {
+            configCache.remove(agentName);
+            enqueueWriteLocked("agent_configs", agentName, null);
+        }
+        afterSharedWrite();
         notifyListeners("agent_config_deleted:" + agentName, null);
     }
 
@@ -318,30 +949,53 @@ public class CentralMemory {
     }
 
     // ==========================================================================
-    // SHARED PATH — Memories (infrequent, always go to shared DB)
+    // CACHED PATH — Memories (read-through cache, written to shared DB)
     // ==========================================================================
 
     public String getMemory(String path) {
-        return withSharedDb(db -> {
-            Map<String, String> memories = db.hashMap("memories", Serializer.STRING, Serializer.STRING).createOrOpen();
-            return memories.getOrDefault(path, "");
-        });
+        ensureSharedCacheFresh();
+        return memoryCache.getOrDefault(path, "");
     }
 
     public void saveMemory(String path, String content) {
-        withSharedDbVoid(db -> {
-            Map<String, String> memories = db.hashMap("memories", Serializer.STRING, Serializer.STRING).createOrOpen();
-            memories.put(path, content);
-            db.commit();
-        });
+        synchronized (sharedCacheLock) {
+            memoryCache.put(path, content);
+            enqueueWriteLocked("memories", path, content);
+        }
+        afterSharedWrite();
         notifyListeners("memory:" + path, content);
     }
 
+    /**
+     * Removes a memory entry. Peers receive it as a "memory:" update with a null value.
+     */
+    public void deleteMemory(String path) {
+        synchronized (sharedCacheLock) {
+            memoryCache.remove(path);
+            enqueueWriteLocked("memories", path, null);
+        }
+        afterSharedWrite();
+        notifyListeners("memory:" + path, null);
+    }
+
+    /**
+     * Lazily iterates memories whose key starts with {@code prefix}, in key order.
+     * Cost is proportional to the size of the namespace, not the whole store.
+     * The iterator is weakly consistent: concurrent writes may or may not be seen.
+     */
+    public Iterator<Map.Entry<String, String>> scanPrefix(String prefix) {
+        ensureSharedCacheFresh();
+        return memoryCache.tailMap(prefix, true).entrySet().stream()
+                .takeWhile(e -> e.getKey().startsWith(prefix))
+                .iterator();
+    }
+
+    /**
+     * Full copy of all memories. Prefer {@link #scanPrefix(String)} for namespace listings.
+     */
     public Map<String, String> getAllMemories() {
-        return withSharedDb(db -> {
-            Map<String, String> memories = db.hashMap("memories", Serializer.STRING, Serializer.STRING).createOrOpen();
-            return new HashMap<>(memories);
-        });
+        ensureSharedCacheFresh();
+        return new HashMap<>(memoryCache);
     }
 
     /**
@@ -349,24 +1003,24 @@ public class CentralMemory {
      * Used by the web MapDB browser for visualization/debugging.
      */
     public Map<String, Map<String, String>> dumpAllStores() {
+        flush(); // show what this instance has written, not just what was flushed so far
         Map<String, Map<String, String>> result = new java.util.LinkedHashMap<>();
         
         // Shared stores
         Map<String, Map<String, String>> shared = withSharedDb(db -> {
             Map<String, Map<String, String>> r = new java.util.LinkedHashMap<>();
 
-            // Memories
-            Map<String, String> memories = db.hashMap("memories", Serializer.STRING, Serializer.STRING).createOrOpen();
-            r.put("memories", new java.util.LinkedHashMap<>(memories));
+            // Memories (sorted, so the browser shows namespaces grouped)
+            r.put("memories", new java.util.LinkedHashMap<>(memoriesStore(db)));
 
             // Agent configs
-            Map<String, Object> configs = db.hashMap("agent_configs", Serializer.STRING, Serializer.JAVA).createOrOpen();
+            Map<String, AgentConfig> configs = agentConfigsStore(db);
             Map<String, String> configStrings = new java.util.LinkedHashMap<>();
             configs.forEach((k, v) -> configStrings.put(k, v != null ? v.toString() : "null"));
             r.put("agent_configs", configStrings);
 
             // MCP servers
-            Map<String, Object> mcpMap = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
+            Map<String, List<McpServer>> mcpMap = mcpServersStore(db);
             Map<String, String> mcpStrings = new java.util.LinkedHashMap<>();
             mcpMap.forEach((k, v) -> mcpStrings.put(k, v != null ? v.toString() : "null"));
             r.put("mcp_servers", mcpStrings);
@@ -378,7 +1032,7 @@ public class CentralMemory {
             r.put("ollama_servers", ollamaStrings);
 
             // Goals
-            Map<String, Object> goalsMap = db.hashMap("project_goals", Serializer.STRING, Serializer.JAVA).createOrOpen();
+            Map<String, List<Goal>> goalsMap = goalsStore(db);
             Map<String, String> goalStrings = new java.util.LinkedHashMap<>();
             goalsMap.forEach((k, v) -> goalStrings.put(k, v != null ? v.toString() : "null"));
             r.put("project_goals", goalStrings);
@@ -389,12 +1043,13 @@ public class CentralMemory {
 
         // Local stats (agent_stats from local DB)
         try {
-            List<AgentStat> stats = (List<AgentStat>) localDb.indexTreeList("agent_stats", Serializer.JAVA).createOrOpen();
             Map<String, String> statsMap = new java.util.LinkedHashMap<>();
-            int count = Math.min(stats.size(), 100); // Last 100 entries
-            for (int i = Math.max(0, stats.size() - count); i < stats.size(); i++) {
-                AgentStat stat = stats.get(i);
-                statsMap.put(String.valueOf(i), stat != null ? stat.toString() : "null");
+            synchronized (localDb) {
+                int count = Math.min(agentStats.size(), 100); // Last 100 entries
+                for (int i = Math.max(0, agentStats.size() - count); i < agentStats.size(); i++) {
+                    AgentStat stat = agentStats.get(i);
+                    statsMap.put(String.valueOf(i), stat != null ? stat.toString() : "null");
+                }
             }
             result.put("agent_stats (local, last 100)", statsMap);
         } catch (Exception e) {
@@ -403,11 +1058,11 @@ public class CentralMemory {
 
         // Session logs (from ActionLogger)
         try {
-            List<String> logs = ActionLogger.getLogs();
+            List<String> logs = ActionLogger.getRecentLogs(50); // Last 50 log entries
+            long start = ActionLogger.getLogCount() - logs.size();
             Map<String, String> logMap = new java.util.LinkedHashMap<>();
-            int start = Math.max(0, logs.size() - 50); // Last 50 log entries
-            for (int i = start; i < logs.size(); i++) {
-                logMap.put(String.valueOf(i), logs.get(i));
+            for (int i = 0; i < logs.size(); i++) {
+                logMap.put(String.valueOf(start + i), logs.get(i));
             }
             result.put("session_logs (last 50)", logMap);
         } catch (Exception e) {
@@ -422,53 +1077,50 @@ public class CentralMemory {
     // ==========================================================================
 
     public List<Goal> getGoals(String path) {
-        return withSharedDb(db -> {
-            Map<String, List<Goal>> project_goals = db.hashMap("project_goals", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<Goal> goals = project_goals.get(path);
-            return goals != null ? new ArrayList<>(goals) : Collections.emptyList();
-        });
+        ensureSharedCacheFresh();
+        List<Goal> goals = goalsCache.get(path);
+        return goals != null ? new ArrayList<>(goals) : Collections.emptyList();
     }
 
     public void addGoal(String path, Goal goal) {
-        withSharedDbVoid(db -> {
-            Map<String, List<Goal>> project_goals = db.hashMap("project_goals", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<Goal> goals = project_goals.get(path);
+        ensureSharedCacheFresh();
+        synchronized (sharedCacheLock) {
+            List<Goal> goals = goalsCache.get(path);
             List<Goal> updated = goals != null ? new ArrayList<>(goals) : new ArrayList<>();
             updated.add(goal);
-            project_goals.put(path, updated);
-            db.commit();
-        });
+            goalsCache.put(path, updated);
+            enqueueWriteLocked("project_goals", path, new ArrayList<>(updated));
+        }
+        afterSharedWrite();
         notifyListeners("goals:" + path, null);
     }
 
     public void updateGoal(String path, Goal updatedGoal) {
-        withSharedDbVoid(db -> {
-            Map<String, List<Goal>> project_goals = db.hashMap("project_goals", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<Goal> goals = project_goals.get(path);
-            if (goals == null) return;
-            List<Goal> updated = new ArrayList<>(goals);
-            boolean found = false;
-            for (int i = 0; i < updated.size(); i++) {
-                if (updated.get(i).getId().equals(updatedGoal.getId())) {
-                    updated.set(i, updatedGoal);
-                    found = true;
-                    break;
+        ensureSharedCacheFresh();
+        synchronized (sharedCacheLock) {
+            List<Goal> goals = goalsCache.get(path);
+            if (goals != null) {
+                List<Goal> updated = new ArrayList<>(goals);
+                for (int i = 0; i < updated.size(); i++) {
+                    if (updated.get(i).getId().equals(updatedGoal.getId())) {
+                        updated.set(i, updatedGoal);
+                        goalsCache.put(path, updated);
+                        enqueueWriteLocked("project_goals", path, new ArrayList<>(updated));
+                        break;
+                    }
                 }
             }
-            if (found) {
-                project_goals.put(path, updated);
-                db.commit();
-            }
-        });
+        }
+        afterSharedWrite();
         notifyListeners("goals:" + path, null);
     }
 
     public void setGoals(String path, List<Goal> goals) {
-        withSharedDbVoid(db -> {
-            Map<String, List<Goal>> project_goals = db.hashMap("project_goals", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            project_goals.put(path, goals);
-            db.commit();
-        });
+        synchronized (sharedCacheLock) {
+            goalsCache.put(path, new ArrayList<>(goals));
+            enqueueWriteLocked("project_goals", path, new ArrayList<>(goals));
+        }
+        afterSharedWrite();
         notifyListeners("goals:" + path, goals);
     }
 
@@ -481,8 +1133,7 @@ public class CentralMemory {
             return new ArrayList<>(mcpServerCache);
         }
         List<McpServer> result = withSharedDb(db -> {
-            Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<McpServer> servers = mcp_servers.get("all");
+            List<McpServer> servers = mcpServersStore(db).get("all");
             return servers != null ? new ArrayList<>(servers) : new ArrayList<>();
         });
         mcpServerCache = result;
@@ -490,60 +1141,42 @@ public class CentralMemory {
     }
 
     public void saveMcpServers(List<McpServer> servers) {
-        withSharedDbVoid(db -> {
-            Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            mcp_servers.put("all", servers);
-            db.commit();
-        });
-        mcpServerCache = new ArrayList<>(servers);
+        synchronized (sharedCacheLock) {
+            mcpServerCache = new ArrayList<>(servers);
+            enqueueWriteLocked("mcp_servers", "all", new ArrayList<>(servers));
+        }
+        afterSharedWrite();
         notifyListeners("mcp_servers", servers);
     }
 
     public void addMcpServer(McpServer server) {
-        withSharedDbVoid(db -> {
-            Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<McpServer> list = mcp_servers.get("all");
-            List<McpServer> updated = list != null ? new ArrayList<>(list) : new ArrayList<>();
+        getMcpServers(); // make sure the cache is loaded
+        synchronized (sharedCacheLock) {
+            List<McpServer> updated = new ArrayList<>(mcpServerCache);
             updated.removeIf(s -> s.getId().equals(server.getId()));
             updated.add(server);
-            mcp_servers.put("all", updated);
-            db.commit();
-            mcpServerCache = new ArrayList<>(updated);
-        });
+            mcpServerCache = updated;
+            enqueueWriteLocked("mcp_servers", "all", new ArrayList<>(updated));
+        }
+        afterSharedWrite();
         notifyListeners("mcp_servers", null);
     }
 
     public void removeMcpServer(String id) {
-        withSharedDbVoid(db -> {
-            Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<McpServer> list = mcp_servers.get("all");
-            if (list == null) return;
-            List<McpServer> updated = new ArrayList<>(list);
+        getMcpServers(); // make sure the cache is loaded
+        synchronized (sharedCacheLock) {
+            List<McpServer> updated = new ArrayList<>(mcpServerCache);
             if (updated.removeIf(s -> s.getId().equals(id))) {
-                mcp_servers.put("all", updated);
-                db.commit();
-                mcpServerCache = new ArrayList<>(updated);
+                mcpServerCache = updated;
+                enqueueWriteLocked("mcp_servers", "all", new ArrayList<>(updated));
             }
-        });
+        }
+        afterSharedWrite();
         notifyListeners("mcp_servers", null);
     }
 
     public void toggleMcpServer(String id) {
-        withSharedDbVoid(db -> {
-            Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<McpServer> list = mcp_servers.get("all");
-            if (list == null) return;
-            List<McpServer> updated = new ArrayList<>(list);
-            for (McpServer s : updated) {
-                if (s.getId().equals(id)) {
-                    s.setEnabled(!s.isEnabled());
-                    mcp_servers.put("all", updated);
-                    db.commit();
-                    mcpServerCache = new ArrayList<>(updated);
-                    break;
-                }
-            }
-        });
+        modifyMcpServer(id, s -> s.setEnabled(!s.isEnabled()));
         notifyListeners("mcp_servers", null);
     }
 
@@ -554,21 +1187,23 @@ public class CentralMemory {
     }
 
     public void updateMcpServerConnection(String id) {
-        withSharedDbVoid(db -> {
-            Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            List<McpServer> list = mcp_servers.get("all");
-            if (list == null) return;
-            List<McpServer> updated = new ArrayList<>(list);
+        modifyMcpServer(id, s -> s.setLastConnectedAt(System.currentTimeMillis()));
+    }
+
+    private void modifyMcpServer(String id, java.util.function.Consumer<McpServer> change) {
+        getMcpServers(); // make sure the cache is loaded
+        synchronized (sharedCacheLock) {
+            List<McpServer> updated = new ArrayList<>(mcpServerCache);
             for (McpServer s : updated) {
                 if (s.getId().equals(id)) {
-                    s.setLastConnectedAt(System.currentTimeMillis());
-                    mcp_servers.put("all", updated);
-                    db.commit();
-                    mcpServerCache = new ArrayList<>(updated);
+                    change.accept(s);
+                    mcpServerCache = updated;
+                    enqueueWriteLocked("mcp_servers", "all", new ArrayList<>(updated));
                     break;
                 }
             }
-        });
+        }
+        afterSharedWrite();
     }
 
     // ==========================================================================
@@ -589,12 +1224,11 @@ public class CentralMemory {
     }
 
     public void saveOllamaServers(List<String> servers) {
-        withSharedDbVoid(db -> {
-            Map<String, List<String>> ollama_servers = db.hashMap("ollama_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-            ollama_servers.put("list", servers);
-            db.commit();
-        });
-        ollamaServerCache = new ArrayList<>(servers);
+        synchronized (sharedCacheLock) {
+            ollamaServerCache = new ArrayList<>(servers);
+            enqueueWriteLocked("ollama_servers", "list", new ArrayList<>(servers));
+        }
+        afterSharedWrite();
         notifyListeners("ollama_servers", servers);
     }
 
@@ -611,12 +1245,11 @@ public class CentralMemory {
     }
 
     public void saveSelectedOllamaServer(String url) {
-        withSharedDbVoid(db -> {
-            Map<String, String> selected = db.hashMap("selected_ollama_server", Serializer.STRING, Serializer.STRING).createOrOpen();
-            selected.put("url", url);
-            db.commit();
-        });
-        selectedOllamaServerCache = url;
+        synchronized (sharedCacheLock) {
+            selectedOllamaServerCache = url;
+            enqueueWriteLocked("selected_ollama_server", "url", url);
+        }
+        afterSharedWrite();
         notifyListeners("selected_ollama_server", url);
     }
 
@@ -626,41 +1259,51 @@ public class CentralMemory {
 
     @SuppressWarnings("unchecked")
     public void updateFromRemote(String key, Object value) {
-        withSharedDbVoid(db -> {
-            if (key.startsWith("memory:")) {
-                Map<String, String> memories = db.hashMap("memories", Serializer.STRING, Serializer.STRING).createOrOpen();
-                memories.put(key.substring(7), (String) value);
-            } else if (key.startsWith("goals:")) {
-                Map<String, List<Goal>> project_goals = db.hashMap("project_goals", Serializer.STRING, Serializer.JAVA).createOrOpen();
-                project_goals.put(key.substring(6), (List<Goal>) value);
-            } else if (key.equals("mcp_servers")) {
-                Map<String, List<McpServer>> mcp_servers = db.hashMap("mcp_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-                List<McpServer> servers = (List<McpServer>) value;
-                mcp_servers.put("all", servers);
-                mcpServerCache = servers != null ? new ArrayList<>(servers) : new ArrayList<>();
-            } else if (key.equals("agent_stats")) {
-                // Remote stats go to shared DB (not local) for cross-instance visibility
+        if (key.equals("agent_stats")) {
+            // Remote stats go to shared DB (not local) for cross-instance visibility
+            withSharedDbVoid(db -> {
                 List<AgentStat> stats = (List<AgentStat>) value;
-                List<AgentStat> agent_stats = (List<AgentStat>) db.indexTreeList("agent_stats_shared", Serializer.JAVA).createOrOpen();
+                List<AgentStat> agent_stats = db.indexTreeList("agent_stats_shared" + COMPACT_SUFFIX, AGENT_STAT_SERIALIZER).createOrOpen();
                 agent_stats.clear();
                 agent_stats.addAll(stats);
+                db.commit();
+            });
+            return;
+        }
+        synchronized (sharedCacheLock) {
+            if (key.startsWith("memory:")) {
+                String path = key.substring(7);
+                if (value != null) {
+                    memoryCache.put(path, (String) value);
+                } else {
+                    memoryCache.remove(path);
+                }
+                enqueueWriteLocked("memories", path, value);
+            } else if (key.startsWith("goals:")) {
+                List<Goal> goals = value != null ? new ArrayList<>((List<Goal>) value) : new ArrayList<>();
+                goalsCache.put(key.substring(6), goals);
+                enqueueWriteLocked("project_goals", key.substring(6), new ArrayList<>(goals));
+            } else if (key.equals("mcp_servers")) {
+                List<McpServer> servers = value != null ? new ArrayList<>((List<McpServer>) value) : new ArrayList<>();
+                mcpServerCache = servers;
+                enqueueWriteLocked("mcp_servers", "all", new ArrayList<>(servers));
             } else if (key.startsWith("agent_config:")) {
-                Map<String, AgentConfig> agent_configs = db.hashMap("agent_configs", Serializer.STRING, Serializer.JAVA).createOrOpen();
                 String agentName = key.substring(13);
-                agent_configs.put(agentName, (AgentConfig) value);
-                // Update local cache
-                configCache.put(agentName, (AgentConfig) value);
+                if (value != null) {
+                    configCache.put(agentName, (AgentConfig) value);
+                } else {
+                    configCache.remove(agentName);
+                }
+                enqueueWriteLocked("agent_configs", agentName, value);
             } else if (key.equals("ollama_servers")) {
-                Map<String, List<String>> ollama_servers = db.hashMap("ollama_servers", Serializer.STRING, Serializer.JAVA).createOrOpen();
-                List<String> servers = (List<String>) value;
-                ollama_servers.put("list", servers);
-                ollamaServerCache = servers != null ? new ArrayList<>(servers) : new ArrayList<>();
+                List<String> servers = value != null ? new ArrayList<>((List<String>) value) : new ArrayList<>();
+                ollamaServerCache = servers;
+                enqueueWriteLocked("ollama_servers", "list", new ArrayList<>(servers));
             } else if (key.equals("selected_ollama_server")) {
-                Map<String, String> selected = db.hashMap("selected_ollama_server", Serializer.STRING, Serializer.STRING).createOrOpen();
-                selected.put("url", (String) value);
                 selectedOllamaServerCache = (String) value;
+                enqueueWriteLocked("selected_ollama_server", "url", value);
             }
-            db.commit();
-        });
+        }
+        afterSharedWrite();
     }
 }
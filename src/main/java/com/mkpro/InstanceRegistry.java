@@ -23,6 +23,25 @@ import java.util.List;
 public class InstanceRegistry {
     private static final ObjectMapper mapper = new ObjectMapper();
     private static final Path REGISTRY_PATH = PathUtils.getDataDir().resolve("instances.json");
+    private static final long MASTER_CHECK_INTERVAL_MS = 2000;
+    private static final long MASTER_MAX_AGE_MS = 30000;
+
+    // Last master read from the registry, with the file stamp it was read at
+    private static volatile MasterSnapshot masterSnapshot;
+
+    private static final class MasterSnapshot {
+        final InstanceInfo master;
+        final long fileStamp;
+        final long readAtMs;
+        volatile long checkedAtMs;
+
+        MasterSnapshot(InstanceInfo master, long fileStamp, long readAtMs) {
+            this.master = master;
+            this.fileStamp = fileStamp;
+            this.readAtMs = readAtMs;
+            this.checkedAtMs = readAtMs;
+        }
+    }
 
     public static class InstanceInfo {
         public String name;
@@ -132,6 +151,45 @@ public class InstanceRegistry {
         return master != null && master.pid == ProcessHandle.current().pid();
     }
 
+    /**
+     * Like {@link #getMaster()}, but answered from memory. The registry file is
+     * only re-read (under its lock) when its size/mtime changed since the last
+     * read, checked at most every 2s, or when the snapshot is 30s old.
+     */
+    public static InstanceInfo getCachedMaster() {
+        long now = System.currentTimeMillis();
+        MasterSnapshot snapshot = masterSnapshot;
+        if (snapshot != null && now - snapshot.checkedAtMs < MASTER_CHECK_INTERVAL_MS) {
+            return snapshot.master;
+        }
+        long stamp = registryStamp();
+        if (snapshot != null && stamp == snapshot.fileStamp && now - snapshot.readAtMs < MASTER_MAX_AGE_MS) {
+            snapshot.checkedAtMs = now;
+            return snapshot.master;
+        }
+        InstanceInfo master = getMaster();
+        masterSnapshot = new MasterSnapshot(master, stamp, now);
+        return master;
+    }
+
+    public static boolean isCachedMaster() {
+        InstanceInfo master = getCachedMaster();
+        return master != null && master.pid == ProcessHandle.current().pid();
+    }
+
+    /** Forces the next {@link #getCachedMaster()} to re-read the registry. */
+    public static void invalidateMasterCache() {
+        masterSnapshot = null;
+    }
+
+    private static long registryStamp() {
+        try {
+            return Files.getLastModifiedTime(REGISTRY_PATH).toMillis() * 31 + Files.size(REGISTRY_PATH);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
     private interface RegistryTask<T> {
         T run(ArrayNode root) throws IOException;
     }
@@ -162,6 +220,7 @@ public class InstanceRegistry {
                     channel.truncate(0);
                     channel.position(0);
                     mapper.writerWithDefaultPrettyPrinter().writeValue(Channels.newOutputStream(channel), root);
+                    masterSnapshot = null;
                 }
 
                 return result;
@@ -7,6 +7,7 @@ import com.sun.net.httpserver.HttpServer;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
@@ -16,6 +17,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static j2html.TagCreator.*;
 
@@ -62,7 +64,9 @@ public class LogHttpServer {
             String path = exchange.getRequestURI().getPath();
             String method = exchange.getRequestMethod();
 
-            if ("/logs/aggregate".equals(path) && "POST".equalsIgnoreCase(method)) {
+            if ("/logs/aggregate/batch".equals(path) && "POST".equalsIgnoreCase(method)) {
+                handleAggregateBatch(exchange);
+            } else if ("/logs/aggregate".equals(path) && "POST".equalsIgnoreCase(method)) {
                 handleAggregateLogs(exchange);
             } else if ("/logs".equals(path) && "GET".equalsIgnoreCase(method)) {
                 handleGetLogs(exchange);
@@ -92,6 +96,51 @@ public class LogHttpServer {
         }
     }
 
+    /**
+     * Batched ingest used by LogShipper: NDJSON, one {"instance","log"} object per
+     * line, optionally gzip-compressed (Content-Encoding: gzip).
+     */
+    private void handleAggregateBatch(HttpExchange exchange) throws IOException {
+        try {
+            InputStream body = exchange.getRequestBody();
+            if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                body = new GZIPInputStream(body);
+            }
+            int accepted = ingestBatch(body);
+            byte[] response = ("{\"accepted\":" + accepted + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        } catch (Exception e) {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+        }
+    }
+
+    int ingestBatch(InputStream body) throws IOException {
+        List<String> formatted = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonNode node = objectMapper.readTree(line);
+                String instance = node.has("instance") ? node.get("instance").asText() : "Unknown";
+                String log = node.has("log") ? node.get("log").asText() : "";
+                formatted.add("[" + instance + "] " + log);
+            }
+        }
+        aggregatedLogs.addAll(formatted);
+        return formatted.size();
+    }
+
+    List<String> getAggregatedLogs() {
+        synchronized (aggregatedLogs) {
+            return new ArrayList<>(aggregatedLogs);
+        }
+    }
+
     private void handleGetLogs(HttpExchange exchange) throws IOException {
         List<String> localLogs = ActionLogger.getAllLogs();
         List<String> combinedLogs = new ArrayList<>(localLogs);
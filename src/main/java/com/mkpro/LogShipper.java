@@ -0,0 +1,262 @@
+package com.mkpro;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ships log lines from a non-master instance to the master's LogHttpServer.
+ *
+ * Lines are buffered and sent as one gzip-compressed NDJSON POST to
+ * /logs/aggregate/batch once {@value #MAX_BATCH_LINES} lines or
+ * {@value #MAX_BATCH_BYTES} bytes are pending, or {@value #BATCH_WINDOW_MS}ms after
+ * the first pending line. While the master is unreachable lines stay buffered
+ * (oldest dropped past {@code capacity}) and sends back off exponentially.
+ * A master without the batch endpoint gets the old one-POST-per-line format.
+ */
+public class LogShipper {
+
+    static final int MAX_BATCH_LINES = 500;
+    static final int MAX_BATCH_BYTES = 64 * 1024;
+    static final long BATCH_WINDOW_MS = 250;
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Supplier<InstanceRegistry.InstanceInfo> masterLookup;
+    private final int capacity;
+    private final ArrayDeque<String> pending = new ArrayDeque<>(); // guarded by this
+    private int pendingBytes;                                      // guarded by this
+    private boolean sendScheduled;                                 // guarded by this
+    private long backoffMs;                                        // guarded by this
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong shippedCount = new AtomicLong();
+    private volatile String instanceName = "unknown";
+    private volatile int legacyMasterPort = -1;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "LogShipper");
+        t.setDaemon(true);
+        return t;
+    });
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    /**
+     * Ships to the master from the registry, unless this process is the master.
+     */
+    public LogShipper() {
+        this(() -> InstanceRegistry.isCachedMaster() ? null : InstanceRegistry.getCachedMaster(),
+                Integer.getInteger("mkpro.log.shipBuffer", 10_000));
+    }
+
+    /**
+     * @param masterLookup returns where to ship, or null when there is nowhere to ship
+     * @param capacity     maximum buffered lines while the master is unreachable
+     */
+    LogShipper(Supplier<InstanceRegistry.InstanceInfo> masterLookup, int capacity) {
+        this.masterLookup = masterLookup;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void setInstanceName(String name) {
+        this.instanceName = name;
+    }
+
+    /**
+     * Queues one line. Cheap: no registry or network access on the caller's thread
+     * beyond the cached master check.
+     */
+    public void add(String line) {
+        if (masterLookup.get() == null) return;
+        synchronized (this) {
+            pending.addLast(line);
+            pendingBytes += line.length();
+            trimToCapacity();
+            if (pending.size() >= MAX_BATCH_LINES || pendingBytes >= MAX_BATCH_BYTES) {
+                scheduleSend(0);
+            } else {
+                scheduleSend(BATCH_WINDOW_MS);
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getShippedCount() {
+        return shippedCount.get();
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void trimToCapacity() {
+        while (pending.size() > capacity) {
+            pendingBytes -= pending.removeFirst().length();
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void scheduleSend(long delayMs) {
+        if (sendScheduled && (delayMs > 0 || backoffMs > 0)) return;
+        sendScheduled = true;
+        try {
+            executor.schedule(this::sendPending, delayMs, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            sendScheduled = false; // shutting down
+        }
+    }
+
+    private void sendPending() {
+        List<String> batch;
+        synchronized (this) {
+            sendScheduled = false;
+            batch = takeBatch();
+        }
+        if (batch.isEmpty()) return;
+
+        int delivered;
+        InstanceRegistry.InstanceInfo master = masterLookup.get();
+        if (master == null) {
+            // Became master, or the master left: nothing to ship to
+            synchronized (this) {
+                pending.clear();
+                pendingBytes = 0;
+            }
+            return;
+        }
+        try {
+            delivered = master.httpPort == legacyMasterPort ? sendLegacy(master, batch) : sendBatch(master, batch);
+        } catch (Exception e) {
+            delivered = 0;
+        }
+
+        synchronized (this) {
+            shippedCount.addAndGet(delivered);
+            if (delivered == batch.size()) {
+                backoffMs = 0;
+                if (!pending.isEmpty()) scheduleSend(0);
+            } else {
+                // Put the undelivered lines back in front, keep the newest lines if over capacity
+                for (int i = batch.size() - 1; i >= delivered; i--) {
+                    pending.addFirst(batch.get(i));
+                    pendingBytes += batch.get(i).length();
+                }
+                trimToCapacity();
+                backoffMs = backoffMs == 0 ? MIN_BACKOFF_MS : Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+                InstanceRegistry.invalidateMasterCache();
+                sendScheduled = true;
+                try {
+                    executor.schedule(this::sendPending, backoffMs, TimeUnit.MILLISECONDS);
+                } catch (java.util.concurrent.RejectedExecutionException e) {
+                    sendScheduled = false;
+                }
+            }
+        }
+    }
+
+    private List<String> takeBatch() {
+        List<String> batch = new ArrayList<>(Math.min(pending.size(), MAX_BATCH_LINES));
+        int bytes = 0;
+        while (!pending.isEmpty() && batch.size() < MAX_BATCH_LINES && (batch.isEmpty() || bytes < MAX_BATCH_BYTES)) {
+            String line = pending.removeFirst();
+            pendingBytes -= line.length();
+            bytes += line.length();
+            batch.add(line);
+        }
+        return batch;
+    }
+
+    /** @return the number of lines delivered: all of the batch or none */
+    private int sendBatch(InstanceRegistry.InstanceInfo master, List<String> batch) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + master.httpPort + "/logs/aggregate/batch"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/x-ndjson")
+                .header("Content-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(encode(instanceName, batch)))
+                .build();
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 404 || status == 405) {
+            legacyMasterPort = master.httpPort;
+            return sendLegacy(master, batch);
+        }
+        return status / 100 == 2 ? batch.size() : 0;
+    }
+
+    /**
+     * One request per line, stopping at the first failure.
+     *
+     * @return the number of leading lines delivered, so only the rest are retried
+     */
+    private int sendLegacy(InstanceRegistry.InstanceInfo master, List<String> batch) throws InterruptedException {
+        URI uri = URI.create("http://localhost:" + master.httpPort + "/logs/aggregate");
+        for (int i = 0; i < batch.size(); i++) {
+            ObjectNode payload = mapper.createObjectNode();
+            payload.put("instance", instanceName);
+            payload.put("log", batch.get(i));
+            try {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(uri)
+                        .timeout(Duration.ofSeconds(5))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(payload)))
+                        .build();
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 != 2) {
+                    return i;
+                }
+            } catch (IOException e) {
+                return i;
+            }
+        }
+        return batch.size();
+    }
+
+    /**
+     * Gzipped NDJSON, one {"instance": ..., "log": ...} object per line.
+     */
+    static byte[] encode(String instance, List<String> lines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (String line : lines) {
+                ObjectNode payload = mapper.createObjectNode();
+                payload.put("instance", instance);
+                payload.put("log", line);
+                gzip.write(mapper.writeValueAsBytes(payload));
+                gzip.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Tries once more to send what is buffered, then stops the shipper thread.
+     */
+    public void shutdown() {
+        try {
+            executor.submit(this::sendPending).get(2, TimeUnit.SECONDS);
+        } catch (Exception ignored) {}
+        executor.shutdownNow();
+    }
+}
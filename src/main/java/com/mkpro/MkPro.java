@@ -71,6 +71,11 @@ public class MkPro {
             }
             context.setEventBus(eventBus);
 
+            // Live re-indexing: watch the project and refresh the code index, facts and code graph per change batch
+            if (context.isWatchEnabled()) {
+                startFileWatcher(context, eventBus);
+            }
+
             // Initialize EditApprovalService
             com.mkpro.events.EditApprovalService approvalService = new com.mkpro.events.EditApprovalService();
             com.mkpro.events.EditApprovalService.INSTANCE = approvalService;
@@ -269,6 +274,26 @@ public class MkPro {
         }
     }
 
+    private static void startFileWatcher(MkProContext context, com.mkpro.events.MkProEventBus eventBus) {
+        java.nio.file.Path root = com.mkpro.utils.PathUtils.getProjectPath().toAbsolutePath().normalize();
+        try {
+            eventBus.register(new com.mkpro.watch.ChangeBatchListener("index", com.mkpro.watch.LiveUpdaters.codeIndex(
+                new com.mkpro.index.CodebaseIndexer(root, com.mkpro.index.CodeSearchIndex.getInstance()))));
+            if (context.getFactEngine() != null) {
+                eventBus.register(new com.mkpro.watch.ChangeBatchListener("facts",
+                    com.mkpro.watch.LiveUpdaters.facts(context.getFactEngine())));
+            }
+            eventBus.register(new com.mkpro.watch.ChangeBatchListener("graph", com.mkpro.watch.LiveUpdaters.codeGraph()));
+
+            com.mkpro.watch.FileChangeService watcher = new com.mkpro.watch.FileChangeService(root, eventBus);
+            watcher.start();
+            context.setFileChangeService(watcher);
+            System.out.println(ANSI_GREEN + "[Watch] Watching " + watcher.trackedFiles() + " files for live re-indexing." + ANSI_RESET);
+        } catch (Exception e) {
+            System.err.println("[Watch] Could not start the file watcher: " + e.getMessage());
+        }
+    }
+
     /**
      * Parse --web [port] from command line args.
      * Returns port number if --web is present (default 8080), or -1 if not.
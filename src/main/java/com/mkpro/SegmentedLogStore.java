@@ -0,0 +1,537 @@
+package com.mkpro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only store for ActionLogger entries.
+ *
+ * Entries live in fixed-size segment files named after the offset of their first
+ * entry ("00000000000000000000.seg"). Segments are memory-mapped; the active one
+ * is written through its mapping and sealed when full, at which point a sparse
+ * index (every {@value #INDEX_INTERVAL}th record: position + timestamp) is written
+ * next to it as ".idx". Reading N entries from any offset therefore costs
+ * O(N + INDEX_INTERVAL), never a scan of the whole log.
+ *
+ * Record layout: int payloadLength, UTF-8 payload, long timestamp (epoch ms). The
+ * timestamp is written last and is never 0, so the first zero timestamp marks the
+ * end of a segment, including a record torn by a crash.
+ *
+ * Whole segments are dropped by age (mkpro.log.retentionDays) and total size
+ * (mkpro.log.maxBytes); both default to keeping everything.
+ */
+public class SegmentedLogStore implements Closeable {
+
+    static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+    static final int INDEX_INTERVAL = 64;
+
+    private static final int LENGTH_BYTES = 4;
+    private static final int RECORD_OVERHEAD = LENGTH_BYTES + 8;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_MAGIC = 0x4D4B4C49; // "MKLI"
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long retentionMs;
+    private final long maxBytes;
+    private final boolean temporary;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private long endOffset;
+    private boolean closed;
+
+    private static final class Segment {
+        final long baseOffset;
+        final Path file;
+        MappedByteBuffer buffer; // sealed segments are mapped on first read
+        int count;
+        int writePos;
+        long firstTimestamp;
+        long lastTimestamp;
+        int[] indexPositions = new int[16];
+        long[] indexTimestamps = new long[16];
+        int indexSize;
+
+        Segment(long baseOffset, Path file) {
+            this.baseOffset = baseOffset;
+            this.file = file;
+        }
+
+        void addIndexEntry(int position, long timestamp) {
+            if (indexSize == indexPositions.length) {
+                indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+                indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+            }
+            indexPositions[indexSize] = position;
+            indexTimestamps[indexSize] = timestamp;
+            indexSize++;
+        }
+    }
+
+    /**
+     * Opens (or creates) the store in {@code dir}. Fails if another process holds it.
+     */
+    public static SegmentedLogStore open(Path dir) throws IOException {
+        long retentionDays = Long.getLong("mkpro.log.retentionDays", 0);
+        return new SegmentedLogStore(dir, Integer.getInteger("mkpro.log.segmentBytes", DEFAULT_SEGMENT_BYTES),
+                retentionDays > 0 ? retentionDays * 24 * 60 * 60 * 1000 : 0,
+                Long.getLong("mkpro.log.maxBytes", 0), false);
+    }
+
+    /**
+     * A store in a fresh temp directory that is deleted again on close.
+     */
+    public static SegmentedLogStore openTemporary() throws IOException {
+        return new SegmentedLogStore(Files.createTempDirectory("mkpro-logs-"), DEFAULT_SEGMENT_BYTES, 0, 0, true);
+    }
+
+    SegmentedLogStore(Path dir, int segmentBytes, long retentionMs, long maxBytes, boolean temporary) throws IOException {
+        if (segmentBytes < RECORD_OVERHEAD * 4) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.retentionMs = retentionMs;
+        this.maxBytes = maxBytes;
+        this.temporary = temporary;
+
+        Files.createDirectories(dir);
+        this.lockChannel = FileChannel.open(dir.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("Log store is in use by another process: " + dir);
+        }
+        this.lock = acquired;
+
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            releaseLock();
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(base, new Segment(base, file));
+            } catch (NumberFormatException e) {
+                System.err.println("[SegmentedLogStore] Ignoring unexpected file: " + file);
+            }
+        }
+
+        Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (last != null) {
+            last.buffer = map(last.file, FileChannel.MapMode.READ_WRITE);
+        }
+        for (Segment segment : segments.values()) {
+            if (segment == last || !loadIndexFile(segment)) {
+                scan(segment);
+            }
+        }
+
+        if (last != null) {
+            active = last;
+            endOffset = last.baseOffset + last.count;
+        }
+        applyRetention();
+    }
+
+    // ==========================================================================
+    // WRITES
+    // ==========================================================================
+
+    public synchronized long append(String entry) throws IOException {
+        return append(entry, System.currentTimeMillis());
+    }
+
+    /**
+     * Appends one entry and returns its offset. Not durable until {@link #sync()}.
+     */
+    public synchronized long append(String entry, long timestampMs) throws IOException {
+        ensureOpen();
+        byte[] payload = (entry != null ? entry : "").getBytes(StandardCharsets.UTF_8);
+        if (payload.length > segmentBytes - RECORD_OVERHEAD) {
+            payload = Arrays.copyOf(payload, segmentBytes - RECORD_OVERHEAD);
+        }
+        long timestamp = Math.max(1, timestampMs);
+        int recordBytes = RECORD_OVERHEAD + payload.length;
+        if (active == null || active.writePos + recordBytes > segmentBytes) {
+            roll();
+        }
+
+        Segment segment = active;
+        int pos = segment.writePos;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(pos, payload.length);
+        buffer.put(pos + LENGTH_BYTES, payload);
+        buffer.putLong(pos + LENGTH_BYTES + payload.length, timestamp);
+
+        if (segment.count % INDEX_INTERVAL == 0) {
+            segment.addIndexEntry(pos, timestamp);
+        }
+        if (segment.count == 0) {
+            segment.firstTimestamp = timestamp;
+        }
+        segment.lastTimestamp = timestamp;
+        segment.count++;
+        segment.writePos = pos + recordBytes;
+        return endOffset++;
+    }
+
+    /**
+     * Forces appended entries to disk. One call covers a whole batch of appends.
+     */
+    public synchronized void sync() {
+        if (!closed && active != null) {
+            active.buffer.force();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+            writeIndexFile(active);
+        }
+        Path file = dir.resolve(String.format("%020d%s", endOffset, SEGMENT_SUFFIX));
+        Segment segment = new Segment(endOffset, file);
+        segment.buffer = map(file, FileChannel.MapMode.READ_WRITE);
+        segments.put(endOffset, segment);
+        active = segment;
+        applyRetention();
+    }
+
+    // ==========================================================================
+    // READS
+    // ==========================================================================
+
+    /** Offset of the oldest retained entry. */
+    public synchronized long firstOffset() {
+        return segments.isEmpty() ? endOffset : segments.firstKey();
+    }
+
+    /** Offset the next appended entry will get. */
+    public synchronized long endOffset() {
+        return endOffset;
+    }
+
+    public synchronized long size() {
+        return endOffset - firstOffset();
+    }
+
+    /**
+     * Up to {@code limit} entries starting at {@code offset}, oldest first.
+     * Offsets before {@link #firstOffset()} are clamped to it.
+     */
+    public synchronized List<String> getRange(long offset, int limit) throws IOException {
+        ensureOpen();
+        List<String> result = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        long next = Math.max(offset, firstOffset());
+        while (result.size() < limit && next < endOffset) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(next);
+            if (floor == null) break;
+            Segment segment = floor.getValue();
+            int local = (int) (next - segment.baseOffset);
+            if (local >= segment.count) {
+                // Segment ended early (e.g. torn before it was sealed); continue with the next one
+                Long higher = segments.higherKey(segment.baseOffset);
+                if (higher == null) break;
+                next = higher;
+                continue;
+            }
+            MappedByteBuffer buffer = mapped(segment);
+            int pos = positionOf(segment, buffer, local);
+            while (local < segment.count && result.size() < limit) {
+                int length = buffer.getInt(pos);
+                byte[] payload = new byte[length];
+                buffer.get(pos + LENGTH_BYTES, payload);
+                result.add(new String(payload, StandardCharsets.UTF_8));
+                pos += RECORD_OVERHEAD + length;
+                local++;
+                next++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reverse paging: the {@code limit} entries that end {@code skip} entries
+     * before the newest one, returned oldest first.
+     */
+    public synchronized List<String> getLatest(long skip, int limit) throws IOException {
+        long end = Math.max(firstOffset(), endOffset - Math.max(0, skip));
+        long start = Math.max(firstOffset(), end - limit);
+        return getRange(start, (int) (end - start));
+    }
+
+    /**
+     * Offset of the first entry with a timestamp at or after {@code epochMs}, or
+     * {@link #endOffset()} if there is none.
+     */
+    public synchronized long offsetForTime(long epochMs) throws IOException {
+        ensureOpen();
+        for (Segment segment : segments.values()) {
+            if (segment.count == 0 || segment.lastTimestamp < epochMs) continue;
+            if (segment.firstTimestamp >= epochMs) return segment.baseOffset;
+
+            // Last sparse index point before epochMs, then scan at most INDEX_INTERVAL records
+            int lo = 0, hi = segment.indexSize - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (segment.indexTimestamps[mid] < epochMs) lo = mid; else hi = mid - 1;
+            }
+            MappedByteBuffer buffer = mapped(segment);
+            int local = lo * INDEX_INTERVAL;
+            int pos = segment.indexPositions[lo];
+            while (local < segment.count) {
+                int length = buffer.getInt(pos);
+                if (buffer.getLong(pos + LENGTH_BYTES + length) >= epochMs) {
+                    return segment.baseOffset + local;
+                }
+                pos += RECORD_OVERHEAD + length;
+                local++;
+            }
+        }
+        return endOffset;
+    }
+
+    /**
+     * Up to {@code limit} entries with timestamps in [fromMs, toMs), oldest first.
+     */
+    public synchronized List<String> getRangeByTime(long fromMs, long toMs, int limit) throws IOException {
+        long start = offsetForTime(fromMs);
+        long end = offsetForTime(toMs);
+        return getRange(start, (int) Math.min(limit, end - start));
+    }
+
+    private int positionOf(Segment segment, MappedByteBuffer buffer, int local) {
+        int slot = local / INDEX_INTERVAL;
+        int pos = segment.indexPositions[slot];
+        for (int i = slot * INDEX_INTERVAL; i < local; i++) {
+            pos += RECORD_OVERHEAD + buffer.getInt(pos);
+        }
+        return pos;
+    }
+
+    // ==========================================================================
+    // RETENTION
+    // ==========================================================================
+
+    /**
+     * Deletes the oldest sealed segments that are past the retention age or
+     * beyond the size budget. The active segment is always kept.
+     *
+     * @return number of segments deleted
+     */
+    synchronized int applyRetention() {
+        if (retentionMs <= 0 && maxBytes <= 0) return 0;
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        int deleted = 0;
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active) break;
+            boolean expired = retentionMs > 0 && oldest.lastTimestamp < cutoff;
+            boolean overBudget = maxBytes > 0 && (long) segments.size() * segmentBytes > maxBytes;
+            if (!expired && !overBudget) break;
+            segments.remove(oldest.baseOffset);
+            oldest.buffer = null;
+            deleteQuietly(oldest.file);
+            deleteQuietly(indexFile(oldest));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    // ==========================================================================
+    // SEGMENT FILES
+    // ==========================================================================
+
+    private MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] { StandardOpenOption.READ }
+                : new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE };
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            long size = mode == FileChannel.MapMode.READ_ONLY
+                    ? Math.min(channel.size(), Integer.MAX_VALUE)
+                    : Math.max(channel.size(), segmentBytes);
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private MappedByteBuffer mapped(Segment segment) throws IOException {
+        if (segment.buffer == null) {
+            segment.buffer = map(segment.file, FileChannel.MapMode.READ_ONLY);
+        }
+        return segment.buffer;
+    }
+
+    /**
+     * Rebuilds count, end position and sparse index by walking the records.
+     */
+    private void scan(Segment segment) throws IOException {
+        MappedByteBuffer buffer = mapped(segment);
+        int limit = buffer.capacity();
+        int pos = 0;
+        int count = 0;
+        segment.indexSize = 0;
+        while (pos + RECORD_OVERHEAD <= limit) {
+            int length = buffer.getInt(pos);
+            if (length < 0 || pos + RECORD_OVERHEAD + length > limit) break;
+            long timestamp = buffer.getLong(pos + LENGTH_BYTES + length);
+            if (timestamp == 0) break;
+            if (count % INDEX_INTERVAL == 0) {
+                segment.addIndexEntry(pos, timestamp);
+            }
+            if (count == 0) segment.firstTimestamp = timestamp;
+            segment.lastTimestamp = timestamp;
+            count++;
+            pos += RECORD_OVERHEAD + length;
+        }
+        segment.count = count;
+        segment.writePos = pos;
+
+        // A torn record leaves bytes behind that later appends would not fully overwrite
+        if (segment == segments.lastEntry().getValue() && pos + LENGTH_BYTES <= limit && buffer.getInt(pos) != 0) {
+            System.err.println("[SegmentedLogStore] Discarding torn record at end of " + segment.file.getFileName());
+            byte[] zeros = new byte[8192];
+            for (int p = pos; p < limit; p += zeros.length) {
+                buffer.put(p, zeros, 0, Math.min(zeros.length, limit - p));
+            }
+            buffer.force();
+        }
+    }
+
+    private Path indexFile(Segment segment) {
+        String name = segment.file.getFileName().toString();
+        return segment.file.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private void writeIndexFile(Segment segment) {
+        Path file = indexFile(segment);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(segment.count);
+            out.writeInt(segment.writePos);
+            out.writeLong(segment.firstTimestamp);
+            out.writeLong(segment.lastTimestamp);
+            out.writeInt(segment.indexSize);
+            for (int i = 0; i < segment.indexSize; i++) {
+                out.writeInt(segment.indexPositions[i]);
+                out.writeLong(segment.indexTimestamps[i]);
+            }
+        } catch (IOException e) {
+            // Only an optimisation; the segment is rescanned on next open
+            System.err.println("[SegmentedLogStore] Failed to write index for " + segment.file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private boolean loadIndexFile(Segment segment) {
+        Path file = indexFile(segment);
+        if (!Files.exists(file)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != INDEX_MAGIC) return false;
+            int count = in.readInt();
+            int writePos = in.readInt();
+            long firstTimestamp = in.readLong();
+            long lastTimestamp = in.readLong();
+            int indexSize = in.readInt();
+            if (count < 0 || writePos < 0 || indexSize != (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL) {
+                return false;
+            }
+            int[] positions = new int[Math.max(1, indexSize)];
+            long[] timestamps = new long[Math.max(1, indexSize)];
+            for (int i = 0; i < indexSize; i++) {
+                positions[i] = in.readInt();
+                timestamps[i] = in.readLong();
+            }
+            segment.count = count;
+            segment.writePos = writePos;
+            segment.firstTimestamp = firstTimestamp;
+            segment.lastTimestamp = lastTimestamp;
+            segment.indexPositions = positions;
+            segment.indexTimestamps = timestamps;
+            segment.indexSize = indexSize;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Typically a mapping still held on Windows; retried on the next open
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Log store is closed: " + dir);
+    }
+
+    // ==========================================================================
+    // LIFECYCLE
+    // ==========================================================================
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (active != null) {
+            active.buffer.force();
+        }
+        segments.clear();
+        active = null;
+        releaseLock();
+        if (temporary) {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(SegmentedLogStore::deleteQuietly);
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            lock.release();
+        } catch (IOException ignored) {}
+        try {
+            lockChannel.close();
+        } catch (IOException ignored) {}
+    }
+}
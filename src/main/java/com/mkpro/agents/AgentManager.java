@@ -40,6 +40,7 @@ import com.mkpro.ActionLogger;
 import com.mkpro.CentralMemory;
 import com.google.adk.memory.EmbeddingService;
 import com.google.adk.memory.MapDBVectorStore;
+import com.mkpro.index.CodeSearchIndex;
 
 import java.nio.file.Path;
 import java.nio.file.Files;
@@ -127,7 +128,7 @@ public class AgentManager {
         this.vectorStore = vectorStore;
         this.embeddingService = embeddingService;
         this.configProperties = new Properties();
-        this.toolRegistry = new ToolRegistry(vectorStore, embeddingService);
+        this.toolRegistry = new ToolRegistry(CodeSearchIndex.getInstance());
         this.agentFactory = new AgentFactory();
 
         registerAgentDefinitions();
@@ -310,10 +311,10 @@ public class AgentManager {
             imageTools.add(ImageTools.create());
 
             List<BaseTool> codebaseSearchTools = new ArrayList<>();
-            codebaseSearchTools.add(CodebaseSearchTools.create(vectorStore, embeddingService));
+            codebaseSearchTools.add(CodebaseSearchTools.create(CodeSearchIndex.getInstance()));
 
             List<BaseTool> multiProjectSearchTools = new ArrayList<>();
-            multiProjectSearchTools.add(MultiProjectSearchTools.create(embeddingService, vectorStore));
+            multiProjectSearchTools.add(MultiProjectSearchTools.create(CodeSearchIndex.getInstance()));
 
             // Remote MCP connectivity capabilities
             List<BaseTool> mcpScanTools = new ArrayList<>();
@@ -1,8 +1,7 @@
 package com.mkpro.agents;
 
-import com.google.adk.memory.EmbeddingService;
-import com.google.adk.memory.MapDBVectorStore;
 import com.google.adk.tools.BaseTool;
+import com.mkpro.index.CodeSearchIndex;
 import com.mkpro.tools.*;
 
 import java.util.*;
@@ -19,12 +18,10 @@ import java.util.*;
 public class ToolRegistry {
 
     private final Map<String, List<BaseTool>> toolCache = new LinkedHashMap<>();
-    private final MapDBVectorStore vectorStore;
-    private final EmbeddingService embeddingService;
+    private final CodeSearchIndex codeIndex;
 
-    public ToolRegistry(MapDBVectorStore vectorStore, EmbeddingService embeddingService) {
-        this.vectorStore = vectorStore;
-        this.embeddingService = embeddingService;
+    public ToolRegistry(CodeSearchIndex codeIndex) {
+        this.codeIndex = codeIndex;
         initializeTools();
     }
 
@@ -50,13 +47,13 @@ public class ToolRegistry {
         toolCache.put("audio", List.of(AudioTranscriptionTool.create()));
 
         // Codebase search (vector embeddings)
-        toolCache.put("codebase_search", List.of(CodebaseSearchTools.create(vectorStore, embeddingService)));
+        toolCache.put("codebase_search", List.of(CodebaseSearchTools.create(codeIndex)));
 
         // Codebase indexing (populate vector store)
-        toolCache.put("index_codebase", List.of(IndexCodebaseTool.create(vectorStore, embeddingService)));
+        toolCache.put("index_codebase", List.of(IndexCodebaseTool.create(codeIndex)));
 
         // Multi-project search
-        toolCache.put("multi_project_search", List.of(MultiProjectSearchTools.create(embeddingService, vectorStore)));
+        toolCache.put("multi_project_search", List.of(MultiProjectSearchTools.create(codeIndex)));
 
         // MCP server scanning
         toolCache.put("mcp_scan", List.of(
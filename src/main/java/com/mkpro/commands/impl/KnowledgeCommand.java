@@ -292,6 +292,13 @@ public class KnowledgeCommand implements Command {
             out.printf("  %s \u001b[32m%s\u001b[0m → %s%s%n", icon, entry.getKey(), entry.getValue(), accessStr);
         }
 
+        Map<String, Long> tokens = scheduler.getTokenStats();
+        if (tokens.get("refreshes") > 0) {
+            out.println();
+            out.printf("\u001b[90m  Analysis prompts: ~%,d tokens sent, ~%,d saved by skipping seen content (%d refreshes)\u001b[0m%n",
+                    tokens.get("promptTokens"), tokens.get("tokensSaved"), tokens.get("refreshes"));
+        }
+
         // Show pending discoveries
         var discoveries = scheduler.getPendingDiscoveries();
         if (!discoveries.isEmpty()) {
@@ -127,6 +127,13 @@ public class SchedulerCommand implements Command {
                 }
             });
 
+            // Analyses all go through the Coordinator's runner, so they share its provider's limit
+            scheduler.setProviderResolver(topic -> {
+                var configs = ctx.getAgentConfigs();
+                var coordinator = configs != null ? configs.get("Coordinator") : null;
+                return coordinator != null && coordinator.getProvider() != null ? coordinator.getProvider().name() : "default";
+            });
+
             // Init RequestKnowledgeTool
             RequestKnowledgeTool.init(scheduler, store);
 
@@ -167,7 +174,7 @@ public class SchedulerCommand implements Command {
             // Rebuild index from existing reports
             for (TopicReport report : store.getAllReports()) {
                 if (report.getSummary() != null && !report.getSummary().isBlank()) {
-                    index.indexTopic(report.getName(), report.getSummary());
+                    index.indexReport(report);
                 }
             }
             index.rebuildIdf();
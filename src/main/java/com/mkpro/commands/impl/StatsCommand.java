@@ -2,7 +2,7 @@ package com.mkpro.commands.impl;
 
 import com.mkpro.commands.Command;
 import com.mkpro.core.MkProContext;
-import com.mkpro.models.AgentStat;
+import com.mkpro.models.StatBucket;
 import com.mkpro.MkPro;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -10,24 +10,21 @@ import java.util.stream.Collectors;
 public class StatsCommand implements Command {
     @Override
     public void execute(String[] args, MkProContext context) {
-        List<AgentStat> stats = context.getCentralMemory().getAgentStats();
+        // Served from the all-time rollups: O(agent/provider/model combinations), not O(rows)
+        List<StatBucket> totals = context.getCentralMemory().getAgentStatTotals();
 
         // Use System.out as fallback if terminal is unavailable
         java.io.PrintWriter out = context.getTerminal() != null 
             ? context.getTerminal().writer() 
             : new java.io.PrintWriter(System.out, true);
 
-        if (stats == null || stats.isEmpty()) {
+        if (totals == null || totals.isEmpty()) {
             out.println(MkPro.ANSI_YELLOW + "No statistics recorded yet." + MkPro.ANSI_RESET);
             return;
         }
 
-        long totalTokens = stats.stream().mapToLong(AgentStat::getTotalTokens).sum();
-        long totalSessions = stats.stream()
-                .map(AgentStat::getSessionId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .count();
+        long totalTokens = totals.stream().mapToLong(StatBucket::getTotalTokens).sum();
+        long totalSessions = context.getCentralMemory().getStatSessionCount();
 
         out.println(MkPro.ANSI_CYAN + "\n=== Agent & Token Statistics ===" + MkPro.ANSI_RESET);
         out.println("Total Sessions: " + MkPro.ANSI_BRIGHT_GREEN + totalSessions + MkPro.ANSI_RESET);
@@ -35,26 +32,32 @@ public class StatsCommand implements Command {
 
         // Group by Agent
         out.println(MkPro.ANSI_YELLOW + "\nTokens per Agent:" + MkPro.ANSI_RESET);
-        stats.stream()
-            .collect(Collectors.groupingBy(AgentStat::getAgentName, Collectors.summingLong(AgentStat::getTotalTokens)))
-            .entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .forEach(e -> out.printf(" - %-15s: %s tokens\n", e.getKey(), String.format("%,d", e.getValue())));
+        mergeBy(totals, StatBucket::getAgentName).entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue().getTotalTokens(), a.getValue().getTotalTokens()))
+            .forEach(e -> out.printf(" - %-15s: %s tokens  (%d calls, avg %dms, p95 %dms, %.0f%% ok)\n",
+                e.getKey(), String.format("%,d", e.getValue().getTotalTokens()), e.getValue().getCount(),
+                e.getValue().getAvgLatencyMs(), e.getValue().getLatencyPercentileMs(0.95),
+                e.getValue().getSuccessRatio() * 100));
 
         // Group by Model
         out.println(MkPro.ANSI_YELLOW + "\nTokens per Model:" + MkPro.ANSI_RESET);
-        stats.stream()
-            .collect(Collectors.groupingBy(AgentStat::getModel, Collectors.summingLong(AgentStat::getTotalTokens)))
-            .entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .forEach(e -> out.printf(" - %-15s: %s tokens\n", e.getKey(), String.format("%,d", e.getValue())));
+        mergeBy(totals, StatBucket::getModel).entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue().getTotalTokens(), a.getValue().getTotalTokens()))
+            .forEach(e -> out.printf(" - %-15s: %s tokens\n", e.getKey(), String.format("%,d", e.getValue().getTotalTokens())));
 
         out.println(MkPro.ANSI_CYAN + "================================\n" + MkPro.ANSI_RESET);
         out.flush();
     }
 
+    private static Map<String, StatBucket> mergeBy(List<StatBucket> buckets, java.util.function.Function<StatBucket, String> key) {
+        return buckets.stream().collect(Collectors.toMap(
+            b -> String.valueOf(key.apply(b)),
+            b -> { StatBucket copy = new StatBucket(0, b.getAgentName(), b.getProvider(), b.getModel()); copy.merge(b); return copy; },
+            (a, b) -> { a.merge(b); return a; }));
+    }
+
     @Override
     public String getName() { return "stats"; }
     @Override
     public String getDescription() { return "Show token usage and execution statistics"; }
-}
\ No newline at end of file
+}
@@ -35,6 +35,7 @@ public class TrainCommand implements Command {
         switch (subCommand) {
             case "status":
                 showStatus(router);
+                showCheckpoints(context);
                 break;
             case "reset":
                 resetAndRetrain(router, context);
@@ -97,6 +98,17 @@ public class TrainCommand implements Command {
         }
     }
 
+    private void showCheckpoints(MkProContext context) {
+        if (context.getMakerLoop() == null) return;
+        var checkpointer = context.getMakerLoop().getCheckpointer();
+        long age = checkpointer.getLastCheckpointAgeMs();
+        var stats = checkpointer.getStats();
+        System.out.println("  Last checkpoint: " + (age < 0 ? "none this session"
+                : (age / 1000) + "s ago, took " + checkpointer.getLastCheckpointDurationMs() + "ms")
+                + " (" + stats.get("written") + " written, " + stats.get("coalesced") + " coalesced, "
+                + stats.get("failed") + " failed)");
+    }
+
     private void showStatus(MarkovRouter router) {
         System.out.println(ANSI_CYAN + "\n── Markov Router Status ──" + ANSI_RESET);
         System.out.println("  Total observations: " + router.getTotalObservations());
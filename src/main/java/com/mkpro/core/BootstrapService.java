@@ -2,7 +2,6 @@ package com.mkpro.core;
 
 import com.google.adk.artifacts.MapDbArtifactService;
 import com.google.adk.memory.MapDBMemoryService;
-import com.google.adk.memory.ZeroEmbeddingService;
 import com.google.adk.runner.Runner;
 import com.google.adk.sessions.MapDbSessionService;
 import com.google.adk.sessions.InMemorySessionService;
@@ -11,6 +10,8 @@ import com.google.adk.sessions.SessionKey;
 import com.google.adk.artifacts.InMemoryArtifactService;
 import com.google.adk.memory.EmbeddingService;
 import com.google.adk.memory.MapDBVectorStore;
+import com.mkpro.index.CodeSearchIndex;
+import com.mkpro.index.LocalEmbeddingService;
 import com.mkpro.CentralMemory;
 import com.mkpro.infra.network.discovery.DiscoveryService;
 import com.mkpro.infra.network.messaging.P2PMessageBus;
@@ -102,13 +103,20 @@ public class BootstrapService {
             }
         });
 
+        // Analyses all go through the Coordinator's runner, so they share its provider's limit
+        scheduler.setProviderResolver(topic -> {
+            var configs = context.getAgentConfigs();
+            var coordinator = configs != null ? configs.get("Coordinator") : null;
+            return coordinator != null && coordinator.getProvider() != null ? coordinator.getProvider().name() : "default";
+        });
+
         // Initialize RequestKnowledgeTool
         com.mkpro.knowledge.RequestKnowledgeTool.init(scheduler, knowledgeStore);
 
         // Rebuild index from existing reports
         for (var report : knowledgeStore.getAllReports()) {
             if (report.getSummary() != null && !report.getSummary().isBlank()) {
-                topicIndex.indexTopic(report.getName(), report.getSummary());
+                topicIndex.indexReport(report);
             }
         }
         topicIndex.rebuildIdf();
@@ -284,6 +292,8 @@ public class BootstrapService {
                 context.setNetworkEnabled(true);
             } else if ("--scheduler".equalsIgnoreCase(arg)) {
                 context.setSchedulerEnabled(true);
+            } else if ("--watch".equalsIgnoreCase(arg)) {
+                context.setWatchEnabled(true);
             }
         }
     }
@@ -318,9 +328,10 @@ public class BootstrapService {
             // Resolve instance-specific DB prefix: --name arg > -Dmkpro.db.name > default "mkpro_data"
             String dbBaseName = resolveDbBaseName(context);
 
-            // Initialize Embedding Service
-            EmbeddingService embeddingService = new ZeroEmbeddingService(1536);
+            // Initialize Embedding Service (offline: Jlama model if configured, hashed n-grams otherwise)
+            LocalEmbeddingService embeddingService = LocalEmbeddingService.create();
             context.setEmbeddingService(embeddingService);
+            CodeSearchIndex.open(mkproDir.resolve(dbBaseName + "_code_index.bin"), embeddingService);
 
             // Initialize Storage Services based on RunnerType
             // Each instance gets its own session/artifact/vector/log DBs — no sharing.
@@ -358,7 +369,7 @@ public class BootstrapService {
                 // Rebuild index from existing reports
                 for (var report : knowledgeStore.getAllReports()) {
                     if (report.getSummary() != null && !report.getSummary().isBlank()) {
-                        topicIndex.indexTopic(report.getName(), report.getSummary());
+                        topicIndex.indexReport(report);
                     }
                 }
                 topicIndex.rebuildIdf();
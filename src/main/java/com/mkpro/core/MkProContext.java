@@ -73,6 +73,10 @@ public class MkProContext {
     // Event bus
     private com.mkpro.events.MkProEventBus eventBus;
 
+    // Live re-indexing from file system events
+    private com.mkpro.watch.FileChangeService fileChangeService;
+    private boolean watchEnabled = false;
+
     public MkProContext() {
     }
 
@@ -516,6 +520,22 @@ public class MkProContext {
         this.eventBus = eventBus;
     }
 
+    public com.mkpro.watch.FileChangeService getFileChangeService() {
+        return fileChangeService;
+    }
+
+    public void setFileChangeService(com.mkpro.watch.FileChangeService fileChangeService) {
+        this.fileChangeService = fileChangeService;
+    }
+
+    public boolean isWatchEnabled() {
+        return watchEnabled;
+    }
+
+    public void setWatchEnabled(boolean watchEnabled) {
+        this.watchEnabled = watchEnabled;
+    }
+
     // FactEngine
     private com.mkpro.facts.FactEngine factEngine;
 
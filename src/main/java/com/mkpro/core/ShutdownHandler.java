@@ -1,6 +1,7 @@
 package com.mkpro.core;
 
 import com.google.adk.memory.MapDBVectorStore;
+import com.mkpro.index.CodeSearchIndex;
 import com.mkpro.ActionLogger;
 
 import static com.mkpro.MkPro.*;
@@ -30,6 +31,15 @@ class ShutdownHandler {
             } catch (Exception e) { /* Silent */ }
         }
 
+        // Finish any in-flight background checkpoint before the final save
+        if (context.getMakerLoop() != null) {
+            try {
+                if (!context.getMakerLoop().flushCheckpoints()) {
+                    System.err.println("[Shutdown] Markov checkpoint did not finish in time");
+                }
+            } catch (Exception e) { /* Silent */ }
+        }
+
         // Auto-save Markov model with live learning from this session
         if (context.getMarkovRouter() != null) {
             try {
@@ -41,6 +51,7 @@ class ShutdownHandler {
 
         // Auto-export session logs as training data for next startup
         try {
+            ActionLogger.flush(); // drain queued entries so the export sees the whole session
             java.util.List<String> logs = ActionLogger.getLogs();
             if (logs.size() > 5) { // Only export if meaningful interaction happened
                 java.nio.file.Path dataDir = com.mkpro.utils.PathUtils.getMkproDataDir().resolve("datajsonl");
@@ -64,6 +75,12 @@ class ShutdownHandler {
             }
         } catch (Exception e) { /* Silent */ }
 
+        if (context.getFileChangeService() != null) {
+            try {
+                context.getFileChangeService().stop();
+            } catch (Throwable e) { /* Ignore */ }
+        }
+
         if (context.getDiscoveryService() != null) {
             context.getDiscoveryService().stop();
         }
@@ -84,6 +101,9 @@ class ShutdownHandler {
                 context.getKnowledgeScheduler().stop();
             } catch (Throwable e) { /* Ignore */ }
         }
+        try {
+            com.mkpro.knowledge.KnowledgeAcquisitionService.shared().shutdown();
+        } catch (Throwable e) { /* Ignore */ }
 
         // Stop FactEngine
         if (context.getFactEngine() != null) {
@@ -109,6 +129,12 @@ class ShutdownHandler {
             }
         }
 
+        try {
+            CodeSearchIndex.getInstance().save();
+        } catch (Throwable e) {
+            System.err.println("[Shutdown] Could not save the code index: " + e.getMessage());
+        }
+
         if (context.getVectorStore() instanceof MapDBVectorStore) {
             try {
                 ((MapDBVectorStore) context.getVectorStore()).close();
@@ -119,6 +145,10 @@ class ShutdownHandler {
 
         if (context.getCentralMemory() != null) {
             try {
+                // Persist write-behind shared writes (knowledge, facts, goals) before closing
+                if (!context.getCentralMemory().flush()) {
+                    System.err.println("[Shutdown] Some shared memory writes could not be persisted (shared DB locked)");
+                }
                 context.getCentralMemory().close();
             } catch (Throwable e) {
                 // Ignore — MapDB may be partially unloaded during shutdown
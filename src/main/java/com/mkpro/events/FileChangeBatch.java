@@ -0,0 +1,80 @@
+package com.mkpro.events;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A coalesced set of project file changes seen by the file change service.
+ * Paths are absolute and normalized. A path appears in at most one set: a file
+ * created and then edited within one batch is only "created", and a file that
+ * no longer exists when the batch is published is only "deleted".
+ */
+public class FileChangeBatch {
+
+    private final Path root;
+    private final Set<Path> created;
+    private final Set<Path> modified;
+    private final Set<Path> deleted;
+    private final boolean rescan;
+
+    /**
+     * @param rescan true if the batch came from a full rescan (after the watcher
+     *               lost events), so consumers may prefer a full refresh
+     */
+    public FileChangeBatch(Path root, Set<Path> created, Set<Path> modified, Set<Path> deleted, boolean rescan) {
+        this.root = root;
+        this.created = Collections.unmodifiableSet(created);
+        this.modified = Collections.unmodifiableSet(modified);
+        this.deleted = Collections.unmodifiableSet(deleted);
+        this.rescan = rescan;
+    }
+
+    public Path getRoot() { return root; }
+    public Set<Path> getCreated() { return created; }
+    public Set<Path> getModified() { return modified; }
+    public Set<Path> getDeleted() { return deleted; }
+    public boolean isRescan() { return rescan; }
+
+    /** Created and modified files: the ones whose current content should be read. */
+    public List<Path> getChangedFiles() {
+        List<Path> changed = new ArrayList<>(created.size() + modified.size());
+        changed.addAll(created);
+        changed.addAll(modified);
+        return changed;
+    }
+
+    /** Every path in the batch, created, modified or deleted. */
+    public List<Path> getAllPaths() {
+        List<Path> all = getChangedFiles();
+        all.addAll(deleted);
+        return all;
+    }
+
+    public int size() {
+        return created.size() + modified.size() + deleted.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** True if any path in the batch ends with one of {@code extensions}. */
+    public boolean touches(String... extensions) {
+        for (Path path : getAllPaths()) {
+            String name = path.getFileName().toString();
+            for (String ext : extensions) {
+                if (name.endsWith(ext)) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "FileChangeBatch{created=" + created.size() + ", modified=" + modified.size()
+            + ", deleted=" + deleted.size() + (rescan ? ", rescan" : "") + "}";
+    }
+}
@@ -26,13 +26,15 @@ public class MkProEvent {
         KNOWLEDGE_UPDATE,    // Scheduler refreshed a topic
         EDIT_PROPOSAL,       // File edit awaiting approval (carries EditProposal)
         EDIT_APPROVED,       // Edit was approved
-        EDIT_REJECTED        // Edit was rejected
+        EDIT_REJECTED,       // Edit was rejected
+        FILES_CHANGED        // Project files changed on disk (carries FileChangeBatch)
     }
 
     private final Type type;
     private final Map<String, String> data;
     private final long timestamp;
     private EditProposal editProposal; // Only set for EDIT_PROPOSAL events
+    private FileChangeBatch fileChanges; // Only set for FILES_CHANGED events
 
     public MkProEvent(Type type, Map<String, String> data) {
         this.type = type;
@@ -44,6 +46,7 @@ public class MkProEvent {
     public Map<String, String> getData() { return data; }
     public long getTimestamp() { return timestamp; }
     public EditProposal getEditProposal() { return editProposal; }
+    public FileChangeBatch getFileChanges() { return fileChanges; }
 
     public String get(String key) {
         return data.getOrDefault(key, "");
@@ -119,4 +122,12 @@ public class MkProEvent {
     public static MkProEvent editRejected(String proposalId, String path) {
         return new MkProEvent(Type.EDIT_REJECTED, Map.of("id", proposalId, "path", path));
     }
+
+    public static MkProEvent filesChanged(FileChangeBatch batch) {
+        MkProEvent event = new MkProEvent(Type.FILES_CHANGED, Map.of(
+            "root", batch.getRoot().toString(), "count", String.valueOf(batch.size()),
+            "rescan", String.valueOf(batch.isRescan())));
+        event.fileChanges = batch;
+        return event;
+    }
 }
@@ -207,6 +207,15 @@ public class FactEngine {
         graph.addTriple(triple, confidence);
     }
 
+    /**
+     * Forget every relationship whose domain matches, e.g. before re-scanning the
+     * file a set of project facts came from.
+     */
+    public void removeDomains(java.util.function.Predicate<String> domain) {
+        store.removeRelationships(domain);
+        graph.removeDomains(domain);
+    }
+
     /**
      * Get count of dynamically extracted facts (confidence < 1.0).
      */
@@ -7,15 +7,21 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 /**
  * Loads and indexes facts from facts.yaml.
  * Provides lookup by domain key and keyword search.
+ *
+ * Facts are added and removed at runtime (project scans, the live-facts watcher,
+ * agents) while commands read them, so the lists are copy-on-write like the
+ * graph's edge lists: readers iterate a snapshot.
  */
 public class FactStore {
 
     private final Map<String, MathFact> mathFacts = new ConcurrentHashMap<>();
-    private final List<RelationshipTriple> relationships = new ArrayList<>();
+    private final List<RelationshipTriple> relationships = new CopyOnWriteArrayList<>();
     private final Map<String, List<String>> keywordIndex = new ConcurrentHashMap<>(); // keyword → list of fact keys
     private Set<String> stopWords = Set.of(); // loaded from YAML
 
@@ -86,7 +92,7 @@ public class FactStore {
 
                 // Build keyword index
                 for (String kw : keywords) {
-                    keywordIndex.computeIfAbsent(kw, k -> new ArrayList<>()).add(key);
+                    keywordIndex.computeIfAbsent(kw, k -> new CopyOnWriteArrayList<>()).add(key);
                 }
             }
         }
@@ -94,6 +100,7 @@ public class FactStore {
 
     private void loadRelationships(JsonNode relNode) {
         if (relNode == null) return;
+        List<RelationshipTriple> loaded = new ArrayList<>();
         Iterator<Map.Entry<String, JsonNode>> domains = relNode.fields();
         while (domains.hasNext()) {
             Map.Entry<String, JsonNode> domain = domains.next();
@@ -106,10 +113,11 @@ public class FactStore {
                     triple.setSubject(t.has("subject") ? t.get("subject").asText() : "");
                     triple.setPredicate(t.has("predicate") ? t.get("predicate").asText() : "");
                     triple.setObject(t.has("object") ? t.get("object").asText() : "");
-                    relationships.add(triple);
+                    loaded.add(triple);
                 }
             }
         }
+        relationships.addAll(loaded);
     }
 
     public MathFact getMathFact(String key) {
@@ -152,6 +160,22 @@ public class FactStore {
         relationships.add(triple);
     }
 
+    /**
+     * Remove runtime relationships whose domain matches, e.g. all facts scanned from one file.
+     */
+    public void removeRelationships(Predicate<String> domain) {
+        relationships.removeIf(t -> t.getDomain() != null && domain.test(t.getDomain()));
+    }
+
+    /**
+     * Remove math facts whose key matches, along with their keyword index entries.
+     */
+    public void removeMathFacts(Predicate<String> key) {
+        mathFacts.keySet().removeIf(key);
+        keywordIndex.values().forEach(keys -> keys.removeIf(key));
+        keywordIndex.values().removeIf(List::isEmpty);
+    }
+
     /**
      * Add a math fact at runtime.
      */
@@ -160,7 +184,7 @@ public class FactStore {
         mathFacts.put(fact.getKey(), fact);
         // Update keyword index
         for (String kw : fact.getKeywords()) {
-            keywordIndex.computeIfAbsent(kw, k -> new ArrayList<>()).add(fact.getKey());
+            keywordIndex.computeIfAbsent(kw, k -> new CopyOnWriteArrayList<>()).add(fact.getKey());
         }
     }
 }
@@ -49,6 +49,7 @@ public class ProjectFactScanner {
     private final FactEngine factEngine;
     private int factsAdded = 0;
     private GitIgnoreFilter gitIgnoreFilter;
+    private Path projectRoot;
 
     public ProjectFactScanner(FactEngine factEngine) {
         this.factEngine = factEngine;
@@ -56,11 +57,13 @@ public class ProjectFactScanner {
 
     /**
      * Scan the project directory and extract facts.
+     * Every fact is tagged with the file it came from (domain {@code project:<path>}).
+     * All project facts are dropped first, so files deleted or newly ignored since
+     * the last scan don't leave stale facts behind.
      * @return number of facts discovered and added
      */
     public int scan(Path projectRoot) {
-        factsAdded = 0;
-        gitIgnoreFilter = new GitIgnoreFilter(projectRoot);
+        begin(projectRoot, true);
 
         try {
             // 1. Scan dependency files (root level)
@@ -84,6 +87,45 @@ public class ProjectFactScanner {
         return factsAdded;
     }
 
+    /**
+     * Re-scan only the given files (e.g. ones the file watcher saw change).
+     * All facts of each touched file are dropped first, so edited or deleted
+     * files don't leave stale values behind.
+     * @return number of facts discovered and added
+     */
+    public int scanFiles(Path projectRoot, Collection<Path> files) {
+        begin(projectRoot, false);
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            forget(file);
+            if (!Files.isRegularFile(file) || gitIgnoreFilter.isIgnored(file)) continue;
+            try {
+                long size = Files.size(file);
+                if (size > 100_000 || size < 10) continue;
+            } catch (IOException e) {
+                continue;
+            }
+
+            // Dependency files are only read at the project root, as in scan()
+            boolean atRoot = projectRoot.equals(file.getParent());
+            try {
+                if (atRoot && name.equals("pom.xml")) read(file, this::scanMavenDeps);
+                else if (atRoot && name.equals("package.json")) read(file, this::scanNpmDeps);
+                else if (atRoot && name.equals("build.gradle")) read(file, this::scanGradleDeps);
+                else if (name.endsWith(".yaml") || name.endsWith(".yml")) read(file, this::scanYamlConfig);
+                else if (name.endsWith(".properties")) read(file, this::scanPropertiesConfig);
+                else if (name.endsWith(".java")) read(file, this::scanJavaSource);
+                else if (name.endsWith(".py")) read(file, this::scanPythonSource);
+                else if (name.endsWith(".js") || name.endsWith(".ts")) read(file, this::scanJsSource);
+            } catch (Exception e) {
+                // Non-fatal
+            }
+        }
+
+        return factsAdded;
+    }
+
     // ═══ Dependency scanning ═══
 
     private void scanMavenDeps(Path file, String content) {
@@ -92,10 +134,10 @@ public class ProjectFactScanner {
         if (m.find()) {
             String artifact = m.group(1);
             String version = m.group(2);
-            addRelationship("project", "uses", artifact + " " + version);
+            addRelationship(file, "uses", artifact + " " + version);
             // Infer Java version requirement from Spring Boot version
             if (artifact.contains("spring-boot") && version.startsWith("3")) {
-                addRelationship("project", "requires", "Java 17+");
+                addRelationship(file, "requires", "Java 17+");
             }
         }
 
@@ -105,7 +147,7 @@ public class ProjectFactScanner {
             String artifact = depMatcher.group(1);
             String version = depMatcher.group(2);
             if (!artifact.contains("${") && !version.contains("${")) {
-                addRelationship("project", "uses", artifact + " " + version);
+                addRelationship(file, "uses", artifact + " " + version);
             }
         }
     }
@@ -121,14 +163,14 @@ public class ProjectFactScanner {
         String depsSection = content.substring(braceStart, braceEnd);
         Matcher m = NPM_DEP.matcher(depsSection);
         while (m.find()) {
-            addRelationship("project", "uses", m.group(1) + " " + m.group(2));
+            addRelationship(file, "uses", m.group(1) + " " + m.group(2));
         }
     }
 
     private void scanGradleDeps(Path file, String content) {
         Matcher m = GRADLE_DEP.matcher(content);
         while (m.find()) {
-            addRelationship("project", "uses", m.group(2) + " " + m.group(3));
+            addRelationship(file, "uses", m.group(2) + " " + m.group(3));
         }
     }
 
@@ -141,7 +183,7 @@ public class ProjectFactScanner {
             String value = m.group(2);
             // Only capture meaningful constraints
             if (isConstraintKey(key)) {
-                addConstraint(key, value, file.getFileName().toString());
+                addConstraint(file, key, value);
             }
         }
     }
@@ -152,7 +194,7 @@ public class ProjectFactScanner {
             String key = m.group(1);
             String value = m.group(2);
             if (isConstraintKey(key)) {
-                addConstraint(key, value, file.getFileName().toString());
+                addConstraint(file, key, value);
             }
         }
     }
@@ -166,7 +208,7 @@ public class ProjectFactScanner {
             String name = m.group(1);
             String value = m.group(2);
             if (name.matches("[A-Z][A-Z_0-9]+") && name.length() >= 4) {
-                addConstraint(name, value, file.getFileName().toString());
+                addConstraint(file, name, value);
             }
         }
 
@@ -180,7 +222,7 @@ public class ProjectFactScanner {
             String name = m.group(1);
             String value = m.group(2);
             if (name.length() >= 4) {
-                addConstraint(name, value, file.getFileName().toString());
+                addConstraint(file, name, value);
             }
         }
         scanComments(file, content);
@@ -192,7 +234,7 @@ public class ProjectFactScanner {
             String name = m.group(1);
             String value = m.group(2);
             if (name.length() >= 4) {
-                addConstraint(name, value, file.getFileName().toString());
+                addConstraint(file, name, value);
             }
         }
         scanComments(file, content);
@@ -204,18 +246,19 @@ public class ProjectFactScanner {
         while (m.find()) {
             String dep = m.group(1).trim();
             if (dep.length() > 2 && dep.length() < 60) {
-                addRelationship("project", "requires", dep);
+                addRelationship(file, "requires", dep);
             }
         }
 
-        // Formula comments
+        // Formula comments, keyed by file and position so a re-scan replaces them
+        int ordinal = 0;
         m = FORMULA_COMMENT.matcher(content);
         while (m.find()) {
             String formula = m.group(1).trim();
             if (formula.length() > 3 && formula.length() < 100) {
                 // Store as a text-only math fact
                 MathFact fact = new MathFact();
-                fact.setKey("project." + file.getFileName().toString().replaceAll("[^a-zA-Z0-9]", "_") + "." + factsAdded);
+                fact.setKey(mathKeyPrefix(file) + ordinal++);
                 fact.setFormula(formula);
                 fact.setKeywords(List.of()); // No keywords — project-specific
                 fact.setScript(null);
@@ -235,18 +278,62 @@ public class ProjectFactScanner {
             || lower.contains("interval") || lower.contains("capacity") || lower.contains("buffer");
     }
 
-    private void addRelationship(String subject, String predicate, String object) {
-        factEngine.addRelationship(subject, predicate, object, DOMAIN, PROJECT_FACT_CONFIDENCE);
+    private void addRelationship(Path file, String predicate, String object) {
+        factEngine.addRelationship(DOMAIN, predicate, object, domainOf(file), PROJECT_FACT_CONFIDENCE);
         factsAdded++;
     }
 
-    private void addConstraint(String key, String value, String source) {
-        factEngine.addRelationship("project:" + source, "constraint", key + " = " + value, DOMAIN, PROJECT_FACT_CONFIDENCE);
+    private void addConstraint(Path file, String key, String value) {
+        factEngine.addRelationship(DOMAIN + ":" + file.getFileName(), "constraint", key + " = " + value,
+            domainOf(file), PROJECT_FACT_CONFIDENCE);
         factsAdded++;
     }
 
+    private void begin(Path root, boolean full) {
+        factsAdded = 0;
+        projectRoot = root.toAbsolutePath().normalize();
+        gitIgnoreFilter = new GitIgnoreFilter(root);
+        if (full) {
+            String filePrefix = DOMAIN + ":";
+            factEngine.removeDomains(domain -> domain.equals(DOMAIN) || domain.startsWith(filePrefix));
+            // Only formulas keyed by file (project.<path>#n), not named ones from agents
+            factEngine.getStore().removeMathFacts(key -> key.startsWith(DOMAIN + ".") && key.contains("#"));
+        } else {
+            // Facts from before they were tagged with their file can't be replaced per file
+            factEngine.removeDomains(DOMAIN::equals);
+        }
+    }
+
+    /** Path of the file relative to the project root, with forward slashes. */
+    private String relativePath(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path relative = absolute.startsWith(projectRoot) ? projectRoot.relativize(absolute) : absolute;
+        return relative.toString().replace('\\', '/');
+    }
+
+    private String domainOf(Path file) {
+        return DOMAIN + ":" + relativePath(file);
+    }
+
+    private String mathKeyPrefix(Path file) {
+        return DOMAIN + "." + relativePath(file) + "#";
+    }
+
+    /** Drop every fact previously scanned from this file. */
+    private void forget(Path file) {
+        String domain = domainOf(file);
+        String mathKeyPrefix = mathKeyPrefix(file);
+        factEngine.removeDomains(domain::equals);
+        factEngine.getStore().removeMathFacts(key -> key.startsWith(mathKeyPrefix));
+    }
+
     private void scanFile(Path file, java.util.function.BiConsumer<Path, String> scanner) {
+        forget(file);
         if (!Files.exists(file)) return;
+        read(file, scanner);
+    }
+
+    private void read(Path file, java.util.function.BiConsumer<Path, String> scanner) {
         try {
             String content = Files.readString(file);
             scanner.accept(file, content);
@@ -261,9 +348,6 @@ public class ProjectFactScanner {
             Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), 15, new SimpleFileVisitor<>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    if (attrs.size() > 100_000 || attrs.size() < 10) return FileVisitResult.CONTINUE;
-                    if (gitIgnoreFilter != null && gitIgnoreFilter.isIgnored(file)) return FileVisitResult.CONTINUE;
-
                     String name = file.getFileName().toString();
                     boolean matches = false;
                     for (String ext : extensions) {
@@ -271,10 +355,10 @@ public class ProjectFactScanner {
                     }
                     if (!matches) return FileVisitResult.CONTINUE;
 
-                    try {
-                        String content = Files.readString(file);
-                        scanner.accept(file, content);
-                    } catch (IOException e) { /* skip */ }
+                    forget(file);
+                    if (attrs.size() > 100_000 || attrs.size() < 10) return FileVisitResult.CONTINUE;
+                    if (gitIgnoreFilter != null && gitIgnoreFilter.isIgnored(file)) return FileVisitResult.CONTINUE;
+                    read(file, scanner);
                     return FileVisitResult.CONTINUE;
                 }
 
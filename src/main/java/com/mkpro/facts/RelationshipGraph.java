@@ -138,6 +138,25 @@ public class RelationshipGraph {
         return edges != null ? Collections.unmodifiableList(edges) : Collections.emptyList();
     }
 
+    /**
+     * Remove every edge whose domain matches (both directions).
+     * @return number of edges removed
+     */
+    public int removeDomains(java.util.function.Predicate<String> domain) {
+        int removed = 0;
+        for (Map.Entry<String, List<Edge>> entry : outgoing.entrySet()) {
+            int before = entry.getValue().size();
+            entry.getValue().removeIf(e -> e.domain != null && domain.test(e.domain));
+            removed += before - entry.getValue().size();
+        }
+        for (List<Edge> edges : incoming.values()) {
+            edges.removeIf(e -> e.domain != null && domain.test(e.domain));
+        }
+        outgoing.values().removeIf(List::isEmpty);
+        incoming.values().removeIf(List::isEmpty);
+        return removed;
+    }
+
     /**
      * Check if adding a new triple would contradict existing knowledge.
      * Returns description of contradiction, or null if no conflict.
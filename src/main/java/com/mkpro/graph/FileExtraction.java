@@ -0,0 +1,10 @@
+package com.mkpro.graph;
+
+/**
+ * What the scanner extracted from one source file, keyed by the SHA-256 of the
+ * file's content so an unchanged file can be reused without being re-parsed.
+ */
+public record FileExtraction(
+    String contentHash,
+    ExtractionResult result
+) {}
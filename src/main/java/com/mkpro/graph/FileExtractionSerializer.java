@@ -0,0 +1,27 @@
+package com.mkpro.graph;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import java.io.IOException;
+
+/**
+ * MapDB serializer for the per-file FileExtraction record: the content hash
+ * followed by the ExtractionResult.
+ */
+public class FileExtractionSerializer implements Serializer<FileExtraction> {
+    private static final ExtractionResultSerializer RESULT_SERIALIZER = new ExtractionResultSerializer();
+
+    @Override
+    public void serialize(DataOutput2 out, FileExtraction value) throws IOException {
+        out.writeUTF(value.contentHash());
+        RESULT_SERIALIZER.serialize(out, value.result());
+    }
+
+    @Override
+    public FileExtraction deserialize(DataInput2 in, int available) throws IOException {
+        String contentHash = in.readUTF();
+        return new FileExtraction(contentHash, RESULT_SERIALIZER.deserialize(in, -1));
+    }
+}
@@ -8,7 +8,10 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Command-line interface for Graphify.
@@ -23,11 +26,18 @@ public class GraphifyCli implements Callable<Integer> {
     @Option(names = {"-o", "--output"}, description = "Path for reports.", defaultValue = ".")
     private Path outputPath;
 
+    @Option(names = {"-t", "--threads"}, description = "Parser threads for a cold scan (default: available processors).")
+    private Integer threads;
+
+    @Option(names = "--no-file-cache", description = "Re-parse every file instead of reusing unchanged files from the last scan.")
+    private boolean noFileCache;
+
     @Override
     public Integer call() throws Exception {
         System.out.println(">>> Graphify: Starting Analysis of " + projectDir.toAbsolutePath());
         
         System.out.println("[1/4] Resolving index cache...");
+        long phaseStart = System.nanoTime();
         String commitHash = GitUtil.getCommitHashOrFallback(projectDir);
         String dbPath = MapDbGraphRepository.resolveDatabasePath(projectDir);
         ExtractionResult extraction = null;
@@ -37,6 +47,9 @@ public class GraphifyCli implements Callable<Integer> {
                 System.out.println("  ✓ Found pre-computed index cache for commit: " + commitHash);
                 System.out.println("  ✓ Loaded extraction result instantly from disk.");
                 extraction = repository.loadExtraction(commitHash).orElse(null);
+                if (extraction != null && !repository.hasExtraction(MapDbGraphRepository.WORKTREE_KEY)) {
+                    repository.saveExtraction(MapDbGraphRepository.WORKTREE_KEY, extraction);
+                }
             }
         } catch (Exception e) {
             System.out.println("  ⚠ Could not read index cache: " + e.getMessage());
@@ -44,27 +57,53 @@ public class GraphifyCli implements Callable<Integer> {
 
         if (extraction == null) {
             System.out.println("  ✓ (Cache Miss) Scanning project with JavaParser (Cold start)...");
-            JavaParserScanner scanner = new JavaParserScanner();
-            extraction = scanner.scan(projectDir);
+            Map<String, FileExtraction> fileCache = new HashMap<>();
+            if (!noFileCache) {
+                long loadStart = System.nanoTime();
+                try (MapDbGraphRepository repository = new MapDbGraphRepository(dbPath)) {
+                    fileCache = repository.loadFileExtractions();
+                } catch (Exception e) {
+                    System.out.println("  ⚠ Could not read per-file cache: " + e.getMessage());
+                }
+                printTiming("load per-file cache (" + fileCache.size() + " files)", loadStart);
+            }
+
+            JavaParserScanner scanner = threads != null ? new JavaParserScanner(threads) : new JavaParserScanner();
+            extraction = scanner.scan(projectDir, fileCache);
+            JavaParserScanner.ScanStats stats = scanner.getLastStats();
+            System.out.printf("  ✓ %d files: %d reused, %d parsed (%d failed) on %d threads%n",
+                    stats.files(), stats.reused(), stats.parsed(), stats.failed(), stats.threads());
+            System.out.printf("  ⏱ walk: %d ms, extract: %d ms, merge: %d ms%n",
+                    stats.walkMs(), stats.extractMs(), stats.mergeMs());
 
             // Save to cache
+            long saveStart = System.nanoTime();
             try (MapDbGraphRepository repository = new MapDbGraphRepository(dbPath)) {
                 repository.saveExtraction(commitHash, extraction);
+                repository.saveExtraction(MapDbGraphRepository.WORKTREE_KEY, extraction);
+                repository.saveFileExtractions(fileCache);
                 System.out.println("  ✓ Cached extraction result to disk for commit: " + commitHash);
             } catch (Exception e) {
                 System.out.println("  ⚠ Could not write index cache: " + e.getMessage());
             }
+            printTiming("save cache", saveStart);
         }
+        printTiming("index", phaseStart);
         
         System.out.println("[2/4] Building JGraphT model...");
+        phaseStart = System.nanoTime();
         JGraphTBuilder builder = new JGraphTBuilder();
         Graph<Entity, RelationshipEdge> graph = builder.buildGraph(extraction);
+        printTiming("graph build", phaseStart);
         
         System.out.println("[3/4] Running Graph Analysis (PageRank & Communities)...");
+        phaseStart = System.nanoTime();
         DefaultGraphAnalyzer analyzer = new DefaultGraphAnalyzer();
         AnalysisResult analysis = analyzer.analyze(graph);
+        printTiming("analysis", phaseStart);
         
         System.out.println("[4/4] Exporting Reports...");
+        phaseStart = System.nanoTime();
         // Ensure output directory exists
         if (!outputPath.toFile().exists()) {
             outputPath.toFile().mkdirs();
@@ -72,11 +111,16 @@ public class GraphifyCli implements Callable<Integer> {
         
         new JsonGraphExporter().export(extraction, analysis, outputPath.resolve("graph_data.json"));
         new MarkdownReportExporter().export(extraction, analysis, outputPath);
+        printTiming("export", phaseStart);
         
         System.out.println(">>> Done! Reports generated in: " + outputPath.toAbsolutePath());
         return 0;
     }
 
+    private static void printTiming(String phase, long startNanos) {
+        System.out.println("  ⏱ " + phase + ": " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+    }
+
     public static void main(String[] args) {
         System.exit(new CommandLine(new GraphifyCli()).execute(args));
     }
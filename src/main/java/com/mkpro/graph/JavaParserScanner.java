@@ -1,86 +1,364 @@
 package com.mkpro.graph;
 
-import com.github.javaparser.ParseProblemException;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 /**
  * Implementation of ProjectScanner using JavaParser and SymbolSolver.
+ *
+ * Files are parsed in parallel on a pool of worker threads. Each worker has its
+ * own {@link JavaParser} and symbol solver (the solver's caches are not
+ * thread-safe); failed type lookups are shared between workers through a
+ * {@link SharedTypeSolverCache}. The global {@code StaticJavaParser}
+ * configuration is left alone.
+ *
+ * Given a per-file cache ({@link #scan(Path, Map)}), files whose content hash
+ * matches their cached {@link FileExtraction} are not parsed again. Calls are
+ * resolved against the whole project, so a cached file keeps the call targets it
+ * had when it was parsed until it changes itself; pass an empty cache for a
+ * fully fresh scan.
  */
 public class JavaParserScanner implements ProjectScanner {
     private static final Logger logger = LoggerFactory.getLogger(JavaParserScanner.class);
 
+    /** Metadata key naming the project-relative file an entity or relationship came from. */
+    public static final String FILE_KEY = "file";
+
+    /** Counts and per-phase wall-clock times of the last scan. */
+    public record ScanStats(int files, int reused, int parsed, int failed, int threads,
+                            long walkMs, long extractMs, long mergeMs) {
+        public long totalMs() {
+            return walkMs + extractMs + mergeMs;
+        }
+    }
+
+    private final int threads;
+
+    private Path sourceRootsFor;    // guarded by this
+    private List<Path> sourceRoots; // guarded by this
+    private volatile ScanStats lastStats;
+
+    public JavaParserScanner() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public JavaParserScanner(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
     @Override
     public ExtractionResult scan(Path projectRoot) {
+        return scan(projectRoot, new HashMap<>());
+    }
+
+    /**
+     * Scans every {@code .java} file under {@code projectRoot}, reusing the entries
+     * of {@code cache} (keyed by project-relative path) whose content hash still
+     * matches. On return {@code cache} holds no entries for files that no longer exist.
+     */
+    public ExtractionResult scan(Path projectRoot, Map<String, FileExtraction> cache) {
         logger.info("Starting recursive scan at: {}", projectRoot);
 
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-        typeSolver.add(new ReflectionTypeSolver());
+        // One walk finds both the source roots and the files to parse
+        long walkStart = System.nanoTime();
+        List<Path> roots = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        walk(projectRoot, roots, files);
+        synchronized (this) {
+            sourceRoots = roots;
+            sourceRootsFor = projectRoot;
+        }
+        long walkMs = elapsedMs(walkStart);
+
+        long extractStart = System.nanoTime();
+        Extraction extraction = extract(projectRoot, roots, files, cache);
+        long extractMs = elapsedMs(extractStart);
+
+        long mergeStart = System.nanoTime();
+        // Drop only deleted files: a file that failed this time keeps its entry, which is
+        // still valid for the content it was hashed from, and its entities stay in the result
+        Set<String> present = new HashSet<>();
+        for (Path file : files) present.add(relativePath(projectRoot, file));
+        cache.keySet().retainAll(present);
+        cache.putAll(extraction.files());
+        ExtractionResult result = merge(new TreeMap<>(cache).values());
+        long mergeMs = elapsedMs(mergeStart);
 
-        // 1. Find all directories that end with 'src/main/java'.
-        // 2. Add all these directories to a 'CombinedTypeSolver' (using 'JavaParserTypeSolver').
+        lastStats = extraction.stats(files.size(), walkMs, extractMs, mergeMs);
+        logger.info("Scan completed. Found {} entities and {} relationships in {} files ({} reused, {} parsed).",
+            result.entities().size(), result.relationships().size(), files.size(), extraction.reused(),
+            extraction.files().size() - extraction.reused());
+        return result;
+    }
+
+    /** Counts and timings of the most recent {@link #scan} or {@link #scanFiles}, or null before the first. */
+    public ScanStats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * Parses only the given {@code .java} files (missing files are skipped). Every
+     * entity and relationship is tagged with its {@link #FILE_KEY}.
+     */
+    public ExtractionResult scanFiles(Path projectRoot, Collection<Path> files) {
+        List<Path> javaFiles = new ArrayList<>();
+        for (Path file : files) {
+            if (file.toString().endsWith(".java") && Files.isRegularFile(file)) {
+                javaFiles.add(file);
+            }
+        }
+        long extractStart = System.nanoTime();
+        Extraction extraction = extract(projectRoot, findSourceRoots(projectRoot), javaFiles, Map.of());
+        long extractMs = elapsedMs(extractStart);
+
+        long mergeStart = System.nanoTime();
+        ExtractionResult result = merge(extraction.files().values());
+        lastStats = extraction.stats(javaFiles.size(), 0, extractMs, elapsedMs(mergeStart));
+        return result;
+    }
+
+    /**
+     * Replaces what {@code base} holds for {@code files} (project-relative paths)
+     * with {@code fresh}. Entries are matched by their {@link #FILE_KEY}, and by id
+     * for entries extracted before files were tagged.
+     */
+    public static ExtractionResult replaceFiles(ExtractionResult base, Set<String> files, ExtractionResult fresh) {
+        Set<String> freshEntityIds = new HashSet<>();
+        fresh.entities().forEach(e -> freshEntityIds.add(e.id()));
+        Set<String> freshRelIds = new HashSet<>();
+        fresh.relationships().forEach(r -> freshRelIds.add(r.id()));
+
+        List<Entity> entities = new ArrayList<>();
+        for (Entity entity : base.entities()) {
+            if (!fromFiles(entity.metadata(), files) && !freshEntityIds.contains(entity.id())) entities.add(entity);
+        }
+        entities.addAll(fresh.entities());
+        List<Relationship> relationships = new ArrayList<>();
+        for (Relationship rel : base.relationships()) {
+            if (!fromFiles(rel.metadata(), files) && !freshRelIds.contains(rel.id())) relationships.add(rel);
+        }
+        relationships.addAll(fresh.relationships());
+        return new ExtractionResult(entities, relationships);
+    }
+
+    private static boolean fromFiles(Map<String, Object> metadata, Set<String> files) {
+        return metadata != null && files.contains(metadata.get(FILE_KEY));
+    }
+
+    /** Per-file results of {@link #extract}, ordered by relative path. */
+    private record Extraction(Map<String, FileExtraction> files, int reused, int failed, int workers) {
+        ScanStats stats(int fileCount, long walkMs, long extractMs, long mergeMs) {
+            return new ScanStats(fileCount, reused, files.size() - reused, failed, workers, walkMs, extractMs, mergeMs);
+        }
+    }
+
+    /**
+     * Extracts every file in parallel. Entries of {@code cache} with a matching
+     * hash are reused as they are.
+     */
+    private Extraction extract(Path projectRoot, List<Path> roots, List<Path> files,
+                                                Map<String, FileExtraction> cache) {
+        Map<String, FileExtraction> extracted = new TreeMap<>();
+        AtomicInteger reused = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int workers = Math.max(1, Math.min(threads, files.size()));
+        if (!files.isEmpty()) {
+            // A fresh solver per scan: JavaParserTypeSolver caches parsed types, which go stale as files change
+            SharedTypeSolverCache typeCache = new SharedTypeSolverCache(roots);
+            ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> new JavaParser(
+                new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(typeCache.newTypeSolver()))));
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "graphify-scanner");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<FileExtraction>> futures = new ArrayList<>(files.size());
+                List<String> relatives = new ArrayList<>(files.size());
+                for (Path file : files) {
+                    String relative = relativePath(projectRoot, file);
+                    relatives.add(relative);
+                    futures.add(pool.submit(() -> extractFile(parsers.get(), file, relative,
+                        cache.get(relative), reused, failed)));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        FileExtraction extraction = futures.get(i).get();
+                        if (extraction != null) extracted.put(relatives.get(i), extraction);
+                    } catch (ExecutionException e) {
+                        // An Error from the parser (e.g. StackOverflowError) costs only this file
+                        failed.incrementAndGet();
+                        logger.error("Error processing file {}: {}", relatives.get(i), e.getCause().toString());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Scan interrupted; result is partial");
+            } finally {
+                pool.shutdownNow();
+            }
+            logger.debug("Shared {} failed type lookups between {} workers", typeCache.missCount(), workers);
+        }
+        return new Extraction(extracted, reused.get(), failed.get(), workers);
+    }
+
+    /**
+     * Reads, hashes and (unless {@code cached} matches) parses one file. A file
+     * that doesn't parse gets an empty extraction, so it isn't retried until it
+     * changes; null only if it can't be read.
+     */
+    private static FileExtraction extractFile(JavaParser parser, Path file, String relative, FileExtraction cached,
+                                              AtomicInteger reused, AtomicInteger failed) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            logger.error("Error processing file {}: {}", file, e.getMessage());
+            return null;
+        }
+        String hash = sha256(bytes);
+        if (cached != null && hash.equals(cached.contentHash())) {
+            reused.incrementAndGet();
+            return cached;
+        }
+
+        List<Entity> entities = new ArrayList<>();
+        List<Relationship> relationships = new ArrayList<>();
+        try {
+            logger.debug("Parsing file: {}", file);
+            ParseResult<CompilationUnit> result = parser.parse(new String(bytes, StandardCharsets.UTF_8));
+            if (result.isSuccessful() && result.getResult().isPresent()) {
+                // Use the 'ASTVisitor' to extract entities and relationships.
+                result.getResult().get().accept(new ASTVisitor(entities, relationships), relative);
+            } else {
+                // Handle parse problems gracefully (log and continue).
+                failed.incrementAndGet();
+                logger.warn("Failed to parse file {}: {}", file, result.getProblems());
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            entities.clear();
+            relationships.clear();
+            logger.error("Error processing file {}: {}", file, e.getMessage());
+        }
+        return new FileExtraction(hash, new ExtractionResult(entities, relationships));
+    }
+
+    /** Concatenates per-file results, in the order given, into one result. */
+    private static ExtractionResult merge(Collection<FileExtraction> extractions) {
+        int entityCount = 0;
+        int relationshipCount = 0;
+        for (FileExtraction extraction : extractions) {
+            entityCount += extraction.result().entities().size();
+            relationshipCount += extraction.result().relationships().size();
+        }
+        List<Entity> entities = new ArrayList<>(entityCount);
+        List<Relationship> relationships = new ArrayList<>(relationshipCount);
+        for (FileExtraction extraction : extractions) {
+            entities.addAll(extraction.result().entities());
+            relationships.addAll(extraction.result().relationships());
+        }
+        return new ExtractionResult(entities, relationships);
+    }
+
+    /** Collects the directories ending in {@code src/main/java} and the {@code .java} files. */
+    private static void walk(Path projectRoot, List<Path> roots, List<Path> files) {
+        try {
+            Files.walkFileTree(projectRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.toString().replace("\\", "/").endsWith("src/main/java")) {
+                        logger.info("Found source root: {}", dir);
+                        roots.add(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.toString().endsWith(".java")) files.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.warn("Cannot read {}: {}", file, e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Error during file walking: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Source roots are looked up once per project and reused by {@link #scanFiles};
+     * a full {@link #scan} looks them up again.
+     */
+    private synchronized List<Path> findSourceRoots(Path projectRoot) {
+        if (projectRoot.equals(sourceRootsFor)) return sourceRoots;
+
+        // Find all directories that end with 'src/main/java'.
+        List<Path> roots = new ArrayList<>();
         try (Stream<Path> paths = Files.walk(projectRoot)) {
             paths.filter(Files::isDirectory)
                  .filter(p -> p.toString().replace("\\", "/").endsWith("src/main/java"))
                  .forEach(p -> {
                      logger.info("Found source root: {}", p);
-                     typeSolver.add(new JavaParserTypeSolver(p));
+                     roots.add(p);
                  });
         } catch (Exception e) {
             logger.error("Error finding source roots: {}", e.getMessage());
         }
+        sourceRoots = roots;
+        sourceRootsFor = projectRoot;
+        return roots;
+    }
 
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-        StaticJavaParser.getConfiguration().setSymbolResolver(symbolSolver);
-
-        List<Entity> entities = new ArrayList<>();
-        List<Relationship> relationships = new ArrayList<>();
-        ASTVisitor visitor = new ASTVisitor(entities, relationships);
+    private static String relativePath(Path projectRoot, Path file) {
+        return projectRoot.relativize(file).toString().replace('\\', '/');
+    }
 
-        // 3. Find all '.java' files.
-        try (Stream<Path> paths = Files.walk(projectRoot)) {
-            paths.filter(Files::isRegularFile)
-                 .filter(p -> p.toString().endsWith(".java"))
-                 .forEach(file -> {
-                     try {
-                         // 4. Parse it using 'StaticJavaParser.parse(file)'.
-                         logger.debug("Parsing file: {}", file);
-                         CompilationUnit cu = StaticJavaParser.parse(file);
-                         
-                         // Use the 'ASTVisitor' to extract entities and relationships.
-                         cu.accept(visitor, null);
-                     } catch (ParseProblemException e) {
-                         // Handle 'ParseProblemException' gracefully (log and continue).
-                         logger.warn("Failed to parse file {}: {}", file, e.getMessage());
-                     } catch (Exception e) {
-                         logger.error("Error processing file {}: {}", file, e.getMessage());
-                     }
-                 });
-        } catch (Exception e) {
-            logger.error("Error during file walking: {}", e.getMessage());
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
 
-        // 5. Aggregate all results into a single 'ExtractionResult'.
-        logger.info("Scan completed. Found {} entities and {} relationships.", entities.size(), relationships.size());
-        return new ExtractionResult(entities, relationships);
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
-    private static class ASTVisitor extends VoidVisitorAdapter<Void> {
+    private static class ASTVisitor extends VoidVisitorAdapter<String> {
         private final List<Entity> entities;
         private final List<Relationship> relationships;
 
@@ -90,40 +368,40 @@ public class JavaParserScanner implements ProjectScanner {
         }
 
         @Override
-        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
-            super.visit(n, arg);
+        public void visit(ClassOrInterfaceDeclaration n, String file) {
+            super.visit(n, file);
             String name = n.getFullyQualifiedName().orElse(n.getNameAsString());
             EntityType type = n.isInterface() ? EntityType.INTERFACE : EntityType.CLASS;
 
-            entities.add(new Entity(name, name, type, Collections.emptyMap()));
+            entities.add(new Entity(name, name, type, Map.of(FILE_KEY, file)));
 
             n.getExtendedTypes().forEach(et -> {
                 String target = et.getNameAsString();
-                relationships.add(new Relationship(name + "->EXTENDS->" + target, name, target, RelType.EXTENDS, Map.of("weight", 1.0)));
+                relationships.add(new Relationship(name + "->EXTENDS->" + target, name, target, RelType.EXTENDS, Map.of("weight", 1.0, FILE_KEY, file)));
             });
 
             n.getImplementedTypes().forEach(it -> {
                 String target = it.getNameAsString();
-                relationships.add(new Relationship(name + "->IMPLEMENTS->" + target, name, target, RelType.IMPLEMENTS, Map.of("weight", 1.0)));
+                relationships.add(new Relationship(name + "->IMPLEMENTS->" + target, name, target, RelType.IMPLEMENTS, Map.of("weight", 1.0, FILE_KEY, file)));
             });
         }
 
         @Override
-        public void visit(MethodDeclaration n, Void arg) {
-            super.visit(n, arg);
+        public void visit(MethodDeclaration n, String file) {
+            super.visit(n, file);
             Optional<ClassOrInterfaceDeclaration> parentClass = n.findAncestor(ClassOrInterfaceDeclaration.class);
             if (parentClass.isPresent()) {
                 String className = parentClass.get().getFullyQualifiedName().orElse(parentClass.get().getNameAsString());
                 String methodName = className + "." + n.getNameAsString();
                 
-                entities.add(new Entity(methodName, n.getNameAsString(), EntityType.METHOD, Collections.emptyMap()));
-                relationships.add(new Relationship(className + "->CONTAINS->" + methodName, className, methodName, RelType.CONTAINS, Map.of("weight", 1.0)));
+                entities.add(new Entity(methodName, n.getNameAsString(), EntityType.METHOD, Map.of(FILE_KEY, file)));
+                relationships.add(new Relationship(className + "->CONTAINS->" + methodName, className, methodName, RelType.CONTAINS, Map.of("weight", 1.0, FILE_KEY, file)));
             }
         }
 
         @Override
-        public void visit(MethodCallExpr n, Void arg) {
-            super.visit(n, arg);
+        public void visit(MethodCallExpr n, String file) {
+            super.visit(n, file);
             try {
                 var resolved = n.resolve();
                 String targetMethod = resolved.getQualifiedName();
@@ -132,7 +410,7 @@ public class JavaParserScanner implements ProjectScanner {
                     n.findAncestor(ClassOrInterfaceDeclaration.class).ifPresent(cid -> {
                         String className = cid.getFullyQualifiedName().orElse(cid.getNameAsString());
                         String callerMethod = className + "." + md.getNameAsString();
-                        relationships.add(new Relationship(callerMethod + "->CALLS->" + targetMethod, callerMethod, targetMethod, RelType.CALLS, Map.of("weight", 1.0)));
+                        relationships.add(new Relationship(callerMethod + "->CALLS->" + targetMethod, callerMethod, targetMethod, RelType.CALLS, Map.of("weight", 1.0, FILE_KEY, file)));
                     });
                 });
             } catch (Exception e) {
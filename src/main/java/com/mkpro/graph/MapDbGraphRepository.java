@@ -8,7 +8,9 @@ import org.mapdb.Serializer;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -18,8 +20,15 @@ import java.util.stream.Collectors;
  * Safely falls back to an in-memory store if the disk cache is locked or inaccessible.
  */
 public class MapDbGraphRepository implements GraphRepository {
+    /**
+     * Key of the extraction that tracks the working tree rather than a commit;
+     * live updates from the file watcher are applied to it.
+     */
+    public static final String WORKTREE_KEY = "worktree";
+
     private final DB db;
     private final HTreeMap<String, ExtractionResult> store;
+    private final HTreeMap<String, FileExtraction> fileStore;
     private final List<GraphListener> listeners = new ArrayList<>();
 
     public interface GraphListener {
@@ -72,6 +81,7 @@ public class MapDbGraphRepository implements GraphRepository {
     public MapDbGraphRepository(String dbPath) {
         DB tempDb = null;
         HTreeMap<String, ExtractionResult> tempStore = null;
+        HTreeMap<String, FileExtraction> tempFileStore = null;
 
         try {
             // Ensure the directory for the database file exists
@@ -90,6 +100,8 @@ public class MapDbGraphRepository implements GraphRepository {
                     .keySerializer(Serializer.STRING)
                     .valueSerializer(new ExtractionResultSerializer())
                     .createOrOpen();
+
+            tempFileStore = openFileStore(tempDb);
         } catch (Exception e) {
             System.err.println("  [Warning] Cache database is locked or inaccessible: " + e.getMessage());
             System.err.println("  [Warning] Falling back to temporary in-memory cache. Results will not be saved on disk.");
@@ -104,6 +116,8 @@ public class MapDbGraphRepository implements GraphRepository {
                         .keySerializer(Serializer.STRING)
                         .valueSerializer(new ExtractionResultSerializer())
                         .createOrOpen();
+
+                tempFileStore = openFileStore(tempDb);
             } catch (Exception innerEx) {
                 System.err.println("  [Error] Failed to initialize in-memory fallback database: " + innerEx.getMessage());
                 throw innerEx;
@@ -112,6 +126,40 @@ public class MapDbGraphRepository implements GraphRepository {
 
         this.db = tempDb;
         this.store = tempStore;
+        this.fileStore = tempFileStore;
+    }
+
+    private static HTreeMap<String, FileExtraction> openFileStore(DB db) {
+        return db.hashMap("fileExtractions")
+                .keySerializer(Serializer.STRING)
+                .valueSerializer(new FileExtractionSerializer())
+                .createOrOpen();
+    }
+
+    /**
+     * Loads the per-file extractions of the last scan, keyed by project-relative
+     * path, for {@link JavaParserScanner#scan(Path, Map)} to reuse.
+     */
+    public Map<String, FileExtraction> loadFileExtractions() {
+        return new HashMap<>(fileStore);
+    }
+
+    /**
+     * Replaces the stored per-file extractions with {@code extractions}, writing
+     * only the entries whose content hash changed.
+     */
+    public void saveFileExtractions(Map<String, FileExtraction> extractions) {
+        if (extractions == null) {
+            return;
+        }
+        fileStore.keySet().removeIf(file -> !extractions.containsKey(file));
+        for (Map.Entry<String, FileExtraction> entry : extractions.entrySet()) {
+            FileExtraction stored = fileStore.get(entry.getKey());
+            if (stored == null || !stored.contentHash().equals(entry.getValue().contentHash())) {
+                fileStore.put(entry.getKey(), entry.getValue());
+            }
+        }
+        db.commit();
     }
 
     @Override
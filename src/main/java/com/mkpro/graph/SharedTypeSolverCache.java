@@ -0,0 +1,121 @@
+package com.mkpro.graph;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.cache.CacheStats;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.cache.DefaultCacheStats;
+import com.github.javaparser.symbolsolver.cache.InMemoryCache;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds one type solver per scanner worker, all sharing what is safe to share.
+ *
+ * A solved type is a view over a parsed AST that the symbol solver keeps
+ * annotating as it resolves, so solved types and parsed files stay confined to
+ * the worker that produced them. A failed lookup carries no state, and with one
+ * {@link JavaParserTypeSolver} per source root almost every lookup fails in all
+ * roots but one; those misses are recorded once and shared by every worker.
+ */
+final class SharedTypeSolverCache {
+
+    private final List<Path> sourceRoots;
+    private final Map<Path, Set<String>> missing = new ConcurrentHashMap<>();
+
+    SharedTypeSolverCache(List<Path> sourceRoots) {
+        this.sourceRoots = List.copyOf(sourceRoots);
+    }
+
+    /** A new type solver for the calling worker; not thread-safe itself. */
+    TypeSolver newTypeSolver() {
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+        typeSolver.add(new ReflectionTypeSolver());
+        for (Path sourceRoot : sourceRoots) {
+            typeSolver.add(new JavaParserTypeSolver(sourceRoot, new JavaParser(new ParserConfiguration()),
+                InMemoryCache.<Path, Optional<CompilationUnit>>create(),
+                InMemoryCache.<Path, List<CompilationUnit>>create(),
+                new FoundTypesCache(missing.computeIfAbsent(sourceRoot, root -> ConcurrentHashMap.newKeySet()))));
+        }
+        return typeSolver;
+    }
+
+    /** Number of distinct failed lookups recorded so far, across all roots. */
+    int missCount() {
+        return missing.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Solved types stay in a cache of the worker's own; unsolved names go to the
+     * set shared by all workers.
+     */
+    private static class FoundTypesCache implements Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> {
+        private static final SymbolReference<ResolvedReferenceTypeDeclaration> UNSOLVED = SymbolReference.unsolved();
+
+        private final Set<String> missing;
+        private final Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> solved = InMemoryCache.create();
+        private long hits;
+        private long misses;
+
+        FoundTypesCache(Set<String> missing) {
+            this.missing = missing;
+        }
+
+        @Override
+        public void put(String name, SymbolReference<ResolvedReferenceTypeDeclaration> reference) {
+            if (reference.isSolved()) solved.put(name, reference);
+            else missing.add(name);
+        }
+
+        @Override
+        public Optional<SymbolReference<ResolvedReferenceTypeDeclaration>> get(String name) {
+            Optional<SymbolReference<ResolvedReferenceTypeDeclaration>> found =
+                missing.contains(name) ? Optional.of(UNSOLVED) : solved.get(name);
+            if (found.isPresent()) hits++;
+            else misses++;
+            return found;
+        }
+
+        @Override
+        public void remove(String name) {
+            solved.remove(name);
+        }
+
+        @Override
+        public void removeAll() {
+            solved.removeAll();
+        }
+
+        @Override
+        public boolean contains(String name) {
+            return missing.contains(name) || solved.contains(name);
+        }
+
+        @Override
+        public long size() {
+            return solved.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return solved.isEmpty();
+        }
+
+        @Override
+        public CacheStats stats() {
+            return new DefaultCacheStats(hits, misses, 0, 0, 0, 0);
+        }
+    }
+}
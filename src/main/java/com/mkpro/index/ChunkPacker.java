@@ -0,0 +1,105 @@
+package com.mkpro.index;
+
+import java.util.function.Consumer;
+
+/**
+ * Packs consecutive segments (spans that end on a good boundary) into chunks of
+ * about {@link Chunker#TARGET_CHARS}. A segment longer than
+ * {@link Chunker#MAX_CHARS} is cut at line ends, and a single longer line at
+ * {@code MAX_CHARS}. Whitespace-only chunks are dropped.
+ */
+final class ChunkPacker {
+
+    private final String file;
+    private final int target;
+    private final int max;
+    private final Consumer<CodeSearchIndex.Chunk> sink;
+
+    private final StringBuilder text = new StringBuilder();
+    private int offset;
+    private int startLine;
+
+    ChunkPacker(String file, Consumer<CodeSearchIndex.Chunk> sink) {
+        this(file, Chunker.TARGET_CHARS, Chunker.MAX_CHARS, sink);
+    }
+
+    ChunkPacker(String file, int target, int max, Consumer<CodeSearchIndex.Chunk> sink) {
+        this.file = file;
+        this.target = target;
+        this.max = max;
+        this.sink = sink;
+    }
+
+    /**
+     * Adds the segment {@code segment} that starts at character {@code segmentOffset}
+     * on line {@code segmentLine}. Segments must be added in order and be contiguous.
+     */
+    void add(int segmentOffset, int segmentLine, CharSequence segment) {
+        if (segment.length() == 0) return;
+        if (text.length() > 0 && text.length() + segment.length() > target) {
+            flush();
+        }
+        if (segment.length() > max) {
+            flush();
+            split(segmentOffset, segmentLine, segment);
+            return;
+        }
+        if (text.length() == 0) {
+            offset = segmentOffset;
+            startLine = segmentLine;
+        }
+        text.append(segment);
+    }
+
+    /** Emits whatever is buffered. */
+    void finish() {
+        flush();
+    }
+
+    private void split(int segmentOffset, int segmentLine, CharSequence segment) {
+        int start = 0;
+        int line = segmentLine;
+        while (start < segment.length()) {
+            int end = Math.min(start + max, segment.length());
+            if (end < segment.length()) {
+                // Cut after the last newline in the window, if any
+                for (int i = end - 1; i > start; i--) {
+                    if (segment.charAt(i) == '\n') {
+                        end = i + 1;
+                        break;
+                    }
+                }
+            }
+            CharSequence piece = segment.subSequence(start, end);
+            emit(segmentOffset + start, line, piece);
+            line += countNewlines(piece);
+            start = end;
+        }
+    }
+
+    private void flush() {
+        if (text.length() == 0) return;
+        emit(offset, startLine, text);
+        text.setLength(0);
+    }
+
+    private void emit(int at, int line, CharSequence piece) {
+        if (piece.toString().isBlank()) return;
+        sink.accept(new CodeSearchIndex.Chunk(file, at, line, line + newlines(piece), piece.toString()));
+    }
+
+    /** Line breaks before the last non-whitespace character of {@code s}. */
+    private static int newlines(CharSequence s) {
+        int last = s.length() - 1;
+        while (last > 0 && Character.isWhitespace(s.charAt(last))) last--;
+        return countNewlines(s.subSequence(0, Math.max(0, last)));
+    }
+
+    private static int countNewlines(CharSequence s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '\n') n++;
+        }
+        return n;
+    }
+}
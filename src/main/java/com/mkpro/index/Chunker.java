@@ -0,0 +1,40 @@
+package com.mkpro.index;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits a source file into {@link CodeSearchIndex.Chunk}s at boundaries that
+ * keep related code together (a method, a paragraph, a config block), with
+ * character offsets and line ranges.
+ */
+public interface Chunker {
+
+    /** Chunks grow until about this many characters... */
+    int TARGET_CHARS = 1200;
+    /** ...and a chunk is only longer than this if a single line is. */
+    int MAX_CHARS = 2400;
+
+    /**
+     * Reads {@code source} to the end and passes its chunks to {@code sink} in order.
+     *
+     * @param file the project-relative path the chunks belong to
+     */
+    void chunk(String file, Reader source, Consumer<CodeSearchIndex.Chunk> sink) throws IOException;
+
+    /**
+     * The chunker for a file: syntax-aware for Java sources of up to
+     * {@link JavaChunker#MAX_PARSE_CHARS} characters, brace/blank-line heuristics
+     * (which stream) for everything else.
+     *
+     * @param length the file's length in bytes, or -1 if unknown
+     */
+    static Chunker forFile(String file, long length) {
+        if (file.toLowerCase(Locale.ROOT).endsWith(".java") && length >= 0 && length <= JavaChunker.MAX_PARSE_CHARS) {
+            return new JavaChunker();
+        }
+        return new TextChunker();
+    }
+}
@@ -0,0 +1,408 @@
+package com.mkpro.index;
+
+import com.mkpro.utils.PathUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Semantic index of the project's source chunks: embeddings from a
+ * {@link LocalEmbeddingService} in a {@link QuantizedVectorIndex}, plus the chunk
+ * text needed to answer {@code search_codebase} without a second lookup.
+ *
+ * Chunks are replaced per file, so re-indexing a file never leaves stale chunks
+ * behind. Each file also carries the {@link FileStamp} it was indexed from; that
+ * manifest lives in the same file as the vectors, so the two can't disagree after
+ * a crash. The index is saved to {@code .mkpro/<db>_code_index.bin} after each
+ * indexing run and on shutdown, and is discarded on load if it was built with a
+ * different embedding backend (vectors from different models don't compare).
+ *
+ * Thread-safe: searches share a read lock; embedding happens outside the lock.
+ */
+public final class CodeSearchIndex {
+
+    /**
+     * A chunk of a project file; {@code file} is relative to the project root,
+     * {@code offset} is in characters and lines are 1-based and inclusive (0 if unknown).
+     */
+    public record Chunk(String file, int offset, int startLine, int endLine, String text) {
+        public Chunk(String file, int offset, String text) {
+            this(file, offset, 0, 0, text);
+        }
+
+        public String id() {
+            return file + "#" + offset;
+        }
+
+        /** {@code path} or {@code path:12-40}, for showing where a hit came from. */
+        public String location() {
+            return startLine > 0 ? file + ":" + startLine + "-" + endLine : file;
+        }
+
+        /** What gets embedded: the path carries as much meaning as the code. */
+        String embeddingText() {
+            return "FILE: " + file + "\n" + text;
+        }
+    }
+
+    public record Hit(Chunk chunk, float score) {
+    }
+
+    /** What a file looked like when it was indexed; lets re-indexing skip unchanged files. */
+    public record FileStamp(long size, long modifiedMillis, String contentHash) {
+    }
+
+    /** New chunks for one file (an empty list removes it), with its stamp if known. */
+    public record FileUpdate(String file, FileStamp stamp, List<Chunk> chunks) {
+    }
+
+    private static final byte[] MAGIC = "MKPRO_CODEIDX".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 3; // 2: file stamps, 3: chunk line ranges
+
+    private static CodeSearchIndex instance;
+
+    private final Path path;
+    private final LocalEmbeddingService embeddings;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private QuantizedVectorIndex vectors;                            // guarded by lock
+    private final List<Chunk> chunksBySlot = new ArrayList<>();      // guarded by lock
+    private final Map<String, int[]> slotsByFile = new HashMap<>();  // guarded by lock
+    private final Map<String, FileStamp> stamps = new HashMap<>();   // guarded by lock
+    private boolean dirty;                                           // guarded by lock
+
+    CodeSearchIndex(Path path, LocalEmbeddingService embeddings) {
+        this.path = path;
+        this.embeddings = embeddings;
+        this.vectors = new QuantizedVectorIndex(embeddings.dimension());
+    }
+
+    /**
+     * Opens (loading if present) the index at {@code path} and makes it the shared instance.
+     */
+    public static synchronized CodeSearchIndex open(Path path, LocalEmbeddingService embeddings) {
+        CodeSearchIndex index = new CodeSearchIndex(path, embeddings);
+        if (path != null && Files.exists(path)) {
+            try {
+                index.load();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[CodeSearchIndex] Ignoring unreadable index " + path.getFileName()
+                        + " (" + e.getMessage() + "); re-run index_codebase");
+                index.reset();
+            }
+        }
+        instance = index;
+        return index;
+    }
+
+    /**
+     * The shared index, opened on first use at {@code .mkpro/code_index.bin} if
+     * BootstrapService has not opened one.
+     */
+    public static synchronized CodeSearchIndex getInstance() {
+        if (instance == null) {
+            Path file = PathUtils.getProjectPath().resolve(".mkpro").resolve("code_index.bin");
+            open(file, LocalEmbeddingService.create());
+        }
+        return instance;
+    }
+
+    public LocalEmbeddingService getEmbeddingService() {
+        return embeddings;
+    }
+
+    /**
+     * Replaces every chunk of {@code file} with {@code chunks} (all of which must
+     * belong to that file). An empty list removes the file from the index.
+     */
+    public void replaceFile(String file, List<Chunk> chunks) {
+        replaceFiles(List.of(new FileUpdate(file, null, chunks)));
+    }
+
+    /**
+     * Applies a batch of file updates. All chunks of the batch are embedded in one
+     * {@link LocalEmbeddingService#embedAll} call before the index is locked.
+     */
+    public void replaceFiles(List<FileUpdate> updates) {
+        List<String> texts = new ArrayList<>();
+        for (FileUpdate update : updates) {
+            for (Chunk chunk : update.chunks()) {
+                if (!chunk.file().equals(update.file())) {
+                    throw new IllegalArgumentException("Chunk " + chunk.id() + " does not belong to " + update.file());
+                }
+                texts.add(chunk.embeddingText());
+            }
+        }
+        List<float[]> embedded = embeddings.embedAll(texts);
+
+        lock.writeLock().lock();
+        try {
+            int next = 0;
+            for (FileUpdate update : updates) {
+                removeLocked(update.file());
+                if (update.stamp() != null) stamps.put(update.file(), update.stamp());
+                if (update.chunks().isEmpty()) continue;
+                List<Chunk> chunks = update.chunks();
+                int[] slots = new int[chunks.size()];
+                for (int i = 0; i < chunks.size(); i++) {
+                    int slot = vectors.add(embedded.get(next++));
+                    while (chunksBySlot.size() <= slot) chunksBySlot.add(null);
+                    chunksBySlot.set(slot, chunks.get(i));
+                    slots[i] = slot;
+                }
+                slotsByFile.put(update.file(), slots);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Records a new stamp for a file whose content did not change (e.g. only touched). */
+    public void touch(String file, FileStamp stamp) {
+        lock.writeLock().lock();
+        try {
+            stamps.put(file, stamp);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFile(String file) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(file);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String file) {
+        stamps.remove(file);
+        int[] slots = slotsByFile.remove(file);
+        if (slots == null) return;
+        for (int slot : slots) {
+            vectors.remove(slot);
+            chunksBySlot.set(slot, null);
+        }
+        dirty = true;
+    }
+
+    /** The stamp {@code file} was last indexed with, or null if unknown. */
+    public FileStamp stampOf(String file) {
+        lock.readLock().lock();
+        try {
+            return stamps.get(file);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Every file in the manifest, including files that produced no chunks. */
+    public Set<String> files() {
+        lock.readLock().lock();
+        try {
+            Set<String> files = new HashSet<>(stamps.keySet());
+            files.addAll(slotsByFile.keySet());
+            return files;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids of the chunks currently indexed for {@code file}. */
+    public List<String> chunkIds(String file) {
+        lock.readLock().lock();
+        try {
+            int[] slots = slotsByFile.get(file);
+            if (slots == null) return List.of();
+            List<String> ids = new ArrayList<>(slots.length);
+            for (int slot : slots) ids.add(chunksBySlot.get(slot).id());
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The {@code k} chunks most similar to {@code query}, best first. */
+    public List<Hit> search(String query, int k) {
+        return search(query, k, false);
+    }
+
+    /** Exhaustive search over every chunk; the reference for recall measurements. */
+    List<Hit> searchExact(String query, int k) {
+        return search(query, k, true);
+    }
+
+    private List<Hit> search(String query, int k, boolean exact) {
+        float[] q = embeddings.embed(query);
+        lock.readLock().lock();
+        try {
+            List<QuantizedVectorIndex.Hit> hits = exact ? vectors.searchExact(q, k) : vectors.search(q, k);
+            List<Hit> results = new ArrayList<>(hits.size());
+            for (QuantizedVectorIndex.Hit hit : hits) {
+                Chunk chunk = chunksBySlot.get(hit.slot());
+                if (chunk != null) results.add(new Hit(chunk, hit.score()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean containsFile(String file) {
+        lock.readLock().lock();
+        try {
+            return slotsByFile.containsKey(file) || stamps.containsKey(file);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of indexed chunks. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return vectors.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int fileCount() {
+        lock.readLock().lock();
+        try {
+            return files().size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether searches walk the HNSW graph rather than scan every chunk. */
+    boolean hasGraph() {
+        lock.readLock().lock();
+        try {
+            return vectors.hasGraph();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reset() {
+        vectors = new QuantizedVectorIndex(embeddings.dimension());
+        chunksBySlot.clear();
+        slotsByFile.clear();
+        stamps.clear();
+    }
+
+    /** Writes the index if it changed since it was loaded or last saved. */
+    public void save() throws IOException {
+        if (path == null) return;
+        lock.writeLock().lock(); // excludes writers; the file must match one state of the index
+        try {
+            if (!dirty) return;
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(embeddings.id());
+                vectors.write(out);
+                Set<String> files = files();
+                out.writeInt(files.size());
+                for (String file : files) {
+                    out.writeUTF(file);
+                    FileStamp stamp = stamps.get(file);
+                    out.writeBoolean(stamp != null);
+                    if (stamp != null) {
+                        out.writeLong(stamp.size());
+                        out.writeLong(stamp.modifiedMillis());
+                        out.writeUTF(stamp.contentHash());
+                    }
+                    int[] slots = slotsByFile.getOrDefault(file, new int[0]);
+                    out.writeInt(slots.length);
+                    for (int slot : slots) {
+                        Chunk chunk = chunksBySlot.get(slot);
+                        out.writeInt(slot);
+                        out.writeInt(chunk.offset());
+                        out.writeInt(chunk.startLine());
+                        out.writeInt(chunk.endLine());
+                        byte[] text = chunk.text().getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(text.length);
+                        out.write(text);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("not a code index");
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) throw new IOException("unsupported version " + version);
+            String embedderId = in.readUTF();
+            if (!embedderId.equals(embeddings.id())) {
+                System.out.println("[CodeSearchIndex] Index was built with " + embedderId + ", now using "
+                        + embeddings.id() + " — re-run index_codebase");
+                dirty = true; // overwrite the stale file on the next save
+                return;
+            }
+            vectors = QuantizedVectorIndex.read(in);
+            int files = in.readInt();
+            for (int f = 0; f < files; f++) {
+                String file = in.readUTF();
+                if (version >= 2 && in.readBoolean()) {
+                    FileStamp stamp = new FileStamp(in.readLong(), in.readLong(), in.readUTF());
+                    // Chunks from before syntax-aware chunking stay searchable, but without
+                    // their stamps the next indexing pass re-chunks them
+                    if (version >= 3) stamps.put(file, stamp);
+                }
+                int[] slots = new int[in.readInt()];
+                for (int i = 0; i < slots.length; i++) {
+                    int slot = in.readInt();
+                    int offset = in.readInt();
+                    int startLine = version >= 3 ? in.readInt() : 0;
+                    int endLine = version >= 3 ? in.readInt() : 0;
+                    byte[] text = new byte[in.readInt()];
+                    in.readFully(text);
+                    while (chunksBySlot.size() <= slot) chunksBySlot.add(null);
+                    chunksBySlot.set(slot, new Chunk(file, offset, startLine, endLine, new String(text, StandardCharsets.UTF_8)));
+                    slots[i] = slot;
+                }
+                if (slots.length > 0) slotsByFile.put(file, slots);
+            }
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.mkpro.index;
+
+import com.mkpro.facts.GitIgnoreFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental, parallel indexing of the project's source files into a
+ * {@link CodeSearchIndex}.
+ *
+ * <ol>
+ *   <li>Walk: directories are listed in parallel on a fork-join pool, skipping
+ *       what {@link GitIgnoreFilter} ignores.</li>
+ *   <li>Diff: a file whose size and mtime match its {@link CodeSearchIndex.FileStamp}
+ *       is not read at all; one whose content hash still matches is only re-stamped.
+ *       Indexed files that no longer exist (or are now ignored) are removed.</li>
+ *   <li>Read and chunk: changed files are read and split by their {@link Chunker}
+ *       on a pool of reader threads, which hand them over through a bounded queue.</li>
+ *   <li>Embed: the calling thread drains the queue in batches of about
+ *       {@value #BATCH_CHUNKS} chunks, each embedded with one
+ *       {@link LocalEmbeddingService#embedAll} call and applied to the index.</li>
+ * </ol>
+ * Re-indexing after a small edit therefore costs a directory walk plus the edited
+ * files, not a re-embed of the whole tree.
+ */
+public class CodebaseIndexer {
+
+    public static final String[] INDEXABLE_EXTENSIONS = {
+        ".java", ".kt", ".py", ".js", ".ts", ".tsx", ".jsx",
+        ".go", ".rs", ".swift", ".dart", ".c", ".cpp", ".h",
+        ".xml", ".yaml", ".yml", ".json", ".toml", ".gradle",
+        ".md", ".txt", ".sql", ".html", ".css", ".scss"
+    };
+
+    /** Not in GitIgnoreFilter's always-ignored list, but never project sources. */
+    private static final Set<String> EXCLUDED_DIRS = Set.of("venv", ".venv", ".graphify");
+
+    /** Files up to this size are read into memory; larger ones are hashed and chunked as streams. */
+    static final int IN_MEMORY_LIMIT = 1 << 20;
+    /** Larger files (data dumps, bundles) are skipped with a warning rather than indexed. */
+    static final long MAX_FILE_SIZE = 16L << 20;
+    private static final int BATCH_CHUNKS = 256;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    /** Snapshot of a running indexing pass. */
+    public record Progress(String phase, int filesScanned, int filesChanged, int filesIndexed,
+                           int chunksIndexed, long elapsedMs) {
+        public double chunksPerSecond() {
+            return elapsedMs == 0 ? 0 : chunksIndexed * 1000.0 / elapsedMs;
+        }
+    }
+
+    /**
+     * Outcome of an indexing pass. {@code filesUnchanged} includes the
+     * {@code filesRestamped} ones whose timestamp moved but content hash did not;
+     * {@code filesFailed} could not be read and keep their old stamp and chunks.
+     */
+    public record Stats(int filesScanned, int filesUnchanged, int filesRestamped, int filesIndexed,
+                        int filesFailed, int filesRemoved, int chunksIndexed, long walkMs, long elapsedMs) {
+        public double chunksPerSecond() {
+            return elapsedMs == 0 ? 0 : chunksIndexed * 1000.0 / elapsedMs;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("files_scanned", filesScanned);
+            map.put("files_unchanged", filesUnchanged);
+            map.put("files_restamped", filesRestamped);
+            map.put("files_indexed", filesIndexed);
+            map.put("files_failed", filesFailed);
+            map.put("files_removed", filesRemoved);
+            map.put("chunks_created", chunksIndexed);
+            map.put("walk_ms", walkMs);
+            map.put("elapsed_ms", elapsedMs);
+            map.put("chunks_per_second", Math.round(chunksPerSecond()));
+            return map;
+        }
+    }
+
+    /** A file found by the walk. */
+    record Candidate(Path path, String relativePath, long size, long modifiedMillis) {
+    }
+
+    private static final CodeSearchIndex.FileUpdate SKIPPED = new CodeSearchIndex.FileUpdate("", null, List.of());
+
+    private final Path projectRoot;
+    private final CodeSearchIndex index;
+    private final int threads;
+
+    public CodebaseIndexer(Path projectRoot, CodeSearchIndex index) {
+        this(projectRoot, index, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    CodebaseIndexer(Path projectRoot, CodeSearchIndex index, int threads) {
+        this.projectRoot = projectRoot.toAbsolutePath().normalize();
+        this.index = index;
+        this.threads = threads;
+    }
+
+    public Path getProjectRoot() {
+        return projectRoot;
+    }
+
+    /**
+     * Brings the index up to date for every indexable file under {@code scope}
+     * (a directory inside the project) and saves it.
+     *
+     * @param progress called from the indexing thread about once a second, may be null
+     */
+    public Stats index(Path scope, Consumer<Progress> progress) throws IOException {
+        long start = System.nanoTime();
+        Path root = scope.toAbsolutePath().normalize();
+        if (!root.startsWith(projectRoot)) {
+            throw new IllegalArgumentException(scope + " is outside the project " + projectRoot);
+        }
+
+        List<Candidate> candidates = walk(root, new GitIgnoreFilter(projectRoot));
+        long walkMs = elapsedMs(start);
+        if (progress != null) progress.accept(new Progress("walk", candidates.size(), 0, 0, 0, walkMs));
+
+        // Indexed files under the scope that the walk no longer finds
+        String prefix = relativize(root);
+        Set<String> seen = candidates.stream().map(Candidate::relativePath).collect(Collectors.toSet());
+        List<String> removed = new ArrayList<>();
+        for (String file : index.files()) {
+            boolean inScope = prefix.isEmpty() || file.equals(prefix) || file.startsWith(prefix + "/");
+            if (inScope && !seen.contains(file)) removed.add(file);
+        }
+        for (String file : removed) index.removeFile(file);
+
+        Stats stats = update(candidates, progress, start, walkMs, removed.size());
+        index.save();
+        return stats;
+    }
+
+    /**
+     * Re-indexes specific files (e.g. ones a watcher saw change); a path that no
+     * longer exists, is ignored or is not indexable is removed from the index.
+     * Does not save the index.
+     */
+    public Stats indexFiles(List<Path> files, Consumer<Progress> progress) {
+        long start = System.nanoTime();
+        GitIgnoreFilter filter = new GitIgnoreFilter(projectRoot);
+        List<Candidate> candidates = new ArrayList<>();
+        int removed = 0;
+        for (Path file : files) {
+            Path path = file.toAbsolutePath().normalize();
+            if (!path.startsWith(projectRoot)) continue;
+            String relative = relativize(path);
+            BasicFileAttributes attrs = attributes(path);
+            if (attrs != null && attrs.isRegularFile() && isIndexable(path) && !isExcluded(path, filter)) {
+                candidates.add(new Candidate(path, relative, attrs.size(), attrs.lastModifiedTime().toMillis()));
+            } else if (index.containsFile(relative)) {
+                index.removeFile(relative);
+                removed++;
+            }
+        }
+        return update(candidates, progress, start, 0, removed);
+    }
+
+    private Stats update(List<Candidate> candidates, Consumer<Progress> progress, long start, long walkMs, int removed) {
+        List<Candidate> changed = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            CodeSearchIndex.FileStamp stamp = index.stampOf(candidate.relativePath());
+            if (stamp == null || stamp.size() != candidate.size() || stamp.modifiedMillis() != candidate.modifiedMillis()) {
+                changed.add(candidate);
+            }
+        }
+
+        int[] indexed = {0, 0}; // [files, chunks]
+        AtomicInteger restamped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        if (!changed.isEmpty()) {
+            BlockingQueue<CodeSearchIndex.FileUpdate> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            ExecutorService readers = Executors.newFixedThreadPool(Math.min(threads, changed.size()), r -> {
+                Thread t = new Thread(r, "codebase-indexer");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                for (Candidate candidate : changed) {
+                    readers.submit(() -> {
+                        CodeSearchIndex.FileUpdate update = SKIPPED;
+                        try {
+                            update = read(candidate);
+                            if (update == null) {
+                                restamped.incrementAndGet();
+                                update = SKIPPED;
+                            }
+                        } catch (Exception | StackOverflowError e) {
+                            failed.incrementAndGet();
+                            System.err.println("[CodebaseIndexer] Skipping " + candidate.relativePath() + ": " + e);
+                        } finally {
+                            // Exactly one item per changed file, even if read() threw an Error,
+                            // or the loop below would wait for it forever
+                            try {
+                                queue.put(update);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+                }
+
+                List<CodeSearchIndex.FileUpdate> batch = new ArrayList<>();
+                int batchChunks = 0;
+                long lastReport = System.nanoTime();
+                for (int received = 0; received < changed.size(); received++) {
+                    CodeSearchIndex.FileUpdate update = queue.take();
+                    if (update != SKIPPED) {
+                        batch.add(update);
+                        batchChunks += update.chunks().size();
+                    }
+                    if (batchChunks >= BATCH_CHUNKS || (received == changed.size() - 1 && !batch.isEmpty())) {
+                        index.replaceFiles(batch);
+                        indexed[0] += batch.size();
+                        indexed[1] += batchChunks;
+                        batch = new ArrayList<>();
+                        batchChunks = 0;
+                    }
+                    if (progress != null && System.nanoTime() - lastReport > TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MS)) {
+                        lastReport = System.nanoTime();
+                        progress.accept(new Progress("index", candidates.size(), changed.size(), indexed[0], indexed[1], elapsedMs(start)));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                readers.shutdownNow();
+            }
+        }
+
+        int unchanged = candidates.size() - changed.size() + restamped.get();
+        Stats stats = new Stats(candidates.size(), unchanged, restamped.get(), indexed[0], failed.get(), removed,
+                indexed[1], walkMs, elapsedMs(start));
+        if (progress != null) {
+            progress.accept(new Progress("done", candidates.size(), changed.size(), indexed[0], indexed[1], stats.elapsedMs()));
+        }
+        return stats;
+    }
+
+    /**
+     * Reads and chunks a changed file. Returns null (after re-stamping it) if its
+     * content hash is unchanged.
+     */
+    private CodeSearchIndex.FileUpdate read(Candidate candidate) throws IOException {
+        if (candidate.size() > MAX_FILE_SIZE) {
+            System.err.println("[CodebaseIndexer] Skipping " + candidate.relativePath() + ": "
+                    + (candidate.size() >> 20) + " MB is over the " + (MAX_FILE_SIZE >> 20) + " MB limit");
+            // Stamped, so it isn't retried until it changes
+            return new CodeSearchIndex.FileUpdate(candidate.relativePath(),
+                    new CodeSearchIndex.FileStamp(candidate.size(), candidate.modifiedMillis(), "skipped"), List.of());
+        }
+
+        byte[] bytes = null;
+        String hash;
+        if (candidate.size() <= IN_MEMORY_LIMIT) {
+            bytes = Files.readAllBytes(candidate.path());
+            hash = sha256(bytes);
+        } else {
+            hash = sha256(candidate.path());
+        }
+        CodeSearchIndex.FileStamp stamp = new CodeSearchIndex.FileStamp(
+                bytes != null ? bytes.length : candidate.size(), candidate.modifiedMillis(), hash);
+        CodeSearchIndex.FileStamp previous = index.stampOf(candidate.relativePath());
+        if (previous != null && previous.contentHash().equals(stamp.contentHash())) {
+            index.touch(candidate.relativePath(), stamp);
+            return null;
+        }
+
+        List<CodeSearchIndex.Chunk> chunks = new ArrayList<>();
+        Chunker chunker = Chunker.forFile(candidate.relativePath(), stamp.size());
+        try (Reader reader = bytes != null
+                ? new StringReader(new String(bytes, StandardCharsets.UTF_8))
+                : new InputStreamReader(Files.newInputStream(candidate.path()), StandardCharsets.UTF_8)) {
+            chunker.chunk(candidate.relativePath(), reader, chunks::add);
+        }
+        return new CodeSearchIndex.FileUpdate(candidate.relativePath(), stamp, chunks);
+    }
+
+    // ------------------------------------------------------------------- walk
+
+    List<Candidate> walk(Path root, GitIgnoreFilter filter) {
+        ConcurrentLinkedQueue<Candidate> found = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new DirectoryTask(root, filter, found));
+        } finally {
+            pool.shutdown();
+        }
+        return new ArrayList<>(found);
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final GitIgnoreFilter filter;
+        private final ConcurrentLinkedQueue<Candidate> found;
+
+        DirectoryTask(Path dir, GitIgnoreFilter filter, ConcurrentLinkedQueue<Candidate> found) {
+            this.dir = dir;
+            this.filter = filter;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = attributes(entry);
+                    if (attrs == null) continue;
+                    if (attrs.isDirectory()) {
+                        if (!EXCLUDED_DIRS.contains(entry.getFileName().toString()) && filter.shouldEnterDirectory(entry)) {
+                            subdirectories.add(new DirectoryTask(entry, filter, found));
+                        }
+                    } else if (attrs.isRegularFile() && isIndexable(entry) && !filter.isIgnored(entry)) {
+                        found.add(new Candidate(entry, relativize(entry), attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                }
+            } catch (IOException e) {
+                // Unreadable directory: skip it
+            }
+            invokeAll(subdirectories);
+        }
+    }
+
+    private boolean isExcluded(Path file, GitIgnoreFilter filter) {
+        for (Path dir = file.getParent(); dir != null && dir.startsWith(projectRoot) && !dir.equals(projectRoot); dir = dir.getParent()) {
+            if (EXCLUDED_DIRS.contains(dir.getFileName().toString()) || !filter.shouldEnterDirectory(dir)) return true;
+        }
+        return filter.isIgnored(file);
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static boolean isIndexable(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String ext : INDEXABLE_EXTENSIONS) {
+            if (name.endsWith(ext)) return true;
+        }
+        return false;
+    }
+
+    String relativize(Path path) {
+        return projectRoot.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256Digest().digest(bytes));
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = sha256Digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
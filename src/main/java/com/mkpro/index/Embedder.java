@@ -0,0 +1,17 @@
+package com.mkpro.index;
+
+/**
+ * A text embedding backend that runs in-process.
+ *
+ * Implementations return L2-normalised vectors of {@link #dimension()} floats, so
+ * cosine similarity is a plain dot product.
+ */
+public interface Embedder {
+
+    /** Identifies the backend and its parameters; vectors from different ids are not comparable. */
+    String id();
+
+    int dimension();
+
+    float[] embed(String text);
+}
@@ -0,0 +1,146 @@
+package com.mkpro.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Embeds text as a signed feature-hashed bag of code-aware n-grams. Needs no model
+ * files and no network, so it is always available as the fallback backend.
+ *
+ * Features per text:
+ * <ul>
+ *   <li>words, with identifiers also split into their camelCase / snake_case parts
+ *       ({@code getUserName} → {@code getusername}, {@code get}, {@code user}, {@code name})</li>
+ *   <li>adjacent part bigrams ({@code user name}), so phrases score above loose words</li>
+ *   <li>character trigrams of each part at half weight, so {@code parse} meets {@code parser}</li>
+ * </ul>
+ * Counts are damped to 1 + ln(tf), hashed into {@link #dimension()} buckets with a
+ * hash-derived sign (collisions cancel out on average rather than pile up) and
+ * the vector is L2-normalised.
+ */
+public final class HashedNgramEmbedder implements Embedder {
+
+    public static final int DEFAULT_DIMENSION = 512;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimension;
+
+    public HashedNgramEmbedder() {
+        this(Integer.getInteger("mkpro.embedding.hashDim", DEFAULT_DIMENSION));
+    }
+
+    public HashedNgramEmbedder(int dimension) {
+        if (dimension < 16) throw new IllegalArgumentException("dimension must be at least 16: " + dimension);
+        this.dimension = dimension;
+    }
+
+    @Override
+    public String id() {
+        return "hash-ngram-v1-" + dimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        Map<String, Float> features = new HashMap<>();
+        List<String> previousParts = List.of();
+        for (String word : words(text)) {
+            List<String> parts = splitIdentifier(word);
+            String lower = word.toLowerCase(Locale.ROOT);
+            features.merge("w:" + lower, 1f, Float::sum);
+            if (parts.size() > 1) {
+                for (String part : parts) features.merge("w:" + part, 1f, Float::sum);
+            }
+            // Bigrams run across word boundaries too: "user name" and "userName" meet
+            if (!previousParts.isEmpty()) {
+                features.merge("b:" + previousParts.get(previousParts.size() - 1) + ' ' + parts.get(0), 1f, Float::sum);
+            }
+            for (int i = 1; i < parts.size(); i++) {
+                features.merge("b:" + parts.get(i - 1) + ' ' + parts.get(i), 1f, Float::sum);
+            }
+            for (String part : parts) {
+                String padded = '<' + part + '>';
+                for (int i = 0; i + 3 <= padded.length(); i++) {
+                    features.merge("c:" + padded.substring(i, i + 3), TRIGRAM_WEIGHT, Float::sum);
+                }
+            }
+            previousParts = parts;
+        }
+
+        float[] vector = new float[dimension];
+        for (Map.Entry<String, Float> feature : features.entrySet()) {
+            long hash = hash(feature.getKey());
+            int bucket = (int) Long.remainderUnsigned(hash, dimension);
+            float tf = feature.getValue();
+            float weight = tf <= 1f ? tf : (float) (1.0 + Math.log(tf));
+            vector[bucket] += (hash & (1L << 63)) != 0 ? -weight : weight;
+        }
+        return VectorMath.normalize(vector);
+    }
+
+    /** Alphanumeric runs (underscores included) of at least two characters. */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c) || c == '_';
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= 2) words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /** Lower-cased camelCase / snake_case / digit-boundary parts of an identifier. */
+    static List<String> splitIdentifier(String word) {
+        List<String> parts = new ArrayList<>(4);
+        int start = 0;
+        for (int i = 1; i <= word.length(); i++) {
+            boolean boundary = i == word.length();
+            if (!boundary) {
+                char prev = word.charAt(i - 1);
+                char c = word.charAt(i);
+                boundary = c == '_'
+                        || prev == '_'
+                        || (Character.isLowerCase(prev) && Character.isUpperCase(c))
+                        || (Character.isLetter(prev) != Character.isLetter(c))
+                        // acronym end: "HTTPServer" → "http", "server"
+                        || (Character.isUpperCase(prev) && Character.isUpperCase(c)
+                            && i + 1 < word.length() && Character.isLowerCase(word.charAt(i + 1)));
+            }
+            if (boundary) {
+                String part = word.substring(start, i);
+                if (!part.isEmpty() && !part.equals("_")) parts.add(part.toLowerCase(Locale.ROOT));
+                start = i;
+            }
+        }
+        if (parts.isEmpty()) parts.add(word.toLowerCase(Locale.ROOT));
+        return parts;
+    }
+
+    /** 64-bit FNV-1a followed by a murmur finaliser, stable across JVMs (unlike String.hashCode mixing). */
+    private static long hash(String feature) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < feature.length(); i++) {
+            h ^= feature.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,130 @@
+package com.mkpro.index;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Chunks Java sources at declaration boundaries: each type, and each member of
+ * a type (field, constructor, method, nested type) together with its Javadoc
+ * and annotations, starts a new segment. Small neighbouring members are packed
+ * into one chunk; a member longer than {@link Chunker#MAX_CHARS} is cut at line
+ * ends. Sources that don't parse are chunked by {@link TextChunker}.
+ *
+ * Uses its own {@link JavaParser}, not {@code StaticJavaParser}, whose global
+ * configuration carries Graphify's symbol solver.
+ */
+public class JavaChunker implements Chunker {
+
+    /** Larger sources are streamed through {@link TextChunker} instead of parsed. */
+    public static final int MAX_PARSE_CHARS = 1_000_000;
+
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(() -> new JavaParser(
+        new ParserConfiguration()
+            .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17)
+            .setAttributeComments(true)));
+
+    @Override
+    public void chunk(String file, Reader source, Consumer<CodeSearchIndex.Chunk> sink) throws IOException {
+        String content = readAll(source);
+        int[] lineStarts = lineStarts(content);
+        TreeSet<Integer> cuts = boundaries(content, lineStarts);
+        if (cuts == null) {
+            new TextChunker().chunk(file, new StringReader(content), sink);
+            return;
+        }
+
+        ChunkPacker packer = new ChunkPacker(file, sink);
+        cuts.add(0);
+        cuts.add(content.length());
+        Integer previous = null;
+        for (int cut : cuts) {
+            if (previous != null && cut > previous) {
+                packer.add(previous, lineOf(lineStarts, previous), content.substring(previous, cut));
+            }
+            previous = cut;
+        }
+        packer.finish();
+    }
+
+    /**
+     * Character offsets (always at line starts) where a declaration begins or
+     * the line after one ends, or null if the source doesn't parse.
+     */
+    private TreeSet<Integer> boundaries(String content, int[] lineStarts) {
+        ParseResult<CompilationUnit> result;
+        try {
+            result = PARSER.get().parse(content);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (!result.isSuccessful() || result.getResult().isEmpty()) return null;
+
+        TreeSet<Integer> cuts = new TreeSet<>();
+        List<Node> declarations = new ArrayList<>();
+        for (TypeDeclaration<?> type : result.getResult().get().findAll(TypeDeclaration.class)) {
+            declarations.add(type);
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                declarations.add(member);
+            }
+        }
+        for (Node node : declarations) {
+            Position begin = node.getBegin().orElse(null);
+            Position end = node.getEnd().orElse(null);
+            if (begin == null || end == null) continue;
+            // Start at the Javadoc, if the declaration has one
+            Position commentBegin = node.getComment().flatMap(Node::getBegin).orElse(null);
+            if (commentBegin != null && commentBegin.isBefore(begin)) begin = commentBegin;
+            cuts.add(lineStart(lineStarts, begin.line, content.length()));
+            cuts.add(lineStart(lineStarts, end.line + 1, content.length()));
+        }
+        return cuts;
+    }
+
+    private static String readAll(Reader source) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = source.read(buffer)) > 0) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    /** Offset at which each line starts; line {@code i + 1} starts at {@code result[i]}. */
+    static int[] lineStarts(String content) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= content.length() || content.charAt(i + 1) != '\n'))) {
+                starts.add(i + 1);
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int lineStart(int[] lineStarts, int line, int length) {
+        if (line - 1 >= lineStarts.length) return length;
+        return lineStarts[Math.max(0, line - 1)];
+    }
+
+    private static int lineOf(int[] lineStarts, int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return (index >= 0 ? index : -index - 2) + 1;
+    }
+}
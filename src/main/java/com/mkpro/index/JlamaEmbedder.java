@@ -0,0 +1,62 @@
+package com.mkpro.index;
+
+import com.github.tjake.jlama.model.AbstractModel;
+import com.github.tjake.jlama.model.ModelSupport;
+import com.github.tjake.jlama.model.functions.Generator;
+import com.github.tjake.jlama.safetensors.DType;
+
+import java.io.File;
+
+/**
+ * Embeds text with a local Jlama embedding model (e.g. a BERT / MiniLM / nomic-embed
+ * export), mean-pooled over the input tokens.
+ *
+ * Models are looked up in the same directory layout JlamaProvider uses — download
+ * one with {@code /jlama download <owner/name>} — and loaded once per process.
+ */
+public final class JlamaEmbedder implements Embedder {
+
+    private static final int MAX_CHARS = 2000; // stay inside typical 512-token windows
+
+    private final String modelName;
+    private final AbstractModel model;
+    private final int dimension;
+
+    /**
+     * @throws IllegalStateException if the model is not downloaded or can't be loaded
+     */
+    public JlamaEmbedder(String modelName, String modelsDirectory) {
+        this.modelName = modelName;
+        File modelPath = new File(modelsDirectory, modelName.replace('/', '_'));
+        if (!modelPath.exists()) {
+            modelPath = new File(modelsDirectory, modelName.replace('/', File.separatorChar));
+        }
+        if (!modelPath.exists()) {
+            throw new IllegalStateException("Embedding model not found: " + modelName
+                    + ". Download it first with /jlama download " + modelName);
+        }
+        this.model = ModelSupport.loadEmbeddingModel(modelPath, DType.F32, DType.I8);
+        // Probe once rather than depend on config field names that differ between model families
+        this.dimension = model.embed("probe", Generator.PoolingType.AVG).length;
+    }
+
+    @Override
+    public String id() {
+        return "jlama:" + modelName + ":" + dimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        String input = text.length() > MAX_CHARS ? text.substring(0, MAX_CHARS) : text;
+        float[] vector;
+        synchronized (model) { // the model's KV buffers are not safe for concurrent use
+            vector = model.embed(input, Generator.PoolingType.AVG);
+        }
+        return VectorMath.normalize(vector.clone());
+    }
+}
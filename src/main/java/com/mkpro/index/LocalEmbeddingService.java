@@ -0,0 +1,90 @@
+package com.mkpro.index;
+
+import com.google.adk.memory.EmbeddingService;
+import io.reactivex.rxjava3.core.Single;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Offline EmbeddingService: a Jlama embedding model when one is configured and
+ * downloaded, otherwise {@link HashedNgramEmbedder}. Nothing leaves the process.
+ *
+ * Set {@code mkpro.embedding.model} (e.g. {@code intfloat/e5-small-v2}) to use a
+ * Jlama model from the Jlama models directory; if it can't be loaded the hashed
+ * backend is used and a warning is printed.
+ *
+ * Vectors handed to ADK (the memory service's MapDB vector store) are zero-padded
+ * to {@link #STORE_DIMENSION}, the width earlier builds stored, so old and new
+ * entries stay comparable; padding does not change cosine similarity. The code
+ * index uses {@link #embed(String)} / {@link #embedAll(List)} at the native width.
+ */
+public class LocalEmbeddingService implements EmbeddingService {
+
+    public static final int STORE_DIMENSION = 1536;
+
+    private final Embedder embedder;
+
+    public LocalEmbeddingService(Embedder embedder) {
+        this.embedder = embedder;
+    }
+
+    /** The configured backend, falling back to hashed n-grams. */
+    public static LocalEmbeddingService create() {
+        String model = System.getProperty("mkpro.embedding.model", "");
+        if (!model.isBlank()) {
+            String modelsDir = System.getProperty("mkpro.jlama.modelsDir",
+                    System.getProperty("user.home") + "/Documents/mkpro/jlama-models");
+            try {
+                return new LocalEmbeddingService(new JlamaEmbedder(model, modelsDir));
+            } catch (Throwable e) {
+                System.err.println("[LocalEmbeddingService] Could not load embedding model " + model
+                        + " (" + e.getMessage() + "), using hashed n-gram embeddings");
+            }
+        }
+        return new LocalEmbeddingService(new HashedNgramEmbedder());
+    }
+
+    public Embedder getEmbedder() {
+        return embedder;
+    }
+
+    public String id() {
+        return embedder.id();
+    }
+
+    public int dimension() {
+        return embedder.dimension();
+    }
+
+    @Override
+    public Single<double[]> generateEmbedding(String text) {
+        return Single.fromCallable(() -> {
+            float[] vector = embedder.embed(text == null ? "" : text);
+            double[] padded = new double[Math.max(STORE_DIMENSION, vector.length)];
+            for (int i = 0; i < vector.length; i++) padded[i] = vector[i];
+            return padded;
+        });
+    }
+
+    public float[] embed(String text) {
+        return embedder.embed(text == null ? "" : text);
+    }
+
+    /**
+     * Embeds a batch. The hashed backend is CPU-bound and stateless, so texts are
+     * embedded in parallel; a Jlama model already parallelises each forward pass
+     * internally and is called one text at a time.
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        if (!(embedder instanceof HashedNgramEmbedder) || texts.size() < 8) {
+            List<float[]> vectors = new ArrayList<>(texts.size());
+            for (String text : texts) vectors.add(embed(text));
+            return vectors;
+        }
+        float[][] vectors = new float[texts.size()][];
+        IntStream.range(0, texts.size()).parallel().forEach(i -> vectors[i] = embed(texts.get(i)));
+        return List.of(vectors);
+    }
+}
@@ -0,0 +1,445 @@
+package com.mkpro.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Approximate nearest-neighbour index over unit vectors: an HNSW graph over
+ * int8-quantised vectors.
+ *
+ * Each vector is stored as {@code dimension} signed bytes plus one float scale
+ * (max |x| / 127) in a direct, off-heap buffer, a quarter of its float size and
+ * invisible to the GC. Queries are quantised the same way, so every similarity
+ * is an int8 × int8 dot product.
+ *
+ * Below {@value #DEFAULT_GRAPH_AT} vectors a search just scans them all. From
+ * there a hierarchical navigable small-world graph (Malkov &amp; Yashunin) is built
+ * and kept up to date on insert, and a search walks it from the top layer down,
+ * scoring a few hundred vectors instead of all of them. Removed vectors stay in
+ * the graph as tombstones so their neighbours remain reachable; once they make
+ * up a quarter of the index the graph is rebuilt and their slots freed for reuse.
+ *
+ * Vectors are addressed by slot, which never changes while the vector is in the
+ * index. Not thread-safe — {@link CodeSearchIndex} guards it.
+ */
+final class QuantizedVectorIndex {
+
+    record Hit(int slot, float score) {
+    }
+
+    static final int DEFAULT_GRAPH_AT = 2048;
+    private static final int GRAPH_AT = Integer.getInteger("mkpro.index.graphThreshold", DEFAULT_GRAPH_AT);
+    private static final int EF_SEARCH = Integer.getInteger("mkpro.index.ef", 128);
+    private static final int M = 16;                 // links per node on upper layers
+    private static final int M0 = 2 * M;             // links per node on layer 0
+    private static final int EF_CONSTRUCTION = 64;
+    private static final double LEVEL_FACTOR = 1 / Math.log(M);
+
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;           // tombstone, still linked in the graph
+
+    private final int dimension;
+    private ByteBuffer codes;
+    private float[] scales;
+    private byte[] state;
+    private int slots;                               // high-water mark
+    private int live;
+    private int deleted;
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    private int[][][] links;                         // [slot][level] = {count, neighbours...}; null until built
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private final Random random = new Random(42);
+
+    QuantizedVectorIndex(int dimension) {
+        this.dimension = dimension;
+        this.codes = ByteBuffer.allocateDirect(64 * dimension);
+        this.scales = new float[64];
+        this.state = new byte[64];
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        return live;
+    }
+
+    boolean hasGraph() {
+        return links != null;
+    }
+
+    /** Adds a unit vector and returns its slot. */
+    int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " dimensions, got " + vector.length);
+        }
+        Integer reused = freeSlots.poll();
+        int slot = reused != null ? reused : slots++;
+        ensureCapacity(slot + 1);
+        byte[] code = new byte[dimension];
+        scales[slot] = quantize(vector, code);
+        codes.put(slot * dimension, code);
+        state[slot] = LIVE;
+        live++;
+        if (links != null) {
+            insert(slot);
+        } else if (live >= GRAPH_AT) {
+            rebuild();
+        }
+        return slot;
+    }
+
+    void remove(int slot) {
+        if (slot < 0 || slot >= slots || state[slot] != LIVE) return;
+        live--;
+        if (links == null) {
+            state[slot] = FREE;
+            freeSlots.add(slot);
+        } else {
+            state[slot] = DELETED;
+            deleted++;
+            if (live == 0) {
+                clear();
+            } else if (deleted > 64 && deleted * 4 > live + deleted) {
+                rebuild();
+            }
+        }
+    }
+
+    void clear() {
+        slots = 0;
+        live = 0;
+        deleted = 0;
+        freeSlots.clear();
+        links = null;
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    /** The top {@code k} vectors by (approximate) cosine similarity, best first. */
+    List<Hit> search(float[] query, int k) {
+        if (links == null || entryPoint < 0) return searchExact(query, k);
+        Scorer scorer = new Scorer(query);
+        int ep = entryPoint;
+        for (int level = maxLevel; level > 0; level--) {
+            ep = greedyClosest(scorer, ep, level);
+        }
+        PriorityQueue<Hit> found = searchLayer(scorer, ep, Math.max(EF_SEARCH, k), 0);
+        PriorityQueue<Hit> top = minHeap();
+        for (Hit hit : found) {
+            if (state[hit.slot()] == LIVE) offer(top, hit.slot(), hit.score(), k);
+        }
+        return sorted(top);
+    }
+
+    /** Scores every vector; the baseline that {@link #search} approximates. */
+    List<Hit> searchExact(float[] query, int k) {
+        Scorer scorer = new Scorer(query);
+        PriorityQueue<Hit> top = minHeap();
+        for (int slot = 0; slot < slots; slot++) {
+            if (state[slot] == LIVE) offer(top, slot, scorer.score(slot), k);
+        }
+        return sorted(top);
+    }
+
+    // ------------------------------------------------------------------ graph
+
+    /** Rebuilds the graph over the live vectors; tombstoned slots become free. */
+    private void rebuild() {
+        links = new int[state.length][][];
+        entryPoint = -1;
+        maxLevel = -1;
+        freeSlots.clear();
+        for (int slot = 0; slot < slots; slot++) {
+            if (state[slot] == DELETED) state[slot] = FREE;
+            if (state[slot] == FREE) freeSlots.add(slot);
+        }
+        deleted = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (state[slot] == LIVE) insert(slot);
+        }
+    }
+
+    private void insert(int slot) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * LEVEL_FACTOR);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) nodeLinks[l] = new int[1 + (l == 0 ? M0 : M)];
+        links[slot] = nodeLinks;
+        if (entryPoint < 0) {
+            entryPoint = slot;
+            maxLevel = level;
+            return;
+        }
+
+        Scorer scorer = new Scorer(slot);
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(scorer, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Hit> best = sorted(searchLayer(scorer, ep, EF_CONSTRUCTION, l));
+            int[] neighbours = selectNeighbours(best, l == 0 ? M0 : M);
+            System.arraycopy(neighbours, 0, nodeLinks[l], 1, neighbours.length);
+            nodeLinks[l][0] = neighbours.length;
+            for (int neighbour : neighbours) link(neighbour, slot, l);
+            ep = best.get(0).slot();
+        }
+        if (level > maxLevel) {
+            entryPoint = slot;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Adds {@code target} to {@code node}'s links; a full list keeps its closest
+     * nodes. (Re-running the heuristic here would cost a full pairwise comparison
+     * of the list on almost every insert once the graph fills up.)
+     */
+    private void link(int node, int target, int level) {
+        int[] nodeLinks = links[node][level];
+        int count = nodeLinks[0];
+        if (count < nodeLinks.length - 1) {
+            nodeLinks[count + 1] = target;
+            nodeLinks[0] = count + 1;
+            return;
+        }
+        Scorer scorer = new Scorer(node);
+        List<Hit> candidates = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) candidates.add(new Hit(nodeLinks[i], scorer.score(nodeLinks[i])));
+        candidates.add(new Hit(target, scorer.score(target)));
+        candidates.sort((a, b) -> Float.compare(b.score(), a.score()));
+        for (int i = 0; i < count; i++) nodeLinks[i + 1] = candidates.get(i).slot();
+    }
+
+    /**
+     * The HNSW neighbour heuristic: walking candidates best first, keep one only if
+     * it is closer to the base node than to every neighbour already kept, so links
+     * point in different directions; top up with the skipped ones if short.
+     */
+    private int[] selectNeighbours(List<Hit> candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.size())];
+        int count = 0;
+        List<Hit> skipped = new ArrayList<>();
+        for (Hit candidate : candidates) {
+            if (count == selected.length) break;
+            Scorer scorer = new Scorer(candidate.slot());
+            boolean diverse = true;
+            for (int i = 0; i < count && diverse; i++) {
+                diverse = scorer.score(selected[i]) < candidate.score();
+            }
+            if (diverse) {
+                selected[count++] = candidate.slot();
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && count < selected.length; i++) {
+            selected[count++] = skipped.get(i).slot();
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private int greedyClosest(Scorer scorer, int ep, int level) {
+        int current = ep;
+        float currentScore = scorer.score(current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] nodeLinks = links[current][level];
+            for (int i = 1; i <= nodeLinks[0]; i++) {
+                float score = scorer.score(nodeLinks[i]);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = nodeLinks[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /** Beam search of one layer; returns up to {@code ef} nodes as a min-heap by score. */
+    private PriorityQueue<Hit> searchLayer(Scorer scorer, int ep, int ef, int level) {
+        BitSet visited = new BitSet(slots);
+        visited.set(ep);
+        Hit start = new Hit(ep, scorer.score(ep));
+        PriorityQueue<Hit> candidates = new PriorityQueue<>((a, b) -> Float.compare(b.score(), a.score()));
+        PriorityQueue<Hit> results = minHeap();
+        candidates.add(start);
+        results.add(start);
+        while (!candidates.isEmpty()) {
+            Hit candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) break;
+            int[] nodeLinks = links[candidate.slot()][level];
+            for (int i = 1; i <= nodeLinks[0]; i++) {
+                int neighbour = nodeLinks[i];
+                if (visited.get(neighbour)) continue;
+                visited.set(neighbour);
+                float score = scorer.score(neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Hit hit = new Hit(neighbour, score);
+                    candidates.add(hit);
+                    results.add(hit);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+        return results;
+    }
+
+    // ---------------------------------------------------------------- scoring
+
+    /**
+     * Similarities against stored vectors. The inner loop is an int8 × int8 → int
+     * sum, which the JIT can vectorise (a float sum can't be reordered).
+     */
+    private final class Scorer {
+        private final byte[] base = new byte[dimension];
+        private final float baseScale;
+        private final byte[] buffer = new byte[dimension];
+
+        /** Scores against a query vector. */
+        Scorer(float[] query) {
+            baseScale = quantize(query, base);
+        }
+
+        /** Scores against a stored vector. */
+        Scorer(int slot) {
+            codes.get(slot * dimension, base);
+            baseScale = scales[slot];
+        }
+
+        float score(int slot) {
+            codes.get(slot * dimension, buffer);
+            int sum = 0;
+            for (int i = 0; i < dimension; i++) sum += base[i] * buffer[i];
+            return sum * baseScale * scales[slot];
+        }
+    }
+
+    /** Symmetric int8 quantisation: code = round(x / scale), scale = max |x| / 127. */
+    private static float quantize(float[] vector, byte[] code) {
+        float max = 0;
+        for (float x : vector) max = Math.max(max, Math.abs(x));
+        if (max == 0) return 0;
+        float scale = max / 127f;
+        for (int i = 0; i < vector.length; i++) code[i] = (byte) Math.round(vector[i] / scale);
+        return scale;
+    }
+
+    private static PriorityQueue<Hit> minHeap() {
+        return new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+    }
+
+    private static void offer(PriorityQueue<Hit> heap, int slot, float score, int k) {
+        if (heap.size() < k) {
+            heap.add(new Hit(slot, score));
+        } else if (k > 0 && score > heap.peek().score()) {
+            heap.poll();
+            heap.add(new Hit(slot, score));
+        }
+    }
+
+    private static List<Hit> sorted(PriorityQueue<Hit> heap) {
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return hits;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= scales.length) return;
+        int capacity = Math.max(needed, scales.length * 2);
+        ByteBuffer grown = ByteBuffer.allocateDirect(Math.multiplyExact(capacity, dimension));
+        grown.put(0, codes, 0, codes.capacity());
+        codes = grown;
+        scales = Arrays.copyOf(scales, capacity);
+        state = Arrays.copyOf(state, capacity);
+        if (links != null) links = Arrays.copyOf(links, capacity);
+    }
+
+    // ------------------------------------------------------------ persistence
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(dimension);
+        out.writeInt(slots);
+        byte[] code = new byte[dimension];
+        for (int slot = 0; slot < slots; slot++) {
+            out.writeByte(state[slot]);
+            if (state[slot] == FREE) continue;
+            out.writeFloat(scales[slot]);
+            codes.get(slot * dimension, code);
+            out.write(code);
+        }
+        out.writeBoolean(links != null);
+        if (links == null) return;
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int slot = 0; slot < slots; slot++) {
+            if (state[slot] == FREE) continue;
+            int[][] nodeLinks = links[slot];
+            out.writeByte(nodeLinks.length);
+            for (int[] levelLinks : nodeLinks) {
+                out.writeByte(levelLinks[0]);
+                for (int i = 1; i <= levelLinks[0]; i++) out.writeInt(levelLinks[i]);
+            }
+        }
+    }
+
+    static QuantizedVectorIndex read(DataInput in) throws IOException {
+        QuantizedVectorIndex index = new QuantizedVectorIndex(in.readInt());
+        int dimension = index.dimension;
+        int slots = in.readInt();
+        index.ensureCapacity(slots);
+        byte[] code = new byte[dimension];
+        for (int slot = 0; slot < slots; slot++) {
+            byte state = in.readByte();
+            if (state != FREE && state != LIVE && state != DELETED) throw new IOException("Bad slot state " + state);
+            index.state[slot] = state;
+            if (state == FREE) {
+                index.freeSlots.add(slot);
+                continue;
+            }
+            index.scales[slot] = in.readFloat();
+            in.readFully(code);
+            index.codes.put(slot * dimension, code);
+            if (state == LIVE) index.live++;
+            else index.deleted++;
+        }
+        index.slots = slots;
+        if (!in.readBoolean()) return index;
+        index.links = new int[index.state.length][][];
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        for (int slot = 0; slot < slots; slot++) {
+            if (index.state[slot] == FREE) continue;
+            int levels = in.readUnsignedByte();
+            int[][] nodeLinks = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int count = in.readUnsignedByte();
+                nodeLinks[l] = new int[1 + (l == 0 ? M0 : M)];
+                if (count > nodeLinks[l].length - 1) throw new IOException("Node " + slot + " has too many links");
+                nodeLinks[l][0] = count;
+                for (int i = 1; i <= count; i++) {
+                    int neighbour = in.readInt();
+                    if (neighbour < 0 || neighbour >= slots) throw new IOException("Node " + slot + " links to " + neighbour);
+                    nodeLinks[l][i] = neighbour;
+                }
+            }
+            index.links[slot] = nodeLinks;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,94 @@
+package com.mkpro.index;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Language-agnostic chunker that streams its input line by line, so files of
+ * any size are chunked in full without being held as one string.
+ *
+ * A segment boundary falls after a blank line, after a line that closes a
+ * brace block back to depth 0 or 1 (the end of a function, or of a member in a
+ * class), and before an unindented line at depth 0 (a top-level definition,
+ * Markdown heading or YAML key). Brace depth is counted naively, ignoring
+ * strings and comments; it only steers where chunks break.
+ */
+public class TextChunker implements Chunker {
+
+    @Override
+    public void chunk(String file, Reader source, Consumer<CodeSearchIndex.Chunk> sink) throws IOException {
+        ChunkPacker packer = new ChunkPacker(file, sink);
+        StringBuilder segment = new StringBuilder();
+        StringBuilder line = new StringBuilder();
+        int offset = 0;          // characters read so far
+        int segmentOffset = 0;
+        int lineNumber = 1;      // line the next line starts on
+        int segmentLine = 1;
+        int depth = 0;
+
+        char[] buffer = new char[8192];
+        int n;
+        boolean eof = false;
+        while (!eof) {
+            n = source.read(buffer);
+            if (n < 0) {
+                eof = true;
+                n = 0;
+            }
+            for (int i = 0; i <= n; i++) {
+                boolean lineDone;
+                if (i < n) {
+                    char c = buffer[i];
+                    line.append(c);
+                    lineDone = c == '\n' || line.length() >= MAX_CHARS; // cap minified lines
+                } else {
+                    lineDone = eof && line.length() > 0;
+                }
+                if (!lineDone) continue;
+
+                // Boundary before an unindented top-level line
+                if (depth == 0 && segment.length() > 0 && startsUnindented(line)) {
+                    packer.add(segmentOffset, segmentLine, segment);
+                    segmentOffset = offset;
+                    segmentLine = lineNumber;
+                    segment.setLength(0);
+                }
+
+                int before = depth;
+                depth = Math.max(0, depth + braceDelta(line));
+                segment.append(line);
+                offset += line.length();
+                if (line.charAt(line.length() - 1) == '\n') lineNumber++;
+
+                boolean blank = line.toString().isBlank();
+                boolean closesBlock = depth < before && depth <= 1;
+                if (blank || closesBlock || segment.length() >= MAX_CHARS) {
+                    packer.add(segmentOffset, segmentLine, segment);
+                    segmentOffset = offset;
+                    segmentLine = lineNumber;
+                    segment.setLength(0);
+                }
+                line.setLength(0);
+            }
+        }
+        packer.add(segmentOffset, segmentLine, segment);
+        packer.finish();
+    }
+
+    private static boolean startsUnindented(CharSequence line) {
+        if (line.length() == 0) return false;
+        char first = line.charAt(0);
+        return !Character.isWhitespace(first) && first != '}' && first != ')' && first != ']';
+    }
+
+    private static int braceDelta(CharSequence line) {
+        int delta = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '{') delta++;
+            else if (c == '}') delta--;
+        }
+        return delta;
+    }
+}
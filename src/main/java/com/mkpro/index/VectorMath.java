@@ -0,0 +1,26 @@
+package com.mkpro.index;
+
+/**
+ * Small vector helpers shared by the embedders and the index.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    /** Scales {@code v} to unit length in place (a zero vector is left as is). */
+    static float[] normalize(float[] v) {
+        double sum = 0;
+        for (float x : v) sum += (double) x * x;
+        if (sum == 0) return v;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+        return v;
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+}
@@ -0,0 +1,117 @@
+package com.mkpro.knowledge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits fetched source content into stable chunks and hashes them, so a refresh
+ * can tell which parts of a page it has already analyzed.
+ *
+ * Chunk boundaries are content-defined: every paragraph (blank-line separated) is
+ * its own chunk, and paragraphs longer than {@value #MAX_CHUNK_CHARS} characters
+ * (most of a page without blank lines) are cut at word gaps where a rolling gear
+ * hash of the preceding ~64 characters hits a boundary pattern, with chunks kept
+ * between {@value #MIN_CHUNK_CHARS} and {@value #MAX_CHUNK_CHARS} characters.
+ * A boundary depends only on the text just before it, so an edit changes the
+ * hashes of the chunks it touches (and at most the next one) and nothing else.
+ * Whitespace, including line breaks within a paragraph, is collapsed before
+ * cutting and hashing so reflowed text hashes the same.
+ */
+final class ContentChunker {
+
+    static final int MAX_CHUNK_CHARS = 1000;
+    static final int MIN_CHUNK_CHARS = 200;
+
+    /** A word gap is a boundary when the top bits of the hash are zero: 1 in 32, ~400 chars per chunk. */
+    private static final int BOUNDARY_BITS = 5;
+
+    /** Per-character random values for the gear hash, from a fixed seed so boundaries are stable across runs. */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long state = 0x6d6b70726f63646cL;
+        for (int i = 0; i < GEAR.length; i++) {
+            long z = (state += 0x9e3779b97f4a7c15L); // splitmix64
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    /** One chunk of content and its hash (16 hex chars). */
+    record Chunk(String hash, String text) {}
+
+    private ContentChunker() {
+    }
+
+    /**
+     * Chunks the text in document order. Blank paragraphs are dropped.
+     */
+    static List<Chunk> split(String text) {
+        List<Chunk> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        for (String paragraph : text.split("\\r?\\n\\s*\\n")) {
+            String normalized = paragraph.strip().replaceAll("\\s+", " ");
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            if (normalized.length() <= MAX_CHUNK_CHARS) {
+                chunks.add(new Chunk(hash(normalized), paragraph.strip()));
+                continue;
+            }
+            cut(normalized, chunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * Cuts an oversized paragraph at content-defined word gaps. The hash is never
+     * reset, so whether a gap is a boundary depends only on the text before it;
+     * only a run of {@value #MAX_CHUNK_CHARS} characters without one is cut by length.
+     */
+    private static void cut(String text, List<Chunk> chunks) {
+        int start = 0;
+        long h = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            h = (h << 1) + GEAR[(c ^ (c >>> 8)) & 0xff];
+            int length = i + 1 - start;
+            boolean boundary = c == ' ' && length >= MIN_CHUNK_CHARS && (h >>> (64 - BOUNDARY_BITS)) == 0;
+            if (boundary || length == MAX_CHUNK_CHARS) {
+                addPiece(text.substring(start, i + 1), chunks);
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            addPiece(text.substring(start), chunks);
+        }
+    }
+
+    private static void addPiece(String piece, List<Chunk> chunks) {
+        piece = piece.strip();
+        if (!piece.isEmpty()) {
+            chunks.add(new Chunk(hash(piece), piece));
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a of the text, as hex. Collisions only cost a skipped paragraph.
+     */
+    static String hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return String.format("%016x", h);
+    }
+
+    /**
+     * Rough token estimate (4 characters per token) for prompt size metrics.
+     */
+    static long estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+}
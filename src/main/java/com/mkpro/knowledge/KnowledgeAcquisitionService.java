@@ -0,0 +1,140 @@
+package com.mkpro.knowledge;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared background worker for knowledge acquisition triggered while responses
+ * stream in (see {@link StreamKnowledgeMonitor}).
+ *
+ * All monitors submit to one small pool instead of each owning a thread. Requests
+ * carry a key, and a key that is already queued or running is not accepted again,
+ * so the same gap or topic seen by several concurrent streams is worked on once.
+ * The queue is bounded: when it is full new requests are dropped, since this is
+ * best-effort enrichment and stale requests are worth less than fresh ones.
+ *
+ * Pool size and queue length come from {@code mkpro.knowledge.acquisitionWorkers}
+ * (default 2) and {@code mkpro.knowledge.acquisitionQueue} (default 16).
+ */
+public final class KnowledgeAcquisitionService {
+
+    private static final int WORKERS = Integer.getInteger("mkpro.knowledge.acquisitionWorkers", 2);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("mkpro.knowledge.acquisitionQueue", 16);
+
+    private static volatile KnowledgeAcquisitionService shared;
+
+    private final ThreadPoolExecutor pool;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    KnowledgeAcquisitionService(int workers, int queueCapacity) {
+        int size = Math.max(1, workers);
+        this.pool = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "knowledge-acquisition");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The process-wide instance. Threads are only started when work arrives.
+     */
+    public static KnowledgeAcquisitionService shared() {
+        KnowledgeAcquisitionService instance = shared;
+        if (instance == null) {
+            synchronized (KnowledgeAcquisitionService.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new KnowledgeAcquisitionService(WORKERS, QUEUE_CAPACITY);
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a task unless another task with the same key is queued or running,
+     * or the queue is full. The key is released when the task finishes.
+     *
+     * @return true if the task was accepted
+     */
+    public boolean submit(String key, Runnable task) {
+        if (!inFlight.add(key)) {
+            deduplicated.incrementAndGet();
+            return false;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    System.err.println("[KnowledgeAcquisitionService] Task " + key + " failed: " + e.getMessage());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            accepted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Marks a key as in flight for work the caller does itself (e.g. adding a
+     * topic from inside a task). Must be paired with {@link #release(String)}.
+     *
+     * @return false if the key is already in flight
+     */
+    public boolean claim(String key) {
+        if (inFlight.add(key)) {
+            return true;
+        }
+        deduplicated.incrementAndGet();
+        return false;
+    }
+
+    public void release(String key) {
+        inFlight.remove(key);
+    }
+
+    public boolean isInFlight(String key) {
+        return inFlight.contains(key);
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getQueuedCount() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Stops the workers and drops queued requests. Later submissions are rejected.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+        inFlight.clear();
+    }
+}
@@ -5,17 +5,35 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Main scheduler that drives the knowledge accumulation loop.
  * Periodically refreshes topics by fetching sources, running LLM analysis,
  * and storing updated reports.
+ *
+ * Topics wait in a priority queue keyed by their next due time. A single
+ * dispatcher thread hands due topics to a small worker pool
+ * ({@code mkpro.knowledge.workers}), so one slow analysis no longer holds up the
+ * others. The next due time blends the configured interval with access frequency,
+ * report confidence and whether the sources changed last time, plus some jitter.
+ * LLM calls are additionally limited per provider
+ * ({@code mkpro.knowledge.providerLimit[.<provider>]}, default 1) so a local
+ * model is not swamped. Repeated refresh requests for a topic that is already
+ * queued or running are coalesced into one.
  */
 public class KnowledgeScheduler {
 
     private static final String LOG_PREFIX = "[Knowledge] ";
     private static final int STAGGER_DELAY_SECONDS = 30;
+    private static final int WORKERS = Integer.getInteger("mkpro.knowledge.workers", 4);
+    private static final int MIN_INTERVAL_MINUTES = 5;
+    private static final double MAX_UNCHANGED_BACKOFF = 4.0;
+    private static final double JITTER = 0.1;
+    private static final int MAX_NEW_DATA_CHARS = 8000;
+    private static final int MAX_CHUNK_HASHES_PER_SOURCE = 2000;
+    private static final int REPORT_BUDGET_CHARS = Integer.getInteger("mkpro.knowledge.reportBudget", 10_000);
     private static final int TOP_KEYWORDS_COUNT = 20;
     private static final Set<String> STOPWORDS = Set.of(
             "a", "an", "the", "and", "or", "but", "in", "on", "at", "to", "for",
@@ -37,10 +55,29 @@ public class KnowledgeScheduler {
     private final SourceFetcher fetcher;
     private final List<TopicConfig> topics;
     private final ScheduledExecutorService executor;
+    private final ExecutorService workers;
     private final Map<String, TopicConfig> topicsByName;
 
+    /** Refresh queue, ordered by due time; slots and wakeup are guarded by queueLock */
+    private final Object queueLock = new Object();
+    private final PriorityQueue<Slot> queue = new PriorityQueue<>(Comparator.comparingLong(slot -> slot.dueAt));
+    private final Map<String, Slot> slots = new HashMap<>();
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+    private volatile boolean started;
+
+    private final Map<String, Semaphore> providerPermits = new ConcurrentHashMap<>();
+    private volatile Function<TopicConfig, String> providerResolver =
+            topic -> topic.getAgent() != null ? topic.getAgent() : "default";
+
     private volatile BiFunction<String, String, String> analyzeCallback;
+
+    /** Prompt size metrics: what was sent vs. what whole-source prompts would have cost */
+    private final java.util.concurrent.atomic.AtomicLong promptTokensSent = new java.util.concurrent.atomic.AtomicLong();
+    private final java.util.concurrent.atomic.AtomicLong promptTokensFull = new java.util.concurrent.atomic.AtomicLong();
+    private final java.util.concurrent.atomic.AtomicLong diffedRefreshes = new java.util.concurrent.atomic.AtomicLong();
     private volatile com.mkpro.facts.FactExtractor factExtractor;
+    private volatile java.nio.file.Path scheduleFile = java.nio.file.Paths.get(".mkpro", "schedules.yaml");
 
     public KnowledgeScheduler(KnowledgeStore store, TopicIndex index, SourceFetcher fetcher, List<TopicConfig> topics) {
         this.store = Objects.requireNonNull(store, "store must not be null");
@@ -58,27 +95,45 @@ public class KnowledgeScheduler {
             return t;
         };
         this.executor = Executors.newSingleThreadScheduledExecutor(daemonFactory);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, WORKERS), r -> {
+            Thread t = new Thread(r, "knowledge-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Scheduling state of one topic. */
+    private static final class Slot {
+        final String name;
+        long dueAt;
+        boolean queued;
+        boolean running;
+        boolean rerun;          // refresh requested while running
+        int unchangedStreak;    // consecutive refreshes where no source changed
+
+        Slot(String name) {
+            this.name = name;
+        }
     }
 
+    /** What a refresh did; feeds the next due time. */
+    enum RefreshOutcome { UPDATED, UNCHANGED, SKIPPED, FAILED }
+
     /**
-     * Starts the scheduler, scheduling each topic at its configured refresh interval
-     * with staggered initial delays (topic_index * 30 seconds).
+     * Starts the scheduler: each topic gets a first refresh with staggered initial
+     * delays (topic_index * 30 seconds), after which it is rescheduled from the
+     * outcome of each refresh.
      */
     public void start() {
-        log("Starting scheduler with " + topics.size() + " topics");
+        log("Starting scheduler with " + topics.size() + " topics (" + Math.max(1, WORKERS) + " workers)");
+        started = true;
         for (int i = 0; i < topics.size(); i++) {
             TopicConfig topic = topics.get(i);
             long initialDelay = (long) i * STAGGER_DELAY_SECONDS;
-            long interval = topic.getRefreshIntervalMinutes();
 
-            executor.scheduleAtFixedRate(
-                    () -> safeRefresh(topic),
-                    initialDelay,
-                    TimeUnit.MINUTES.toSeconds(interval),
-                    TimeUnit.SECONDS
-            );
+            enqueue(topic.getName(), TimeUnit.SECONDS.toMillis(initialDelay), false);
 
-            log("Scheduled topic '" + topic.getName() + "' every " + interval
+            log("Scheduled topic '" + topic.getName() + "' every ~" + topic.getRefreshIntervalMinutes()
                     + " min (initial delay: " + initialDelay + "s)");
         }
 
@@ -96,65 +151,304 @@ public class KnowledgeScheduler {
      */
     public void stop() {
         log("Stopping scheduler...");
+        started = false;
         executor.shutdown();
+        workers.shutdown();
         try {
-            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            boolean done = executor.awaitTermination(30, TimeUnit.SECONDS)
+                    && workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!done) {
                 executor.shutdownNow();
+                workers.shutdownNow();
                 log("Forced shutdown after timeout");
             } else {
                 log("Scheduler stopped gracefully");
             }
         } catch (InterruptedException e) {
             executor.shutdownNow();
+            workers.shutdownNow();
             Thread.currentThread().interrupt();
             log("Scheduler interrupted during shutdown");
         }
     }
 
+    // ========================================================================
+    // Refresh queue
+    // ========================================================================
+
+    /**
+     * Queues a refresh of the topic in {@code delayMs}. An earlier queued refresh
+     * wins; a forced request for a running topic is remembered and run right after.
+     */
+    private void enqueue(String topicName, long delayMs, boolean forced) {
+        synchronized (queueLock) {
+            Slot slot = slots.computeIfAbsent(topicName, Slot::new);
+            if (slot.running) {
+                if (forced) slot.rerun = true;
+                return;
+            }
+            enqueueLocked(slot, System.currentTimeMillis() + Math.max(0, delayMs));
+        }
+    }
+
+    private void enqueueLocked(Slot slot, long dueAt) {
+        if (slot.queued) {
+            if (slot.dueAt <= dueAt) return;
+            queue.remove(slot);
+        }
+        slot.dueAt = dueAt;
+        slot.queued = true;
+        queue.add(slot);
+        armWakeupLocked();
+    }
+
+    /** Makes sure the dispatcher wakes up no later than the head of the queue is due. */
+    private void armWakeupLocked() {
+        Slot head = queue.peek();
+        if (head == null || (wakeup != null && wakeupAt <= head.dueAt)) return;
+        if (wakeup != null) wakeup.cancel(false);
+        wakeupAt = head.dueAt;
+        try {
+            wakeup = executor.schedule(this::dispatchDue,
+                    Math.max(0, head.dueAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            wakeup = null; // stopped
+            wakeupAt = Long.MAX_VALUE;
+        }
+    }
+
+    /** Dispatcher: hands every due topic to the worker pool, earliest first. */
+    private void dispatchDue() {
+        List<Slot> due = new ArrayList<>();
+        synchronized (queueLock) {
+            wakeup = null;
+            wakeupAt = Long.MAX_VALUE;
+            long now = System.currentTimeMillis();
+            while (!queue.isEmpty() && queue.peek().dueAt <= now) {
+                Slot slot = queue.poll();
+                slot.queued = false;
+                slot.running = true;
+                due.add(slot);
+            }
+            armWakeupLocked();
+        }
+        for (Slot slot : due) {
+            try {
+                workers.execute(() -> runSlot(slot));
+            } catch (RejectedExecutionException e) {
+                synchronized (queueLock) {
+                    slot.running = false;
+                }
+            }
+        }
+    }
+
+    private void runSlot(Slot slot) {
+        TopicConfig topic = topicsByName.get(slot.name);
+        RefreshOutcome outcome = topic != null ? safeRefresh(topic) : RefreshOutcome.SKIPPED;
+        synchronized (queueLock) {
+            slot.running = false;
+            if (topic == null || !topicsByName.containsKey(slot.name)) {
+                slots.remove(slot.name);
+                return;
+            }
+            if (outcome == RefreshOutcome.UNCHANGED) {
+                slot.unchangedStreak++;
+            } else if (outcome == RefreshOutcome.UPDATED) {
+                slot.unchangedStreak = 0;
+            }
+            if (slot.rerun) {
+                slot.rerun = false;
+                enqueueLocked(slot, System.currentTimeMillis());
+            } else if (started) {
+                enqueueLocked(slot, System.currentTimeMillis() + nextDelayMillis(topic, slot.unchangedStreak));
+            }
+        }
+    }
+
+    /**
+     * Delay until the next refresh: the access-weighted interval, stretched for
+     * confident reports and for sources that keep coming back unchanged, shortened
+     * for shaky reports, with +/-10% jitter so topics don't fire in lockstep.
+     */
+    long nextDelayMillis(TopicConfig topic, int unchangedStreak) {
+        double minutes = getEffectiveInterval(topic);
+
+        TopicReport report = store.getReport(topic.getName());
+        double confidence = report != null ? report.getConfidence() : 0.5;
+        minutes *= 0.75 + 0.5 * confidence; // 0.5 (the default) leaves the interval as is
+
+        minutes *= Math.min(MAX_UNCHANGED_BACKOFF, 1.0 + 0.5 * unchangedStreak);
+
+        minutes = Math.max(MIN_INTERVAL_MINUTES, minutes);
+        minutes *= 1.0 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (minutes * 60_000);
+    }
+
+    /**
+     * Returns queued topics with the epoch millis they are next due, earliest first.
+     */
+    public Map<String, Long> getNextDueTimes() {
+        List<Slot> queued;
+        synchronized (queueLock) {
+            queued = new ArrayList<>(queue);
+        }
+        queued.sort(Comparator.comparingLong(slot -> slot.dueAt));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Slot slot : queued) {
+            result.put(slot.name, slot.dueAt);
+        }
+        return result;
+    }
+
+    /**
+     * Maps a topic to the LLM provider that analyzes it, for the per-provider
+     * concurrency limit. Defaults to the topic's agent name.
+     */
+    public void setProviderResolver(Function<TopicConfig, String> resolver) {
+        this.providerResolver = Objects.requireNonNull(resolver, "resolver must not be null");
+    }
+
+    private Semaphore providerPermit(TopicConfig topic) {
+        String provider;
+        try {
+            provider = providerResolver.apply(topic);
+        } catch (Exception e) {
+            provider = null;
+        }
+        String key = provider != null ? provider.toLowerCase() : "default";
+        return providerPermits.computeIfAbsent(key, k -> new Semaphore(Math.max(1,
+                Integer.getInteger("mkpro.knowledge.providerLimit." + k,
+                        Integer.getInteger("mkpro.knowledge.providerLimit", 1)))));
+    }
+
     /**
      * Core refresh loop for a single topic.
      * Fetches sources, builds analysis prompt, invokes LLM callback,
      * updates the report, and reindexes.
      */
     public void refreshTopic(TopicConfig topic) {
+        refresh(topic);
+    }
+
+    private RefreshOutcome refresh(TopicConfig topic) {
         String topicName = topic.getName();
         log("Refreshing topic: " + topicName);
 
-        // a. Fetch all sources for the topic
-        Map<String, String> fetched = fetcher.fetchAll(topic.getSources());
+        // a. Get existing report or create new
+        TopicReport report = store.getReport(topicName);
+        if (report == null) {
+            report = new TopicReport(topicName, topic.getTitle() != null ? topic.getTitle() : topicName);
+        }
+        if (report.getSourceStates() == null) {
+            report.setSourceStates(new LinkedHashMap<>());
+        }
+
+        // b. Fetch all sources, conditionally against what the last analysis saw
+        Map<String, SourceFetcher.FetchResult> fetched = fetcher.fetchAll(topic.getSources(), report.getSourceStates());
         if (fetched == null || fetched.isEmpty()) {
             log("No source data fetched for topic: " + topicName);
-            return;
+            return RefreshOutcome.FAILED;
         }
 
-        String newData = String.join("\n---\n", fetched.values());
+        List<String> changed = new ArrayList<>();
+        int unchanged = 0;
+        int failed = 0;
+        for (SourceFetcher.FetchResult result : fetched.values()) {
+            switch (result.getStatus()) {
+                case CHANGED -> changed.add(result.getContent());
+                case UNCHANGED -> unchanged++;
+                case ERROR -> {
+                    failed++;
+                    log("Fetch failed for " + topicName + ": " + result.getContent());
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            log("No source changes for topic: " + topicName + " (" + unchanged + " unchanged, "
+                    + failed + " failed), skipping analysis");
+            return unchanged > 0 ? RefreshOutcome.UNCHANGED : RefreshOutcome.FAILED;
+        }
 
-        // b. Get existing report or create new
-        TopicReport report = store.getReport(topicName);
-        if (report == null) {
-            report = new TopicReport(topicName, topic.getTitle() != null ? topic.getTitle() : topicName);
+        // c. Diff changed sources against the chunks the last analysis already covered
+        Map<String, List<ContentChunker.Chunk>> chunksByUrl = new LinkedHashMap<>();
+        List<ContentChunker.Chunk> fresh = new ArrayList<>();
+        Set<String> freshHashes = new HashSet<>();
+        int totalChunks = 0;
+        for (SourceFetcher.FetchResult result : fetched.values()) {
+            if (result.getStatus() != SourceFetcher.Status.CHANGED) continue;
+            List<ContentChunker.Chunk> chunks = ContentChunker.split(result.getContent());
+            chunksByUrl.put(result.getUrl(), chunks);
+            totalChunks += chunks.size();
+            Set<String> seen = seenChunks(report.getSourceStates().get(result.getUrl()));
+            for (ContentChunker.Chunk chunk : chunks) {
+                if (!seen.contains(chunk.hash()) && freshHashes.add(chunk.hash())) {
+                    fresh.add(chunk);
+                }
+            }
+        }
+        long fullPromptTokens = ContentChunker.estimateTokens(
+                buildAnalysisPrompt(topic, report, String.join("\n---\n", changed)));
+        if (totalChunks == 0) {
+            log("Sources for topic " + topicName + " returned no content, skipping analysis");
+            return RefreshOutcome.FAILED;
+        }
+        if (fresh.isEmpty()) {
+            log("No new content for topic: " + topicName + " (all " + totalChunks
+                    + " chunks seen before), skipping analysis");
+            recordPromptTokens(0, fullPromptTokens);
+            rememberSources(report, fetched, chunksByUrl, Set.of());
+            store.saveReport(report);
+            return RefreshOutcome.UNCHANGED;
         }
 
-        // c. Build analysis prompt
-        String prompt = buildAnalysisPrompt(topic, report, newData);
+        // Send new chunks in page order up to the data budget; the rest stay new for next time
+        StringBuilder newData = new StringBuilder();
+        Set<String> sentHashes = new HashSet<>();
+        for (ContentChunker.Chunk chunk : fresh) {
+            if (!sentHashes.isEmpty() && newData.length() + chunk.text().length() > MAX_NEW_DATA_CHARS) break;
+            if (newData.length() > 0) newData.append("\n\n");
+            newData.append(chunk.text());
+            sentHashes.add(chunk.hash());
+        }
+
+        // d. Build analysis prompt
+        String prompt = buildAnalysisPrompt(topic, report, newData.toString());
+        long promptTokens = ContentChunker.estimateTokens(prompt);
+        log("Prompt for " + topicName + ": ~" + promptTokens + " tokens, " + sentHashes.size() + "/" + totalChunks
+                + " chunks new (~" + Math.max(0, fullPromptTokens - promptTokens) + " tokens saved)");
 
-        // d. Call analyzeCallback
+        // e. Call analyzeCallback
         BiFunction<String, String, String> callback = this.analyzeCallback;
         if (callback == null) {
             log("No analyze callback set, skipping analysis for: " + topicName);
-            return;
+            return RefreshOutcome.SKIPPED;
         }
 
-        String analysisResult = callback.apply(topicName, prompt);
+        String analysisResult;
+        Semaphore permit = providerPermit(topic);
+        try {
+            permit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RefreshOutcome.FAILED;
+        }
+        try {
+            analysisResult = callback.apply(topicName, prompt);
+        } finally {
+            permit.release();
+        }
+        recordPromptTokens(promptTokens, fullPromptTokens);
         if (analysisResult == null || analysisResult.isBlank()) {
             log("Empty analysis result for topic: " + topicName);
-            return;
+            return RefreshOutcome.FAILED;
         }
 
-        // e. Parse discovered topics from analysis result
+        // f. Parse discovered topics from analysis result
         String cleanedResult = parseAndStoreDiscoveries(topicName, analysisResult);
 
-        // f. Update report with intelligent merging metadata
+        // g. Update report with intelligent merging metadata
         String now = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
 
         // Confidence update: increases if we got meaningful new analysis
@@ -175,26 +469,90 @@ public class KnowledgeScheduler {
         report.setSummary(cleanedResult);
         report.setLastUpdated(now);
         report.setConfidence(newConfidence);
-        report.getHistory().add(new TopicReport.HistoryEntry(now, "Updated from " + fetched.size() + " sources (confidence: " + String.format("%.0f%%", newConfidence * 100) + ")"));
+        report.getHistory().add(new TopicReport.HistoryEntry(now, "Updated from " + changed.size() + " changed source(s) (confidence: " + String.format("%.0f%%", newConfidence * 100) + ")"));
         report.setKeywords(extractKeywords(cleanedResult));
         report.setSources(new ArrayList<>(topic.getSources()));
+        // Remember validators and analyzed chunks only now, so a failed analysis is retried
+        rememberSources(report, fetched, chunksByUrl, sentHashes);
 
-        // g. Save to KnowledgeStore
+        // h. Save to KnowledgeStore
         store.saveReport(report);
         log("Saved report for topic: " + topicName + " (confidence: " + String.format("%.0f%%", newConfidence * 100) + ")");
 
-        // h. Reindex in TopicIndex
-        index.indexTopic(topicName, cleanedResult);
-        index.rebuildIdf();
+        // i. Reindex in TopicIndex (incremental; IDF refreshes itself once enough topics change)
+        index.indexReport(report);
         log("Reindexed topic: " + topicName);
 
-        // i. Extract structured facts into FactEngine graph
+        // j. Extract structured facts into FactEngine graph
         if (factExtractor != null) {
             int extracted = factExtractor.extractAndAdd(topicName, cleanedResult);
             if (extracted > 0) {
                 log("Extracted " + extracted + " relationship(s) from: " + topicName);
             }
         }
+        return RefreshOutcome.UPDATED;
+    }
+
+    private static Set<String> seenChunks(TopicReport.SourceState state) {
+        return state != null && state.getChunkHashes() != null ? new HashSet<>(state.getChunkHashes()) : Set.of();
+    }
+
+    /**
+     * Stores the fetch state of every source on the report. A changed source
+     * remembers the chunks that were seen before or sent just now; if some of its
+     * chunks did not fit in the prompt, its validators are dropped so the next
+     * refresh fetches it in full and sends the remainder.
+     */
+    private void rememberSources(TopicReport report, Map<String, SourceFetcher.FetchResult> fetched,
+                                 Map<String, List<ContentChunker.Chunk>> chunksByUrl, Set<String> sentHashes) {
+        Map<String, TopicReport.SourceState> states = new LinkedHashMap<>();
+        for (SourceFetcher.FetchResult result : fetched.values()) {
+            TopicReport.SourceState state = result.getState();
+            if (state == null) continue;
+            TopicReport.SourceState previous = report.getSourceStates().get(result.getUrl());
+            List<ContentChunker.Chunk> chunks = chunksByUrl.get(result.getUrl());
+            if (chunks != null) {
+                Set<String> seen = seenChunks(previous);
+                List<String> covered = new ArrayList<>();
+                boolean complete = true;
+                for (ContentChunker.Chunk chunk : chunks) {
+                    if (seen.contains(chunk.hash()) || sentHashes.contains(chunk.hash())) {
+                        if (covered.size() < MAX_CHUNK_HASHES_PER_SOURCE) covered.add(chunk.hash());
+                    } else {
+                        complete = false;
+                    }
+                }
+                if (!complete) {
+                    state = new TopicReport.SourceState(null, null, null);
+                }
+                state.setChunkHashes(covered);
+            } else if (state.getChunkHashes() == null && previous != null) {
+                state.setChunkHashes(previous.getChunkHashes()); // same body as last time
+            }
+            states.put(result.getUrl(), state);
+        }
+        report.setSourceStates(states);
+    }
+
+    private void recordPromptTokens(long sent, long full) {
+        diffedRefreshes.incrementAndGet();
+        promptTokensSent.addAndGet(sent);
+        promptTokensFull.addAndGet(full);
+    }
+
+    /**
+     * Returns estimated prompt tokens sent for analysis since startup, what sending
+     * every changed source whole would have cost, and the difference.
+     */
+    public Map<String, Long> getTokenStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long sent = promptTokensSent.get();
+        long full = promptTokensFull.get();
+        stats.put("refreshes", diffedRefreshes.get());
+        stats.put("promptTokens", sent);
+        stats.put("fullPromptTokens", full);
+        stats.put("tokensSaved", Math.max(0, full - sent));
+        return stats;
     }
 
     /**
@@ -213,7 +571,15 @@ public class KnowledgeScheduler {
     }
 
     /**
-     * Triggers an immediate refresh of a specific topic by name.
+     * Set where added and removed topics are persisted (default .mkpro/schedules.yaml).
+     */
+    public void setScheduleFile(java.nio.file.Path scheduleFile) {
+        this.scheduleFile = Objects.requireNonNull(scheduleFile, "scheduleFile must not be null");
+    }
+
+    /**
+     * Triggers an immediate refresh of a specific topic by name. Requests for a topic
+     * that is already due or running collapse into a single refresh.
      */
     public void forceRefresh(String topicName) {
         TopicConfig topic = topicsByName.get(topicName);
@@ -222,7 +588,7 @@ public class KnowledgeScheduler {
             return;
         }
         log("Force refresh requested for: " + topicName);
-        executor.submit(() -> safeRefresh(topic));
+        enqueue(topicName, 0, true);
     }
 
     /**
@@ -244,11 +610,12 @@ public class KnowledgeScheduler {
      * Wraps refreshTopic with error handling so one topic failure
      * doesn't crash the scheduler or affect other topics.
      */
-    private void safeRefresh(TopicConfig topic) {
+    private RefreshOutcome safeRefresh(TopicConfig topic) {
         try {
-            refreshTopic(topic);
+            return refresh(topic);
         } catch (Exception e) {
             log("ERROR refreshing topic '" + topic.getName() + "': " + e.getMessage());
+            return RefreshOutcome.FAILED;
         }
     }
 
@@ -271,12 +638,12 @@ public class KnowledgeScheduler {
 
         if (existingReport.getSummary() != null && !existingReport.getSummary().isBlank()) {
             prompt.append("## Existing Report (EVOLVE this, do NOT discard):\n");
-            prompt.append(existingReport.getSummary()).append("\n\n");
+            prompt.append(compactReport(existingReport.getSummary())).append("\n\n");
         } else {
             prompt.append("## Note: This is the FIRST analysis for this topic. Create a comprehensive initial report.\n\n");
         }
 
-        prompt.append("## Newly Fetched Data:\n");
+        prompt.append("## Newly Fetched Data (only content not analyzed before; anything omitted is unchanged):\n");
         // Truncate new data to prevent token overflow
         String truncatedData = newData.length() > 8000 ? newData.substring(0, 8000) + "\n...[truncated]" : newData;
         prompt.append(truncatedData).append("\n\n");
@@ -294,6 +661,33 @@ public class KnowledgeScheduler {
         return prompt.toString();
     }
 
+    /**
+     * The existing report with blank runs collapsed; past the report budget, keeps
+     * headings, list items and the first sentence of each paragraph.
+     */
+    static String compactReport(String summary) {
+        String compact = summary.strip().replaceAll("[ \\t]+", " ").replaceAll("\\n\\s*\\n+", "\n\n");
+        if (compact.length() <= REPORT_BUDGET_CHARS) {
+            return compact;
+        }
+        StringBuilder out = new StringBuilder();
+        for (String paragraph : compact.split("\n\n")) {
+            String kept;
+            if (paragraph.startsWith("#") || paragraph.startsWith("- ") || paragraph.startsWith("* ")) {
+                kept = paragraph;
+            } else {
+                int end = paragraph.indexOf(". ");
+                kept = end > 0 ? paragraph.substring(0, end + 1) : paragraph;
+            }
+            if (out.length() + kept.length() + 2 > REPORT_BUDGET_CHARS) {
+                out.append("\n...[condensed]");
+                break;
+            }
+            out.append(kept).append("\n\n");
+        }
+        return out.toString().strip();
+    }
+
     /**
      * Extracts top 20 most frequent non-stopword tokens from the given text.
      * Simple tokenize-and-frequency approach.
@@ -370,11 +764,13 @@ public class KnowledgeScheduler {
     /**
      * Add a topic requested by an agent. Auto-approved, priority boosted.
      * This skips the pending discoveries queue and immediately schedules.
+     * A request for a known topic is coalesced into a refresh of that topic.
      */
     public void addAgentRequestedTopic(String topicName, String description, List<String> sources) {
         // Dedup check
         if (topicsByName.containsKey(topicName)) {
-            log("Topic '" + topicName + "' already scheduled, skipping agent request.");
+            log("Topic '" + topicName + "' already scheduled, coalescing agent request into a refresh.");
+            enqueue(topicName, TimeUnit.SECONDS.toMillis(5), true);
             return;
         }
 
@@ -392,7 +788,7 @@ public class KnowledgeScheduler {
         log("Agent-requested topic added: " + topicName + " (auto-approved, priority boost)");
 
         // Schedule immediate refresh
-        executor.schedule(() -> safeRefresh(newTopic), 5, TimeUnit.SECONDS);
+        enqueue(topicName, TimeUnit.SECONDS.toMillis(5), true);
     }
 
     /**
@@ -420,7 +816,7 @@ public class KnowledgeScheduler {
         log("Topic added: " + name);
 
         // Schedule with first refresh in 30s
-        executor.schedule(() -> safeRefresh(topic), 30, TimeUnit.SECONDS);
+        enqueue(name, TimeUnit.SECONDS.toMillis(30), true);
 
         // Persist to YAML
         persistToYaml();
@@ -440,13 +836,22 @@ public class KnowledgeScheduler {
         if (removed == null) return false;
 
         topics.remove(removed);
+        synchronized (queueLock) {
+            Slot slot = slots.get(name);
+            if (slot != null && slot.queued) {
+                queue.remove(slot);
+                slot.queued = false;
+            }
+            if (slot != null && !slot.running) {
+                slots.remove(name);
+            }
+        }
 
         // Delete stored report
         store.deleteReport(name);
 
         // Remove from index
         index.removeTopic(name);
-        index.rebuildIdf();
 
         log("Topic removed: " + name);
 
@@ -457,12 +862,14 @@ public class KnowledgeScheduler {
     }
 
     /**
-     * Persist current topic list to .mkpro/schedules.yaml.
+     * Persist current topic list to the schedule file (.mkpro/schedules.yaml by default).
      */
     private void persistToYaml() {
         try {
-            java.nio.file.Path yamlPath = java.nio.file.Paths.get(".mkpro", "schedules.yaml");
-            java.nio.file.Files.createDirectories(yamlPath.getParent());
+            java.nio.file.Path yamlPath = scheduleFile;
+            if (yamlPath.getParent() != null) {
+                java.nio.file.Files.createDirectories(yamlPath.getParent());
+            }
 
             StringBuilder sb = new StringBuilder();
             sb.append("# mkpro Knowledge Scheduler Configuration\n");
@@ -522,7 +929,7 @@ public class KnowledgeScheduler {
 
         log("Approved topic: " + name);
         // Schedule it
-        executor.schedule(() -> safeRefresh(newTopic), 10, TimeUnit.SECONDS);
+        enqueue(discovery.name, TimeUnit.SECONDS.toMillis(10), true);
     }
 
     /** Dismiss a discovered topic */
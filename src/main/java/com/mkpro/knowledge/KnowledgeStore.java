@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -70,28 +71,25 @@ public class KnowledgeStore {
 
     /**
      * Retrieves all TopicReports stored in CentralMemory.
-     * Filters entries by the "knowledge:" prefix and skips any that are
-     * empty (deleted markers) or fail to parse.
+     * Range-scans the "knowledge:" namespace only and skips any entries that
+     * are empty (deletion markers from older versions) or fail to parse.
      *
      * @return list of all valid TopicReports, or empty list if none found
      */
     public List<TopicReport> getAllReports() {
         try {
-            Map<String, String> allMemories = centralMemory.getAllMemories();
-            if (allMemories == null || allMemories.isEmpty()) {
-                return Collections.emptyList();
-            }
             List<TopicReport> reports = new ArrayList<>();
-            for (Map.Entry<String, String> entry : allMemories.entrySet()) {
-                String key = entry.getKey();
+            Iterator<Map.Entry<String, String>> it = centralMemory.scanPrefix(KEY_PREFIX);
+            while (it.hasNext()) {
+                Map.Entry<String, String> entry = it.next();
                 String value = entry.getValue();
-                if (key.startsWith(KEY_PREFIX) && value != null && !value.isBlank()) {
-                    try {
-                        TopicReport report = objectMapper.readValue(value, TopicReport.class);
-                        reports.add(report);
-                    } catch (Exception e) {
-                        LOG.warn("Failed to deserialize TopicReport for key '{}': {}", key, e.getMessage());
-                    }
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                try {
+                    reports.add(objectMapper.readValue(value, TopicReport.class));
+                } catch (Exception e) {
+                    LOG.warn("Failed to deserialize TopicReport for key '{}': {}", entry.getKey(), e.getMessage());
                 }
             }
             return reports;
@@ -102,9 +100,7 @@ public class KnowledgeStore {
     }
 
     /**
-     * Deletes a TopicReport by saving an empty string as a deletion marker.
-     * CentralMemory does not expose a delete method, so empty values are
-     * treated as "deleted" and filtered out in getAllReports().
+     * Deletes a TopicReport from CentralMemory.
      *
      * @param topicName the topic name to delete (without prefix)
      */
@@ -113,7 +109,6 @@ public class KnowledgeStore {
             LOG.warn("Cannot delete report: topic name is null/blank");
             return;
         }
-        String key = KEY_PREFIX + topicName;
-        centralMemory.saveMemory(key, "");
+        centralMemory.deleteMemory(KEY_PREFIX + topicName);
     }
 }
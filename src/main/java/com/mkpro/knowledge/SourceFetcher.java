@@ -1,17 +1,45 @@
 package com.mkpro.knowledge;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Simple HTTP fetcher for knowledge sources.
+ * HTTP fetcher for knowledge sources.
  * Thread-safe, reusable instance with graceful error handling.
+ *
+ * URLs in a batch are fetched concurrently (at most {@code mkpro.fetch.concurrency}
+ * at a time, {@code mkpro.fetch.perHost} per host). Bodies are streamed and cut off
+ * at 500KB instead of being read whole. Given the {@link TopicReport.SourceState}
+ * from the previous fetch, requests are conditional (If-None-Match /
+ * If-Modified-Since), and a 304 or an identical body hash is reported as
+ * {@link Status#UNCHANGED} so callers can skip work for stable sources.
  */
 public class SourceFetcher {
 
@@ -19,14 +47,89 @@ public class SourceFetcher {
     private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
     private static final Duration READ_TIMEOUT = Duration.ofSeconds(30);
     private static final int MAX_RESPONSE_SIZE = 500 * 1024; // 500KB
+    private static final int MAX_CONCURRENT = Integer.getInteger("mkpro.fetch.concurrency", 8);
+    private static final int MAX_PER_HOST = Integer.getInteger("mkpro.fetch.perHost", 2);
+
+    /** Closes bodies that outlive the read timeout; a blocked read only returns once its stream is closed. */
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "source-fetcher-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Outcome of fetching one source. */
+    public enum Status {
+        /** New content (or no previous state to compare against) */
+        CHANGED,
+        /** 304 Not Modified, or the body hashes the same as last time */
+        UNCHANGED,
+        /** Network failure or non-2xx status; content holds the error message */
+        ERROR
+    }
+
+    /**
+     * Result of a single fetch. {@code state} is what to pass back next time:
+     * the new validators on success, the previous ones otherwise.
+     */
+    public static final class FetchResult {
+        private final String url;
+        private final Status status;
+        private final String content;
+        private final TopicReport.SourceState state;
+
+        FetchResult(String url, Status status, String content, TopicReport.SourceState state) {
+            this.url = url;
+            this.status = status;
+            this.content = content;
+            this.state = state;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /** Body for CHANGED, error message for ERROR, null or the unchanged body for UNCHANGED. */
+        public String getContent() {
+            return content;
+        }
+
+        public TopicReport.SourceState getState() {
+            return state;
+        }
+
+        @Override
+        public String toString() {
+            return "FetchResult{url='" + url + "', status=" + status + "}";
+        }
+    }
 
     private final HttpClient httpClient;
+    private final ThreadPoolExecutor pool;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final Duration bodyTimeout;
 
     public SourceFetcher() {
+        this(READ_TIMEOUT);
+    }
+
+    /** @param bodyTimeout how long reading a response body may take in total */
+    SourceFetcher(Duration bodyTimeout) {
+        this.bodyTimeout = bodyTimeout;
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(CONNECT_TIMEOUT)
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
+        this.pool = new ThreadPoolExecutor(MAX_CONCURRENT, MAX_CONCURRENT, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "source-fetcher");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
     }
 
     /**
@@ -37,32 +140,78 @@ public class SourceFetcher {
      * @return response body or error message string
      */
     public String fetch(String url) {
+        FetchResult result = fetch(url, null);
+        return result.getContent() != null ? result.getContent() : "";
+    }
+
+    /**
+     * Fetches one URL, conditionally if {@code previous} carries validators.
+     *
+     * @param url      the URL to fetch
+     * @param previous state returned by the last fetch of this URL, or null
+     * @return the fetch result; never null
+     */
+    public FetchResult fetch(String url, TopicReport.SourceState previous) {
         try {
-            HttpRequest request = HttpRequest.newBuilder()
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
                     .uri(URI.create(url))
                     .header("User-Agent", USER_AGENT)
                     .timeout(READ_TIMEOUT)
-                    .GET()
-                    .build();
+                    .GET();
+            if (previous != null && previous.getEtag() != null) {
+                builder.header("If-None-Match", previous.getEtag());
+            }
+            if (previous != null && previous.getLastModified() != null) {
+                builder.header("If-Modified-Since", previous.getLastModified());
+            }
+            HttpRequest request = builder.build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Semaphore permits = hostPermits.computeIfAbsent(hostKey(request.uri()), h -> new Semaphore(MAX_PER_HOST));
+            permits.acquire();
+            try {
+                return send(url, request, previous);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(url, "interrupted", previous);
+        } catch (Exception e) {
+            String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return error(url, reason, previous);
+        }
+    }
 
+    private FetchResult send(String url, HttpRequest request, TopicReport.SourceState previous)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
             int statusCode = response.statusCode();
+            if (statusCode == 304 && previous != null) {
+                return new FetchResult(url, Status.UNCHANGED, null, previous);
+            }
             if (statusCode < 200 || statusCode >= 300) {
-                return "[FETCH ERROR: " + url + " - HTTP " + statusCode + "]";
+                return error(url, "HTTP " + statusCode, previous);
             }
 
-            String body = response.body();
-            if (body != null && body.length() > MAX_RESPONSE_SIZE) {
-                return body.substring(0, MAX_RESPONSE_SIZE)
-                        + "\n\n[TRUNCATED: Response exceeded 500KB limit. Original size: "
-                        + body.length() + " bytes]";
+            byte[] bytes = readCapped(body, MAX_RESPONSE_SIZE + 1);
+            boolean truncated = bytes.length > MAX_RESPONSE_SIZE;
+            if (truncated) {
+                bytes = Arrays.copyOf(bytes, MAX_RESPONSE_SIZE);
+            }
+            TopicReport.SourceState state = new TopicReport.SourceState(
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null),
+                    sha256(bytes));
+            String content = new String(bytes, charsetOf(response));
+            if (truncated) {
+                long declared = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                content += "\n\n[TRUNCATED: Response exceeded 500KB limit"
+                        + (declared > 0 ? ". Original size: " + declared + " bytes]" : "]");
             }
 
-            return body != null ? body : "";
-        } catch (Exception e) {
-            String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            return "[FETCH ERROR: " + url + " - " + reason + "]";
+            boolean same = previous != null && state.getContentHash().equals(previous.getContentHash());
+            return new FetchResult(url, same ? Status.UNCHANGED : Status.CHANGED, content, state);
         }
     }
 
@@ -74,12 +223,116 @@ public class SourceFetcher {
      */
     public Map<String, String> fetchAll(List<String> urls) {
         Map<String, String> results = new LinkedHashMap<>();
-        if (urls == null) {
+        for (FetchResult result : fetchAll(urls, null).values()) {
+            results.put(result.getUrl(), result.getContent() != null ? result.getContent() : "");
+        }
+        return results;
+    }
+
+    /**
+     * Fetches all given URLs concurrently, conditionally where {@code previous}
+     * has state for the URL. Results are in the order of {@code urls}.
+     *
+     * @param urls     list of URLs to fetch
+     * @param previous URL → state from the last fetch; may be null
+     * @return map of URL to fetch result
+     */
+    public Map<String, FetchResult> fetchAll(List<String> urls, Map<String, TopicReport.SourceState> previous) {
+        Map<String, FetchResult> results = new LinkedHashMap<>();
+        if (urls == null || urls.isEmpty()) {
             return results;
         }
+        List<Future<FetchResult>> futures = new ArrayList<>(urls.size());
         for (String url : urls) {
-            results.put(url, fetch(url));
+            TopicReport.SourceState state = previous != null ? previous.get(url) : null;
+            futures.add(pool.submit(() -> fetch(url, state)));
+        }
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            try {
+                results.put(url, futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                results.put(url, error(url, "interrupted", previous != null ? previous.get(url) : null));
+            } catch (ExecutionException e) {
+                results.put(url, error(url, String.valueOf(e.getCause()), previous != null ? previous.get(url) : null));
+            }
         }
         return results;
     }
+
+    // --- Private helpers ---
+
+    private static FetchResult error(String url, String reason, TopicReport.SourceState previous) {
+        return new FetchResult(url, Status.ERROR, "[FETCH ERROR: " + url + " - " + reason + "]", previous);
+    }
+
+    /**
+     * Reads at most {@code limit} bytes, giving up once the body has taken longer
+     * than the body timeout (the request timeout only covers the headers). The
+     * watchdog closes the stream, so a server that stalls mid-body cannot block
+     * the worker in {@code read}.
+     */
+    private byte[] readCapped(InputStream in, int limit) throws IOException {
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // the reader fails or sees EOF either way
+            }
+        }, bodyTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        byte[] buf = new byte[Math.min(limit, 16 * 1024)];
+        int len = 0;
+        try {
+            while (len < limit) {
+                if (len == buf.length) {
+                    buf = Arrays.copyOf(buf, Math.min(limit, buf.length * 2));
+                }
+                int n = in.read(buf, len, buf.length - len);
+                if (n < 0) break;
+                len += n;
+            }
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                throw new IOException("body read timed out", e);
+            }
+            throw e;
+        } finally {
+            watchdog.cancel(false);
+        }
+        // A closed stream reads as EOF, which must not pass for a complete body
+        if (timedOut.get()) {
+            throw new IOException("body read timed out");
+        }
+        return len == buf.length ? buf : Arrays.copyOf(buf, len);
+    }
+
+    private static Charset charsetOf(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        int idx = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (idx >= 0) {
+            String name = contentType.substring(idx + 8).split(";")[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (Exception ignored) {
+                // fall through to UTF-8
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getHost() + ":" + uri.getPort();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -1,12 +1,13 @@
 package com.mkpro.knowledge;
 
 import com.mkpro.routing.MakerLoop;
+import com.mkpro.routing.SignalMatcher;
 
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -23,11 +24,20 @@ import java.util.function.Function;
  * - Tool errors (command not found, API failures, permission denied)
  * - fetch_url calls (agent already trying to get external info)
  * - Delegation about unfamiliar domains
+ *
+ * Chunks are matched against all signal phrases in one pass as they arrive
+ * (see {@link SignalMatcher}); hits are evaluated every 500 characters. Only the
+ * last 600 characters of the stream are kept for the gap context, and nothing is
+ * buffered once the per-stream fetch cap is reached.
+ *
+ * Background work runs on the shared {@link KnowledgeAcquisitionService}, so the
+ * same gap or topic raised by concurrent streams is only acquired once.
  */
 public class StreamKnowledgeMonitor {
 
     private static final int SCAN_INTERVAL_CHARS = 500;
     private static final int MAX_FETCHES_PER_STREAM = 2;
+    private static final int CONTEXT_CHARS = 600;
 
     // Gap signal patterns — phrases indicating knowledge inadequacy
     private static final String[] EXPLICIT_GAP_SIGNALS = {
@@ -70,27 +80,41 @@ public class StreamKnowledgeMonitor {
         "according to documentation"
     };
 
+    private enum Signal { EXPLICIT_GAP, TOOL_ERROR, DELEGATION, HEDGE, FETCH_URL }
+
+    private static final SignalMatcher<Signal> SIGNALS = SignalMatcher.<Signal>builder()
+            .add(Signal.EXPLICIT_GAP, EXPLICIT_GAP_SIGNALS)
+            .add(Signal.TOOL_ERROR, TOOL_ERROR_SIGNALS)
+            .add(Signal.DELEGATION, DELEGATION_SIGNALS)
+            .add(Signal.HEDGE, "might", "may", "should", "could", "possibly")
+            .add(Signal.FETCH_URL, "[fetchurl]", "fetch_url", "fetching url")
+            .build();
+
     private final KnowledgeScheduler scheduler;
     private final TopicIndex topicIndex;
     private final Function<String, String> llmCallback;
-    private final ExecutorService backgroundExecutor;
+    private final KnowledgeAcquisitionService acquisition;
 
     // Per-stream state
-    private final StringBuilder buffer = new StringBuilder();
-    private int lastScanPosition = 0;
+    private final StringBuilder tail = new StringBuilder(); // last CONTEXT_CHARS..2*CONTEXT_CHARS chars of the stream
+    private final SignalMatcher<Signal>.Scanner scanner = SIGNALS.scanner(); // position() = chars streamed so far
+    private final EnumMap<Signal, String> windowHits = new EnumMap<>(Signal.class); // first phrase per signal since last scan
+    private long lastScanPosition = 0;
     private int fetchesTriggered = 0;
-    private final Set<String> triggeredTopics = new HashSet<>();
+    private final Set<String> triggeredTopics = ConcurrentHashMap.newKeySet();
     private volatile boolean active = true;
+    private volatile boolean closed = false;
 
     public StreamKnowledgeMonitor(KnowledgeScheduler scheduler, TopicIndex topicIndex, Function<String, String> llmCallback) {
+        this(scheduler, topicIndex, llmCallback, KnowledgeAcquisitionService.shared());
+    }
+
+    StreamKnowledgeMonitor(KnowledgeScheduler scheduler, TopicIndex topicIndex, Function<String, String> llmCallback,
+                           KnowledgeAcquisitionService acquisition) {
         this.scheduler = scheduler;
         this.topicIndex = topicIndex;
         this.llmCallback = llmCallback;
-        this.backgroundExecutor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "stream-knowledge-monitor");
-            t.setDaemon(true);
-            return t;
-        });
+        this.acquisition = acquisition;
     }
 
     /**
@@ -101,13 +125,12 @@ public class StreamKnowledgeMonitor {
         if (!active || chunk == null || chunk.isEmpty()) return;
         if (fetchesTriggered >= MAX_FETCHES_PER_STREAM) return;
 
-        buffer.append(chunk);
+        appendTail(chunk);
+        scanner.feed(chunk, hit -> windowHits.putIfAbsent(hit.category(), hit.phrase()));
 
-        // Scan every SCAN_INTERVAL_CHARS
-        if (buffer.length() - lastScanPosition >= SCAN_INTERVAL_CHARS) {
-            String newContent = buffer.substring(lastScanPosition);
-            lastScanPosition = buffer.length();
-            scanForGaps(newContent);
+        // Evaluate every SCAN_INTERVAL_CHARS
+        if (scanner.position() - lastScanPosition >= SCAN_INTERVAL_CHARS) {
+            evaluateWindow();
         }
     }
 
@@ -116,9 +139,8 @@ public class StreamKnowledgeMonitor {
      */
     public void onStreamEnd() {
         if (!active) return;
-        if (buffer.length() > lastScanPosition) {
-            String remaining = buffer.substring(lastScanPosition);
-            scanForGaps(remaining);
+        if (scanner.position() > lastScanPosition) {
+            evaluateWindow();
         }
         active = false;
     }
@@ -127,7 +149,9 @@ public class StreamKnowledgeMonitor {
      * Reset for a new stream (new turn).
      */
     public void reset() {
-        buffer.setLength(0);
+        tail.setLength(0);
+        scanner.reset();
+        windowHits.clear();
         lastScanPosition = 0;
         fetchesTriggered = 0;
         triggeredTopics.clear();
@@ -135,11 +159,12 @@ public class StreamKnowledgeMonitor {
     }
 
     /**
-     * Shutdown the background executor.
+     * Stops this monitor. Requests it already queued are skipped; the shared
+     * acquisition pool keeps serving other monitors.
      */
     public void shutdown() {
         active = false;
-        backgroundExecutor.shutdownNow();
+        closed = true;
     }
 
     /**
@@ -149,44 +174,55 @@ public class StreamKnowledgeMonitor {
         return new HashSet<>(triggeredTopics);
     }
 
-    // ═══ Private ═══
+    /** Characters currently held for context extraction. */
+    int bufferedChars() {
+        return tail.length();
+    }
 
-    private void scanForGaps(String text) {
-        if (text == null || text.isBlank()) return;
-        String lower = text.toLowerCase();
+    // ═══ Private ═══
 
-        // Check explicit gap signals
-        for (String signal : EXPLICIT_GAP_SIGNALS) {
-            if (lower.contains(signal)) {
-                triggerBackgroundFetch(text, "explicit_gap: " + signal);
-                return;
-            }
+    /**
+     * Keeps the stream tail, trimming back to CONTEXT_CHARS once it has doubled so
+     * the copy is amortized over many chunks.
+     */
+    private void appendTail(String chunk) {
+        if (chunk.length() >= CONTEXT_CHARS) {
+            tail.setLength(0);
+            tail.append(chunk, chunk.length() - CONTEXT_CHARS, chunk.length());
+            return;
         }
-
-        // Check tool error signals
-        for (String signal : TOOL_ERROR_SIGNALS) {
-            if (lower.contains(signal)) {
-                triggerBackgroundFetch(text, "tool_error: " + signal);
-                return;
-            }
+        tail.append(chunk);
+        if (tail.length() > 2 * CONTEXT_CHARS) {
+            tail.delete(0, tail.length() - CONTEXT_CHARS);
         }
+    }
 
-        // Check delegation signals (weaker — only trigger if combined with uncertainty)
-        for (String signal : DELEGATION_SIGNALS) {
-            if (lower.contains(signal)) {
-                // Only trigger if there's also some hedging
-                if (lower.contains("might") || lower.contains("may") || lower.contains("should")
-                    || lower.contains("could") || lower.contains("possibly")) {
-                    triggerBackgroundFetch(text, "delegation_with_uncertainty: " + signal);
-                    return;
-                }
-            }
+    /**
+     * Acts on the signals seen since the last evaluation. The window text is only
+     * copied out of the tail when a fetch is triggered.
+     */
+    private void evaluateWindow() {
+        long windowLength = scanner.position() - lastScanPosition;
+        lastScanPosition = scanner.position();
+        if (windowHits.isEmpty()) return;
+
+        String reason = null;
+        if (windowHits.containsKey(Signal.EXPLICIT_GAP)) {
+            reason = "explicit_gap: " + windowHits.get(Signal.EXPLICIT_GAP);
+        } else if (windowHits.containsKey(Signal.TOOL_ERROR)) {
+            reason = "tool_error: " + windowHits.get(Signal.TOOL_ERROR);
+        } else if (windowHits.containsKey(Signal.DELEGATION) && windowHits.containsKey(Signal.HEDGE)) {
+            // Delegation is weaker — only trigger if there's also some hedging
+            reason = "delegation_with_uncertainty: " + windowHits.get(Signal.DELEGATION);
+        } else if (windowHits.containsKey(Signal.FETCH_URL)) {
+            // Agent is already trying to get external info; pre-fetch related knowledge
+            reason = "fetch_url_detected";
         }
+        windowHits.clear();
 
-        // Check for fetch_url tool call (agent is already trying to get external info)
-        if (lower.contains("[fetchurl]") || lower.contains("fetch_url") || lower.contains("fetching url")) {
-            // Extract URL context and pre-fetch related knowledge
-            triggerBackgroundFetch(text, "fetch_url_detected");
+        if (reason != null) {
+            int contextLength = (int) Math.min(Math.min(windowLength, CONTEXT_CHARS), tail.length());
+            triggerBackgroundFetch(tail.substring(tail.length() - contextLength), reason);
         }
     }
 
@@ -194,13 +230,13 @@ public class StreamKnowledgeMonitor {
         if (fetchesTriggered >= MAX_FETCHES_PER_STREAM) return;
         if (scheduler == null || llmCallback == null) return;
 
-        fetchesTriggered++;
-
         // Run in background — don't block streaming
-        final String ctx = contextText.length() > 600 ? contextText.substring(contextText.length() - 600) : contextText;
+        final String ctx = contextText;
         final String fetchReason = reason;
+        final String requestKey = "gap:" + reason + ":" + ContentChunker.hash(ctx.strip().replaceAll("\\s+", " "));
 
-        backgroundExecutor.submit(() -> {
+        boolean accepted = acquisition.submit(requestKey, () -> {
+            if (closed) return;
             try {
                 // Check if we already have coverage
                 if (topicIndex != null) {
@@ -227,18 +263,26 @@ public class StreamKnowledgeMonitor {
                 TopicConfig topic = parseSuggestion(suggestion);
                 if (topic == null) return;
 
-                // Dedup — don't re-fetch same topic within this stream
-                if (triggeredTopics.contains(topic.getName())) return;
-
-                boolean added = scheduler.addTopic(topic);
-                if (added) {
-                    triggeredTopics.add(topic.getName());
-                    System.out.println("\u001b[35m  [Stream Monitor] Pre-fetching: " + topic.getName() + " (reason: " + fetchReason + ")\u001b[0m");
+                // Dedup — don't re-fetch same topic within this stream, or while another stream is adding it
+                if (closed || triggeredTopics.contains(topic.getName())) return;
+                String topicKey = "topic:" + topic.getName();
+                if (!acquisition.claim(topicKey)) return;
+                try {
+                    boolean added = scheduler.addTopic(topic);
+                    if (added) {
+                        triggeredTopics.add(topic.getName());
+                        System.out.println("\u001b[35m  [Stream Monitor] Pre-fetching: " + topic.getName() + " (reason: " + fetchReason + ")\u001b[0m");
+                    }
+                } finally {
+                    acquisition.release(topicKey);
                 }
             } catch (Exception e) {
                 // Non-fatal — best-effort background enrichment
             }
         });
+        if (accepted) {
+            fetchesTriggered++;
+        }
     }
 
     private TopicConfig parseSuggestion(String response) {
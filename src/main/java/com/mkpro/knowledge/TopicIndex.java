@@ -1,11 +1,33 @@
 package com.mkpro.knowledge;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * TF-IDF based bag-of-words search index for topic reports.
- * Thread-safe implementation using ConcurrentHashMap for storage.
+ * Bag-of-words search index for topic reports.
+ *
+ * Backed by an inverted index: term -> postings (docId, weighted count, precomputed
+ * score weight). Weights and per-document norms are computed against the statistics
+ * snapshot taken by {@link #rebuildIdf()}, so a query only walks the postings of its
+ * own terms, keeps the best K in a bounded min-heap, and builds snippets for those
+ * K only.
+ *
+ * Two scorers (mkpro.knowledge.scorer = tfidf | bm25):
+ *   - TFIDF (default): cosine similarity of TF-IDF vectors
+ *   - BM25: Okapi BM25 (k1=1.2, b=0.75), divided by the best score the query
+ *     could reach so results stay in [0, 1] like cosine scores
+ *
+ * {@link #indexReport} indexes a report's name, keywords, summary and history as
+ * separate fields; a term's count is the boost-weighted sum over fields (BM25F
+ * style). {@link #indexTopic} indexes plain text as the summary field.
+ * Snippets are the densest ~200-character window of query terms in the summary,
+ * located from token offsets stored at index time.
+ *
+ * Document frequencies are maintained incrementally. A new topic is scored against
+ * the current snapshot, and the snapshot is refreshed automatically on the next
+ * search once more than 10% of the documents changed since the last rebuild.
+ *
+ * Thread-safe: searches share a read lock, updates take the write lock.
  */
 public class TopicIndex {
 
@@ -24,17 +46,125 @@ public class TopicIndex {
             "over", "under"
     );
 
-    /** Stores TF vectors per topic: topicName -> (term -> tf) */
-    private final ConcurrentHashMap<String, Map<String, Double>> tfVectors = new ConcurrentHashMap<>();
+    /** Ranking function used by {@link #search}. */
+    public enum Scorer { TFIDF, BM25 }
 
-    /** Stores raw text per topic for snippet generation */
-    private final ConcurrentHashMap<String, String> rawTexts = new ConcurrentHashMap<>();
+    /** Indexed parts of a {@link TopicReport} and how much a match in each counts. */
+    public enum Field {
+        NAME(3.0), KEYWORDS(2.0), SUMMARY(1.0), HISTORY(0.5);
 
-    /** Global IDF values: term -> idf */
-    private final ConcurrentHashMap<String, Double> idfValues = new ConcurrentHashMap<>();
+        final double boost;
+
+        Field(double boost) {
+            this.boost = boost;
+        }
+    }
+
+    /** Fraction of documents that may change before a search refreshes the IDF snapshot. */
+    private static final double STALE_FRACTION = 0.1;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    private static final int SNIPPET_CHARS = 200;
+
+    private final Scorer scorer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Term dictionary: term -> postings */
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /** Documents by id; removed ids are null and reused */
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+
+    /** Snapshot used for weights and norms: term -> idf, and the average weighted doc length */
+    private Map<String, Double> idfValues = new HashMap<>();
+    private double avgDocLength;
+    private double totalDocLength;
+    private int changesSinceRebuild;
+
+    private static final class Doc {
+        final String name;
+        final Map<String, Double> counts; // boost-weighted term counts
+        final double length;              // boost-weighted token count
+        final String text;                // summary, used for snippets
+        final Tokens textTokens;
+        double norm;
+
+        Doc(String name, Map<String, Double> counts, double length, String text, Tokens textTokens) {
+            this.name = name;
+            this.counts = counts;
+            this.length = length;
+            this.text = text;
+            this.textTokens = textTokens;
+        }
+    }
+
+    /** Parallel arrays of (docId, weighted count, score weight) for one term. */
+    private static final class Postings {
+        int[] docIds = new int[4];
+        double[] counts = new double[4];
+        double[] weights = new double[4];
+        int size;
+
+        void add(int docId, double count, double weight) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docIds[size] = docId;
+            counts[size] = count;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int docId) {
+            for (int i = 0; i < size; i++) {
+                if (docIds[i] == docId) {
+                    size--;
+                    docIds[i] = docIds[size];
+                    counts[i] = counts[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Terms of one text with their character offsets. */
+    private static final class Tokens {
+        final List<String> terms = new ArrayList<>();
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+
+        void add(String term, int start, int end) {
+            int n = terms.size();
+            if (n == starts.length) {
+                starts = Arrays.copyOf(starts, n * 2);
+                ends = Arrays.copyOf(ends, n * 2);
+            }
+            terms.add(term);
+            starts[n] = start;
+            ends[n] = end;
+        }
+    }
+
+    public TopicIndex() {
+        this("bm25".equalsIgnoreCase(System.getProperty("mkpro.knowledge.scorer")) ? Scorer.BM25 : Scorer.TFIDF);
+    }
+
+    public TopicIndex(Scorer scorer) {
+        this.scorer = scorer;
+    }
+
+    public Scorer getScorer() {
+        return scorer;
+    }
 
     /**
      * Indexes a topic by tokenizing the text and computing its TF vector.
+     * Replaces any previous version of the topic.
      *
      * @param topicName unique name for the topic
      * @param text      the text content to index
@@ -43,10 +173,73 @@ public class TopicIndex {
         if (topicName == null || text == null) {
             return;
         }
-        List<String> tokens = tokenize(text);
-        Map<String, Double> tfVector = computeTf(tokens);
-        tfVectors.put(topicName, tfVector);
-        rawTexts.put(topicName, text);
+        Map<Field, String> fields = new EnumMap<>(Field.class);
+        fields.put(Field.SUMMARY, text);
+        indexFields(topicName, fields);
+    }
+
+    /**
+     * Indexes a report's name, keywords, summary and history as boosted fields.
+     */
+    public void indexReport(TopicReport report) {
+        if (report == null || report.getName() == null) {
+            return;
+        }
+        Map<Field, String> fields = new EnumMap<>(Field.class);
+        String title = report.getTitle() != null ? " " + report.getTitle() : "";
+        fields.put(Field.NAME, report.getName() + title);
+        if (report.getKeywords() != null) {
+            fields.put(Field.KEYWORDS, String.join(" ", report.getKeywords()));
+        }
+        fields.put(Field.SUMMARY, report.getSummary() != null ? report.getSummary() : "");
+        if (report.getHistory() != null) {
+            StringBuilder history = new StringBuilder();
+            for (TopicReport.HistoryEntry entry : report.getHistory()) {
+                if (entry != null && entry.getDelta() != null) history.append(entry.getDelta()).append('\n');
+            }
+            fields.put(Field.HISTORY, history.toString());
+        }
+        indexFields(report.getName(), fields);
+    }
+
+    private void indexFields(String topicName, Map<Field, String> fields) {
+        Map<String, Double> counts = new HashMap<>();
+        double length = 0.0;
+        Tokens summaryTokens = null;
+        for (Map.Entry<Field, String> field : fields.entrySet()) {
+            Tokens tokens = tokenize(field.getValue());
+            if (field.getKey() == Field.SUMMARY) summaryTokens = tokens;
+            double boost = field.getKey().boost;
+            for (String term : tokens.terms) {
+                counts.merge(term, boost, Double::sum);
+            }
+            length += boost * tokens.terms.size();
+        }
+        String summary = fields.getOrDefault(Field.SUMMARY, "");
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(topicName);
+            int docId = freeIds.isEmpty() ? docs.size() : freeIds.pop();
+            Doc doc = new Doc(topicName, counts, length, summary, summaryTokens != null ? summaryTokens : new Tokens());
+            if (docId == docs.size()) docs.add(doc); else docs.set(docId, doc);
+            docIds.put(topicName, docId);
+            totalDocLength += length;
+
+            double avgLength = avgDocLength > 0 ? avgDocLength : Math.max(length, 1.0);
+            double norm = 0.0;
+            for (Map.Entry<String, Double> entry : counts.entrySet()) {
+                Postings list = postings.computeIfAbsent(entry.getKey(), t -> new Postings());
+                double idf = idfValues.getOrDefault(entry.getKey(), defaultIdf(list.size + 1));
+                double weight = weight(entry.getValue(), length, idf, avgLength);
+                list.add(docId, entry.getValue(), weight);
+                norm += weight * weight;
+            }
+            doc.norm = Math.sqrt(norm);
+            changesSinceRebuild++;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -58,13 +251,38 @@ public class TopicIndex {
         if (topicName == null) {
             return;
         }
-        tfVectors.remove(topicName);
-        rawTexts.remove(topicName);
+        lock.writeLock().lock();
+        try {
+            if (removeLocked(topicName)) {
+                changesSinceRebuild++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(String topicName) {
+        Integer docId = docIds.remove(topicName);
+        if (docId == null) {
+            return false;
+        }
+        Doc doc = docs.get(docId);
+        for (String term : doc.counts.keySet()) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                list.remove(docId);
+                if (list.size == 0) postings.remove(term);
+            }
+        }
+        totalDocLength -= doc.length;
+        docs.set(docId, null);
+        freeIds.push(docId);
+        return true;
     }
 
     /**
-     * Searches the index using the query string and returns top-K results
-     * ranked by cosine similarity of TF-IDF vectors.
+     * Searches the index using the query string and returns top-K results,
+     * ranked by the configured {@link Scorer}.
      *
      * @param query the search query
      * @param topK  maximum number of results to return
@@ -75,136 +293,267 @@ public class TopicIndex {
             return Collections.emptyList();
         }
 
-        List<String> queryTokens = tokenize(query);
+        List<String> queryTokens = tokenize(query).terms;
         if (queryTokens.isEmpty()) {
             return Collections.emptyList();
         }
+        Map<String, Double> queryCounts = new HashMap<>();
+        for (String token : queryTokens) {
+            queryCounts.merge(token, 1.0, Double::sum);
+        }
 
-        Map<String, Double> queryTf = computeTf(queryTokens);
-        Map<String, Double> queryTfIdf = applyIdf(queryTf);
+        if (isStale()) {
+            rebuildIdf();
+        }
 
-        List<SearchResult> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            double[] dot = new double[docs.size()];
+            int[] touched = new int[Math.min(docs.size(), 64) + 1];
+            int touchedCount = 0;
+            double queryNorm = 0.0;
+
+            for (Map.Entry<String, Double> entry : queryCounts.entrySet()) {
+                Postings list = postings.get(entry.getKey());
+                double idf = idfValues.getOrDefault(entry.getKey(), defaultIdf(list != null ? list.size : 0));
+                double queryWeight;
+                if (scorer == Scorer.BM25) {
+                    if (list == null) continue;
+                    queryWeight = entry.getValue();
+                    queryNorm += queryWeight * idf * (BM25_K1 + 1); // best possible contribution
+                } else {
+                    queryWeight = entry.getValue() / queryTokens.size() * idf;
+                    queryNorm += queryWeight * queryWeight;
+                }
+                if (list == null) continue;
+                for (int i = 0; i < list.size; i++) {
+                    int docId = list.docIds[i];
+                    if (dot[docId] == 0.0) {
+                        if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                        touched[touchedCount++] = docId;
+                    }
+                    dot[docId] += queryWeight * list.weights[i];
+                }
+            }
+            if (queryNorm <= 0.0 || touchedCount == 0) {
+                return Collections.emptyList();
+            }
+            if (scorer == Scorer.TFIDF) {
+                queryNorm = Math.sqrt(queryNorm);
+            }
 
-        for (Map.Entry<String, Map<String, Double>> entry : tfVectors.entrySet()) {
-            String topicName = entry.getKey();
-            Map<String, Double> docTf = entry.getValue();
-            Map<String, Double> docTfIdf = applyIdf(docTf);
+            // Bounded min-heap: the root is the weakest of the current top K
+            Comparator<ScoredDoc> byScore = Comparator.<ScoredDoc>comparingDouble(d -> d.score)
+                    .thenComparing(d -> d.doc.name, Comparator.reverseOrder());
+            PriorityQueue<ScoredDoc> heap = new PriorityQueue<>(Math.min(topK, touchedCount) + 1, byScore);
+            for (int i = 0; i < touchedCount; i++) {
+                Doc doc = docs.get(touched[i]);
+                if (doc == null) continue;
+                double score;
+                if (scorer == Scorer.BM25) {
+                    score = dot[touched[i]] / queryNorm;
+                } else {
+                    if (doc.norm == 0.0) continue;
+                    score = dot[touched[i]] / (queryNorm * doc.norm);
+                }
+                if (score <= 0.0) continue;
+                ScoredDoc candidate = new ScoredDoc(doc, score);
+                if (heap.size() < topK) {
+                    heap.add(candidate);
+                } else if (byScore.compare(candidate, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(candidate);
+                }
+            }
 
-            double score = cosineSimilarity(queryTfIdf, docTfIdf);
-            if (score > 0.0) {
-                String snippet = generateSnippet(topicName);
-                results.add(new SearchResult(topicName, score, snippet));
+            Set<String> queryTerms = queryCounts.keySet();
+            SearchResult[] results = new SearchResult[heap.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                ScoredDoc best = heap.poll();
+                results[i] = new SearchResult(best.doc.name, best.score, generateSnippet(best.doc, queryTerms));
             }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        results.sort((a, b) -> Double.compare(b.score, a.score));
+    private record ScoredDoc(Doc doc, double score) {}
 
-        if (results.size() > topK) {
-            return results.subList(0, topK);
+    private boolean isStale() {
+        lock.readLock().lock();
+        try {
+            return changesSinceRebuild > Math.max(1, docIds.size() * STALE_FRACTION);
+        } finally {
+            lock.readLock().unlock();
         }
-        return results;
     }
 
     /**
-     * Recomputes IDF values across all currently indexed documents.
-     * Should be called after batch indexing operations.
+     * Recomputes IDF values and the average document length across all currently
+     * indexed documents, then the posting weights and document norms that depend
+     * on them. Document frequencies come straight from the postings, so this is
+     * O(postings).
      */
     public void rebuildIdf() {
-        Map<String, Integer> documentFrequency = new HashMap<>();
-        int totalDocs = tfVectors.size();
-
-        for (Map<String, Double> tfVector : tfVectors.values()) {
-            for (String term : tfVector.keySet()) {
-                documentFrequency.merge(term, 1, Integer::sum);
+        lock.writeLock().lock();
+        try {
+            int totalDocs = docIds.size();
+            Map<String, Double> newIdf = new HashMap<>(postings.size() * 2);
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                newIdf.put(entry.getKey(), idf(totalDocs, entry.getValue().size));
             }
+            idfValues = newIdf;
+            avgDocLength = totalDocs > 0 ? totalDocLength / totalDocs : 0.0;
+            double avgLength = Math.max(avgDocLength, 1e-9);
+
+            double[] norms = new double[docs.size()];
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                double idf = newIdf.get(entry.getKey());
+                Postings list = entry.getValue();
+                for (int i = 0; i < list.size; i++) {
+                    Doc doc = docs.get(list.docIds[i]);
+                    double weight = weight(list.counts[i], doc.length, idf, avgLength);
+                    list.weights[i] = weight;
+                    norms[list.docIds[i]] += weight * weight;
+                }
+            }
+            for (int id = 0; id < docs.size(); id++) {
+                Doc doc = docs.get(id);
+                if (doc != null) doc.norm = Math.sqrt(norms[id]);
+            }
+            changesSinceRebuild = 0;
+        } finally {
+            lock.writeLock().unlock();
         }
-
-        ConcurrentHashMap<String, Double> newIdf = new ConcurrentHashMap<>();
-        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
-            // IDF = log(totalDocs / df) + 1 (smoothed)
-            double idf = Math.log((double) totalDocs / entry.getValue()) + 1.0;
-            newIdf.put(entry.getKey(), idf);
-        }
-
-        idfValues.clear();
-        idfValues.putAll(newIdf);
     }
 
     /**
      * Returns the number of indexed topics.
      */
     public int size() {
-        return tfVectors.size();
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     // --- Private helpers ---
 
-    private List<String> tokenize(String text) {
-        String[] parts = text.toLowerCase().split("[^a-z0-9]+");
-        List<String> tokens = new ArrayList<>();
-        for (String part : parts) {
-            if (part.length() >= 2 && !STOPWORDS.contains(part)) {
-                tokens.add(part);
-            }
+    private double idf(int totalDocs, int docFrequency) {
+        if (scorer == Scorer.BM25) {
+            return Math.log(1.0 + (totalDocs - docFrequency + 0.5) / (docFrequency + 0.5));
         }
-        return tokens;
+        // IDF = log(totalDocs / df) + 1 (smoothed)
+        return Math.log((double) totalDocs / docFrequency) + 1.0;
     }
 
-    private Map<String, Double> computeTf(List<String> tokens) {
-        Map<String, Integer> counts = new HashMap<>();
-        for (String token : tokens) {
-            counts.merge(token, 1, Integer::sum);
-        }
-        int totalTokens = tokens.size();
-        Map<String, Double> tf = new HashMap<>();
-        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
-            tf.put(entry.getKey(), (double) entry.getValue() / totalTokens);
-        }
-        return tf;
+    /** IDF for a term missing from the snapshot: 1.0 for TF-IDF (as before a rebuild), live for BM25. */
+    private double defaultIdf(int docFrequency) {
+        return scorer == Scorer.BM25 ? idf(Math.max(docIds.size(), docFrequency), Math.max(docFrequency, 1)) : 1.0;
     }
 
-    private Map<String, Double> applyIdf(Map<String, Double> tfVector) {
-        Map<String, Double> tfIdf = new HashMap<>();
-        for (Map.Entry<String, Double> entry : tfVector.entrySet()) {
-            String term = entry.getKey();
-            double tf = entry.getValue();
-            double idf = idfValues.getOrDefault(term, 1.0);
-            tfIdf.put(term, tf * idf);
+    private double weight(double count, double docLength, double idf, double avgLength) {
+        if (docLength <= 0.0) {
+            return 0.0;
+        }
+        if (scorer == Scorer.BM25) {
+            double lengthNorm = 1.0 - BM25_B + BM25_B * docLength / avgLength;
+            return idf * count * (BM25_K1 + 1) / (count + BM25_K1 * lengthNorm);
         }
-        return tfIdf;
+        return count / docLength * idf;
     }
 
-    private double cosineSimilarity(Map<String, Double> vecA, Map<String, Double> vecB) {
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-
-        Set<String> allTerms = new HashSet<>(vecA.keySet());
-        allTerms.addAll(vecB.keySet());
-
-        for (String term : allTerms) {
-            double a = vecA.getOrDefault(term, 0.0);
-            double b = vecB.getOrDefault(term, 0.0);
-            dotProduct += a * b;
-            normA += a * a;
-            normB += b * b;
+    private static Tokens tokenize(String text) {
+        Tokens tokens = new Tokens();
+        if (text == null) {
+            return tokens;
         }
-
-        if (normA == 0.0 || normB == 0.0) {
-            return 0.0;
+        int n = text.length();
+        char[] term = new char[32];
+        int i = 0;
+        while (i < n) {
+            while (i < n && !isTokenChar(Character.toLowerCase(text.charAt(i)))) i++;
+            int start = i;
+            int len = 0;
+            while (i < n) {
+                char c = Character.toLowerCase(text.charAt(i));
+                if (!isTokenChar(c)) break;
+                if (len == term.length) term = Arrays.copyOf(term, len * 2);
+                term[len++] = c;
+                i++;
+            }
+            if (len >= 2) {
+                String token = new String(term, 0, len);
+                if (!STOPWORDS.contains(token)) {
+                    tokens.add(token, start, i);
+                }
+            }
         }
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+        return tokens;
     }
 
-    private String generateSnippet(String topicName) {
-        String text = rawTexts.get(topicName);
+    private static boolean isTokenChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * The ~200-character window of the summary holding the most distinct query
+     * terms (then the most hits), cut at word boundaries. Falls back to the first
+     * 200 characters when no query term occurs in the summary.
+     */
+    private String generateSnippet(Doc doc, Set<String> queryTerms) {
+        String text = doc.text;
         if (text == null) {
             return "";
         }
-        if (text.length() <= 200) {
+        if (text.length() <= SNIPPET_CHARS) {
             return text;
         }
-        return text.substring(0, 200);
+        Tokens tokens = doc.textTokens;
+        List<Integer> hits = new ArrayList<>();
+        for (int k = 0; k < tokens.terms.size(); k++) {
+            if (queryTerms.contains(tokens.terms.get(k))) hits.add(k);
+        }
+        if (hits.isEmpty()) {
+            return text.substring(0, SNIPPET_CHARS);
+        }
+
+        // Sliding window over hits whose span fits in SNIPPET_CHARS
+        Map<String, Integer> inWindow = new HashMap<>();
+        int bestFirst = 0, bestLast = 0, bestScore = -1;
+        int first = 0;
+        for (int last = 0; last < hits.size(); last++) {
+            inWindow.merge(tokens.terms.get(hits.get(last)), 1, Integer::sum);
+            while (tokens.ends[hits.get(last)] - tokens.starts[hits.get(first)] > SNIPPET_CHARS) {
+                inWindow.merge(tokens.terms.get(hits.get(first)), -1, Integer::sum);
+                inWindow.remove(tokens.terms.get(hits.get(first)), 0);
+                first++;
+            }
+            int score = inWindow.size() * 1000 + (last - first + 1);
+            if (score > bestScore) {
+                bestScore = score;
+                bestFirst = first;
+                bestLast = last;
+            }
+        }
+
+        // Center the hits in the window, then snap both ends to word boundaries
+        int hitStart = tokens.starts[hits.get(bestFirst)];
+        int hitEnd = tokens.ends[hits.get(bestLast)];
+        int start = Math.max(0, Math.min(hitStart - (SNIPPET_CHARS - (hitEnd - hitStart)) / 2, text.length() - SNIPPET_CHARS));
+        int end = Math.min(text.length(), start + SNIPPET_CHARS);
+        if (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) {
+            int space = text.indexOf(' ', start);
+            if (space >= 0 && space < hitStart) start = space + 1;
+        }
+        if (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            int space = text.lastIndexOf(' ', end);
+            if (space >= hitEnd) end = space;
+        }
+        return (start > 0 ? "..." : "") + text.substring(start, end).trim() + (end < text.length() ? "..." : "");
     }
 
     // --- Inner class ---
@@ -1,7 +1,9 @@
 package com.mkpro.knowledge;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
 
 /**
@@ -17,11 +19,13 @@ public class TopicReport {
     private List<String> keywords; // extracted for TF-IDF indexing
     private double confidence; // 0.0-1.0 how well-supported
     private List<HistoryEntry> history; // change log
+    private Map<String, SourceState> sourceStates; // URL -> validators as of the last analysis
 
     public TopicReport() {
         this.history = new ArrayList<>();
         this.keywords = new ArrayList<>();
         this.sources = new ArrayList<>();
+        this.sourceStates = new LinkedHashMap<>();
         this.confidence = 0.5;
     }
 
@@ -65,6 +69,10 @@ public class TopicReport {
         return history;
     }
 
+    public Map<String, SourceState> getSourceStates() {
+        return sourceStates;
+    }
+
     // --- Setters ---
 
     public void setName(String name) {
@@ -99,6 +107,10 @@ public class TopicReport {
         this.history = history;
     }
 
+    public void setSourceStates(Map<String, SourceState> sourceStates) {
+        this.sourceStates = sourceStates;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", TopicReport.class.getSimpleName() + "[", "]")
@@ -152,4 +164,67 @@ public class TopicReport {
                     .toString();
         }
     }
+
+    /**
+     * What a source looked like when it was last analyzed: the HTTP validators
+     * for a conditional request, a hash of the body for servers without them, and
+     * the hashes of the content chunks the analysis has already covered.
+     */
+    public static class SourceState {
+        private String etag;
+        private String lastModified;
+        private String contentHash; // SHA-256 hex of the (possibly truncated) body
+        private List<String> chunkHashes; // ContentChunker hashes already sent for analysis
+
+        public SourceState() {
+        }
+
+        public SourceState(String etag, String lastModified, String contentHash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public void setEtag(String etag) {
+            this.etag = etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public void setLastModified(String lastModified) {
+            this.lastModified = lastModified;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public void setContentHash(String contentHash) {
+            this.contentHash = contentHash;
+        }
+
+        public List<String> getChunkHashes() {
+            return chunkHashes;
+        }
+
+        public void setChunkHashes(List<String> chunkHashes) {
+            this.chunkHashes = chunkHashes;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", SourceState.class.getSimpleName() + "[", "]")
+                    .add("etag='" + etag + "'")
+                    .add("lastModified='" + lastModified + "'")
+                    .add("contentHash='" + contentHash + "'")
+                    .add("chunkHashes=" + (chunkHashes != null ? chunkHashes.size() : 0))
+                    .toString();
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import java.io.IOException;
+
+/**
+ * Compact, versioned MapDB serializer for AgentConfig.
+ * The provider is stored by name so reordering the enum cannot corrupt data.
+ */
+public class AgentConfigSerializer implements Serializer<AgentConfig> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public void serialize(DataOutput2 out, AgentConfig value) throws IOException {
+        out.writeByte(VERSION);
+        SerializerUtils.writeNullableUTF(out, value.getProvider() != null ? value.getProvider().name() : null);
+        SerializerUtils.writeNullableUTF(out, value.getModelName());
+        SerializerUtils.writeNullableUTF(out, value.getServerUrl());
+    }
+
+    @Override
+    public AgentConfig deserialize(DataInput2 in, int available) throws IOException {
+        SerializerUtils.readVersion(in, VERSION, "AgentConfig");
+        String providerName = SerializerUtils.readNullableUTF(in);
+        String modelName = SerializerUtils.readNullableUTF(in);
+        String serverUrl = SerializerUtils.readNullableUTF(in);
+        Provider provider = null;
+        if (providerName != null) {
+            try {
+                provider = Provider.valueOf(providerName);
+            } catch (IllegalArgumentException e) {
+                provider = Provider.OLLAMA; // Provider removed since this was written
+            }
+        }
+        return new AgentConfig(provider, modelName, serverUrl);
+    }
+}
@@ -36,6 +36,17 @@ public class AgentStat implements Serializable {
         this.sessionId = sessionId;
     }
 
+    /**
+     * Restores a stat with its original timestamp (used by AgentStatSerializer).
+     */
+    AgentStat(Instant timestamp, String agentName, String provider, String model, long durationMs, boolean success,
+              int inputLength, int outputLength, long inputTokens, long outputTokens,
+              long totalTokens, String sessionId) {
+        this(agentName, provider, model, durationMs, success, inputLength, outputLength,
+             inputTokens, outputTokens, totalTokens, sessionId);
+        this.timestamp = timestamp;
+    }
+
     public Instant getTimestamp() { return timestamp; }
     public String getAgentName() { return agentName; }
     public String getProvider() { return provider; }
@@ -0,0 +1,56 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Compact, versioned MapDB serializer for AgentStat.
+ * Replaces Serializer.JAVA on the hot stats list: no class descriptors,
+ * packed numbers, ~40 bytes per entry instead of several hundred.
+ */
+public class AgentStatSerializer implements Serializer<AgentStat> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public void serialize(DataOutput2 out, AgentStat value) throws IOException {
+        out.writeByte(VERSION);
+        Instant ts = value.getTimestamp() != null ? value.getTimestamp() : Instant.EPOCH;
+        out.packLong(ts.getEpochSecond());
+        out.packInt(ts.getNano());
+        SerializerUtils.writeNullableUTF(out, value.getAgentName());
+        SerializerUtils.writeNullableUTF(out, value.getProvider());
+        SerializerUtils.writeNullableUTF(out, value.getModel());
+        out.packLong(value.getDurationMs());
+        out.writeBoolean(value.isSuccess());
+        out.packInt(value.getInputLength());
+        out.packInt(value.getOutputLength());
+        out.packLong(value.getInputTokens());
+        out.packLong(value.getOutputTokens());
+        out.packLong(value.getTotalTokens());
+        SerializerUtils.writeNullableUTF(out, value.getSessionId());
+    }
+
+    @Override
+    public AgentStat deserialize(DataInput2 in, int available) throws IOException {
+        SerializerUtils.readVersion(in, VERSION, "AgentStat");
+        Instant timestamp = Instant.ofEpochSecond(in.unpackLong(), in.unpackInt());
+        String agentName = SerializerUtils.readNullableUTF(in);
+        String provider = SerializerUtils.readNullableUTF(in);
+        String model = SerializerUtils.readNullableUTF(in);
+        long durationMs = in.unpackLong();
+        boolean success = in.readBoolean();
+        int inputLength = in.unpackInt();
+        int outputLength = in.unpackInt();
+        long inputTokens = in.unpackLong();
+        long outputTokens = in.unpackLong();
+        long totalTokens = in.unpackLong();
+        String sessionId = SerializerUtils.readNullableUTF(in);
+        return new AgentStat(timestamp, agentName, provider, model, durationMs, success,
+                inputLength, outputLength, inputTokens, outputTokens, totalTokens, sessionId);
+    }
+}
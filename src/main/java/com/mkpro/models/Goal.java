@@ -28,6 +28,18 @@ public class Goal implements Serializable {
         this.updatedAt = System.currentTimeMillis();
     }
 
+    /**
+     * Restores a goal with its persisted identity and timestamps (used by GoalSerializer).
+     */
+    Goal(String id, String description, Status status, List<Goal> subGoals, long createdAt, long updatedAt) {
+        this.id = id;
+        this.description = description;
+        this.status = status;
+        this.subGoals = subGoals != null ? subGoals : new ArrayList<>();
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     // Getters
     public String getId() { return id; }
     public String getDescription() { return description; }
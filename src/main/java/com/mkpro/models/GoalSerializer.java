@@ -0,0 +1,68 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, versioned MapDB serializer for Goal, including nested sub-goals.
+ */
+public class GoalSerializer implements Serializer<Goal> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public void serialize(DataOutput2 out, Goal value) throws IOException {
+        out.writeByte(VERSION);
+        writeGoal(out, value);
+    }
+
+    @Override
+    public Goal deserialize(DataInput2 in, int available) throws IOException {
+        SerializerUtils.readVersion(in, VERSION, "Goal");
+        return readGoal(in);
+    }
+
+    private void writeGoal(DataOutput2 out, Goal goal) throws IOException {
+        SerializerUtils.writeNullableUTF(out, goal.getId());
+        SerializerUtils.writeNullableUTF(out, goal.getDescription());
+        SerializerUtils.writeNullableUTF(out, goal.getStatus() != null ? goal.getStatus().name() : null);
+        out.packLong(goal.getCreatedAt());
+        out.packLong(goal.getUpdatedAt());
+        List<Goal> subGoals = goal.getSubGoals();
+        if (subGoals == null) {
+            out.packInt(0);
+        } else {
+            out.packInt(subGoals.size());
+            for (Goal sub : subGoals) {
+                writeGoal(out, sub);
+            }
+        }
+    }
+
+    private Goal readGoal(DataInput2 in) throws IOException {
+        String id = SerializerUtils.readNullableUTF(in);
+        String description = SerializerUtils.readNullableUTF(in);
+        String statusName = SerializerUtils.readNullableUTF(in);
+        long createdAt = in.unpackLong();
+        long updatedAt = in.unpackLong();
+        int subCount = in.unpackInt();
+        List<Goal> subGoals = new ArrayList<>(subCount);
+        for (int i = 0; i < subCount; i++) {
+            subGoals.add(readGoal(in));
+        }
+        Goal.Status status = Goal.Status.PENDING;
+        if (statusName != null) {
+            try {
+                status = Goal.Status.valueOf(statusName);
+            } catch (IllegalArgumentException e) {
+                // Unknown status from a newer build — keep PENDING
+            }
+        }
+        return new Goal(id, description, status, subGoals, createdAt, updatedAt);
+    }
+}
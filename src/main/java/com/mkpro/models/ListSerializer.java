@@ -0,0 +1,45 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MapDB serializer for a list of values, composing an element serializer.
+ * Used for the shared stores that keep a whole list under one key
+ * (project goals per path, the MCP server list).
+ */
+public class ListSerializer<T> implements Serializer<List<T>> {
+
+    private final Serializer<T> elementSerializer;
+
+    public ListSerializer(Serializer<T> elementSerializer) {
+        this.elementSerializer = elementSerializer;
+    }
+
+    @Override
+    public void serialize(DataOutput2 out, List<T> value) throws IOException {
+        if (value == null) {
+            out.packInt(0);
+            return;
+        }
+        out.packInt(value.size());
+        for (T element : value) {
+            elementSerializer.serialize(out, element);
+        }
+    }
+
+    @Override
+    public List<T> deserialize(DataInput2 in, int available) throws IOException {
+        int size = in.unpackInt();
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(elementSerializer.deserialize(in, -1));
+        }
+        return list;
+    }
+}
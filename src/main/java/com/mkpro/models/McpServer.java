@@ -28,6 +28,19 @@ public class McpServer implements Serializable {
         this.lastConnectedAt = 0;
     }
 
+    /**
+     * Restores a server entry with its persisted id and state (used by McpServerSerializer).
+     */
+    McpServer(String id, String name, String url, McpType type, boolean enabled, long createdAt, long lastConnectedAt) {
+        this.id = id;
+        this.name = name;
+        this.url = url;
+        this.type = type;
+        this.enabled = enabled;
+        this.createdAt = createdAt;
+        this.lastConnectedAt = lastConnectedAt;
+    }
+
     public String getId() { return id; }
     public String getName() { return name; }
     public String getUrl() { return url; }
@@ -0,0 +1,48 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import java.io.IOException;
+
+/**
+ * Compact, versioned MapDB serializer for McpServer.
+ */
+public class McpServerSerializer implements Serializer<McpServer> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public void serialize(DataOutput2 out, McpServer value) throws IOException {
+        out.writeByte(VERSION);
+        SerializerUtils.writeNullableUTF(out, value.getId());
+        SerializerUtils.writeNullableUTF(out, value.getName());
+        SerializerUtils.writeNullableUTF(out, value.getUrl());
+        SerializerUtils.writeNullableUTF(out, value.getType() != null ? value.getType().name() : null);
+        out.writeBoolean(value.isEnabled());
+        out.packLong(value.getCreatedAt());
+        out.packLong(value.getLastConnectedAt());
+    }
+
+    @Override
+    public McpServer deserialize(DataInput2 in, int available) throws IOException {
+        SerializerUtils.readVersion(in, VERSION, "McpServer");
+        String id = SerializerUtils.readNullableUTF(in);
+        String name = SerializerUtils.readNullableUTF(in);
+        String url = SerializerUtils.readNullableUTF(in);
+        String typeName = SerializerUtils.readNullableUTF(in);
+        boolean enabled = in.readBoolean();
+        long createdAt = in.unpackLong();
+        long lastConnectedAt = in.unpackLong();
+        McpServer.McpType type = McpServer.McpType.CUSTOM;
+        if (typeName != null) {
+            try {
+                type = McpServer.McpType.valueOf(typeName);
+            } catch (IllegalArgumentException e) {
+                // Unknown type from a newer build — treat as CUSTOM
+            }
+        }
+        return new McpServer(id, name, url, type, enabled, createdAt, lastConnectedAt);
+    }
+}
@@ -0,0 +1,37 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
+import java.io.IOException;
+
+/**
+ * Shared helpers for the compact model serializers: nullable strings and the
+ * leading format-version byte.
+ */
+final class SerializerUtils {
+
+    private SerializerUtils() {}
+
+    static void writeNullableUTF(DataOutput2 out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableUTF(DataInput2 in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Reads the version byte and rejects formats newer than this build understands.
+     */
+    static int readVersion(DataInput2 in, int maxSupported, String type) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > maxSupported) {
+            throw new IOException("Unsupported " + type + " format version " + version);
+        }
+        return version;
+    }
+}
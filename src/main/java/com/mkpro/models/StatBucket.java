@@ -0,0 +1,138 @@
+package com.mkpro.models;
+
+import java.io.Serializable;
+
+/**
+ * Pre-aggregated AgentStat counters for one agent/provider/model over one time
+ * bucket (or a whole session, or all time). Buckets are mergeable, so any
+ * coarser view is a sum of finer ones.
+ *
+ * Latency percentiles come from a fixed log-scale histogram: bucket i covers
+ * roughly [1.5^i, 1.5^(i+1)) ms, which keeps estimates within ~25% up to ~1 hour.
+ */
+public class StatBucket implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int HISTOGRAM_SIZE = 40;
+    private static final double HISTOGRAM_BASE = 1.5;
+
+    private final long bucketStartMs;
+    private final String agentName;
+    private final String provider;
+    private final String model;
+
+    private long count;
+    private long successCount;
+    private long latencySumMs;
+    private long latencyMinMs = Long.MAX_VALUE;
+    private long latencyMaxMs;
+    private long inputTokens;
+    private long outputTokens;
+    private long totalTokens;
+    private final long[] latencyHistogram;
+
+    public StatBucket(long bucketStartMs, String agentName, String provider, String model) {
+        this(bucketStartMs, agentName, provider, model, new long[HISTOGRAM_SIZE]);
+    }
+
+    StatBucket(long bucketStartMs, String agentName, String provider, String model, long[] latencyHistogram) {
+        this.bucketStartMs = bucketStartMs;
+        this.agentName = agentName;
+        this.provider = provider;
+        this.model = model;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    /**
+     * Restores persisted counters (used by StatBucketSerializer).
+     */
+    void restore(long count, long successCount, long latencySumMs, long latencyMinMs, long latencyMaxMs,
+                 long inputTokens, long outputTokens, long totalTokens) {
+        this.count = count;
+        this.successCount = successCount;
+        this.latencySumMs = latencySumMs;
+        this.latencyMinMs = latencyMinMs;
+        this.latencyMaxMs = latencyMaxMs;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.totalTokens = totalTokens;
+    }
+
+    public void add(AgentStat stat) {
+        long latency = Math.max(0, stat.getDurationMs());
+        count++;
+        if (stat.isSuccess()) successCount++;
+        latencySumMs += latency;
+        latencyMinMs = Math.min(latencyMinMs, latency);
+        latencyMaxMs = Math.max(latencyMaxMs, latency);
+        inputTokens += stat.getInputTokens();
+        outputTokens += stat.getOutputTokens();
+        totalTokens += stat.getTotalTokens();
+        latencyHistogram[histogramIndex(latency)]++;
+    }
+
+    public void merge(StatBucket other) {
+        count += other.count;
+        successCount += other.successCount;
+        latencySumMs += other.latencySumMs;
+        latencyMinMs = Math.min(latencyMinMs, other.latencyMinMs);
+        latencyMaxMs = Math.max(latencyMaxMs, other.latencyMaxMs);
+        inputTokens += other.inputTokens;
+        outputTokens += other.outputTokens;
+        totalTokens += other.totalTokens;
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            latencyHistogram[i] += other.latencyHistogram[i];
+        }
+    }
+
+    static int histogramIndex(long latencyMs) {
+        if (latencyMs <= 1) return 0;
+        int idx = (int) (Math.log(latencyMs) / Math.log(HISTOGRAM_BASE));
+        return Math.min(HISTOGRAM_SIZE - 1, idx);
+    }
+
+    /**
+     * Estimated latency at quantile q (0..1), using the geometric midpoint of the histogram bucket.
+     */
+    public long getLatencyPercentileMs(double q) {
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= Math.max(1, target)) {
+                long estimate = Math.round(Math.pow(HISTOGRAM_BASE, i + 0.5));
+                return Math.max(latencyMinMs, Math.min(latencyMaxMs, estimate));
+            }
+        }
+        return latencyMaxMs;
+    }
+
+    public long getBucketStartMs() { return bucketStartMs; }
+    public String getAgentName() { return agentName; }
+    public String getProvider() { return provider; }
+    public String getModel() { return model; }
+    public long getCount() { return count; }
+    public long getSuccessCount() { return successCount; }
+    public long getLatencySumMs() { return latencySumMs; }
+    public long getLatencyMinMs() { return count == 0 ? 0 : latencyMinMs; }
+    public long getLatencyMaxMs() { return latencyMaxMs; }
+    public long getInputTokens() { return inputTokens; }
+    public long getOutputTokens() { return outputTokens; }
+    public long getTotalTokens() { return totalTokens; }
+    long[] getLatencyHistogram() { return latencyHistogram; }
+
+    public double getSuccessRatio() {
+        return count == 0 ? 0.0 : (double) successCount / count;
+    }
+
+    public long getAvgLatencyMs() {
+        return count == 0 ? 0 : latencySumMs / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%d] %s (%s/%s) - %d calls - avg %dms - %.0f%% ok - Tokens: %d",
+                bucketStartMs, agentName, provider, model, count, getAvgLatencyMs(), getSuccessRatio() * 100, totalTokens);
+    }
+}
@@ -0,0 +1,65 @@
+package com.mkpro.models;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+import java.io.IOException;
+
+/**
+ * Compact, versioned MapDB serializer for StatBucket rollups. A GroupSerializer,
+ * as BTreeMap (which holds the rollups) requires for its values.
+ */
+public class StatBucketSerializer extends GroupSerializerObjectArray<StatBucket> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public void serialize(DataOutput2 out, StatBucket value) throws IOException {
+        out.writeByte(VERSION);
+        out.packLong(value.getBucketStartMs());
+        SerializerUtils.writeNullableUTF(out, value.getAgentName());
+        SerializerUtils.writeNullableUTF(out, value.getProvider());
+        SerializerUtils.writeNullableUTF(out, value.getModel());
+        out.packLong(value.getCount());
+        out.packLong(value.getSuccessCount());
+        out.packLong(value.getLatencySumMs());
+        out.packLong(value.getLatencyMinMs());
+        out.packLong(value.getLatencyMaxMs());
+        out.packLong(value.getInputTokens());
+        out.packLong(value.getOutputTokens());
+        out.packLong(value.getTotalTokens());
+        long[] histogram = value.getLatencyHistogram();
+        out.packInt(histogram.length);
+        for (long c : histogram) {
+            out.packLong(c);
+        }
+    }
+
+    @Override
+    public StatBucket deserialize(DataInput2 in, int available) throws IOException {
+        SerializerUtils.readVersion(in, VERSION, "StatBucket");
+        long bucketStartMs = in.unpackLong();
+        String agentName = SerializerUtils.readNullableUTF(in);
+        String provider = SerializerUtils.readNullableUTF(in);
+        String model = SerializerUtils.readNullableUTF(in);
+        long count = in.unpackLong();
+        long successCount = in.unpackLong();
+        long latencySumMs = in.unpackLong();
+        long latencyMinMs = in.unpackLong();
+        long latencyMaxMs = in.unpackLong();
+        long inputTokens = in.unpackLong();
+        long outputTokens = in.unpackLong();
+        long totalTokens = in.unpackLong();
+        int histogramSize = in.unpackInt();
+        long[] histogram = new long[StatBucket.HISTOGRAM_SIZE];
+        for (int i = 0; i < histogramSize; i++) {
+            long c = in.unpackLong();
+            if (i < histogram.length) histogram[i] = c;
+        }
+        StatBucket bucket = new StatBucket(bucketStartMs, agentName, provider, model, histogram);
+        bucket.restore(count, successCount, latencySumMs, count == 0 ? Long.MAX_VALUE : latencyMinMs,
+                latencyMaxMs, inputTokens, outputTokens, totalTokens);
+        return bucket;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mkpro.routing;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from tool name to the known completion tool sets (sequence ids
+ * in {@link MarkovRouter}'s completion matrix) of one category that contain it.
+ *
+ * Partial-match completion estimates only need the tool sets that share at least
+ * one tool with the current goal — any other set scores zero — so they look up
+ * candidates here instead of scanning every recorded set.
+ *
+ * Thread-safe.
+ */
+final class CompletionPatternIndex {
+
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    // Least recently recorded first
+    private final Map<Integer, String[]> toolsBySequence = new LinkedHashMap<>();
+
+    /** Adds a tool set under its sequence id (no-op if already present). */
+    synchronized void add(int sequenceId, String[] tools) {
+        if (toolsBySequence.putIfAbsent(sequenceId, tools) != null) return;
+        for (String tool : tools) {
+            postings.computeIfAbsent(tool, t -> new HashSet<>()).add(sequenceId);
+        }
+    }
+
+    synchronized void remove(int sequenceId) {
+        String[] tools = toolsBySequence.remove(sequenceId);
+        if (tools == null) return;
+        for (String tool : tools) {
+            Set<Integer> ids = postings.get(tool);
+            if (ids != null && ids.remove(sequenceId) && ids.isEmpty()) postings.remove(tool);
+        }
+    }
+
+    synchronized boolean contains(int sequenceId) {
+        return toolsBySequence.containsKey(sequenceId);
+    }
+
+    /** Marks a set as just recorded again, moving it last in {@link #sequenceIds()}. */
+    synchronized void touch(int sequenceId) {
+        String[] tools = toolsBySequence.remove(sequenceId);
+        if (tools != null) toolsBySequence.put(sequenceId, tools);
+    }
+
+    synchronized int size() {
+        return toolsBySequence.size();
+    }
+
+    /** Ids of every indexed tool set, least recently recorded first. */
+    synchronized int[] sequenceIds() {
+        return toolsBySequence.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** The distinct tools of a set, or null if it is not indexed. */
+    synchronized String[] tools(int sequenceId) {
+        return toolsBySequence.get(sequenceId);
+    }
+
+    /** Ids of the tool sets that contain at least one of {@code tools}. */
+    synchronized Set<Integer> candidates(Set<String> tools) {
+        Set<Integer> candidates = new HashSet<>();
+        for (String tool : tools) {
+            Set<Integer> ids = postings.get(tool);
+            if (ids != null) candidates.addAll(ids);
+        }
+        return candidates;
+    }
+}
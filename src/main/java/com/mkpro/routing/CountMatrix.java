@@ -0,0 +1,310 @@
+package com.mkpro.routing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Observation counts for the Markov models: rows keyed by one or two interned
+ * names (e.g. category + last agent), each row an int count per column name
+ * (e.g. next agent).
+ *
+ * Rows are found by array index, and each row keeps its total and its argmax
+ * current as counts are added, so the most likely column and its probability are
+ * O(1) to read. Every row has its own lock (updates to different rows never
+ * contend); the row table itself is copy-on-grow.
+ */
+final class CountMatrix {
+
+    /** Most frequent column of a row, with its count and the row total. */
+    record Top(int column, int count, long total) {
+        double probability() {
+            return total > 0 ? (double) count / total : 0.0;
+        }
+    }
+
+    /** Receives (column id, count) pairs of a row. */
+    @FunctionalInterface
+    interface CountVisitor {
+        void accept(int column, int count);
+    }
+
+    /** Receives (outer id, inner id, row) for the rows of a matrix. */
+    @FunctionalInterface
+    interface RowVisitor {
+        void accept(int outer, int inner, Row row);
+    }
+
+    /**
+     * Counts for one row, indexed by column id. Every change bumps the row's version;
+     * {@link #markSaved(int)} records which version was last persisted, so delta
+     * saves can pick out the rows that changed since.
+     */
+    static final class Row {
+        private int[] counts = new int[8];
+        private long total;
+        private int best = -1;
+        private int bestCount;
+        private int version;
+        private int savedVersion;
+
+        /** Adds a non-negative delta. */
+        synchronized void add(int column, int delta) {
+            if (column >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(column + 1, counts.length * 2));
+            }
+            int count = counts[column] + delta;
+            counts[column] = count;
+            total += delta;
+            version++;
+            if (column == best) {
+                bestCount = count;
+            } else if (count > bestCount) {
+                best = column;
+                bestCount = count;
+            }
+        }
+
+        /** Drops all counts (the row then reads as empty). */
+        synchronized void clear() {
+            Arrays.fill(counts, 0);
+            total = 0;
+            best = -1;
+            bestCount = 0;
+            version++;
+        }
+
+        synchronized int version() {
+            return version;
+        }
+
+        /** Records that the row as of {@code savedVersion} has been persisted. */
+        synchronized void markSaved(int savedVersion) {
+            this.savedVersion = Math.max(this.savedVersion, savedVersion);
+        }
+
+        /** Whether the row changed since it was last marked saved. */
+        synchronized boolean isDirty() {
+            return version != savedVersion;
+        }
+
+        synchronized int count(int column) {
+            return column >= 0 && column < counts.length ? counts[column] : 0;
+        }
+
+        synchronized long total() {
+            return total;
+        }
+
+        /** The argmax, or null if nothing has been counted. */
+        synchronized Top top() {
+            return best < 0 ? null : new Top(best, bestCount, total);
+        }
+
+        /** Visits the non-zero counts in column order (on a copy, outside the lock). */
+        void forEach(CountVisitor visitor) {
+            int[] copy;
+            synchronized (this) {
+                copy = counts.clone();
+            }
+            for (int c = 0; c < copy.length; c++) {
+                if (copy[c] != 0) visitor.accept(c, copy[c]);
+            }
+        }
+
+        /** The non-zero counts as (column, count) pairs, in column order. */
+        synchronized int[] pairs() {
+            int[] pairs = new int[16];
+            int n = 0;
+            for (int c = 0; c < counts.length; c++) {
+                if (counts[c] == 0) continue;
+                if (n + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                pairs[n++] = c;
+                pairs[n++] = counts[c];
+            }
+            return Arrays.copyOf(pairs, n);
+        }
+
+        synchronized boolean isEmpty() {
+            return best < 0;
+        }
+    }
+
+    private final SymbolTable outerSymbols;
+    private final SymbolTable innerSymbols; // null for rows keyed by the outer name only
+    private final SymbolTable columnSymbols;
+    private volatile Row[][] rows = new Row[0][];
+
+    /**
+     * @param outerSymbols  names for the first row key
+     * @param innerSymbols  names for the second row key, or null for single-key rows
+     * @param columnSymbols names for the columns
+     */
+    CountMatrix(SymbolTable outerSymbols, SymbolTable innerSymbols, SymbolTable columnSymbols) {
+        this.outerSymbols = outerSymbols;
+        this.innerSymbols = innerSymbols;
+        this.columnSymbols = columnSymbols;
+    }
+
+    SymbolTable outers() {
+        return outerSymbols;
+    }
+
+    /** Names for the second row key, or null for single-key rows. */
+    SymbolTable inners() {
+        return innerSymbols;
+    }
+
+    SymbolTable columns() {
+        return columnSymbols;
+    }
+
+    /** Adds {@code delta} to the count at (outer, inner) / column. */
+    void add(String outer, String inner, String column, int delta) {
+        int o = outerSymbols.intern(outer);
+        int i = innerSymbols != null ? innerSymbols.intern(inner) : 0;
+        rowFor(o, i).add(columnSymbols.intern(column), delta);
+    }
+
+    /** The row for the keys, or null if nothing was recorded there. */
+    Row row(String outer, String inner) {
+        int o = outerSymbols.lookup(outer);
+        int i = innerSymbols != null ? innerSymbols.lookup(inner) : 0;
+        if (o < 0 || i < 0) return null;
+        return row(o, i);
+    }
+
+    Row row(int outer, int inner) {
+        Row[][] table = rows;
+        if (outer >= table.length || table[outer] == null || inner >= table[outer].length) return null;
+        return table[outer][inner];
+    }
+
+    /** The row for the keys, created (and the names interned) if it is new. */
+    Row rowAt(String outer, String inner) {
+        int o = outerSymbols.intern(outer);
+        int i = innerSymbols != null ? innerSymbols.intern(inner) : 0;
+        return rowFor(o, i);
+    }
+
+    private Row rowFor(int outer, int inner) {
+        Row row = row(outer, inner);
+        if (row != null) return row;
+        synchronized (this) {
+            Row[][] table = rows;
+            Row[] cells = outer < table.length ? table[outer] : null;
+            if (cells != null && inner < cells.length && cells[inner] != null) return cells[inner];
+
+            Row[][] newTable = Arrays.copyOf(table, capacity(table.length, outer));
+            Row[] newCells = cells == null ? new Row[capacity(0, inner)] : Arrays.copyOf(cells, capacity(cells.length, inner));
+            row = new Row();
+            newCells[inner] = row;
+            newTable[outer] = newCells;
+            rows = newTable;
+            return row;
+        }
+    }
+
+    private static int capacity(int current, int index) {
+        int capacity = Math.max(current, 4);
+        while (capacity <= index) capacity *= 2;
+        return capacity;
+    }
+
+    /** Calls the visitor with (inner id, row) for every non-empty row under the outer name. */
+    void forEachRow(String outer, java.util.function.ObjIntConsumer<Row> visitor) {
+        int o = outerSymbols.lookup(outer);
+        Row[][] table = rows;
+        if (o < 0 || o >= table.length || table[o] == null) return;
+        Row[] cells = table[o];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != null && !cells[i].isEmpty()) visitor.accept(cells[i], i);
+        }
+    }
+
+    /** Calls the visitor for every non-empty row, in id order. */
+    void forEachRow(RowVisitor visitor) {
+        Row[][] table = rows;
+        for (int o = 0; o < table.length; o++) {
+            Row[] cells = table[o];
+            if (cells == null) continue;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != null && !cells[i].isEmpty()) visitor.accept(o, i, cells[i]);
+            }
+        }
+    }
+
+    /** Drops one row. */
+    synchronized void removeRow(int outer, int inner) {
+        Row[][] table = rows;
+        if (outer >= table.length || table[outer] == null || inner >= table[outer].length) return;
+        table = table.clone();
+        table[outer] = table[outer].clone();
+        table[outer][inner] = null;
+        rows = table;
+    }
+
+    String innerName(int id) {
+        return innerSymbols != null ? innerSymbols.name(id) : null;
+    }
+
+    /** Drops every row under the outer name. */
+    synchronized void clearOuter(String outer) {
+        int o = outerSymbols.lookup(outer);
+        Row[][] table = rows;
+        if (o < 0 || o >= table.length || table[o] == null) return;
+        table = table.clone();
+        table[o] = null;
+        rows = table;
+    }
+
+    synchronized void clear() {
+        rows = new Row[0][];
+    }
+
+    boolean isEmpty() {
+        for (Row[] cells : rows) {
+            if (cells == null) continue;
+            for (Row row : cells) {
+                if (row != null && !row.isEmpty()) return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Map views (display and serialization) ---
+
+    /** Snapshot as outer → inner → {column → count}. Requires an inner key. */
+    Map<String, Map<String, Map<String, Integer>>> toNestedMap() {
+        Map<String, Map<String, Map<String, Integer>>> out = new HashMap<>();
+        Row[][] table = rows;
+        for (int o = 0; o < table.length; o++) {
+            if (table[o] == null) continue;
+            Map<String, Map<String, Integer>> inner = new HashMap<>();
+            for (int i = 0; i < table[o].length; i++) {
+                Row row = table[o][i];
+                if (row == null || row.isEmpty()) continue;
+                inner.put(innerSymbols.name(i), rowToMap(row));
+            }
+            if (!inner.isEmpty()) out.put(outerSymbols.name(o), inner);
+        }
+        return out;
+    }
+
+    /** Snapshot as outer → {column → count}, for single-key rows. */
+    Map<String, Map<String, Integer>> toMap() {
+        Map<String, Map<String, Integer>> out = new HashMap<>();
+        Row[][] table = rows;
+        for (int o = 0; o < table.length; o++) {
+            Row row = row(o, 0);
+            if (row != null && !row.isEmpty()) out.put(outerSymbols.name(o), rowToMap(row));
+        }
+        return out;
+    }
+
+    HashMap<String, Integer> rowToMap(Row row) {
+        HashMap<String, Integer> counts = new HashMap<>();
+        row.forEach((column, count) -> counts.put(columnSymbols.name(column), count));
+        return counts;
+    }
+}
@@ -9,6 +9,11 @@ import java.util.regex.Pattern;
  *
  * Categories: coding, testing, devops, git, docs, security, architecture, database,
  *             sysadmin, data, android, ios, goals, general
+ *
+ * All category and agent keywords are compiled into one {@link KeywordAutomaton},
+ * so an input is scanned once for every category and agent; the last input's
+ * scores are reused by the other classify methods. Learned patterns are compiled
+ * when they are set.
  */
 public class IntentClassifier {
 
@@ -121,27 +126,61 @@ public class IntentClassifier {
         ));
     }
 
+    /** Category and agent keywords compiled together; replaced when agents register keywords. */
+    private record Compiled(KeywordAutomaton automaton, TaskCategory[] categories, String[] agents) {}
+
+    /** Per-group scores for the most recent input. */
+    private record Scores(String input, Compiled compiled, int[] scores) {}
+
+    private static final Map<String, List<Pattern>> DYNAMIC_AGENT_PATTERNS = new LinkedHashMap<>();
+    private static volatile Compiled compiled = compile();
+
+    private volatile Scores lastScores;
+
+    private static Compiled compile() {
+        KeywordAutomaton.Builder builder = KeywordAutomaton.builder();
+        TaskCategory[] categories = PATTERNS.keySet().toArray(new TaskCategory[0]);
+        for (TaskCategory category : categories) {
+            builder.addGroup(PATTERNS.get(category));
+        }
+        String[] agents = DYNAMIC_AGENT_PATTERNS.keySet().toArray(new String[0]);
+        for (String agent : agents) {
+            builder.addGroup(DYNAMIC_AGENT_PATTERNS.get(agent));
+        }
+        return new Compiled(builder.build(), categories, agents);
+    }
+
+    /**
+     * Scores every category (groups 0..categories-1) and dynamic agent (the groups
+     * after) for the input in one pass.
+     */
+    private Scores scores(String input) {
+        Compiled current = compiled;
+        Scores last = lastScores;
+        if (last != null && last.compiled() == current && last.input().equals(input)) {
+            return last;
+        }
+        Scores scores = new Scores(input, current, current.automaton().score(input));
+        lastScores = scores;
+        return scores;
+    }
+
     /**
      * Classify user input into a task category.
      * Returns the best matching category, or GENERAL if no match.
      */
     public TaskCategory classify(String input) {
         if (input == null || input.isEmpty()) return TaskCategory.GENERAL;
-        
-        String lower = input.toLowerCase().trim();
+
+        Scores scores = scores(input);
+        TaskCategory[] categories = scores.compiled().categories();
         int bestScore = 0;
         TaskCategory bestCategory = TaskCategory.GENERAL;
 
-        for (Map.Entry<TaskCategory, List<Pattern>> entry : PATTERNS.entrySet()) {
-            int score = 0;
-            for (Pattern pattern : entry.getValue()) {
-                if (pattern.matcher(lower).find()) {
-                    score++;
-                }
-            }
-            if (score > bestScore) {
-                bestScore = score;
-                bestCategory = entry.getKey();
+        for (int i = 0; i < categories.length; i++) {
+            if (scores.scores()[i] > bestScore) {
+                bestScore = scores.scores()[i];
+                bestCategory = categories[i];
             }
         }
 
@@ -154,23 +193,14 @@ public class IntentClassifier {
      */
     public double classifyWithConfidence(String input) {
         if (input == null || input.isEmpty()) return 0.0;
-        
-        String lower = input.toLowerCase().trim();
-        int bestScore = 0;
-        int totalPatterns = 0;
 
-        for (Map.Entry<TaskCategory, List<Pattern>> entry : PATTERNS.entrySet()) {
-            int score = 0;
-            for (Pattern pattern : entry.getValue()) {
-                if (pattern.matcher(lower).find()) {
-                    score++;
-                }
-            }
-            totalPatterns = Math.max(totalPatterns, entry.getValue().size());
-            bestScore = Math.max(bestScore, score);
+        Scores scores = scores(input);
+        int bestScore = 0;
+        for (int i = 0; i < scores.compiled().categories().length; i++) {
+            bestScore = Math.max(bestScore, scores.scores()[i]);
         }
 
-        if (totalPatterns == 0) return 0.0;
+        if (PATTERNS.isEmpty()) return 0.0;
         return Math.min(1.0, (double) bestScore / 3.0); // 3+ matches = full confidence
     }
 
@@ -188,22 +218,21 @@ public class IntentClassifier {
     // ========== Learned Patterns (from training data) ==========
 
     private Map<String, java.util.Set<String>> learnedPatterns = new java.util.HashMap<>();
-
-    /** Dynamic routing patterns registered from YAML agent definitions */
-    private static final Map<String, List<Pattern>> DYNAMIC_AGENT_PATTERNS = new LinkedHashMap<>();
+    private LearnedMatcher learnedMatcher = LearnedMatcher.EMPTY;
 
     /**
      * Register routing keywords for a custom agent defined in YAML.
      * These patterns map directly to the agent name (not a TaskCategory).
      * Used by MarkovRouter for direct agent routing.
      */
-    public static void registerAgentKeywords(String agentName, List<String> keywords) {
+    public static synchronized void registerAgentKeywords(String agentName, List<String> keywords) {
         if (keywords == null || keywords.isEmpty()) return;
-        List<Pattern> compiled = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
         for (String kw : keywords) {
-            compiled.add(Pattern.compile(kw.replace(" ", "\\s*"), Pattern.CASE_INSENSITIVE));
+            patterns.add(Pattern.compile(kw.replace(" ", "\\s*"), Pattern.CASE_INSENSITIVE));
         }
-        DYNAMIC_AGENT_PATTERNS.put(agentName, compiled);
+        DYNAMIC_AGENT_PATTERNS.put(agentName, patterns);
+        compiled = compile();
     }
 
     /**
@@ -211,22 +240,18 @@ public class IntentClassifier {
      * Returns the agent name if matched with score >= 2, or null if no match.
      */
     public String classifyToAgent(String input) {
-        if (input == null || input.isEmpty() || DYNAMIC_AGENT_PATTERNS.isEmpty()) return null;
+        if (input == null || input.isEmpty() || compiled.agents().length == 0) return null;
 
-        String lower = input.toLowerCase().trim();
+        Scores scores = scores(input);
+        String[] agents = scores.compiled().agents();
+        int offset = scores.compiled().categories().length;
         int bestScore = 0;
         String bestAgent = null;
 
-        for (Map.Entry<String, List<Pattern>> entry : DYNAMIC_AGENT_PATTERNS.entrySet()) {
-            int score = 0;
-            for (Pattern pattern : entry.getValue()) {
-                if (pattern.matcher(lower).find()) {
-                    score++;
-                }
-            }
-            if (score > bestScore) {
-                bestScore = score;
-                bestAgent = entry.getKey();
+        for (int i = 0; i < agents.length; i++) {
+            if (scores.scores()[offset + i] > bestScore) {
+                bestScore = scores.scores()[offset + i];
+                bestAgent = agents[i];
             }
         }
 
@@ -234,6 +259,13 @@ public class IntentClassifier {
         return bestScore >= 1 ? bestAgent : null;
     }
 
+    /**
+     * The built-in category patterns (for comparing against a plain regex scan).
+     */
+    static Map<TaskCategory, List<Pattern>> getCategoryPatterns() {
+        return Collections.unmodifiableMap(PATTERNS);
+    }
+
     /**
      * Get all registered dynamic agent patterns (for /train status display).
      */
@@ -247,6 +279,7 @@ public class IntentClassifier {
      */
     public void setLearnedPatterns(Map<String, java.util.Set<String>> patterns) {
         this.learnedPatterns = patterns != null ? patterns : new java.util.HashMap<>();
+        this.learnedMatcher = LearnedMatcher.compile(learnedPatterns);
     }
 
     public Map<String, java.util.Set<String>> getLearnedPatterns() {
@@ -264,48 +297,112 @@ public class IntentClassifier {
             return TaskCategory.GENERAL;
         }
 
-        String lower = input.toLowerCase().replaceAll("[^a-z0-9\\s]", " ");
-        String[] words = lower.split("\\s+");
-
+        LearnedMatcher matcher = learnedMatcher;
+        int[] scores = matcher.score(input);
         int bestScore = 0;
         TaskCategory bestCategory = TaskCategory.GENERAL;
 
-        for (var entry : learnedPatterns.entrySet()) {
-            String categoryName = entry.getKey();
-            java.util.Set<String> patterns = entry.getValue();
-            TaskCategory category;
-            try {
-                category = TaskCategory.valueOf(categoryName);
-            } catch (IllegalArgumentException e) {
-                continue;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > bestScore) {
+                bestScore = scores[i];
+                bestCategory = matcher.categories[i];
             }
+        }
 
-            int score = 0;
-            for (String pattern : patterns) {
-                if (pattern.startsWith("B:")) {
-                    // Bigram: check if the bigram exists in the input
-                    String bigram = pattern.substring(2);
-                    if (lower.contains(bigram)) {
-                        score += 2; // Bigrams worth 2 points
-                    }
-                } else {
-                    // Unigram: check if the word exists in the input
-                    for (String word : words) {
-                        if (word.equals(pattern)) {
-                            score += 1;
-                            break;
-                        }
+        // Require at least 2 points to override GENERAL
+        return bestScore >= 2 ? bestCategory : TaskCategory.GENERAL;
+    }
+
+    /**
+     * Learned patterns compiled for one pass: unigrams are looked up per word,
+     * bigrams ("B:" prefix, matched as substrings) go through a {@link SignalMatcher}.
+     * Categories keep the iteration order of the learned map, so ties resolve as before.
+     */
+    private static final class LearnedMatcher {
+        static final LearnedMatcher EMPTY = new LearnedMatcher(new TaskCategory[0], Map.of(), null);
+
+        final TaskCategory[] categories;
+        private final Map<String, int[]> unigrams;        // word -> category indexes
+        private final SignalMatcher<int[]> bigrams;       // bigram -> category indexes, or null
+
+        private LearnedMatcher(TaskCategory[] categories, Map<String, int[]> unigrams, SignalMatcher<int[]> bigrams) {
+            this.categories = categories;
+            this.unigrams = unigrams;
+            this.bigrams = bigrams;
+        }
+
+        static LearnedMatcher compile(Map<String, java.util.Set<String>> learned) {
+            List<TaskCategory> categories = new ArrayList<>();
+            Map<String, List<Integer>> unigramRefs = new HashMap<>();
+            Map<String, List<Integer>> bigramRefs = new LinkedHashMap<>();
+            for (var entry : learned.entrySet()) {
+                TaskCategory category;
+                try {
+                    category = TaskCategory.valueOf(entry.getKey());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                int index = categories.size();
+                categories.add(category);
+                for (String pattern : entry.getValue()) {
+                    if (pattern.startsWith("B:")) {
+                        bigramRefs.computeIfAbsent(pattern.substring(2), k -> new ArrayList<>()).add(index);
+                    } else {
+                        unigramRefs.computeIfAbsent(pattern, k -> new ArrayList<>()).add(index);
                     }
                 }
             }
 
-            if (score > bestScore) {
-                bestScore = score;
-                bestCategory = category;
+            Map<String, int[]> unigrams = new HashMap<>();
+            unigramRefs.forEach((word, refs) -> unigrams.put(word, toArray(refs)));
+            SignalMatcher<int[]> bigrams = null;
+            if (!bigramRefs.isEmpty()) {
+                SignalMatcher.Builder<int[]> builder = SignalMatcher.builder();
+                bigramRefs.forEach((bigram, refs) -> builder.add(toArray(refs), bigram));
+                bigrams = builder.build();
             }
+            return new LearnedMatcher(categories.toArray(new TaskCategory[0]), unigrams, bigrams);
         }
 
-        // Require at least 2 points to override GENERAL
-        return bestScore >= 2 ? bestCategory : TaskCategory.GENERAL;
+        /** Score per category index; each distinct pattern counts once. */
+        int[] score(String input) {
+            int[] scores = new int[categories.length];
+            // Same normalization as the trainer: lowercase, anything but [a-z0-9\s] becomes a space
+            String lower = input.toLowerCase();
+            char[] normalized = new char[lower.length()];
+            java.util.Set<String> seenWords = new java.util.HashSet<>();
+            int wordStart = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                char c = i < lower.length() ? lower.charAt(i) : ' ';
+                boolean alnum = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+                if (i < lower.length()) {
+                    normalized[i] = alnum || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' ? c : ' ';
+                }
+                if (alnum) {
+                    if (wordStart < 0) wordStart = i;
+                } else if (wordStart >= 0) {
+                    String word = lower.substring(wordStart, i);
+                    wordStart = -1;
+                    int[] refs = unigrams.get(word);
+                    if (refs != null && seenWords.add(word)) {
+                        for (int ref : refs) scores[ref] += 1;
+                    }
+                }
+            }
+            if (bigrams != null) {
+                java.util.BitSet seen = new java.util.BitSet();
+                bigrams.scanner().feed(java.nio.CharBuffer.wrap(normalized), hit -> {
+                    if (!seen.get(hit.phraseIndex())) {
+                        seen.set(hit.phraseIndex());
+                        for (int ref : hit.category()) scores[ref] += 2;  // Bigrams worth 2 points
+                    }
+                });
+            }
+            return scores;
+        }
+
+        private static int[] toArray(List<Integer> refs) {
+            return refs.stream().mapToInt(Integer::intValue).toArray();
+        }
     }
 }
@@ -0,0 +1,257 @@
+package com.mkpro.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Counts, for many groups of keyword patterns at once, how many patterns in each
+ * group {@code find()} a match in the input — in a single pass over the text.
+ *
+ * Keyword patterns are the classifier's restricted regex form: literal text,
+ * {@code \s*} (from a space in the keyword) and {@code .*}. Each {@code .*}-separated
+ * segment becomes a set of literal phrases (one per way of filling its {@code \s*}
+ * gaps) in one {@link SignalMatcher}; the input is fed with whitespace runs
+ * collapsed so those variants stay finite. Segments are then chained in order
+ * within a line, which is exactly what {@code .*} (no DOTALL) accepts. Patterns
+ * using any other regex syntax are kept as compiled Patterns and run separately,
+ * so results are the same as running every Pattern on the lowercased input.
+ *
+ * Immutable and thread-safe.
+ */
+final class KeywordAutomaton {
+
+    private static final int MAX_VARIANTS = 27;
+
+    private final SignalMatcher<int[]> matcher;  // phrase -> refs (keyword << 8 | segment)
+    private final int[] keywordGroup;
+    private final int[] keywordSegments;
+    private final List<Pattern> fallbackPatterns;
+    private final int[] fallbackGroup;
+    private final int groupCount;
+
+    private KeywordAutomaton(Builder b) {
+        SignalMatcher.Builder<int[]> mb = SignalMatcher.builder();
+        for (Map.Entry<String, List<Integer>> e : b.phraseRefs.entrySet()) {
+            mb.add(e.getValue().stream().mapToInt(Integer::intValue).toArray(), e.getKey());
+        }
+        this.matcher = mb.build();
+        this.keywordGroup = b.keywordGroup.stream().mapToInt(Integer::intValue).toArray();
+        this.keywordSegments = b.keywordSegments.stream().mapToInt(Integer::intValue).toArray();
+        this.fallbackPatterns = List.copyOf(b.fallbackPatterns);
+        this.fallbackGroup = b.fallbackGroup.stream().mapToInt(Integer::intValue).toArray();
+        this.groupCount = b.groupCount;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    static final class Builder {
+        private final Map<String, List<Integer>> phraseRefs = new LinkedHashMap<>();
+        private final List<Integer> keywordGroup = new ArrayList<>();
+        private final List<Integer> keywordSegments = new ArrayList<>();
+        private final List<Pattern> fallbackPatterns = new ArrayList<>();
+        private final List<Integer> fallbackGroup = new ArrayList<>();
+        private int groupCount;
+
+        private Builder() {
+        }
+
+        /** Adds a group of patterns and returns its index in {@link #score(String)}. */
+        int addGroup(List<Pattern> patterns) {
+            int group = groupCount++;
+            for (Pattern pattern : patterns) {
+                List<List<String>> segments = parse(pattern);
+                if (segments == null) {
+                    fallbackPatterns.add(pattern);
+                    fallbackGroup.add(group);
+                    continue;
+                }
+                int keyword = keywordGroup.size();
+                keywordGroup.add(group);
+                keywordSegments.add(segments.size());
+                for (int s = 0; s < segments.size(); s++) {
+                    for (String phrase : segments.get(s)) {
+                        phraseRefs.computeIfAbsent(phrase, k -> new ArrayList<>()).add(keyword << 8 | s);
+                    }
+                }
+            }
+            return group;
+        }
+
+        KeywordAutomaton build() {
+            return new KeywordAutomaton(this);
+        }
+    }
+
+    int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Number of patterns in each group that occur in the input, indexed by group.
+     */
+    int[] score(String input) {
+        int[] scores = new int[groupCount];
+        if (input == null || input.isEmpty()) {
+            return scores;
+        }
+
+        Normalized text = normalize(input);
+        int keywords = keywordGroup.length;
+        boolean[] matched = new boolean[keywords];
+        int[] progress = new int[keywords];    // next segment to find
+        long[] segmentEnd = new long[keywords]; // end of the last segment found
+        matcher.scanner().feed(text.chars, hit -> {
+            long start = hit.start();
+            for (int ref : hit.category()) {
+                int keyword = ref >>> 8;
+                if (matched[keyword]) continue;
+                int segment = ref & 0xff;
+                if (keywordSegments[keyword] == 1) {
+                    matched[keyword] = true;
+                    continue;
+                }
+                // .* does not cross lines: start over if a line break came in between
+                if (progress[keyword] > 0 && text.hasBreak(segmentEnd[keyword], start)) {
+                    progress[keyword] = 0;
+                }
+                if (segment != progress[keyword] || (segment > 0 && start < segmentEnd[keyword])) continue;
+                progress[keyword]++;
+                segmentEnd[keyword] = hit.end();
+                if (progress[keyword] == keywordSegments[keyword]) {
+                    matched[keyword] = true;
+                }
+            }
+        });
+        for (int k = 0; k < keywords; k++) {
+            if (matched[k]) scores[keywordGroup[k]]++;
+        }
+
+        if (!fallbackPatterns.isEmpty()) {
+            String lower = input.toLowerCase().trim();
+            for (int i = 0; i < fallbackPatterns.size(); i++) {
+                if (fallbackPatterns.get(i).matcher(lower).find()) scores[fallbackGroup[i]]++;
+            }
+        }
+        return scores;
+    }
+
+    // --- Pattern parsing ---
+
+    /**
+     * Splits a keyword pattern into its .*-separated segments, each expanded to the
+     * literal phrases it can match on whitespace-collapsed text. Returns null if the
+     * pattern uses other regex syntax or would expand too far.
+     */
+    static List<List<String>> parse(Pattern pattern) {
+        if ((pattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0) return null;
+        String regex = pattern.pattern();
+        List<List<String>> segments = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i <= regex.length()) {
+            boolean end = i == regex.length();
+            if (end || regex.startsWith(".*", i)) {
+                words.add(word.toString());
+                word.setLength(0);
+                if (!addSegment(segments, words)) return null;
+                words.clear();
+                i += 2;
+            } else if (regex.startsWith("\\s*", i)) {
+                words.add(word.toString());
+                word.setLength(0);
+                i += 3;
+            } else {
+                char c = regex.charAt(i);
+                if ("\\^$.|?*+()[]{}".indexOf(c) >= 0 || Character.isWhitespace(c)) return null;
+                word.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return segments.isEmpty() ? null : segments;
+    }
+
+    private static boolean addSegment(List<List<String>> segments, List<String> words) {
+        // \s* at either end of a segment can match nothing, so it doesn't constrain
+        List<String> parts = new ArrayList<>();
+        for (String w : words) {
+            if (!w.isEmpty()) parts.add(w);
+        }
+        if (parts.isEmpty()) return true;
+        int gaps = parts.size() - 1;
+        int variants = (int) Math.pow(3, gaps);
+        if (variants > MAX_VARIANTS) return false;
+        // Collapsed whitespace is "", " " or "\n" between parts
+        List<String> phrases = new ArrayList<>(variants);
+        for (int v = 0; v < variants; v++) {
+            StringBuilder phrase = new StringBuilder(parts.get(0));
+            int code = v;
+            for (int g = 1; g <= gaps; g++) {
+                int kind = code % 3;
+                code /= 3;
+                if (kind == 1) phrase.append(' ');
+                else if (kind == 2) phrase.append('\n');
+                phrase.append(parts.get(g));
+            }
+            phrases.add(phrase.toString());
+        }
+        segments.add(phrases);
+        return true;
+    }
+
+    // --- Input normalization ---
+
+    /** Input with whitespace runs collapsed, and where its line breaks are. */
+    private record Normalized(String chars, int[] breaks) {
+        /** Whether a line break lies in [from, to). */
+        boolean hasBreak(long from, long to) {
+            int idx = Arrays.binarySearch(breaks, (int) from);
+            if (idx < 0) idx = -idx - 1;
+            return idx < breaks.length && breaks[idx] < to;
+        }
+    }
+
+    /**
+     * Collapses each run of regex whitespace ([ \t\n\x0B\f\r]) to "\n" if it holds a
+     * line feed or carriage return, else to " ". Other chars are kept as they are.
+     */
+    private static Normalized normalize(String input) {
+        StringBuilder out = new StringBuilder(input.length());
+        int[] breaks = new int[8];
+        int breakCount = 0;
+        int i = 0;
+        while (i < input.length()) {
+            char c = input.charAt(i);
+            if (isRegexSpace(c)) {
+                boolean newline = false;
+                while (i < input.length() && isRegexSpace(input.charAt(i))) {
+                    char w = input.charAt(i++);
+                    newline |= w == '\n' || w == '\r';
+                }
+                if (newline) {
+                    if (breakCount == breaks.length) breaks = Arrays.copyOf(breaks, breakCount * 2);
+                    breaks[breakCount++] = out.length();
+                }
+                out.append(newline ? '\n' : ' ');
+                continue;
+            }
+            if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                if (breakCount == breaks.length) breaks = Arrays.copyOf(breaks, breakCount * 2);
+                breaks[breakCount++] = out.length();
+            }
+            out.append(c);
+            i++;
+        }
+        return new Normalized(out.toString(), Arrays.copyOf(breaks, breakCount));
+    }
+
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
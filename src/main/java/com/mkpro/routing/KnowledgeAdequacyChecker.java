@@ -233,6 +233,27 @@ public class KnowledgeAdequacyChecker {
         return false;
     }
 
+    /** Uncertainty phrases: strong ones score 3, moderate and hedging ones 1 */
+    private static final SignalMatcher<Integer> UNCERTAINTY_SIGNALS = SignalMatcher.<Integer>builder()
+            // Strong uncertainty signals
+            .add(3,
+                "i'm not sure", "i am not sure", "i don't know", "i'm uncertain",
+                "i cannot confirm", "i don't have enough information",
+                "you should verify", "you should check", "please consult",
+                "i would recommend checking", "i'm not aware of",
+                "this may not be accurate", "i cannot guarantee")
+            // Moderate uncertainty signals
+            .add(1,
+                "generally", "typically", "usually", "in most cases",
+                "might be", "could be", "may vary", "it depends",
+                "from what i recall", "as far as i know", "i believe",
+                "not entirely sure", "double-check", "worth verifying")
+            // Hedging language (weaker signal)
+            .add(1,
+                "probably", "perhaps", "possibly", "seemingly",
+                "it seems", "it appears", "it looks like")
+            .build();
+
     /**
      * Detect uncertainty/weakness in an agent's response.
      * Returns a score 0.0–1.0. Scores >= 0.5 suggest inadequate knowledge.
@@ -240,40 +261,7 @@ public class KnowledgeAdequacyChecker {
     double detectUncertainty(String response) {
         if (response == null || response.isBlank()) return 0.0;
 
-        String lower = response.toLowerCase();
-        int signals = 0;
-
-        // Strong uncertainty signals
-        String[] strongSignals = {
-            "i'm not sure", "i am not sure", "i don't know", "i'm uncertain",
-            "i cannot confirm", "i don't have enough information",
-            "you should verify", "you should check", "please consult",
-            "i would recommend checking", "i'm not aware of",
-            "this may not be accurate", "i cannot guarantee"
-        };
-        for (String s : strongSignals) {
-            if (lower.contains(s)) signals += 3;
-        }
-
-        // Moderate uncertainty signals
-        String[] moderateSignals = {
-            "generally", "typically", "usually", "in most cases",
-            "might be", "could be", "may vary", "it depends",
-            "from what i recall", "as far as i know", "i believe",
-            "not entirely sure", "double-check", "worth verifying"
-        };
-        for (String s : moderateSignals) {
-            if (lower.contains(s)) signals += 1;
-        }
-
-        // Hedging language (weaker signal)
-        String[] hedging = {
-            "probably", "perhaps", "possibly", "seemingly",
-            "it seems", "it appears", "it looks like"
-        };
-        for (String s : hedging) {
-            if (lower.contains(s)) signals += 1;
-        }
+        int signals = UNCERTAINTY_SIGNALS.score(response, Integer::intValue);
 
         // Normalize: 5+ signal points = fully uncertain
         return Math.min(1.0, signals / 5.0);
@@ -36,15 +36,18 @@ public class MakerLoop {
     private double escalateThreshold = 0.40;
     private int maxRetries = 3;
     private static final int PERIODIC_SAVE_INTERVAL = 10; // Save model every N turns
+    private static final long CHECKPOINT_FLUSH_TIMEOUT_MS = 10_000;
 
     // Periodic save state
     private volatile int globalTurnCounter = 0;
     private volatile java.nio.file.Path modelSavePath;
+    private final ModelCheckpointer checkpointer;
     private volatile com.mkpro.facts.FactEngine factEngine;
 
     public MakerLoop(MarkovRouter router) {
         this.router = router;
         this.classifier = new IntentClassifier();
+        this.checkpointer = new ModelCheckpointer(router);
     }
 
     public void setEventBus(com.mkpro.events.MkProEventBus eventBus) {
@@ -267,14 +270,10 @@ public class MakerLoop {
         // Record this turn
         currentGoal.recordTurn(agentUsed, toolsInvoked, success);
 
-        // Periodic mid-session model save
+        // Periodic mid-session model save, written off this thread
         globalTurnCounter++;
         if (globalTurnCounter % PERIODIC_SAVE_INTERVAL == 0 && modelSavePath != null) {
-            try {
-                router.save(modelSavePath);
-            } catch (Exception e) {
-                // Non-fatal — model will be saved on exit regardless
-            }
+            checkpointer.request(modelSavePath);
         }
 
         // Track if this is a successful turn after a knowledge-driven retry
@@ -551,6 +550,22 @@ public class MakerLoop {
         this.modelSavePath = path;
     }
 
+    /**
+     * Background model checkpointing (age, duration and counts via {@link ModelCheckpointer#getStats()}).
+     */
+    public ModelCheckpointer getCheckpointer() {
+        return checkpointer;
+    }
+
+    /**
+     * Write any pending checkpoint and stop the checkpoint thread. Called on shutdown.
+     *
+     * @return false if the write did not finish in time
+     */
+    public boolean flushCheckpoints() {
+        return checkpointer.flush(CHECKPOINT_FLUSH_TIMEOUT_MS);
+    }
+
     /**
      * Set the FactEngine for pre-turn injection and post-turn validation.
      */
@@ -565,6 +580,22 @@ public class MakerLoop {
         return onTurnComplete(agentUsed, toolsInvoked, success, null);
     }
 
+    /** Completion phrases: strong ones score 2, moderate ones 1 */
+    private static final SignalMatcher<Integer> COMPLETION_SIGNALS = SignalMatcher.<Integer>builder()
+            .add(2,
+                "has been verified", "has been completed", "has been confirmed",
+                "is complete", "is done", "is finished", "is ready",
+                "successfully", "task complete", "all done",
+                "here's the result", "here are the results",
+                "confirmed that", "everything is working",
+                "operation completed", "operation successful")
+            .add(1,
+                "summary", "in conclusion", "to summarize",
+                "the output shows", "as you can see",
+                "no issues found", "no errors",
+                "working correctly", "functioning properly")
+            .build();
+
     /**
      * Heuristic completion detection from response text.
      * Looks for language indicating the task is done.
@@ -572,36 +603,9 @@ public class MakerLoop {
      */
     private double detectCompletionFromResponse(String response) {
         if (response == null || response.isEmpty()) return 0.0;
-        
-        String lower = response.toLowerCase();
-        int signals = 0;
-        
-        // Strong completion signals
-        String[] strongSignals = {
-            "has been verified", "has been completed", "has been confirmed",
-            "is complete", "is done", "is finished", "is ready",
-            "successfully", "task complete", "all done",
-            "here's the result", "here are the results",
-            "confirmed that", "everything is working",
-            "operation completed", "operation successful"
-        };
-        
-        for (String signal : strongSignals) {
-            if (lower.contains(signal)) signals += 2;
-        }
-        
-        // Moderate completion signals
-        String[] moderateSignals = {
-            "summary", "in conclusion", "to summarize",
-            "the output shows", "as you can see",
-            "no issues found", "no errors",
-            "working correctly", "functioning properly"
-        };
-        
-        for (String signal : moderateSignals) {
-            if (lower.contains(signal)) signals += 1;
-        }
-        
+
+        int signals = COMPLETION_SIGNALS.score(response, Integer::intValue);
+
         // Cap at 1.0, threshold at 3 signal points for high confidence
         return Math.min(1.0, signals / 3.0);
     }
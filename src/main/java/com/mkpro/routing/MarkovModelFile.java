@@ -0,0 +1,677 @@
+package com.mkpro.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Version 5 of the MarkovRouter model file: sectioned binary frames that are
+ * streamed to disk and can be appended to instead of rewritten.
+ *
+ * Layout: "MKPRO_MARKOV", int version, then one or more frames. A frame is
+ * <pre>
+ *   int FRAME_MAGIC, byte kind (FULL / DELTA), byte sectionCount,
+ *   sectionCount × (byte id, int length, int crc32),   -- table of contents
+ *   int crc32 of the above,
+ *   section bodies in TOC order
+ * </pre>
+ * Each section is self-contained: its string tables come first, then varint ids
+ * and counts indexing them. The first frame is FULL; a DELTA frame holds only the
+ * rows and pattern categories that changed since the previous save, each replacing
+ * what earlier frames had for it.
+ *
+ * A frame whose TOC or any section fails its CRC ends the file — a torn append
+ * from a crash. Everything before it is still loaded and the next save rewrites
+ * the file. Saves also rewrite (tmp + .bak + atomic rename) when the file is not
+ * exactly what this instance last wrote or loaded, or when the deltas have grown
+ * past the last full frame.
+ *
+ * Layer 1 sections (routing counts and patterns) are applied while loading; the
+ * Layer 2 tool sections are only checked then, and parsed by {@link Loaded#layer2()}.
+ *
+ * Not thread-safe; MarkovRouter serializes saves.
+ */
+final class MarkovModelFile {
+
+    static final byte[] MAGIC = "MKPRO_MARKOV".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 5;
+    static final int HEADER_BYTES = MAGIC.length + 4;
+
+    private static final int FRAME_MAGIC = 0x4D4B4652; // "MKFR"
+    private static final byte FULL = 1;
+    private static final byte DELTA = 2;
+    private static final int TOC_ENTRY_BYTES = 1 + 4 + 4;
+
+    // Section ids
+    private static final byte META = 1;
+    private static final byte TRANSITIONS = 2;
+    private static final byte CATEGORY_AGENT = 3;
+    private static final byte LEARNED_PATTERNS = 4;
+    private static final byte STALL_PATTERNS = 5;
+    private static final byte TOOL_TRANSITIONS = 6;
+    private static final byte TOOL_FREQUENCY = 7;
+
+    /** The router state the file holds. */
+    record Model(CountMatrix transitions,
+                 CountMatrix categoryToAgent,
+                 Map<String, Set<String>> learnedPatterns,
+                 Map<String, List<List<String>>> stallPatterns,
+                 CountMatrix toolTransitions,
+                 CountMatrix toolFrequency) {
+    }
+
+    /**
+     * Result of {@link #load}.
+     *
+     * @param totalObservations last stored observation count, or -1 if none
+     * @param layer2            parses the tool sections into the model, or null if there are none
+     * @param file              state for appending to this file, or null if it has to be rewritten
+     */
+    record Loaded(int totalObservations, Runnable layer2, MarkovModelFile file) {
+    }
+
+    private final Path path;
+    private long length;         // file size after our last write
+    private FileTime modified;
+    private long tocCrcOffset;   // where the first frame's TOC CRC is, to recognize the file
+    private int tocCrc;
+    private long fullBytes;      // header + first frame
+    private long deltaBytes;     // frames appended since
+    private int savedTotal = -1;
+    private final Map<String, Set<String>> savedLearned = new HashMap<>();
+    private final Map<String, List<List<String>>> savedStalls = new HashMap<>();
+
+    private MarkovModelFile(Path path) {
+        this.path = path.toAbsolutePath().normalize();
+    }
+
+    // ========================================================================
+    // Save
+    // ========================================================================
+
+    /**
+     * Writes the model to {@code path}: a delta frame appended to the file if
+     * {@code previous} describes it as it is on disk, otherwise a full rewrite.
+     *
+     * @return the state to pass as {@code previous} next time
+     */
+    static MarkovModelFile save(Path path, Model model, int totalObservations, MarkovModelFile previous) throws IOException {
+        if (previous != null && previous.canAppend(path, model)) {
+            try {
+                previous.append(model, totalObservations);
+                return previous;
+            } catch (IOException e) {
+                System.err.println("[MarkovModelFile] Append to " + path.getFileName() + " failed, rewriting: " + e.getMessage());
+            }
+        }
+        return rewrite(path, model, totalObservations);
+    }
+
+    private boolean canAppend(Path target, Model model) {
+        if (!path.equals(target.toAbsolutePath().normalize())) return false;
+        if (deltaBytes > fullBytes) return false; // time to compact
+        // Removing a whole pattern category can't be expressed as a delta
+        if (!model.learnedPatterns().keySet().containsAll(savedLearned.keySet())
+                || !model.stallPatterns().keySet().containsAll(savedStalls.keySet())) {
+            return false;
+        }
+        try {
+            if (Files.size(target) != length || !Files.getLastModifiedTime(target).equals(modified)) return false;
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+                ByteBuffer crc = ByteBuffer.allocate(4);
+                readFully(channel, crc, tocCrcOffset);
+                return crc.getInt(0) == tocCrc;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void append(Model model, int totalObservations) throws IOException {
+        List<Runnable> onSaved = new ArrayList<>();
+        List<Section> sections = deltaSections(model, totalObservations, onSaved);
+        if (sections.isEmpty()) return; // nothing changed since the last save
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long end;
+            try {
+                end = writeFrame(channel, length, DELTA, sections);
+            } catch (IOException e) {
+                channel.truncate(length);
+                throw e;
+            }
+            deltaBytes += end - length;
+            length = end;
+        }
+        modified = Files.getLastModifiedTime(path);
+        onSaved.forEach(Runnable::run);
+    }
+
+    private static MarkovModelFile rewrite(Path target, Model model, int totalObservations) throws IOException {
+        MarkovModelFile file = new MarkovModelFile(target);
+        Path tmpPath = target.resolveSibling(target.getFileName() + ".tmp");
+        List<Runnable> onSaved = new ArrayList<>();
+        List<Section> sections = file.fullSections(model, totalObservations, onSaved);
+
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.put(MAGIC).putInt(VERSION).flip();
+            writeFully(channel, header, 0);
+            file.fullBytes = writeFrame(channel, HEADER_BYTES, FULL, sections);
+            file.tocCrcOffset = HEADER_BYTES + tocBytes(sections.size()) - 4;
+            ByteBuffer crc = ByteBuffer.allocate(4);
+            readFully(channel, crc, file.tocCrcOffset);
+            file.tocCrc = crc.getInt(0);
+        }
+
+        // Backup existing model before overwriting
+        if (Files.exists(target)) {
+            Path backupPath = target.resolveSibling(target.getFileName() + ".bak");
+            try { Files.copy(target, backupPath, StandardCopyOption.REPLACE_EXISTING); } catch (Exception e) { /* best-effort */ }
+        }
+        Files.move(tmpPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        file.length = file.fullBytes;
+        file.modified = Files.getLastModifiedTime(target);
+        onSaved.forEach(Runnable::run);
+        return file;
+    }
+
+    private List<Section> fullSections(Model model, int totalObservations, List<Runnable> onSaved) {
+        List<Section> sections = new ArrayList<>();
+        sections.add(meta(totalObservations, onSaved));
+        sections.add(matrix(TRANSITIONS, model.transitions(), false, onSaved));
+        sections.add(matrix(CATEGORY_AGENT, model.categoryToAgent(), false, onSaved));
+        sections.add(learned(model.learnedPatterns(), false, onSaved));
+        sections.add(stalls(model.stallPatterns(), false, onSaved));
+        sections.add(matrix(TOOL_TRANSITIONS, model.toolTransitions(), false, onSaved));
+        sections.add(matrix(TOOL_FREQUENCY, model.toolFrequency(), false, onSaved));
+        return sections;
+    }
+
+    /** Only sections with changes; empty if nothing changed at all. */
+    private List<Section> deltaSections(Model model, int totalObservations, List<Runnable> onSaved) {
+        List<Section> sections = new ArrayList<>();
+        for (Section section : List.of(
+                matrix(TRANSITIONS, model.transitions(), true, onSaved),
+                matrix(CATEGORY_AGENT, model.categoryToAgent(), true, onSaved),
+                learned(model.learnedPatterns(), true, onSaved),
+                stalls(model.stallPatterns(), true, onSaved),
+                matrix(TOOL_TRANSITIONS, model.toolTransitions(), true, onSaved),
+                matrix(TOOL_FREQUENCY, model.toolFrequency(), true, onSaved))) {
+            if (!section.isEmpty()) sections.add(section);
+        }
+        if (sections.isEmpty() && totalObservations == savedTotal) return sections;
+        sections.add(0, meta(totalObservations, onSaved));
+        return sections;
+    }
+
+    /** Writes a frame at {@code start} and returns where it ends. */
+    private static long writeFrame(FileChannel channel, long start, byte kind, List<Section> sections) throws IOException {
+        int tocBytes = tocBytes(sections.size());
+        ByteBuffer toc = ByteBuffer.allocate(tocBytes);
+        toc.putInt(FRAME_MAGIC).put(kind).put((byte) sections.size());
+
+        // Bodies first, behind a placeholder TOC, so each section streams straight out
+        SectionOutput out = new SectionOutput(channel, start + tocBytes);
+        for (Section section : sections) {
+            out.begin();
+            section.write(out);
+            out.end();
+            toc.put(section.id()).putInt(out.sectionLength()).putInt(out.sectionCrc());
+        }
+        long end = out.finish();
+
+        CRC32 crc = new CRC32();
+        crc.update(toc.array(), 0, toc.position());
+        toc.putInt((int) crc.getValue()).flip();
+        writeFully(channel, toc, start);
+        return end;
+    }
+
+    private static int tocBytes(int sectionCount) {
+        return 4 + 1 + 1 + sectionCount * TOC_ENTRY_BYTES + 4;
+    }
+
+    // --- Sections ---
+
+    /** A section prepared for writing; its content is snapshotted when it is created. */
+    private interface Section {
+        byte id();
+
+        boolean isEmpty();
+
+        void write(SectionOutput out) throws IOException;
+    }
+
+    private Section meta(int totalObservations, List<Runnable> onSaved) {
+        onSaved.add(() -> savedTotal = totalObservations);
+        return new Section() {
+            public byte id() { return META; }
+            public boolean isEmpty() { return false; }
+            public void write(SectionOutput out) throws IOException {
+                out.writeVarint(totalObservations);
+            }
+        };
+    }
+
+    /**
+     * Rows of a count matrix: outer names, inner names (if the matrix has an inner
+     * key), column names, then per row: outer, inner, pair count, (column, count)...
+     */
+    private static Section matrix(byte id, CountMatrix matrix, boolean dirtyOnly, List<Runnable> onSaved) {
+        List<int[]> rows = new ArrayList<>();
+        int[] max = {-1, -1, -1};
+        matrix.forEachRow((outer, inner, row) -> {
+            if (dirtyOnly && !row.isDirty()) return;
+            int version = row.version(); // read first: a racing update just stays dirty
+            int[] pairs = row.pairs();
+            for (int p = 0; p < pairs.length; p += 2) max[2] = Math.max(max[2], pairs[p]);
+            int[] cells = new int[pairs.length + 2];
+            cells[0] = outer;
+            cells[1] = inner;
+            System.arraycopy(pairs, 0, cells, 2, pairs.length);
+            rows.add(cells);
+            max[0] = Math.max(max[0], outer);
+            max[1] = Math.max(max[1], inner);
+            onSaved.add(() -> row.markSaved(version));
+        });
+        boolean hasInner = matrix.inners() != null;
+        return new Section() {
+            public byte id() { return id; }
+            public boolean isEmpty() { return rows.isEmpty(); }
+            public void write(SectionOutput out) throws IOException {
+                writeNames(out, matrix.outers(), max[0]);
+                if (hasInner) writeNames(out, matrix.inners(), max[1]);
+                writeNames(out, matrix.columns(), max[2]);
+                out.writeVarint(rows.size());
+                for (int[] row : rows) {
+                    out.writeVarint(row[0]);
+                    if (hasInner) out.writeVarint(row[1]);
+                    out.writeVarint((row.length - 2) / 2);
+                    for (int c = 2; c < row.length; c++) out.writeVarint(row[c]);
+                }
+            }
+        };
+    }
+
+    private static void writeNames(SectionOutput out, SymbolTable symbols, int maxId) throws IOException {
+        out.writeVarint(maxId + 1);
+        for (int id = 0; id <= maxId; id++) out.writeString(symbols.name(id));
+    }
+
+    /** category → tokens, as a string table plus index lists. */
+    private Section learned(Map<String, Set<String>> patterns, boolean changedOnly, List<Runnable> onSaved) {
+        Map<String, Set<String>> changed = new LinkedHashMap<>();
+        for (var e : patterns.entrySet()) {
+            Set<String> tokens = new HashSet<>(e.getValue());
+            if (changedOnly && tokens.equals(savedLearned.get(e.getKey()))) continue;
+            changed.put(e.getKey(), tokens);
+        }
+        onSaved.add(() -> savedLearned.putAll(changed));
+        return new Section() {
+            public byte id() { return LEARNED_PATTERNS; }
+            public boolean isEmpty() { return changed.isEmpty(); }
+            public void write(SectionOutput out) throws IOException {
+                StringTable strings = new StringTable();
+                changed.forEach((category, tokens) -> {
+                    strings.add(category);
+                    tokens.forEach(strings::add);
+                });
+                strings.write(out);
+                out.writeVarint(changed.size());
+                for (var e : changed.entrySet()) {
+                    out.writeVarint(strings.index(e.getKey()));
+                    out.writeVarint(e.getValue().size());
+                    for (String token : e.getValue()) out.writeVarint(strings.index(token));
+                }
+            }
+        };
+    }
+
+    /** category → agent sequences, as a string table plus index lists. */
+    private Section stalls(Map<String, List<List<String>>> patterns, boolean changedOnly, List<Runnable> onSaved) {
+        Map<String, List<List<String>>> changed = new LinkedHashMap<>();
+        for (var e : patterns.entrySet()) {
+            List<List<String>> sequences = new ArrayList<>();
+            for (List<String> sequence : new ArrayList<>(e.getValue())) sequences.add(List.copyOf(sequence));
+            if (changedOnly && sequences.equals(savedStalls.get(e.getKey()))) continue;
+            changed.put(e.getKey(), sequences);
+        }
+        onSaved.add(() -> savedStalls.putAll(changed));
+        return new Section() {
+            public byte id() { return STALL_PATTERNS; }
+            public boolean isEmpty() { return changed.isEmpty(); }
+            public void write(SectionOutput out) throws IOException {
+                StringTable strings = new StringTable();
+                changed.forEach((category, sequences) -> {
+                    strings.add(category);
+                    sequences.forEach(sequence -> sequence.forEach(strings::add));
+                });
+                strings.write(out);
+                out.writeVarint(changed.size());
+                for (var e : changed.entrySet()) {
+                    out.writeVarint(strings.index(e.getKey()));
+                    out.writeVarint(e.getValue().size());
+                    for (List<String> sequence : e.getValue()) {
+                        out.writeVarint(sequence.size());
+                        for (String agent : sequence) out.writeVarint(strings.index(agent));
+                    }
+                }
+            }
+        };
+    }
+
+    /** Section-local string table, in first-use order. */
+    private static final class StringTable {
+        private final Map<String, Integer> index = new LinkedHashMap<>();
+
+        void add(String s) {
+            index.putIfAbsent(s, index.size());
+        }
+
+        int index(String s) {
+            return index.get(s);
+        }
+
+        void write(SectionOutput out) throws IOException {
+            out.writeVarint(index.size());
+            for (String s : index.keySet()) out.writeString(s);
+        }
+    }
+
+    /**
+     * Buffered positional writer that tracks the length and CRC of the current section.
+     */
+    private static final class SectionOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private final CRC32 crc = new CRC32();
+        private long position;     // channel position of buffer[0]
+        private int crcFrom;       // buffer bytes before this are already in the CRC
+        private long sectionStart;
+        private int sectionLength;
+        private int sectionCrc;
+
+        SectionOutput(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void begin() {
+            crc.reset();
+            crcFrom = buffer.position();
+            sectionStart = position + buffer.position();
+        }
+
+        void end() {
+            crc.update(buffer.array(), crcFrom, buffer.position() - crcFrom);
+            crcFrom = buffer.position();
+            sectionLength = (int) (position + buffer.position() - sectionStart);
+            sectionCrc = (int) crc.getValue();
+        }
+
+        int sectionLength() {
+            return sectionLength;
+        }
+
+        int sectionCrc() {
+            return sectionCrc;
+        }
+
+        void writeVarint(int value) throws IOException {
+            if (buffer.remaining() < 5) flush();
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), crcFrom, buffer.position() - crcFrom);
+            buffer.flip();
+            int n = buffer.remaining();
+            writeFully(channel, buffer, position);
+            position += n;
+            buffer.clear();
+            crcFrom = 0;
+        }
+
+        /** Flushes and returns the end position. */
+        long finish() throws IOException {
+            flush();
+            return position;
+        }
+    }
+
+    // ========================================================================
+    // Load
+    // ========================================================================
+
+    /** Whether the bytes start with the magic and a sectioned (v5+) version. */
+    static boolean isSectioned(ByteBuffer data) {
+        if (data.limit() < HEADER_BYTES) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data.get(i) != MAGIC[i]) return false;
+        }
+        return data.getInt(MAGIC.length) >= VERSION;
+    }
+
+    /**
+     * Applies the frames in {@code data} (a whole file) to the model. Layer 1 is
+     * applied before returning; Layer 2 is left to {@link Loaded#layer2()}.
+     *
+     * @return null if not even the first frame is intact
+     */
+    static Loaded load(Path path, ByteBuffer data, FileTime modified, Model model) {
+        List<Frame> frames = new ArrayList<>();
+        long pos = HEADER_BYTES;
+        while (pos < data.limit()) {
+            Frame frame = Frame.read(data, (int) pos);
+            if (frame == null || (frames.isEmpty() && frame.kind() != FULL)) break;
+            frames.add(frame);
+            pos = frame.end();
+        }
+        if (frames.isEmpty()) return null;
+        boolean intact = pos == data.limit();
+        if (!intact) {
+            System.err.println("[MarkovModelFile] Ignoring " + (data.limit() - pos)
+                    + " trailing bytes of " + path.getFileName() + " (incomplete save)");
+        }
+
+        MarkovModelFile file = new MarkovModelFile(path);
+        int total = -1;
+        List<Runnable> layer2 = new ArrayList<>();
+        for (Frame frame : frames) {
+            boolean full = frame.kind() == FULL;
+            for (int s = 0; s < frame.ids().length; s++) {
+                ByteBuffer in = frame.section(data, s);
+                switch (frame.ids()[s]) {
+                    case META -> total = readVarint(in);
+                    case TRANSITIONS -> readMatrix(in, model.transitions(), full, false);
+                    case CATEGORY_AGENT -> readMatrix(in, model.categoryToAgent(), full, false);
+                    case LEARNED_PATTERNS -> file.readLearned(in, model.learnedPatterns());
+                    case STALL_PATTERNS -> file.readStalls(in, model.stallPatterns());
+                    case TOOL_TRANSITIONS -> layer2.add(() -> readMatrix(in, model.toolTransitions(), false, full));
+                    case TOOL_FREQUENCY -> layer2.add(() -> readMatrix(in, model.toolFrequency(), false, full));
+                    default -> { /* section from a newer version */ }
+                }
+            }
+        }
+
+        Frame first = frames.get(0);
+        file.length = pos;
+        file.modified = modified;
+        file.fullBytes = first.end();
+        file.deltaBytes = pos - first.end();
+        file.tocCrcOffset = first.start() + tocBytes(first.ids().length) - 4;
+        file.tocCrc = data.getInt((int) file.tocCrcOffset);
+        file.savedTotal = total;
+
+        Runnable parseLayer2 = layer2.isEmpty() ? null : () -> layer2.forEach(Runnable::run);
+        return new Loaded(total, parseLayer2, intact ? file : null);
+    }
+
+    /** A frame whose TOC and sections all passed their CRCs. */
+    private record Frame(int start, byte kind, byte[] ids, int[] offsets, int[] lengths, int end) {
+
+        static Frame read(ByteBuffer data, int start) {
+            if (data.limit() - start < tocBytes(0) || data.getInt(start) != FRAME_MAGIC) return null;
+            byte kind = data.get(start + 4);
+            int count = data.get(start + 5) & 0xFF;
+            int tocBytes = tocBytes(count);
+            if ((kind != FULL && kind != DELTA) || data.limit() - start < tocBytes) return null;
+            if (data.getInt(start + tocBytes - 4) != crc(data, start, tocBytes - 4)) return null;
+
+            byte[] ids = new byte[count];
+            int[] offsets = new int[count];
+            int[] lengths = new int[count];
+            long offset = start + tocBytes;
+            for (int s = 0; s < count; s++) {
+                int entry = start + 6 + s * TOC_ENTRY_BYTES;
+                ids[s] = data.get(entry);
+                lengths[s] = data.getInt(entry + 1);
+                if (lengths[s] < 0 || offset + lengths[s] > data.limit()) return null;
+                if (data.getInt(entry + 5) != crc(data, (int) offset, lengths[s])) return null;
+                offsets[s] = (int) offset;
+                offset += lengths[s];
+            }
+            return new Frame(start, kind, ids, offsets, lengths, (int) offset);
+        }
+
+        ByteBuffer section(ByteBuffer data, int s) {
+            return data.slice(offsets[s], lengths[s]);
+        }
+    }
+
+    private static int crc(ByteBuffer data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Replaces the stored rows. In a full frame, Layer 1 categories replace what was
+     * there (as v4 loads did) and Layer 2 matrices are replaced whole.
+     */
+    private static void readMatrix(ByteBuffer in, CountMatrix matrix, boolean replaceOuter, boolean replaceAll) {
+        if (replaceAll) matrix.clear();
+        String[] outers = readNames(in);
+        String[] inners = matrix.inners() != null ? readNames(in) : null;
+        String[] columnNames = readNames(in);
+        int[] columns = new int[columnNames.length];
+        for (int c = 0; c < columns.length; c++) columns[c] = matrix.columns().intern(columnNames[c]);
+
+        Set<String> cleared = new HashSet<>();
+        int rows = readVarint(in);
+        for (int r = 0; r < rows; r++) {
+            String outer = outers[readVarint(in)];
+            String inner = inners != null ? inners[readVarint(in)] : null;
+            if (replaceOuter && cleared.add(outer)) matrix.clearOuter(outer);
+            CountMatrix.Row row = matrix.rowAt(outer, inner);
+            row.clear();
+            int pairs = readVarint(in);
+            for (int p = 0; p < pairs; p++) {
+                int column = columns[readVarint(in)];
+                row.add(column, readVarint(in));
+            }
+            row.markSaved(row.version());
+        }
+    }
+
+    private void readLearned(ByteBuffer in, Map<String, Set<String>> patterns) {
+        String[] strings = readNames(in);
+        int categories = readVarint(in);
+        for (int c = 0; c < categories; c++) {
+            String category = strings[readVarint(in)];
+            int n = readVarint(in);
+            Set<String> tokens = new HashSet<>(n * 2);
+            for (int t = 0; t < n; t++) tokens.add(strings[readVarint(in)]);
+            patterns.put(category, tokens);
+            savedLearned.put(category, new HashSet<>(tokens));
+        }
+    }
+
+    private void readStalls(ByteBuffer in, Map<String, List<List<String>>> patterns) {
+        String[] strings = readNames(in);
+        int categories = readVarint(in);
+        for (int c = 0; c < categories; c++) {
+            String category = strings[readVarint(in)];
+            int n = readVarint(in);
+            List<List<String>> sequences = new ArrayList<>(n);
+            for (int s = 0; s < n; s++) {
+                int length = readVarint(in);
+                List<String> sequence = new ArrayList<>(length);
+                for (int a = 0; a < length; a++) sequence.add(strings[readVarint(in)]);
+                sequences.add(sequence);
+            }
+            patterns.put(category, Collections.synchronizedList(new ArrayList<>(sequences)));
+            savedStalls.put(category, sequences);
+        }
+    }
+
+    private static String[] readNames(ByteBuffer in) {
+        String[] names = new String[readVarint(in)];
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[readVarint(in)];
+            in.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    // --- Channel helpers ---
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("Unexpected end of file");
+            position += n;
+        }
+    }
+}
@@ -15,22 +15,31 @@ import java.util.concurrent.ConcurrentHashMap;
  * and delegate directly — saving tokens and latency.
  *
  * Matrix is persisted to disk and improves with each training update.
+ *
+ * Counts are kept in {@link CountMatrix} rows indexed by interned category and
+ * agent ids. Each row tracks its total and its most frequent agent as it is
+ * updated, so a routing decision is a couple of array lookups.
  */
 public class MarkovRouter {
 
     private static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.65;
 
+    private final SymbolTable categories = new SymbolTable();
+    private final SymbolTable agents = new SymbolTable();
+
     // transition[category][lastAgent] = {agent -> count}
-    private final Map<String, Map<String, Map<String, Integer>>> transitions = new ConcurrentHashMap<>();
+    private final CountMatrix transitions = new CountMatrix(categories, agents, agents);
     
     // category -> {agent -> count} (ignoring history, just category → agent mapping)
-    private final Map<String, Map<String, Integer>> categoryToAgent = new ConcurrentHashMap<>();
+    private final CountMatrix categoryToAgent = new CountMatrix(categories, null, agents);
 
     // Learned patterns from training data (category → set of distinctive tokens/bigrams)
     private Map<String, java.util.Set<String>> learnedPatterns = new ConcurrentHashMap<>();
     
     // Stall patterns: sequences that historically led to escalation (category → list of agent sequences)
     private final Map<String, java.util.List<java.util.List<String>>> stallPatterns = new ConcurrentHashMap<>();
+    private final Map<String, StallPatternIndex> stallIndexes = new ConcurrentHashMap<>();
+    private static final int MAX_STALL_PATTERNS = 50;
     private final Map<String, Integer> knowledgeStats = new ConcurrentHashMap<>();
 
     // ═══ Layer 2: Agent → Tool transition probabilities (delegated) ═══
@@ -123,17 +132,14 @@ public class MarkovRouter {
 
         // Try order-1 Markov (category + lastAgent)
         if (lastAgent != null) {
-            Map<String, Map<String, Integer>> categoryTransitions = transitions.get(catKey);
-            if (categoryTransitions != null) {
-                Map<String, Integer> agentCounts = categoryTransitions.get(lastAgent);
-                if (agentCounts != null && !agentCounts.isEmpty()) {
-                    return pickBest(agentCounts);
-                }
+            CountMatrix.Row agentCounts = transitions.row(catKey, lastAgent);
+            if (agentCounts != null && !agentCounts.isEmpty()) {
+                return pickBest(agentCounts);
             }
         }
 
         // Fallback: just category → agent (order-0)
-        Map<String, Integer> catCounts = categoryToAgent.get(catKey);
+        CountMatrix.Row catCounts = categoryToAgent.row(catKey, null);
         if (catCounts != null && !catCounts.isEmpty()) {
             return pickBest(catCounts);
         }
@@ -152,16 +158,20 @@ public class MarkovRouter {
      */
     public String routeExcluding(IntentClassifier.TaskCategory category, java.util.Set<String> excludeAgents) {
         String catKey = category.name();
-        Map<String, Integer> catCounts = categoryToAgent.get(catKey);
+        CountMatrix.Row catCounts = categoryToAgent.row(catKey, null);
         if (catCounts == null || catCounts.isEmpty()) return null;
 
-        // Sort by count descending, pick first not in exclude set
-        return catCounts.entrySet().stream()
-            .filter(e -> !excludeAgents.contains(e.getKey()))
-            .filter(e -> !"Coordinator".equals(e.getKey()))
-            .max(java.util.Map.Entry.comparingByValue())
-            .map(java.util.Map.Entry::getKey)
-            .orElse(null);
+        // Highest count not in the exclude set
+        String[] best = new String[1];
+        int[] bestCount = {0};
+        catCounts.forEach((agentId, count) -> {
+            String agent = agents.name(agentId);
+            if (count > bestCount[0] && !excludeAgents.contains(agent) && !"Coordinator".equals(agent)) {
+                best[0] = agent;
+                bestCount[0] = count;
+            }
+        });
+        return best[0];
     }
 
     /**
@@ -171,15 +181,10 @@ public class MarkovRouter {
         String catKey = category.name();
 
         // Update order-1 matrix
-        transitions
-            .computeIfAbsent(catKey, k -> new ConcurrentHashMap<>())
-            .computeIfAbsent(lastAgent != null ? lastAgent : "_START_", k -> new ConcurrentHashMap<>())
-            .merge(selectedAgent, 1, Integer::sum);
+        transitions.add(catKey, lastAgent != null ? lastAgent : "_START_", selectedAgent, 1);
 
         // Update order-0 matrix
-        categoryToAgent
-            .computeIfAbsent(catKey, k -> new ConcurrentHashMap<>())
-            .merge(selectedAgent, 1, Integer::sum);
+        categoryToAgent.add(catKey, null, selectedAgent, 1);
 
         totalObservations++;
     }
@@ -219,19 +224,25 @@ public class MarkovRouter {
      */
     public void recordStall(IntentClassifier.TaskCategory category, java.util.List<String> agentSequence) {
         if (agentSequence == null || agentSequence.size() < 2) return;
-        stallPatterns
-            .computeIfAbsent(category.name(), k -> java.util.Collections.synchronizedList(new java.util.ArrayList<>()))
-            .add(new java.util.ArrayList<>(agentSequence));
-        // Keep max 50 patterns per category
-        var patterns = stallPatterns.get(category.name());
-        while (patterns.size() > 50) {
-            patterns.remove(0);
+        String catKey = category.name();
+        var patterns = stallPatterns.computeIfAbsent(catKey, k -> java.util.Collections.synchronizedList(new java.util.ArrayList<>()));
+        StallPatternIndex index = stallIndex(catKey, patterns);
+        java.util.List<String> sequence = new java.util.ArrayList<>(agentSequence);
+        synchronized (patterns) {
+            patterns.add(sequence);
+            index.add(sequence);
+            // Keep max 50 patterns per category
+            while (patterns.size() > MAX_STALL_PATTERNS) {
+                patterns.remove(0);
+                index.removeOldest();
+            }
         }
     }
 
     /**
      * Predict probability of stall based on current agent sequence.
-     * Matches against stored stall patterns using subsequence overlap.
+     * Matches the end of the sequence against the start of stored stall patterns
+     * (see {@link StallPatternIndex}), recent stalls weighing more.
      * 
      * @return P(stall) between 0.0 and 1.0
      */
@@ -239,32 +250,20 @@ public class MarkovRouter {
         if (currentSequence == null || currentSequence.size() < 2) return 0.0;
         var patterns = stallPatterns.get(category.name());
         if (patterns == null || patterns.isEmpty()) return 0.0;
-
-        int matches = 0;
-        for (var pattern : patterns) {
-            if (sequenceOverlap(currentSequence, pattern) >= 0.6) {
-                matches++;
-            }
-        }
-        return (double) matches / patterns.size();
+        return stallIndex(category.name(), patterns).predict(currentSequence);
     }
 
     /**
-     * Calculate overlap between two agent sequences (0.0 - 1.0).
-     * Measures how much of the current sequence matches a known stall pattern.
+     * The index for a category's stall list, rebuilt if the list was replaced
+     * (e.g. by a model load) since it was built.
      */
-    private double sequenceOverlap(java.util.List<String> current, java.util.List<String> pattern) {
-        if (current.isEmpty() || pattern.isEmpty()) return 0.0;
-        
-        // Check suffix match: does the end of current look like the start of a stall?
-        int matchLen = Math.min(current.size(), pattern.size());
-        int matched = 0;
-        for (int i = 0; i < matchLen; i++) {
-            if (current.get(current.size() - matchLen + i).equals(pattern.get(i))) {
-                matched++;
-            }
+    private StallPatternIndex stallIndex(String catKey, java.util.List<java.util.List<String>> patterns) {
+        StallPatternIndex index = stallIndexes.get(catKey);
+        if (index == null || !index.mirrors(patterns)) {
+            index = StallPatternIndex.of(patterns);
+            stallIndexes.put(catKey, index);
         }
-        return (double) matched / matchLen;
+        return index;
     }
 
     /**
@@ -305,7 +304,7 @@ public class MarkovRouter {
      * @param toolsUsed Ordered list of tools used in this turn
      */
     public void recordToolUsage(String agent, IntentClassifier.TaskCategory category, List<String> toolsUsed) {
-        toolModel.recordToolUsage(agent, category, toolsUsed);
+        toolModel().recordToolUsage(agent, category, toolsUsed);
     }
 
     /**
@@ -314,7 +313,7 @@ public class MarkovRouter {
      * @return ToolPrediction with tool name and confidence, or null if no data
      */
     public ToolPrediction predictNextTool(String agent, String lastTool) {
-        ToolTransitionModel.ToolPrediction result = toolModel.predictNextTool(agent, lastTool);
+        ToolTransitionModel.ToolPrediction result = toolModel().predictNextTool(agent, lastTool);
         if (result == null) return null;
         return new ToolPrediction(result.tool, result.confidence);
     }
@@ -329,7 +328,7 @@ public class MarkovRouter {
      * @return Ordered list of ToolPrediction (highest frequency first)
      */
     public List<ToolPrediction> getExpectedTools(String agent, IntentClassifier.TaskCategory category, int topK) {
-        List<ToolTransitionModel.ToolPrediction> results = toolModel.getExpectedTools(agent, category, topK);
+        List<ToolTransitionModel.ToolPrediction> results = toolModel().getExpectedTools(agent, category, topK);
         List<ToolPrediction> converted = new ArrayList<>(results.size());
         for (ToolTransitionModel.ToolPrediction tp : results) {
             converted.add(new ToolPrediction(tp.tool, tp.confidence));
@@ -342,7 +341,7 @@ public class MarkovRouter {
      * Returns true if the tool is not in the agent's typical toolset (< 5% frequency).
      */
     public boolean isAnomalousTool(String agent, IntentClassifier.TaskCategory category, String tool) {
-        return toolModel.isAnomalousTool(agent, category, tool);
+        return toolModel().isAnomalousTool(agent, category, tool);
     }
 
     /**
@@ -364,107 +363,70 @@ public class MarkovRouter {
         }
     }
 
-    private static final byte[] MAGIC = "MKPRO_MARKOV".getBytes();
-    private static final int MODEL_VERSION = 4; // v1: transitions, v2: patterns, v3: stalls, v4: Layer 2
+    // v1: transitions, v2: patterns, v3: stalls, v4: Layer 2, v5: sectioned (MarkovModelFile)
+    private static final byte[] MAGIC = MarkovModelFile.MAGIC;
+
+    // File this router last wrote or loaded, so the next save can append a delta
+    private final Object saveLock = new Object();
+    private MarkovModelFile modelFile;
+
+    // Layer 2 sections of a v5 model, parsed in the background after load
+    private volatile java.util.concurrent.FutureTask<Void> layer2Load;
 
     /**
      * Save model to disk with corruption protection.
-     * Uses atomic write (tmp + rename) and CRC32 checksum.
+     * Appends only what changed since the last save when the file is the one this
+     * router last wrote or loaded; otherwise rewrites it atomically (tmp + rename,
+     * previous file kept as .bak). See {@link MarkovModelFile}.
      */
     public void save(Path path) throws IOException {
-        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
-
-        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
-            // Layer 1: Agent transitions
-            oos.writeObject(new HashMap<>(transitions));
-            oos.writeObject(new HashMap<>(categoryToAgent));
-            oos.writeInt(totalObservations);
-
-            // v2: learned patterns
-            HashMap<String, java.util.Set<String>> serializablePatterns = new HashMap<>();
-            for (var e : learnedPatterns.entrySet()) {
-                serializablePatterns.put(e.getKey(), new java.util.HashSet<>(e.getValue()));
-            }
-            oos.writeObject(serializablePatterns);
-
-            // v3: stall patterns
-            HashMap<String, java.util.List<java.util.List<String>>> serializableStalls = new HashMap<>();
-            for (var e : stallPatterns.entrySet()) {
-                serializableStalls.put(e.getKey(), new java.util.ArrayList<>(e.getValue()));
-            }
-            oos.writeObject(serializableStalls);
-
-            // v4: Layer 2 — tool transitions and frequencies
-            HashMap<String, Map<String, Map<String, Integer>>> serializableToolTrans = new HashMap<>();
-            for (var e : toolModel.getToolTransitions().entrySet()) {
-                HashMap<String, Map<String, Integer>> inner = new HashMap<>();
-                for (var e2 : e.getValue().entrySet()) {
-                    inner.put(e2.getKey(), new HashMap<>(e2.getValue()));
-                }
-                serializableToolTrans.put(e.getKey(), inner);
-            }
-            oos.writeObject(serializableToolTrans);
-
-            HashMap<String, Map<String, Integer>> serializableToolFreq = new HashMap<>();
-            for (var e : toolModel.getAgentToolFrequency().entrySet()) {
-                serializableToolFreq.put(e.getKey(), new HashMap<>(e.getValue()));
-            }
-            oos.writeObject(serializableToolFreq);
-        }
-
-        byte[] data = baos.toByteArray();
-
-        // Compute CRC32 checksum
-        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
-        crc.update(data);
-        long checksum = crc.getValue();
-
-        // Write: MAGIC + VERSION + DATA_LENGTH + DATA + CHECKSUM
-        try (java.io.DataOutputStream dos = new java.io.DataOutputStream(Files.newOutputStream(tmpPath))) {
-            dos.write(MAGIC);
-            dos.writeInt(MODEL_VERSION);
-            dos.writeInt(data.length);
-            dos.write(data);
-            dos.writeLong(checksum);
-        }
-
-        // Backup existing model before overwriting
-        if (Files.exists(path)) {
-            Path backupPath = path.resolveSibling(path.getFileName() + ".bak");
-            try { Files.copy(path, backupPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING); } catch (Exception e) { /* best-effort */ }
+        MarkovModelFile.Model model = fileModel(); // waits for Layer 2 if it is still loading
+        synchronized (saveLock) {
+            modelFile = MarkovModelFile.save(path, model, totalObservations, modelFile);
         }
-
-        // Atomic rename: tmp → target
-        Files.move(tmpPath, path, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
     }
 
     /**
      * Load model from disk with corruption detection.
-     * Validates magic header, version, and CRC32 checksum.
+     * Validates magic header, version, and CRC32 checksums.
      * If corrupt, falls back to backup or starts fresh.
+     *
+     * For v5 files, routing (Layer 1) is usable when this returns; the tool model
+     * (Layer 2) is parsed on a background thread, and anything that needs it waits.
      */
-    @SuppressWarnings("unchecked")
     public void load(Path path) throws IOException, ClassNotFoundException {
         if (!Files.exists(path)) return;
+        load(path, true);
+    }
 
-        byte[] fileBytes = Files.readAllBytes(path);
+    @SuppressWarnings("unchecked")
+    private void load(Path path, boolean useBackup) throws IOException {
+        java.nio.ByteBuffer file = readFile(path);
+        synchronized (saveLock) {
+            modelFile = null; // in-memory state no longer matches what was last saved
+        }
 
         // Validate magic header
-        if (fileBytes.length < MAGIC.length + 4 + 4 + 8) {
+        if (file.limit() < MAGIC.length + 4 + 4 + 8) {
             System.err.println("[MarkovRouter] Model file too small, attempting backup...");
-            loadBackup(path);
+            if (useBackup) loadBackup(path);
             return;
         }
 
         for (int i = 0; i < MAGIC.length; i++) {
-            if (fileBytes[i] != MAGIC[i]) {
-                // Not a v4+ model — try legacy load
+            if (file.get(i) != MAGIC[i]) {
+                // No magic — pre-v4 raw serialization
                 loadLegacy(path);
                 return;
             }
         }
 
+        if (MarkovModelFile.isSectioned(file)) {
+            loadSectioned(path, file, useBackup);
+            return;
+        }
+
+        byte[] fileBytes = file.array();
         java.io.DataInputStream dis = new java.io.DataInputStream(new java.io.ByteArrayInputStream(fileBytes));
         dis.skipBytes(MAGIC.length); // skip magic
         int version = dis.readInt();
@@ -472,30 +434,26 @@ public class MarkovRouter {
 
         if (dataLength < 0 || MAGIC.length + 4 + 4 + dataLength + 8 > fileBytes.length) {
             System.err.println("[MarkovRouter] Model file corrupt (bad data length), attempting backup...");
-            loadBackup(path);
+            if (useBackup) loadBackup(path);
             return;
         }
 
-        byte[] data = new byte[dataLength];
-        dis.readFully(data);
-        long storedChecksum = dis.readLong();
-
         // Validate checksum
         java.util.zip.CRC32 crc = new java.util.zip.CRC32();
-        crc.update(data);
+        crc.update(fileBytes, MAGIC.length + 8, dataLength);
+        dis.skipBytes(dataLength);
+        long storedChecksum = dis.readLong();
         if (crc.getValue() != storedChecksum) {
             System.err.println("[MarkovRouter] Model file checksum mismatch, attempting backup...");
-            loadBackup(path);
+            if (useBackup) loadBackup(path);
             return;
         }
 
         // Deserialize data
-        try (ObjectInputStream ois = new ObjectInputStream(new java.io.ByteArrayInputStream(data))) {
+        try (ObjectInputStream ois = new ObjectInputStream(new java.io.ByteArrayInputStream(fileBytes, MAGIC.length + 8, dataLength))) {
             // Layer 1
-            Map<String, Map<String, Map<String, Integer>>> loaded = (Map<String, Map<String, Map<String, Integer>>>) ois.readObject();
-            transitions.putAll(loaded);
-            Map<String, Map<String, Integer>> loadedCat = (Map<String, Map<String, Integer>>) ois.readObject();
-            categoryToAgent.putAll(loadedCat);
+            putTransitions((Map<String, Map<String, Map<String, Integer>>>) ois.readObject());
+            putCategoryToAgent((Map<String, Map<String, Integer>>) ois.readObject());
             totalObservations = ois.readInt();
 
             // v2: learned patterns
@@ -519,17 +477,86 @@ public class MarkovRouter {
                 try {
                     Map<String, Map<String, Map<String, Integer>>> loadedToolTrans = (Map<String, Map<String, Map<String, Integer>>>) ois.readObject();
                     if (loadedToolTrans != null) {
-                        toolModel.setToolTransitions(loadedToolTrans);
+                        toolModel().setToolTransitions(loadedToolTrans);
                     }
                     Map<String, Map<String, Integer>> loadedToolFreq = (Map<String, Map<String, Integer>>) ois.readObject();
                     if (loadedToolFreq != null) {
-                        toolModel.setAgentToolFrequency(loadedToolFreq);
+                        toolModel().setAgentToolFrequency(loadedToolFreq);
                     }
                 } catch (Exception e) { /* OK — v3 model without Layer 2 */ }
             }
+        } catch (ClassNotFoundException e) {
+            System.err.println("[MarkovRouter] Model class not found: " + e.getMessage());
         }
     }
 
+    /**
+     * v5: applies Layer 1 now and starts parsing Layer 2 in the background.
+     */
+    private void loadSectioned(Path path, java.nio.ByteBuffer file, boolean useBackup) throws IOException {
+        java.nio.file.attribute.FileTime modified = Files.getLastModifiedTime(path);
+        MarkovModelFile.Loaded loaded = MarkovModelFile.load(path, file, modified, fileModel());
+        if (loaded == null) {
+            System.err.println("[MarkovRouter] Model file corrupt (bad frame checksum), attempting backup...");
+            if (useBackup) loadBackup(path);
+            return;
+        }
+        if (loaded.totalObservations() >= 0) {
+            totalObservations = loaded.totalObservations();
+        }
+        synchronized (saveLock) {
+            modelFile = loaded.file();
+        }
+        if (loaded.layer2() != null) {
+            java.util.concurrent.FutureTask<Void> task = new java.util.concurrent.FutureTask<>(loaded.layer2(), null);
+            layer2Load = task;
+            Thread loader = new Thread(task, "markov-layer2-load");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    /**
+     * Reads the whole file with one positional read into a heap buffer.
+     */
+    private static java.nio.ByteBuffer readFile(Path path) throws IOException {
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path, java.nio.file.StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Model file too large: " + size);
+            java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) break;
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * The tool model, once any Layer 2 sections from the last load are applied.
+     * Parses them on the calling thread if the background loader hasn't started.
+     */
+    private ToolTransitionModel toolModel() {
+        java.util.concurrent.FutureTask<Void> task = layer2Load;
+        if (task != null) {
+            task.run(); // no-op if the loader thread already has it
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (java.util.concurrent.ExecutionException e) {
+                System.err.println("[MarkovRouter] Could not load tool transitions: " + e.getCause());
+            }
+            layer2Load = null;
+        }
+        return toolModel;
+    }
+
+    private MarkovModelFile.Model fileModel() {
+        ToolTransitionModel tools = toolModel();
+        return new MarkovModelFile.Model(transitions, categoryToAgent, learnedPatterns, stallPatterns,
+                tools.toolTransitionCounts(), tools.toolFrequencyCounts());
+    }
+
     /**
      * Load from backup file (.bak) if primary is corrupt.
      */
@@ -540,7 +567,7 @@ public class MarkovRouter {
             try {
                 // Copy backup to primary (will be re-saved with new format on exit)
                 Files.copy(backupPath, primaryPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                loadLegacy(primaryPath);
+                load(primaryPath, false);
             } catch (Exception e) {
                 System.err.println("[MarkovRouter] Backup also corrupt. Starting fresh.");
             }
@@ -555,10 +582,8 @@ public class MarkovRouter {
     @SuppressWarnings("unchecked")
     private void loadLegacy(Path path) throws IOException {
         try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(path))) {
-            Map<String, Map<String, Map<String, Integer>>> loaded = (Map<String, Map<String, Map<String, Integer>>>) ois.readObject();
-            transitions.putAll(loaded);
-            Map<String, Map<String, Integer>> loadedCat = (Map<String, Map<String, Integer>>) ois.readObject();
-            categoryToAgent.putAll(loadedCat);
+            putTransitions((Map<String, Map<String, Map<String, Integer>>>) ois.readObject());
+            putCategoryToAgent((Map<String, Map<String, Integer>>) ois.readObject());
             totalObservations = ois.readInt();
             try {
                 Map<String, java.util.Set<String>> loadedPatterns = (Map<String, java.util.Set<String>>) ois.readObject();
@@ -574,47 +599,63 @@ public class MarkovRouter {
     }
 
     /**
-     * Pick the best agent from a count map with confidence scoring.
+     * Merge loaded order-1 counts; a loaded category replaces what was there.
      */
-    private RoutingDecision pickBest(Map<String, Integer> agentCounts) {
-        int total = agentCounts.values().stream().mapToInt(Integer::intValue).sum();
-        String bestAgent = null;
-        int bestCount = 0;
+    private void putTransitions(Map<String, Map<String, Map<String, Integer>>> loaded) {
+        for (var byCategory : loaded.entrySet()) {
+            transitions.clearOuter(byCategory.getKey());
+            for (var byLast : byCategory.getValue().entrySet()) {
+                for (var count : byLast.getValue().entrySet()) {
+                    transitions.add(byCategory.getKey(), byLast.getKey(), count.getKey(), count.getValue());
+                }
+            }
+        }
+    }
 
-        for (Map.Entry<String, Integer> entry : agentCounts.entrySet()) {
-            if (entry.getValue() > bestCount) {
-                bestCount = entry.getValue();
-                bestAgent = entry.getKey();
+    /**
+     * Merge loaded order-0 counts; a loaded category replaces what was there.
+     */
+    private void putCategoryToAgent(Map<String, Map<String, Integer>> loaded) {
+        for (var byCategory : loaded.entrySet()) {
+            categoryToAgent.clearOuter(byCategory.getKey());
+            for (var count : byCategory.getValue().entrySet()) {
+                categoryToAgent.add(byCategory.getKey(), null, count.getKey(), count.getValue());
             }
         }
+    }
 
-        if (bestAgent == null) {
+    /**
+     * Pick the best agent from a count row with confidence scoring.
+     */
+    private RoutingDecision pickBest(CountMatrix.Row agentCounts) {
+        CountMatrix.Top top = agentCounts.top();
+        if (top == null || top.count() <= 0) {
             return new RoutingDecision("Coordinator", 0.0, false);
         }
 
-        double confidence = (double) bestCount / total;
-        return new RoutingDecision(bestAgent, confidence, confidence >= confidenceThreshold);
+        double confidence = top.probability();
+        return new RoutingDecision(agents.name(top.column()), confidence, confidence >= confidenceThreshold);
     }
 
     /**
      * Get a snapshot of the matrix for debugging/display.
      */
     public Map<String, Map<String, Integer>> getCategoryToAgentMatrix() {
-        return Collections.unmodifiableMap(categoryToAgent);
+        return Collections.unmodifiableMap(categoryToAgent.toMap());
     }
 
     /**
      * Get the full transition matrix: category → lastAgent → {nextAgent → count}
      */
     public Map<String, Map<String, Map<String, Integer>>> getTransitionMatrix() {
-        return Collections.unmodifiableMap(transitions);
+        return Collections.unmodifiableMap(transitions.toNestedMap());
     }
 
     /**
      * Get the agent→tool frequency map for display (Layer 2 stats).
      */
     public Map<String, Map<String, Integer>> getAgentToolFrequency() {
-        return toolModel.getAgentToolFrequency();
+        return toolModel().getAgentToolFrequency();
     }
 
     // ==========================================================================
@@ -622,7 +663,13 @@ public class MarkovRouter {
     // ==========================================================================
 
     // completionPatterns[category][toolSequenceHash] = {COMPLETE: n, INCOMPLETE: m}
-    private final Map<String, Map<String, Map<String, Integer>>> completionPatterns = new ConcurrentHashMap<>();
+    private final SymbolTable toolSequences = new SymbolTable();
+    private final SymbolTable outcomes = new SymbolTable();
+    private final int completeId = outcomes.intern("COMPLETE");
+    private final CountMatrix completionPatterns = new CountMatrix(categories, toolSequences, outcomes);
+    // category -> tool -> known tool sets containing it, for partial matches
+    private final Map<String, CompletionPatternIndex> completionIndexes = new ConcurrentHashMap<>();
+    private static final int MAX_COMPLETION_PATTERNS = Integer.getInteger("mkpro.markov.maxCompletionPatterns", 500);
     
     // turnsToComplete[category] = [totalTurns, completedGoals] for running average
     private final Map<String, long[]> turnsToComplete = new ConcurrentHashMap<>();
@@ -644,23 +691,17 @@ public class MarkovRouter {
         String catKey = category.name();
         String seqHash = hashToolSequence(toolSequence);
 
-        Map<String, Map<String, Integer>> catPatterns = completionPatterns.get(catKey);
-        if (catPatterns == null || catPatterns.isEmpty()) {
-            return 0.0; // No data for this category
-        }
-
-        Map<String, Integer> counts = catPatterns.get(seqHash);
-        if (counts == null) {
+        CountMatrix.Row counts = completionPatterns.row(catKey, seqHash);
+        if (counts == null || counts.isEmpty()) {
             // Try prefix matching — check if any known pattern is a superset
-            return estimateFromPartialMatch(catPatterns, toolSequence);
+            // (no patterns for the category at all gives 0.0)
+            return estimateFromPartialMatch(catKey, toolSequence);
         }
 
-        int complete = counts.getOrDefault("COMPLETE", 0);
-        int incomplete = counts.getOrDefault("INCOMPLETE", 0);
-        int total = complete + incomplete;
+        long total = counts.total();
         if (total == 0) return 0.0;
 
-        return (double) complete / total;
+        return (double) counts.count(completeId) / total;
     }
 
     /**
@@ -671,10 +712,20 @@ public class MarkovRouter {
         String catKey = category.name();
         String seqHash = hashToolSequence(toolSequence);
 
-        completionPatterns
-            .computeIfAbsent(catKey, k -> new ConcurrentHashMap<>())
-            .computeIfAbsent(seqHash, k -> new ConcurrentHashMap<>())
-            .merge(success ? "COMPLETE" : "INCOMPLETE", 1, Integer::sum);
+        CompletionPatternIndex index = completionIndexes.computeIfAbsent(catKey, k -> new CompletionPatternIndex());
+        int sequenceId = toolSequences.intern(seqHash);
+        synchronized (index) {
+            if (index.contains(sequenceId)) {
+                index.touch(sequenceId);
+            } else {
+                if (index.size() >= MAX_COMPLETION_PATTERNS) {
+                    compactCompletions(catKey, index);
+                }
+                String[] tools = "EMPTY".equals(seqHash) ? new String[0] : seqHash.split("\\|");
+                index.add(sequenceId, new java.util.LinkedHashSet<>(Arrays.asList(tools)).toArray(new String[0]));
+            }
+        }
+        completionPatterns.add(catKey, seqHash, success ? "COMPLETE" : "INCOMPLETE", 1);
 
         // Update turns average
         if (success) {
@@ -746,25 +797,53 @@ public class MarkovRouter {
         return String.join("|", sorted);
     }
 
-    private double estimateFromPartialMatch(Map<String, Map<String, Integer>> catPatterns, List<String> toolSequence) {
+    /**
+     * Make room for a new tool set in a full category: evict the sets with the
+     * fewest recorded goals, least recently recorded first among equals, down to
+     * 90% of the cap so the next new sets don't each trigger another pass. The
+     * counts of the sets that stay are left alone.
+     */
+    private void compactCompletions(String catKey, CompletionPatternIndex index) {
+        int catId = categories.intern(catKey);
+        int lowWater = Math.min(MAX_COMPLETION_PATTERNS - 1, MAX_COMPLETION_PATTERNS * 9 / 10);
+        int[] sequenceIds = index.sequenceIds();
+        long[] totals = new long[sequenceIds.length];
+        List<Integer> order = new ArrayList<>(sequenceIds.length);
+        for (int i = 0; i < sequenceIds.length; i++) {
+            CountMatrix.Row row = completionPatterns.row(catId, sequenceIds[i]);
+            totals[i] = row != null ? row.total() : 0;
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> totals[i])); // stable: oldest first among equals
+        for (int i = 0; i < sequenceIds.length - lowWater; i++) {
+            int sequenceId = sequenceIds[order.get(i)];
+            completionPatterns.removeRow(catId, sequenceId);
+            index.remove(sequenceId);
+        }
+    }
+
+    private double estimateFromPartialMatch(String catKey, List<String> toolSequence) {
         // Check if any known complete pattern is a subset of what we have
-        Set<String> currentTools = new java.util.HashSet<>(toolSequence);
+        Set<String> currentTools = new java.util.HashSet<>(toolSequence != null ? toolSequence : List.of());
+        CompletionPatternIndex index = completionIndexes.get(catKey);
+        int catId = categories.lookup(catKey);
+        if (index == null || catId < 0) return 0.0;
         double bestMatch = 0.0;
 
-        for (Map.Entry<String, Map<String, Integer>> entry : catPatterns.entrySet()) {
-            String knownHash = entry.getKey();
-            Set<String> knownTools = new java.util.HashSet<>(Arrays.asList(knownHash.split("\\|")));
-            
+        // Only tool sets sharing a tool with the current goal can score above zero
+        for (int sequenceId : index.candidates(currentTools)) {
+            CountMatrix.Row counts = completionPatterns.row(catId, sequenceId);
+            String[] knownTools = index.tools(sequenceId);
+            if (counts == null || knownTools == null) continue;
+
             // What fraction of the known completion pattern have we covered?
-            long covered = knownTools.stream().filter(currentTools::contains).count();
-            double coverage = knownTools.isEmpty() ? 0 : (double) covered / knownTools.size();
-            
-            int complete = entry.getValue().getOrDefault("COMPLETE", 0);
-            int total = complete + entry.getValue().getOrDefault("INCOMPLETE", 0);
-            double patternConfidence = total > 0 ? (double) complete / total : 0;
-
-            double score = coverage * patternConfidence;
-            bestMatch = Math.max(bestMatch, score);
+            long covered = Arrays.stream(knownTools).filter(currentTools::contains).count();
+            double coverage = knownTools.length == 0 ? 0 : (double) covered / knownTools.length;
+
+            long total = counts.total();
+            double patternConfidence = total > 0 ? (double) counts.count(completeId) / total : 0;
+
+            bestMatch = Math.max(bestMatch, coverage * patternConfidence);
         }
 
         return bestMatch;
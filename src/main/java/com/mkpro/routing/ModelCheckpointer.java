@@ -0,0 +1,164 @@
+package com.mkpro.routing;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes MarkovRouter checkpoints on a background thread so model saves never
+ * land on a user's turn.
+ *
+ * {@link #request(Path)} only schedules a write {@code mkpro.markov.checkpointDebounceMs}
+ * (default 2000) ms out; requests arriving before it runs are coalesced into it.
+ * The write itself reads each count row under that row's lock and appends only
+ * what changed since the previous save (see {@link MarkovModelFile}), so learning
+ * continues while it runs. {@link #flush(long)} writes anything still pending and
+ * stops the thread; ShutdownHandler calls it through {@link MakerLoop#flushCheckpoints()}.
+ */
+public final class ModelCheckpointer {
+
+    private static final long DEBOUNCE_MS = Long.getLong("mkpro.markov.checkpointDebounceMs", 2000);
+
+    private final MarkovRouter router;
+    private final long debounceMs;
+    private final Object lock = new Object();
+    private ScheduledExecutorService executor; // created on first request, guarded by lock
+    private ScheduledFuture<?> scheduled;      // guarded by lock
+    private Path pendingPath;                  // guarded by lock
+    private boolean closed;                    // guarded by lock
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastCheckpointAt;     // epoch ms, 0 if none yet
+    private volatile long lastDurationMs = -1;
+
+    public ModelCheckpointer(MarkovRouter router) {
+        this(router, DEBOUNCE_MS);
+    }
+
+    ModelCheckpointer(MarkovRouter router, long debounceMs) {
+        this.router = router;
+        this.debounceMs = Math.max(0, debounceMs);
+    }
+
+    /**
+     * Asks for the model to be saved to {@code path} soon. Returns immediately.
+     */
+    public void request(Path path) {
+        if (path == null) return;
+        requested.incrementAndGet();
+        synchronized (lock) {
+            if (closed) return;
+            pendingPath = path;
+            if (scheduled != null) {
+                coalesced.incrementAndGet();
+                return;
+            }
+            scheduled = executor().schedule(this::checkpoint, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ScheduledExecutorService executor() {
+        if (executor == null) {
+            ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "markov-checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+            pool.setRemoveOnCancelPolicy(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /** Runs on the checkpoint thread; requests made while it writes schedule the next one. */
+    private void checkpoint() {
+        Path path;
+        synchronized (lock) {
+            scheduled = null;
+            path = pendingPath;
+            pendingPath = null;
+        }
+        if (path != null) write(path);
+    }
+
+    private void write(Path path) {
+        long start = System.nanoTime();
+        try {
+            router.save(path);
+            lastDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastCheckpointAt = System.currentTimeMillis();
+            written.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.err.println("[ModelCheckpointer] Checkpoint to " + path.getFileName() + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes any pending checkpoint now, waits for it (and any write in progress),
+     * and stops the background thread. Later requests are ignored.
+     *
+     * @return false if the writes did not finish within the timeout
+     */
+    public boolean flush(long timeoutMs) {
+        ScheduledExecutorService pool;
+        Future<?> last = null;
+        synchronized (lock) {
+            closed = true;
+            pool = executor;
+            if (pool == null) return true; // nothing was ever requested
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+            if (pendingPath != null) {
+                last = pool.submit(this::checkpoint);
+            }
+            pool.shutdown();
+        }
+        try {
+            if (last != null) last.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return pool.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Milliseconds since the last successful checkpoint, or -1 if there was none. */
+    public long getLastCheckpointAgeMs() {
+        long at = lastCheckpointAt;
+        return at == 0 ? -1 : System.currentTimeMillis() - at;
+    }
+
+    /** How long the last successful checkpoint took, or -1 if there was none. */
+    public long getLastCheckpointDurationMs() {
+        return lastDurationMs;
+    }
+
+    /**
+     * Checkpoint counters since startup: requests, requests coalesced into an
+     * already scheduled write, writes done and writes failed, plus last age and duration.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("requested", requested.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("written", written.get());
+        stats.put("failed", failed.get());
+        stats.put("lastAgeMs", getLastCheckpointAgeMs());
+        stats.put("lastDurationMs", getLastCheckpointDurationMs());
+        return stats;
+    }
+}
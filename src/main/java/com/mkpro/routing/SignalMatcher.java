@@ -0,0 +1,218 @@
+package com.mkpro.routing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Precompiled multi-phrase matcher (Aho-Corasick) for the text signals the
+ * routing and knowledge components look for in agent responses.
+ *
+ * All phrases are compiled once into a DFA over case-folded chars, so a text is
+ * scanned in a single pass regardless of how many phrases there are, without
+ * lowercasing or copying it first. Matching is substring matching, the same as
+ * {@code text.toLowerCase().contains(phrase)}.
+ *
+ * A {@link Scanner} carries the DFA state between calls, so streamed chunks can
+ * be fed as they arrive and phrases split across chunk boundaries are still found.
+ *
+ * Immutable and thread-safe; scanners are not.
+ *
+ * @param <C> category attached to each phrase
+ */
+public final class SignalMatcher<C> {
+
+    /** A phrase occurrence; {@code end} is the exclusive end offset in the scanned stream. */
+    public record Hit<C>(C category, String phrase, int phraseIndex, long end) {
+        public long start() {
+            return end - phrase.length();
+        }
+    }
+
+    private final List<String> phrases;
+    private final List<C> categories;
+    private final byte[] charClass;   // folded char -> alphabet class, 0 = not in any phrase
+    private final int alphabetSize;
+    private final int[] transitions;  // state * alphabetSize + class -> next state
+    private final int[][] outputs;    // state -> phrase indices ending here (incl. suffix matches)
+
+    private SignalMatcher(List<String> phrases, List<C> categories) {
+        this.phrases = List.copyOf(phrases);
+        this.categories = List.copyOf(categories);
+
+        // Alphabet: the distinct folded chars used by the phrases
+        charClass = new byte[Character.MAX_VALUE + 1];
+        int classes = 1;
+        for (String phrase : phrases) {
+            for (int i = 0; i < phrase.length(); i++) {
+                char c = phrase.charAt(i);
+                if (charClass[c] == 0) {
+                    if (classes == 255) throw new IllegalArgumentException("Too many distinct characters in phrases");
+                    charClass[c] = (byte) classes++;
+                }
+            }
+        }
+        alphabetSize = classes;
+
+        // Trie
+        List<int[]> gotoRows = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        gotoRows.add(newRow());
+        out.add(new ArrayList<>());
+        for (int p = 0; p < phrases.size(); p++) {
+            String phrase = phrases.get(p);
+            int state = 0;
+            for (int i = 0; i < phrase.length(); i++) {
+                int cls = charClass[phrase.charAt(i)] & 0xff;
+                if (gotoRows.get(state)[cls] < 0) {
+                    gotoRows.get(state)[cls] = gotoRows.size();
+                    gotoRows.add(newRow());
+                    out.add(new ArrayList<>());
+                }
+                state = gotoRows.get(state)[cls];
+            }
+            out.get(state).add(p);
+        }
+
+        // Failure links breadth-first, folded straight into a full DFA
+        int states = gotoRows.size();
+        transitions = new int[states * alphabetSize];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < alphabetSize; cls++) {
+            int next = gotoRows.get(0)[cls];
+            transitions[cls] = Math.max(next, 0);
+            if (next > 0) queue.add(next);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            out.get(state).addAll(out.get(fail[state]));
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int next = gotoRows.get(state)[cls];
+                if (next > 0) {
+                    fail[next] = transitions[fail[state] * alphabetSize + cls];
+                    transitions[state * alphabetSize + cls] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * alphabetSize + cls] = transitions[fail[state] * alphabetSize + cls];
+                }
+            }
+        }
+        outputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    public static <C> Builder<C> builder() {
+        return new Builder<>();
+    }
+
+    public static final class Builder<C> {
+        private final Map<String, Integer> seen = new HashMap<>();
+        private final List<String> phrases = new ArrayList<>();
+        private final List<C> categories = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /** Adds phrases under a category. Phrases are case-folded; duplicates keep their first category. */
+        public Builder<C> add(C category, String... phrases) {
+            for (String phrase : phrases) {
+                String folded = fold(phrase);
+                if (folded.isEmpty() || seen.containsKey(folded)) continue;
+                seen.put(folded, this.phrases.size());
+                this.phrases.add(folded);
+                this.categories.add(category);
+            }
+            return this;
+        }
+
+        public SignalMatcher<C> build() {
+            return new SignalMatcher<>(phrases, categories);
+        }
+    }
+
+    /** Incremental scanner over a stream of chunks. */
+    public final class Scanner {
+        private int state;
+        private long position;
+
+        /** Scans the next chunk, reporting every phrase that ends inside it. */
+        public void feed(CharSequence chunk, Consumer<Hit<C>> sink) {
+            int s = state;
+            for (int i = 0; i < chunk.length(); i++) {
+                s = transitions[s * alphabetSize + (charClass[Character.toLowerCase(chunk.charAt(i))] & 0xff)];
+                if (outputs[s].length > 0) {
+                    for (int p : outputs[s]) {
+                        sink.accept(new Hit<>(categories.get(p), phrases.get(p), p, position + i + 1));
+                    }
+                }
+            }
+            state = s;
+            position += chunk.length();
+        }
+
+        /** Characters fed so far. */
+        public long position() {
+            return position;
+        }
+
+        public void reset() {
+            state = 0;
+            position = 0;
+        }
+    }
+
+    public Scanner scanner() {
+        return new Scanner();
+    }
+
+    /** All occurrences in the text, in order of their end offset. */
+    public List<Hit<C>> findAll(CharSequence text) {
+        List<Hit<C>> hits = new ArrayList<>();
+        if (text != null) {
+            scanner().feed(text, hits::add);
+        }
+        return hits;
+    }
+
+    /**
+     * Sum of {@code weight(category)} over the distinct phrases that occur in the
+     * text; a phrase occurring several times counts once, as with contains().
+     */
+    public int score(CharSequence text, ToIntFunction<C> weight) {
+        if (text == null) return 0;
+        BitSet matched = new BitSet(phrases.size());
+        scanner().feed(text, hit -> matched.set(hit.phraseIndex()));
+        int total = 0;
+        for (int p = matched.nextSetBit(0); p >= 0; p = matched.nextSetBit(p + 1)) {
+            total += weight.applyAsInt(categories.get(p));
+        }
+        return total;
+    }
+
+    public int phraseCount() {
+        return phrases.size();
+    }
+
+    private static String fold(String phrase) {
+        StringBuilder folded = new StringBuilder(phrase.length());
+        for (int i = 0; i < phrase.length(); i++) {
+            folded.append(Character.toLowerCase(phrase.charAt(i)));
+        }
+        return folded.toString();
+    }
+}
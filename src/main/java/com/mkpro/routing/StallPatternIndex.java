@@ -0,0 +1,159 @@
+package com.mkpro.routing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the recorded stall sequences of one category, so that
+ * {@link MarkovRouter#predictStall} is a handful of hash lookups instead of a
+ * comparison against every stored sequence.
+ *
+ * A stall sequence matches the current agent sequence when the last L agents of
+ * the current sequence line up with the first L of the stall sequence, where
+ * L = min(current length, stall length, {@value #WINDOW}); windows of 3 or more may
+ * have one mismatch. Each stall sequence is therefore stored as its prefix n-grams
+ * (n ≤ WINDOW), plus each n ≥ 3 prefix with one position wildcarded, and the
+ * weight of matching sequences is summed from those keys.
+ *
+ * Weights decay: every new stall is worth 1/decay times the previous one, so the
+ * prediction leans toward recent behaviour. The oldest sequences drop out past
+ * the per-category cap, exactly as they do from the persisted list.
+ *
+ * Thread-safe.
+ */
+final class StallPatternIndex {
+
+    static final int WINDOW = 4;
+    private static final double DECAY = Double.parseDouble(System.getProperty("mkpro.markov.stallDecay", "0.98"));
+    private static final double RESCALE_AT = 1e12;
+    private static final String WILDCARD = "\u0001";
+
+    private record Entry(List<String> keys, double[] weight) {
+    }
+
+    private final List<List<String>> source; // the list this index mirrors
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final Map<String, Double> weights = new HashMap<>();
+    private double total;
+    private double scale = 1.0;
+
+    private StallPatternIndex(List<List<String>> source) {
+        this.source = source;
+    }
+
+    /** Builds an index of the sequences in {@code source}, oldest first. */
+    static StallPatternIndex of(List<List<String>> source) {
+        StallPatternIndex index = new StallPatternIndex(source);
+        List<List<String>> snapshot;
+        synchronized (source) {
+            snapshot = new ArrayList<>(source);
+        }
+        for (List<String> sequence : snapshot) index.add(sequence);
+        return index;
+    }
+
+    /** Whether this index still mirrors {@code list} (same list, same length). */
+    synchronized boolean mirrors(List<List<String>> list) {
+        return list == source && list.size() == entries.size();
+    }
+
+    synchronized void add(List<String> sequence) {
+        scale /= DECAY;
+        if (scale > RESCALE_AT) rescale();
+        List<String> keys = keys(sequence);
+        for (String key : keys) weights.merge(key, scale, Double::sum);
+        total += scale;
+        entries.addLast(new Entry(keys, new double[]{scale}));
+    }
+
+    /** Drops the oldest sequence. */
+    synchronized void removeOldest() {
+        Entry oldest = entries.pollFirst();
+        if (oldest == null) return;
+        double w = oldest.weight()[0];
+        for (String key : oldest.keys()) {
+            weights.computeIfPresent(key, (k, v) -> v - w > w * 1e-9 ? v - w : null);
+        }
+        total = entries.isEmpty() ? 0 : total - w;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Decay-weighted fraction of stall sequences that match the end of {@code current}.
+     */
+    synchronized double predict(List<String> current) {
+        if (current.size() < 2 || entries.isEmpty() || total <= 0) return 0.0;
+        int k = Math.min(current.size(), WINDOW);
+        List<String> tail = current.subList(current.size() - k, current.size());
+        double matched = 0;
+        // Stall sequences shorter than the window align on their full length...
+        for (int length = 1; length < k; length++) {
+            matched += matching("E", tail.subList(k - length, k));
+        }
+        // ...longer ones on the whole window
+        matched += matching("A", tail);
+        return Math.min(1.0, Math.max(0.0, matched / total));
+    }
+
+    /**
+     * Weight of sequences whose stored prefix matches {@code window} with at most
+     * one mismatch for windows of 3+. A sequence with no mismatch appears under
+     * every wildcard key, so subtract those repeats.
+     */
+    private double matching(String kind, List<String> window) {
+        double exact = weights.getOrDefault(key(kind, window, -1), 0.0);
+        if (window.size() < 3) return exact;
+        double wildcarded = 0;
+        for (int i = 0; i < window.size(); i++) {
+            wildcarded += weights.getOrDefault(key(kind, window, i), 0.0);
+        }
+        return Math.max(0.0, wildcarded - (window.size() - 1) * exact);
+    }
+
+    /**
+     * Keys for a stall sequence: "A" (at least this long) prefixes of every length up
+     * to the window, plus an "E" (exactly this long) key if it is shorter than the
+     * window, each with its one-wildcard variants for lengths of 3+.
+     */
+    private static List<String> keys(List<String> sequence) {
+        List<String> keys = new ArrayList<>();
+        int max = Math.min(sequence.size(), WINDOW);
+        for (int length = 1; length <= max; length++) {
+            addKeys(keys, "A", sequence.subList(0, length));
+        }
+        if (sequence.size() < WINDOW) {
+            addKeys(keys, "E", sequence);
+        }
+        return keys;
+    }
+
+    private static void addKeys(List<String> keys, String kind, List<String> prefix) {
+        keys.add(key(kind, prefix, -1));
+        if (prefix.size() >= 3) {
+            for (int i = 0; i < prefix.size(); i++) keys.add(key(kind, prefix, i));
+        }
+    }
+
+    private static String key(String kind, List<String> window, int wildcard) {
+        StringBuilder key = new StringBuilder(kind).append(window.size());
+        for (int i = 0; i < window.size(); i++) {
+            key.append('\u0000').append(i == wildcard ? WILDCARD : window.get(i));
+        }
+        return key.toString();
+    }
+
+    /** Brings weights back to scale 1 before the growing increments overflow. */
+    private void rescale() {
+        double factor = scale;
+        weights.replaceAll((k, v) -> v / factor);
+        for (Entry entry : entries) entry.weight()[0] /= factor;
+        total /= factor;
+        scale = 1.0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mkpro.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns names (agents, categories, tools, ...) to dense int ids so the routing
+ * count matrices can index arrays instead of nested maps.
+ *
+ * Ids start at 0 and are never reused. Thread-safe; lookups are lock-free and
+ * only interning a new name takes the lock.
+ */
+final class SymbolTable {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    /** Id for the name, assigning the next one if it is new. */
+    int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) return id;
+            int next = size;
+            if (next == names.length) {
+                names = Arrays.copyOf(names, next * 2);
+            }
+            names[next] = name;
+            size = next + 1;
+            ids.put(name, next);
+            return next;
+        }
+    }
+
+    /** Id for the name, or -1 if it was never interned. */
+    int lookup(String name) {
+        if (name == null) return -1;
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -1,20 +1,29 @@
 package com.mkpro.routing;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Layer 2 model: Agent → Tool transition probabilities.
  * 
  * Tracks which tools agents use (frequency) and in what order (transitions).
  * Extracted from MarkovRouter to isolate tool-level prediction logic.
+ *
+ * Counts live in {@link CountMatrix} rows indexed by interned agent, category and
+ * tool ids; each row keeps its total and most frequent tool, so predictions don't
+ * scan the row.
  */
 public class ToolTransitionModel {
 
+    private static final String START = "_START_"; // Sentinel for first tool in sequence
+
+    // Names interned once; agents and tools index the count matrices below
+    private final SymbolTable agents = new SymbolTable();
+    private final SymbolTable categories = new SymbolTable();
+    private final SymbolTable tools = new SymbolTable();
     // toolTransitions[agent][lastTool] = {nextTool → count}
-    private final Map<String, Map<String, Map<String, Integer>>> toolTransitions = new ConcurrentHashMap<>();
-    // agentToolFrequency[agent+":"+category] = {tool → count}
-    private final Map<String, Map<String, Integer>> agentToolFrequency = new ConcurrentHashMap<>();
+    private final CountMatrix toolTransitions = new CountMatrix(agents, tools, tools);
+    // agentToolFrequency[agent][category] = {tool → count}
+    private final CountMatrix agentToolFrequency = new CountMatrix(agents, categories, tools);
 
     /**
      * Tool prediction result.
@@ -45,23 +54,15 @@ public class ToolTransitionModel {
     public void recordToolUsage(String agent, IntentClassifier.TaskCategory category, List<String> toolsUsed) {
         if (agent == null || toolsUsed == null || toolsUsed.isEmpty()) return;
 
-        String freqKey = agent + ":" + category.name();
-
         // Record frequency: how often this agent uses each tool for this category
-        Map<String, Integer> freq = agentToolFrequency.computeIfAbsent(freqKey, k -> new ConcurrentHashMap<>());
         for (String tool : toolsUsed) {
-            freq.merge(tool, 1, Integer::sum);
+            agentToolFrequency.add(agent, category.name(), tool, 1);
         }
 
         // Record transitions: tool₁ → tool₂ sequences within this agent
-        Map<String, Map<String, Integer>> agentTransitions = 
-            toolTransitions.computeIfAbsent(agent, k -> new ConcurrentHashMap<>());
-
-        String lastTool = "_START_"; // Sentinel for first tool in sequence
+        String lastTool = START;
         for (String tool : toolsUsed) {
-            agentTransitions
-                .computeIfAbsent(lastTool, k -> new ConcurrentHashMap<>())
-                .merge(tool, 1, Integer::sum);
+            toolTransitions.add(agent, lastTool, tool, 1);
             lastTool = tool;
         }
     }
@@ -73,27 +74,15 @@ public class ToolTransitionModel {
      */
     public ToolPrediction predictNextTool(String agent, String lastTool) {
         if (agent == null) return null;
-        
-        Map<String, Map<String, Integer>> agentTrans = toolTransitions.get(agent);
-        if (agentTrans == null) return null;
-
-        String key = (lastTool == null || lastTool.isBlank()) ? "_START_" : lastTool;
-        Map<String, Integer> next = agentTrans.get(key);
-        if (next == null || next.isEmpty()) return null;
-
-        // Find highest probability transition
-        int total = next.values().stream().mapToInt(Integer::intValue).sum();
-        String bestTool = null;
-        int bestCount = 0;
-        for (Map.Entry<String, Integer> entry : next.entrySet()) {
-            if (entry.getValue() > bestCount) {
-                bestCount = entry.getValue();
-                bestTool = entry.getKey();
-            }
-        }
 
-        if (bestTool == null) return null;
-        return new ToolPrediction(bestTool, (double) bestCount / total);
+        String key = (lastTool == null || lastTool.isBlank()) ? START : lastTool;
+        CountMatrix.Row next = toolTransitions.row(agent, key);
+        if (next == null) return null;
+
+        // Highest probability transition, kept current by the row
+        CountMatrix.Top top = next.top();
+        if (top == null) return null;
+        return new ToolPrediction(tools.name(top.column()), top.probability());
     }
 
     /**
@@ -108,16 +97,12 @@ public class ToolTransitionModel {
     public List<ToolPrediction> getExpectedTools(String agent, IntentClassifier.TaskCategory category, int topK) {
         if (agent == null || category == null) return Collections.emptyList();
 
-        String freqKey = agent + ":" + category.name();
-        Map<String, Integer> freq = agentToolFrequency.get(freqKey);
+        CountMatrix.Row freq = agentToolFrequency.row(agent, category.name());
         if (freq == null || freq.isEmpty()) return Collections.emptyList();
 
-        int total = freq.values().stream().mapToInt(Integer::intValue).sum();
-
+        long total = freq.total();
         List<ToolPrediction> predictions = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : freq.entrySet()) {
-            predictions.add(new ToolPrediction(entry.getKey(), (double) entry.getValue() / total));
-        }
+        freq.forEach((tool, count) -> predictions.add(new ToolPrediction(tools.name(tool), (double) count / total)));
 
         predictions.sort((a, b) -> Double.compare(b.confidence, a.confidence));
         return predictions.size() > topK ? predictions.subList(0, topK) : predictions;
@@ -130,12 +115,11 @@ public class ToolTransitionModel {
     public boolean isAnomalousTool(String agent, IntentClassifier.TaskCategory category, String tool) {
         if (agent == null || tool == null) return false;
 
-        String freqKey = agent + ":" + category.name();
-        Map<String, Integer> freq = agentToolFrequency.get(freqKey);
+        CountMatrix.Row freq = agentToolFrequency.row(agent, category.name());
         if (freq == null || freq.isEmpty()) return false; // No data → can't judge
 
-        int total = freq.values().stream().mapToInt(Integer::intValue).sum();
-        int toolCount = freq.getOrDefault(tool, 0);
+        long total = freq.total();
+        int toolCount = freq.count(tools.lookup(tool));
 
         // Anomalous if never seen or < 5% of total usage
         return (double) toolCount / total < 0.05;
@@ -143,16 +127,30 @@ public class ToolTransitionModel {
 
     /**
      * Get the agent→tool frequency map for display (Layer 2 stats).
+     * Snapshot keyed by "agent:CATEGORY".
      */
     public Map<String, Map<String, Integer>> getAgentToolFrequency() {
-        return Collections.unmodifiableMap(agentToolFrequency);
+        Map<String, Map<String, Integer>> flat = new HashMap<>();
+        agentToolFrequency.toNestedMap().forEach((agent, byCategory) ->
+            byCategory.forEach((category, counts) -> flat.put(agent + ":" + category, counts)));
+        return Collections.unmodifiableMap(flat);
     }
 
     /**
-     * Get the tool transitions map for serialization.
+     * Get the tool transitions map for serialization (snapshot).
      */
     public Map<String, Map<String, Map<String, Integer>>> getToolTransitions() {
-        return Collections.unmodifiableMap(toolTransitions);
+        return Collections.unmodifiableMap(toolTransitions.toNestedMap());
+    }
+
+    /** The agent → lastTool → nextTool counts, for the sectioned model file. */
+    CountMatrix toolTransitionCounts() {
+        return toolTransitions;
+    }
+
+    /** The agent → category → tool counts, for the sectioned model file. */
+    CountMatrix toolFrequencyCounts() {
+        return agentToolFrequency;
     }
 
     /**
@@ -162,9 +160,10 @@ public class ToolTransitionModel {
         toolTransitions.clear();
         if (loaded != null) {
             for (var e : loaded.entrySet()) {
-                Map<String, Map<String, Integer>> inner = toolTransitions.computeIfAbsent(e.getKey(), k -> new ConcurrentHashMap<>());
                 for (var e2 : e.getValue().entrySet()) {
-                    inner.put(e2.getKey(), new ConcurrentHashMap<>(e2.getValue()));
+                    for (var e3 : e2.getValue().entrySet()) {
+                        toolTransitions.add(e.getKey(), e2.getKey(), e3.getKey(), e3.getValue());
+                    }
                 }
             }
         }
@@ -172,12 +171,19 @@ public class ToolTransitionModel {
 
     /**
      * Set agent tool frequency from loaded data (used during deserialization).
+     * Keys are "agent:CATEGORY".
      */
     public void setAgentToolFrequency(Map<String, Map<String, Integer>> loaded) {
         agentToolFrequency.clear();
         if (loaded != null) {
             for (var e : loaded.entrySet()) {
-                agentToolFrequency.put(e.getKey(), new ConcurrentHashMap<>(e.getValue()));
+                int sep = e.getKey().lastIndexOf(':');
+                if (sep < 0) continue;
+                String agent = e.getKey().substring(0, sep);
+                String category = e.getKey().substring(sep + 1);
+                for (var e2 : e.getValue().entrySet()) {
+                    agentToolFrequency.add(agent, category, e2.getKey(), e2.getValue());
+                }
             }
         }
     }
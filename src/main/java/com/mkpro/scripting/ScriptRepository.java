@@ -108,31 +108,31 @@ public class ScriptRepository {
     }
 
     /**
-     * List all scripts in the repository.
+     * List all scripts in the repository, sorted by name.
+     * Range-scans the "script:" namespace, which is already in key order.
      */
     public List<ScriptEntry> listAll() {
         List<ScriptEntry> scripts = new ArrayList<>();
-        Map<String, String> allMemories = memory.getAllMemories();
-        
-        for (Map.Entry<String, String> entry : allMemories.entrySet()) {
-            if (entry.getKey().startsWith(KEY_PREFIX)) {
-                String name = entry.getKey().substring(KEY_PREFIX.length());
-                try {
-                    ObjectNode node = (ObjectNode) mapper.readTree(entry.getValue());
-                    scripts.add(new ScriptEntry(
-                        name,
-                        node.get("code").asText(),
-                        node.has("description") ? node.get("description").asText() : "",
-                        node.has("created") ? node.get("created").asText() : "",
-                        node.has("lastUsed") ? node.get("lastUsed").asText() : "",
-                        node.has("usageCount") ? node.get("usageCount").asInt() : 0
-                    ));
-                } catch (Exception e) {
-                    // Skip malformed entries
-                }
+        Iterator<Map.Entry<String, String>> it = memory.scanPrefix(KEY_PREFIX);
+
+        while (it.hasNext()) {
+            Map.Entry<String, String> entry = it.next();
+            if (entry.getValue() == null || entry.getValue().isEmpty()) continue;
+            String name = entry.getKey().substring(KEY_PREFIX.length());
+            try {
+                ObjectNode node = (ObjectNode) mapper.readTree(entry.getValue());
+                scripts.add(new ScriptEntry(
+                    name,
+                    node.get("code").asText(),
+                    node.has("description") ? node.get("description").asText() : "",
+                    node.has("created") ? node.get("created").asText() : "",
+                    node.has("lastUsed") ? node.get("lastUsed").asText() : "",
+                    node.has("usageCount") ? node.get("usageCount").asInt() : 0
+                ));
+            } catch (Exception e) {
+                // Skip malformed entries
             }
         }
-        scripts.sort(Comparator.comparing(s -> s.name));
         return scripts;
     }
 
@@ -142,8 +142,7 @@ public class ScriptRepository {
     public boolean delete(String name) {
         String existing = memory.getMemory(KEY_PREFIX + name);
         if (existing == null || existing.isEmpty()) return false;
-        // Save empty to "delete" (CentralMemory doesn't have delete, but empty = removed)
-        memory.saveMemory(KEY_PREFIX + name, "");
+        memory.deleteMemory(KEY_PREFIX + name);
         return true;
     }
 
@@ -1,11 +1,10 @@
 package com.mkpro.tools;
 
 import com.google.adk.tools.BaseTool;
-import com.google.adk.memory.MapDBVectorStore;
-import com.google.adk.memory.EmbeddingService;
+import com.mkpro.index.CodeSearchIndex;
 
 public class CodebaseSearchTools {
-    public static BaseTool create(MapDBVectorStore vectorStore, EmbeddingService embeddingService) {
-        return MkProTools.createSearchCodebaseTool(vectorStore, embeddingService);
+    public static BaseTool create(CodeSearchIndex index) {
+        return MkProTools.createSearchCodebaseTool(index);
     }
 }
@@ -39,9 +39,7 @@ import java.awt.datatransfer.Transferable;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 
-import com.google.adk.memory.EmbeddingService;
-import com.google.adk.memory.MapDBVectorStore;
-import com.google.adk.memory.Vector;
+import com.mkpro.index.CodeSearchIndex;
 
 import com.mkpro.utils.IndexingHelper;
 
@@ -53,7 +51,7 @@ public class MkProTools {
     public static final String ANSI_RED = "\u001b[31m";
     public static final String ANSI_GREEN = "\u001b[32m";
 
-    public static BaseTool createSearchCodebaseTool(MapDBVectorStore vectorStore, EmbeddingService embeddingService) {
+    public static BaseTool createSearchCodebaseTool(CodeSearchIndex index) {
         return new BaseTool(
                 "search_codebase",
                 "Semantically searches the codebase using vector embeddings. Use this to find relevant code snippets based on meaning."
@@ -81,25 +79,25 @@ public class MkProTools {
                 String query = (String) args.get("query");
                 System.out.println(ANSI_BLUE + "[VectorSearch] Searching for: " + query + ANSI_RESET);
                 
-                return embeddingService.generateEmbedding(query)
-                    .map(embedding -> {
-                        List<Vector> results = vectorStore.searchTopNVectors( embedding, 0.0, 5); // Top 5, threshold 0.0
-                        
-                        if (results.isEmpty()) {
-                            return Collections.singletonMap("result", "No relevant code found for query: " + query);
-                        }
-                        
-                        StringBuilder sb = new StringBuilder();
-                        sb.append("Found ").append(results.size()).append(" relevant snippets:\n\n");
-                        
-                        for (int i = 0; i < results.size(); i++) {
-                            Vector res = results.get(i);
-                            sb.append(res.getContent()); 
-                            sb.append("\n\n");
-                        }
-                        
-                        return Collections.<String, Object>singletonMap("result", sb.toString());
-                    });
+                return Single.fromCallable(() -> {
+                    List<CodeSearchIndex.Hit> results = index.search(query, 5);
+
+                    if (results.isEmpty()) {
+                        return Collections.<String, Object>singletonMap("result", "No relevant code found for query: " + query
+                            + (index.size() == 0 ? " (the codebase is not indexed yet; run index_codebase)" : ""));
+                    }
+
+                    StringBuilder sb = new StringBuilder();
+                    sb.append("Found ").append(results.size()).append(" relevant snippets:\n\n");
+
+                    for (CodeSearchIndex.Hit hit : results) {
+                        sb.append("FILE: ").append(hit.chunk().location()).append("\n");
+                        sb.append(hit.chunk().text());
+                        sb.append("\n\n");
+                    }
+
+                    return Collections.<String, Object>singletonMap("result", sb.toString());
+                });
             }
         };
     }
@@ -597,7 +595,7 @@ public class MkProTools {
         };
     }
 
-    public static BaseTool createMultiProjectSearchTool(EmbeddingService embeddingService, MapDBVectorStore vectorStore) {
+    public static BaseTool createMultiProjectSearchTool(CodeSearchIndex index) {
         return new BaseTool("multi_project_search", "Semantically searches across multiple projects.") {
             @Override public Optional<FunctionDeclaration> declaration() {
                 return Optional.of(FunctionDeclaration.builder().name(name()).description(description())
@@ -607,9 +605,11 @@ public class MkProTools {
             }
             @Override public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
                 String query = (String) args.get("query");
-                return embeddingService.generateEmbedding(query).map(embedding -> {
-                    List<Vector> results = vectorStore.searchTopNVectors(embedding, 0.0, 10);
-                    return Collections.singletonMap("results", results.stream().map(Vector::getContent).collect(Collectors.toList()));
+                return Single.fromCallable(() -> {
+                    List<CodeSearchIndex.Hit> results = index.search(query, 10);
+                    return Collections.<String, Object>singletonMap("results", results.stream()
+                        .map(hit -> "FILE: " + hit.chunk().location() + "\n" + hit.chunk().text())
+                        .collect(Collectors.toList()));
                 });
             }
         };
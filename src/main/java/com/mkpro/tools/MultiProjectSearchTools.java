@@ -1,11 +1,10 @@
 package com.mkpro.tools;
 
 import com.google.adk.tools.BaseTool;
-import com.google.adk.memory.EmbeddingService;
-import com.google.adk.memory.MapDBVectorStore;
+import com.mkpro.index.CodeSearchIndex;
 
 public class MultiProjectSearchTools {
-    public static BaseTool create(EmbeddingService embeddingService, MapDBVectorStore vectorStore) {
-        return MkProTools.createMultiProjectSearchTool(embeddingService, vectorStore);
+    public static BaseTool create(CodeSearchIndex index) {
+        return MkProTools.createMultiProjectSearchTool(index);
     }
 }
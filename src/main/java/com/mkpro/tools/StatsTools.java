@@ -7,11 +7,10 @@ import com.google.genai.types.FunctionDeclaration;
 import com.google.genai.types.Schema;
 import io.reactivex.rxjava3.core.Single;
 import com.mkpro.CentralMemory;
-import com.mkpro.models.AgentStat;
+import com.mkpro.models.StatBucket;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -36,42 +35,34 @@ public class StatsTools {
             public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
                 return Single.fromCallable(() -> {
                     final String reqSessionId = (String) args.get("sessionId");
-                    List<AgentStat> allStats = CentralMemory.getInstance().getAgentStats();
-                    
-                    // Filter stats
-                    List<AgentStat> stats = allStats.stream()
-                            .filter(s -> reqSessionId.equals(s.getSessionId()))
-                            .collect(Collectors.toList());
+                    CentralMemory memory = CentralMemory.getInstance();
+
+                    // Served from per-session rollups rather than scanning every recorded stat
+                    List<StatBucket> stats = memory.getSessionStatTotals(reqSessionId);
 
                     String finalSessionId = reqSessionId;
 
                     // Fallback: If no stats match, and it's looking for "current" or "default", grab the latest active session.
                     if (stats.isEmpty()) {
-                        String latestSessionId = allStats.stream()
-                                .map(AgentStat::getSessionId)
-                                .filter(Objects::nonNull)
-                                .reduce((first, second) -> second) // Get last item
-                                .orElse("unknown");
-                        
-                        stats = allStats.stream()
-                                .filter(s -> latestSessionId.equals(s.getSessionId()))
-                                .collect(Collectors.toList());
+                        String latest = memory.getLatestStatSessionId();
+                        String latestSessionId = latest != null ? latest : "unknown";
+                        stats = memory.getSessionStatTotals(latestSessionId);
                         finalSessionId = latestSessionId + " (auto-resolved)";
                     }
 
                     final String reportSessionId = finalSessionId;
 
-                    long totalTokens = stats.stream().mapToLong(AgentStat::getTotalTokens).sum();
+                    long totalTokens = stats.stream().mapToLong(StatBucket::getTotalTokens).sum();
 
                     if (stats.isEmpty() || totalTokens == 0) {
                         return ImmutableMap.of("result", "Session '" + reportSessionId + "' has no recorded token consumption yet.");
                     }
 
                     Map<String, Long> agentTokens = stats.stream()
-                            .collect(Collectors.groupingBy(AgentStat::getAgentName, Collectors.summingLong(AgentStat::getTotalTokens)));
+                            .collect(Collectors.groupingBy(StatBucket::getAgentName, Collectors.summingLong(StatBucket::getTotalTokens)));
 
                     Map<String, Long> modelTokens = stats.stream()
-                            .collect(Collectors.groupingBy(AgentStat::getModel, Collectors.summingLong(AgentStat::getTotalTokens)));
+                            .collect(Collectors.groupingBy(StatBucket::getModel, Collectors.summingLong(StatBucket::getTotalTokens)));
 
                     StringBuilder report = new StringBuilder();
                     report.append(String.format("Session '%s' has consumed %,d tokens in total.\n", reportSessionId, totalTokens));
@@ -1,19 +1,30 @@
 package com.mkpro.utils;
 
 import com.mkpro.core.MkProContext;
+import com.mkpro.index.CodeSearchIndex;
+import com.mkpro.index.CodebaseIndexer;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Stream;
 
 public class IndexingHelper {
+    /**
+     * Brings the shared code index up to date for the whole project. Only files
+     * changed since the last run are re-read and re-embedded.
+     */
     public static void indexProject(MkProContext context) {
         System.out.println("Indexing project...");
-        // Minimal implementation
-        Path root = Path.of(".");
-        try (Stream<Path> paths = Files.walk(root)) {
-            long count = paths.filter(Files::isRegularFile).count();
-            System.out.println("Indexed " + count + " files.");
+        Path root = PathUtils.getProjectPath().toAbsolutePath().normalize();
+        try {
+            CodebaseIndexer indexer = new CodebaseIndexer(root, CodeSearchIndex.getInstance());
+            CodebaseIndexer.Stats stats = indexer.index(root, progress -> {
+                if ("index".equals(progress.phase())) {
+                    System.out.println("  " + progress.filesIndexed() + "/" + progress.filesChanged() + " changed files, "
+                            + Math.round(progress.chunksPerSecond()) + " chunks/s");
+                }
+            });
+            System.out.println("Indexed " + stats.filesIndexed() + " changed file(s) (" + stats.chunksIndexed() + " chunks), "
+                    + stats.filesUnchanged() + " unchanged, " + stats.filesFailed() + " failed, " + stats.filesRemoved() + " removed, in "
+                    + stats.elapsedMs() + " ms.");
         } catch (IOException e) {
             System.err.println("Error indexing: " + e.getMessage());
         }
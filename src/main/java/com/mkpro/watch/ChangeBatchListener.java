@@ -0,0 +1,62 @@
+package com.mkpro.watch;
+
+import com.mkpro.events.FileChangeBatch;
+import com.mkpro.events.MkProEvent;
+import com.mkpro.events.MkProEventListener;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Event-bus listener that applies {@code FILES_CHANGED} batches on its own
+ * daemon thread, one batch at a time, so a slow consumer (re-embedding, parsing)
+ * never blocks the bus or the other consumers.
+ */
+public class ChangeBatchListener implements MkProEventListener, AutoCloseable {
+
+    private final String name;
+    private final Consumer<FileChangeBatch> consumer;
+    private final ExecutorService executor;
+
+    public ChangeBatchListener(String name, Consumer<FileChangeBatch> consumer) {
+        this.name = name;
+        this.consumer = consumer;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "live-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void onEvent(MkProEvent event) {
+        if (event.getType() != MkProEvent.Type.FILES_CHANGED || event.getFileChanges() == null) return;
+        FileChangeBatch batch = event.getFileChanges();
+        executor.execute(() -> {
+            try {
+                consumer.accept(batch);
+            } catch (Exception e) {
+                System.err.println("[Live " + name + "] Update failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Waits up to {@code timeoutMs} for the batches queued so far to be applied. */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,293 @@
+package com.mkpro.watch;
+
+import com.mkpro.events.FileChangeBatch;
+import com.mkpro.events.MkProEvent;
+import com.mkpro.events.MkProEventBus;
+import com.mkpro.facts.GitIgnoreFilter;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the project tree and publishes coalesced {@link FileChangeBatch}es as
+ * {@link MkProEvent.Type#FILES_CHANGED} events.
+ *
+ * <ul>
+ *   <li>Every directory not skipped by {@link GitIgnoreFilter} is registered;
+ *       directories created later are registered (and their files reported) as
+ *       they appear.</li>
+ *   <li>Events are debounced: a batch is published once the tree has been quiet
+ *       for {@code debounceMs}, or at the latest {@value #MAX_DELAY_FACTOR}x that
+ *       long after the first pending event, so a long build can't starve it.</li>
+ *   <li>A manifest of (size, mtime) per file turns raw events into created /
+ *       modified / deleted sets, drops events that changed nothing, and expands a
+ *       deleted directory into the files it held.</li>
+ *   <li>On {@code OVERFLOW} (the OS dropped events) the tree is rescanned and
+ *       diffed against the manifest instead.</li>
+ * </ul>
+ *
+ * Publishing happens on the watcher thread; listeners that do real work should
+ * hand the batch off (see {@link ChangeBatchListener}).
+ */
+public class FileChangeService implements AutoCloseable {
+
+    static final long DEFAULT_DEBOUNCE_MS = 500;
+    private static final int MAX_DELAY_FACTOR = 10;
+
+    private record Stamp(long size, long modifiedMillis) {
+    }
+
+    private final Path root;
+    private final MkProEventBus bus;
+    private final long debounceMs;
+    private final GitIgnoreFilter filter;
+    private final Map<Path, Stamp> manifest = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> keys = new HashMap<>();     // watcher thread only
+    private final Set<Path> pending = new LinkedHashSet<>();     // watcher thread only
+    private boolean rescanPending;                                // watcher thread only
+    private long firstPendingNanos;                               // watcher thread only
+    private long lastEventNanos;                                  // watcher thread only
+
+    private WatchService watcher;
+    private Thread thread;
+    private volatile boolean running;
+
+    public FileChangeService(Path root, MkProEventBus bus) {
+        this(root, bus, DEFAULT_DEBOUNCE_MS);
+    }
+
+    FileChangeService(Path root, MkProEventBus bus, long debounceMs) {
+        this.root = root.toAbsolutePath().normalize();
+        this.bus = bus;
+        this.debounceMs = debounceMs;
+        this.filter = new GitIgnoreFilter(this.root);
+    }
+
+    /**
+     * Registers the tree, records the initial manifest and starts the watcher thread.
+     */
+    public synchronized void start() throws IOException {
+        if (running) return;
+        watcher = FileSystems.getDefault().newWatchService();
+        scanTree(root, null);
+        running = true;
+        thread = new Thread(this::run, "file-change-service");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops watching; pending changes that were not yet published are dropped. */
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /** Number of files in the manifest. */
+    public int trackedFiles() {
+        return manifest.size();
+    }
+
+    private void run() {
+        while (running) {
+            WatchKey key;
+            try {
+                long wait = pending.isEmpty() && !rescanPending ? debounceMs * MAX_DELAY_FACTOR : debounceMs / 2 + 1;
+                key = watcher.poll(wait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+
+            if (key != null) {
+                collect(key);
+            }
+            if ((!pending.isEmpty() || rescanPending) && due()) {
+                try {
+                    publish(rescanPending ? rescan() : resolvePending());
+                } catch (Exception e) {
+                    System.err.println("[FileChangeService] Could not publish changes: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean due() {
+        long now = System.nanoTime();
+        return now - lastEventNanos >= TimeUnit.MILLISECONDS.toNanos(debounceMs)
+            || now - firstPendingNanos >= TimeUnit.MILLISECONDS.toNanos(debounceMs * MAX_DELAY_FACTOR);
+    }
+
+    private void collect(WatchKey key) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                rescanPending = true;
+            } else if (dir != null) {
+                Path child = dir.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    // Files may have been written before the directory was registered
+                    scanTree(child, pending);
+                } else {
+                    pending.add(child);
+                }
+            }
+            long now = System.nanoTime();
+            if (firstPendingNanos == 0) firstPendingNanos = now;
+            lastEventNanos = now;
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    private void publish(FileChangeBatch batch) {
+        pending.clear();
+        rescanPending = false;
+        firstPendingNanos = 0;
+        if (batch.isEmpty()) return;
+        if (bus != null) {
+            bus.emit(MkProEvent.filesChanged(batch));
+        }
+    }
+
+    /** Turns the pending paths into a batch and applies it to the manifest. */
+    private FileChangeBatch resolvePending() {
+        Set<Path> created = new LinkedHashSet<>();
+        Set<Path> modified = new LinkedHashSet<>();
+        Set<Path> deleted = new LinkedHashSet<>();
+        for (Path path : pending) {
+            BasicFileAttributes attrs = attributes(path);
+            if (attrs == null) {
+                if (manifest.remove(path) != null) {
+                    deleted.add(path);
+                    continue;
+                }
+                // A deleted directory: report the files it held
+                manifest.keySet().removeIf(file -> {
+                    if (file.startsWith(path)) {
+                        deleted.add(file);
+                        return true;
+                    }
+                    return false;
+                });
+            } else if (attrs.isRegularFile() && !filter.isIgnored(path) && !inIgnoredDirectory(path)) {
+                Stamp stamp = new Stamp(attrs.size(), attrs.lastModifiedTime().toMillis());
+                Stamp previous = manifest.put(path, stamp);
+                if (previous == null) created.add(path);
+                else if (!previous.equals(stamp)) modified.add(path);
+            }
+        }
+        return new FileChangeBatch(root, created, modified, deleted, false);
+    }
+
+    /** Re-walks the whole tree after an overflow and diffs it against the manifest. */
+    FileChangeBatch rescan() {
+        Map<Path, Stamp> before = new HashMap<>(manifest);
+        manifest.clear();
+        scanTree(root, null);
+        Set<Path> created = new LinkedHashSet<>();
+        Set<Path> modified = new LinkedHashSet<>();
+        for (Map.Entry<Path, Stamp> entry : manifest.entrySet()) {
+            Stamp previous = before.remove(entry.getKey());
+            if (previous == null) created.add(entry.getKey());
+            else if (!previous.equals(entry.getValue())) modified.add(entry.getKey());
+        }
+        Set<Path> deleted = new LinkedHashSet<>(before.keySet());
+        return new FileChangeBatch(root, created, modified, deleted, true);
+    }
+
+    /**
+     * Registers {@code start} and every non-ignored directory below it. Files found
+     * are added to {@code found} if given, otherwise recorded in the manifest.
+     */
+    private void scanTree(Path start, Set<Path> found) {
+        Deque<Path> dirs = new ArrayDeque<>();
+        dirs.push(start);
+        while (!dirs.isEmpty()) {
+            Path dir = dirs.pop();
+            if (!dir.equals(root) && (!filter.shouldEnterDirectory(dir) || inIgnoredDirectory(dir))) continue;
+            register(dir);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = attributes(entry);
+                    if (attrs == null) continue;
+                    if (attrs.isDirectory()) {
+                        dirs.push(entry);
+                    } else if (attrs.isRegularFile() && !filter.isIgnored(entry)) {
+                        if (found != null) found.add(entry);
+                        else manifest.put(entry, new Stamp(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                }
+            } catch (IOException e) {
+                // Unreadable or already deleted: skip it
+            }
+        }
+    }
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(key, dir);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // Directory vanished or watcher closed
+        }
+    }
+
+    private boolean inIgnoredDirectory(Path path) {
+        for (Path dir = path.getParent(); dir != null && !dir.equals(root) && dir.startsWith(root); dir = dir.getParent()) {
+            if (!filter.shouldEnterDirectory(dir)) return true;
+        }
+        return false;
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mkpro.watch;
+
+import com.mkpro.events.FileChangeBatch;
+import com.mkpro.facts.FactEngine;
+import com.mkpro.facts.ProjectFactScanner;
+import com.mkpro.graph.ExtractionResult;
+import com.mkpro.graph.JavaParserScanner;
+import com.mkpro.graph.MapDbGraphRepository;
+import com.mkpro.index.CodebaseIndexer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The consumers of {@link FileChangeBatch}es: each one refreshes only the
+ * touched files in one of the derived views of the project.
+ */
+public final class LiveUpdaters {
+
+    private LiveUpdaters() {
+    }
+
+    /** Re-embeds changed files and drops deleted ones from the code search index. */
+    public static Consumer<FileChangeBatch> codeIndex(CodebaseIndexer indexer) {
+        return batch -> {
+            CodebaseIndexer.Stats stats = indexer.indexFiles(batch.getAllPaths(), null);
+            if (stats.filesIndexed() + stats.filesRemoved() > 0) {
+                System.out.println("\u001b[2m  [Live index] " + stats.filesIndexed() + " file(s) re-indexed, "
+                    + stats.filesRemoved() + " removed in " + stats.elapsedMs() + " ms\u001b[0m");
+            }
+        };
+    }
+
+    /** Re-scans touched files for project facts (constants, constraints, dependencies). */
+    public static Consumer<FileChangeBatch> facts(FactEngine factEngine) {
+        return batch -> new ProjectFactScanner(factEngine).scanFiles(batch.getRoot(), batch.getAllPaths());
+    }
+
+    /**
+     * Re-parses touched {@code .java} files into the working-tree code graph
+     * ({@link MapDbGraphRepository#WORKTREE_KEY}). Does nothing until Graphify has
+     * built that graph once.
+     */
+    public static Consumer<FileChangeBatch> codeGraph() {
+        JavaParserScanner scanner = new JavaParserScanner();
+        return batch -> {
+            if (!batch.touches(".java")) return;
+            Path root = batch.getRoot();
+            Set<String> touched = new HashSet<>();
+            List<Path> changed = new ArrayList<>();
+            for (Path path : batch.getAllPaths()) {
+                if (!path.toString().endsWith(".java")) continue;
+                touched.add(root.relativize(path).toString().replace('\\', '/'));
+                if (!batch.getDeleted().contains(path)) changed.add(path);
+            }
+
+            try (MapDbGraphRepository repository = new MapDbGraphRepository(MapDbGraphRepository.resolveDatabasePath(root))) {
+                ExtractionResult base = repository.loadExtraction(MapDbGraphRepository.WORKTREE_KEY).orElse(null);
+                if (base == null) return;
+                ExtractionResult fresh = scanner.scanFiles(root, changed);
+                repository.saveExtraction(MapDbGraphRepository.WORKTREE_KEY,
+                    JavaParserScanner.replaceFiles(base, touched, fresh));
+            }
+        };
+    }
+}
@@ -437,6 +437,10 @@ class RestApiHandler {
                 status.put("markov_threshold", mkproContext.getMarkovRouter().getConfidenceThreshold());
             }
 
+            if (centralMemory != null) {
+                status.put("stats", buildStatsSummary());
+            }
+
             sendJsonResponse(exchange, 200, status);
 
         } catch (Exception e) {
@@ -444,6 +448,39 @@ class RestApiHandler {
         }
     }
 
+    /**
+     * Usage summary for /api/status, answered from the stat rollups (all-time
+     * totals plus the last hour's minute buckets) rather than raw rows.
+     */
+    private Map<String, Object> buildStatsSummary() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long calls = 0, successes = 0, tokens = 0;
+        for (com.mkpro.models.StatBucket b : centralMemory.getAgentStatTotals()) {
+            calls += b.getCount();
+            successes += b.getSuccessCount();
+            tokens += b.getTotalTokens();
+        }
+        stats.put("calls", calls);
+        stats.put("total_tokens", tokens);
+        stats.put("success_ratio", calls == 0 ? 0.0 : (double) successes / calls);
+        stats.put("sessions", centralMemory.getStatSessionCount());
+
+        java.time.Instant now = java.time.Instant.now();
+        com.mkpro.models.StatBucket lastHour = new com.mkpro.models.StatBucket(0, null, null, null);
+        for (com.mkpro.models.StatBucket b : centralMemory.getAgentStatBuckets(
+                com.mkpro.AgentStatsRollup.Granularity.MINUTE, now.minus(java.time.Duration.ofHours(1)), now.plusSeconds(60))) {
+            lastHour.merge(b);
+        }
+        Map<String, Object> recent = new LinkedHashMap<>();
+        recent.put("calls", lastHour.getCount());
+        recent.put("total_tokens", lastHour.getTotalTokens());
+        recent.put("avg_latency_ms", lastHour.getAvgLatencyMs());
+        recent.put("p95_latency_ms", lastHour.getLatencyPercentileMs(0.95));
+        recent.put("success_ratio", lastHour.getSuccessRatio());
+        stats.put("last_hour", recent);
+        return stats;
+    }
+
     /**
      * GET /api/agents — List all agents with their configurations.
      */
@@ -502,23 +539,20 @@ class RestApiHandler {
             }
             limit = Math.min(limit, 50);
 
-            List<String> allLogs = com.mkpro.ActionLogger.getAllLogs();
-            int total = allLogs.size();
+            // Reads just this page from the segment store instead of copying the whole log
+            com.mkpro.ActionLogger.HistoryPage page = com.mkpro.ActionLogger.getAllLogsPage(offset, limit);
+            long total = page.total;
 
             List<Map<String, String>> messages = new ArrayList<>();
 
-            int startIdx = Math.max(0, total - offset - limit);
-            int endIdx = Math.max(0, total - offset);
-
-            for (int i = startIdx; i < endIdx; i++) {
-                String entry = allLogs.get(i);
+            for (String entry : page.entries) {
                 Map<String, String> msg = parseLogEntry(entry);
                 if (msg != null) {
                     messages.add(msg);
                 }
             }
 
-            boolean hasMore = startIdx > 0;
+            boolean hasMore = page.hasMore;
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("messages", messages);
@@ -27,6 +27,7 @@ public class ActionLoggerTest {
  @Test @DisplayName("Test Case 1: File Logging") void testFileLogging() throws IOException {
  String action = "Test Action";
  logger.logAction(action);
+ assertTrue(ActionLogger.flush());
  assertTrue(logFile.exists(), "Log file should exist at: " + logFile.getAbsolutePath());
  List<String> lines = Files.readAllLines(logFile.toPath());
  assertFalse(lines.isEmpty(), "Log file should not be empty");
@@ -37,6 +38,7 @@ public class ActionLoggerTest {
 
  @Test @DisplayName("Test Case 2: In-Memory Buffer and Size Limit") void testInMemoryBufferLimit() {
  for (int i = 0; i < 600; i++) logger.logAction("Action " + i);
+ ActionLogger.flush();
  List<String> buffer = logger.getMemoryBuffer();
  assertEquals(500, buffer.size());
  assertTrue(buffer.get(0).contains("Action 100"));
@@ -53,6 +55,7 @@ public class ActionLoggerTest {
  MockWS mockWs = new MockWS();
  ActionLogger.setWebSocketServer(mockWs);
  logger.logAction("Broadcast Test");
+ ActionLogger.flush();
  assertEquals(1, mockWs.count);
  assertTrue(mockWs.last.contains("Broadcast Test"));
  }
@@ -64,13 +67,82 @@ public class ActionLoggerTest {
  ts[i].start();
  }
  for (Thread t : ts) t.join();
+ ActionLogger.flush();
  assertEquals(500, logger.getMemoryBuffer().size());
  }
 
  @Test @DisplayName("Test Case 5: Clear Logs") void testClearMemoryLogs() {
  logger.logAction("Action 1");
+ ActionLogger.flush();
  assertFalse(logger.getMemoryBuffer().isEmpty());
  logger.clearMemoryLogs();
  assertTrue(logger.getMemoryBuffer().isEmpty());
  }
-}
\ No newline at end of file
+ @Test @DisplayName("Test Case 6: Role Entries Group-Committed In Order") void testRoleEntriesInOrder() throws InterruptedException {
+ int tc = 4; int lpt = 250; Thread[] ts = new Thread[tc];
+ for (int i = 0; i < tc; i++) {
+ final String role = "T" + i;
+ ts[i] = new Thread(() -> { for (int j = 0; j < lpt; j++) logger.log(role, "msg " + j); });
+ ts[i].start();
+ }
+ for (Thread t : ts) t.join();
+ assertTrue(ActionLogger.flush());
+ List<String> logs = ActionLogger.getLogs();
+ assertEquals(tc * lpt, logs.size());
+ // Per-producer order is preserved through the queue
+ int last = -1;
+ for (String line : logs) {
+ if (!line.contains("] T0: ")) continue;
+ int n = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+ assertTrue(n > last, "Out of order: " + line);
+ last = n;
+ }
+ assertEquals(lpt - 1, last);
+ }
+
+ @Test @DisplayName("Test Case 7: Ring Buffer Capacity") void testRingBufferCapacity() {
+ ActionLogger.RingBuffer<String> ring = new ActionLogger.RingBuffer<>(3);
+ assertEquals(4, ring.capacity());
+ for (int i = 0; i < 4; i++) assertTrue(ring.offer("e" + i));
+ assertFalse(ring.offer("overflow"));
+ List<String> out = new java.util.ArrayList<>();
+ assertEquals(2, ring.drainTo(out, 2));
+ assertEquals(List.of("e0", "e1"), out);
+ assertTrue(ring.offer("e4"));
+ assertEquals(3, ring.drainTo(out, 10));
+ assertEquals(List.of("e0", "e1", "e2", "e3", "e4"), out);
+ assertTrue(ring.isEmpty());
+ }
+ @Test @DisplayName("Test Case 8: Legacy MapDB Logs Migrated") void testLegacyLogsMigrated() throws IOException {
+ ActionLogger.close();
+ java.nio.file.Path tmp = Files.createTempDirectory("altest-");
+ java.nio.file.Path dbFile = tmp.resolve("test_logs.db");
+ try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(dbFile.toFile()).transactionEnable().make()) {
+ List<String> legacy = db.indexTreeList("logs", org.mapdb.Serializer.STRING).createOrOpen();
+ legacy.add("[2026-01-01T10:00:00] USER: hello");
+ legacy.add("[2026-01-01T10:00:05] Coordinator: hi");
+ db.commit();
+ }
+ logger = new ActionLogger(dbFile.toString());
+ assertEquals(List.of("[2026-01-01T10:00:00] USER: hello", "[2026-01-01T10:00:05] Coordinator: hi"), ActionLogger.getLogs());
+ java.time.Instant at = java.time.LocalDateTime.parse("2026-01-01T10:00:01").atZone(java.time.ZoneId.systemDefault()).toInstant();
+ assertEquals(1, ActionLogger.getLogsBetween(at, java.time.Instant.now(), 10).size());
+ ActionLogger.close();
+ // Reopening must not import the same entries twice
+ logger = new ActionLogger(dbFile.toString());
+ assertEquals(2, ActionLogger.getLogCount());
+ ActionLogger.close();
+ }
+
+ @Test @DisplayName("Test Case 9: History Page Reads From The End") void testHistoryPage() {
+ ActionLogger.clearMemoryLogs();
+ for (int i = 0; i < 30; i++) logger.log("USER", "m" + i);
+ ActionLogger.flush();
+ ActionLogger.HistoryPage page = ActionLogger.getAllLogsPage(5, 10);
+ assertEquals(30, page.total);
+ assertTrue(page.hasMore);
+ assertEquals(10, page.entries.size());
+ assertTrue(page.entries.get(0).endsWith("m15"));
+ assertTrue(page.entries.get(9).endsWith("m24"));
+ }
+}
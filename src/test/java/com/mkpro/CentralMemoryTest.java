@@ -5,9 +5,12 @@ import com.mkpro.models.AgentStat;
 import com.mkpro.models.Goal;
 import com.mkpro.models.McpServer;
 import com.mkpro.models.Provider;
+import com.mkpro.models.StatBucket;
 import org.junit.jupiter.api.*;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -248,6 +251,180 @@ public class CentralMemoryTest {
         assertEquals("Memory 1", all.get("/p1"));
     }
 
+    @Test
+    void scanPrefixReturnsOnlyNamespaceInKeyOrder() {
+        memory.saveMemory("knowledge:b", "B");
+        memory.saveMemory("script:x", "X");
+        memory.saveMemory("knowledge:a", "A");
+        memory.saveMemory("knowledgebase", "not in namespace");
+
+        List<String> keys = new java.util.ArrayList<>();
+        memory.scanPrefix("knowledge:").forEachRemaining(e -> keys.add(e.getKey()));
+        assertEquals(List.of("knowledge:a", "knowledge:b"), keys);
+    }
+
+    @Test
+    void deleteMemoryRemovesEntry() throws Exception {
+        memory.saveMemory("knowledge:gone", "soon");
+        memory.deleteMemory("knowledge:gone");
+
+        assertEquals("", memory.getMemory("knowledge:gone"));
+        assertFalse(memory.scanPrefix("knowledge:").hasNext());
+        assertFalse(memory.getAllMemories().containsKey("knowledge:gone"));
+    }
+
+    @Test
+    void memoryReadsServedFromCache() {
+        memory.saveMemory("/p1", "Memory 1");
+        memory.getMemory("/p1"); // warm
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            memory.getMemory("/p1");
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed < 100_000_000, "Memory cache reads took too long: " + (elapsed / 1_000_000) + "ms");
+    }
+
+    @Test
+    void peerMemoryWriteVisibleAfterStampChange() throws Exception {
+        Path sharedDb = tempDir.resolve("peer").resolve("central_memory.db");
+        Path localDb1 = tempDir.resolve("peer").resolve("instance1_stats.db");
+        Path localDb2 = tempDir.resolve("peer").resolve("instance2_stats.db");
+
+        memory.close();
+        memory = null;
+
+        CentralMemory instance1 = new CentralMemory(sharedDb, localDb1);
+        CentralMemory instance2 = new CentralMemory(sharedDb, localDb2);
+        try {
+            assertEquals("", instance2.getMemory("/shared")); // populates instance2's cache
+            instance1.saveMemory("/shared", "written by peer");
+
+            Thread.sleep(400); // past the stamp check interval
+            assertEquals("written by peer", instance2.getMemory("/shared"));
+        } finally {
+            instance1.close();
+            instance2.close();
+        }
+    }
+
+    private static Map<String, String> legacyMemories(org.mapdb.DB db) {
+        return db.hashMap("memories", org.mapdb.Serializer.STRING, org.mapdb.Serializer.STRING).createOrOpen();
+    }
+
+    @Test
+    void legacyMemoriesAreMigratedOnceAndNotMirroredByDefault() throws Exception {
+        Path sharedDb = tempDir.resolve("migrate").resolve("central_memory.db");
+        Path localDb = tempDir.resolve("migrate").resolve("stats.db");
+        java.nio.file.Files.createDirectories(sharedDb.getParent());
+        memory.close();
+        memory = null;
+
+        try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+            legacyMemories(db).put("/old", "from before the migration");
+            db.commit();
+        }
+
+        CentralMemory current = new CentralMemory(sharedDb, localDb, 0);
+        try {
+            assertEquals("from before the migration", current.getMemory("/old"));
+            current.saveMemory("/new", "written by this version");
+
+            try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+                assertFalse(legacyMemories(db).containsKey("/new"));
+                legacyMemories(db).clear();
+                db.commit();
+            }
+            current.refreshCache();
+            assertEquals("from before the migration", current.getMemory("/old"));
+            assertEquals("written by this version", current.getMemory("/new"));
+        } finally {
+            current.close();
+        }
+    }
+
+    @Test
+    void legacyMirrorKeepsOlderInstancesInSync() throws Exception {
+        Path sharedDb = tempDir.resolve("mirror").resolve("central_memory.db");
+        Path localDb = tempDir.resolve("mirror").resolve("stats.db");
+        java.nio.file.Files.createDirectories(sharedDb.getParent());
+        memory.close();
+        memory = null;
+
+        try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+            legacyMemories(db).put("/old", "from before the migration");
+            legacyMemories(db).put("/kept", "never touched again");
+            db.commit();
+        }
+
+        System.setProperty("mkpro.memory.legacyMirror", "true");
+        CentralMemory current;
+        try {
+            current = new CentralMemory(sharedDb, localDb, 0);
+        } finally {
+            System.clearProperty("mkpro.memory.legacyMirror");
+        }
+        try {
+            current.saveMemory("/new", "written by this version");
+
+            // An older instance only knows the legacy map
+            try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+                Map<String, String> legacy = legacyMemories(db);
+                assertEquals("written by this version", legacy.get("/new"));
+                legacy.put("/old", "edited by an older instance");
+                legacy.put("/new", ""); // older versions' delete
+                legacy.remove("/kept"); // absence is not a delete
+                db.commit();
+            }
+
+            current.refreshCache();
+            assertEquals("edited by an older instance", current.getMemory("/old"));
+            assertFalse(current.getAllMemories().containsKey("/new"));
+            assertEquals("never touched again", current.getMemory("/kept"));
+        } finally {
+            current.close();
+        }
+    }
+
+    @Test
+    void writeBehindCoalescesUntilFlush() throws Exception {
+        Path sharedDb = tempDir.resolve("wb").resolve("central_memory.db");
+        memory.close();
+        memory = null;
+
+        CentralMemory writer = new CentralMemory(sharedDb, tempDir.resolve("wb").resolve("w_stats.db"), 60_000);
+        try {
+            for (int i = 0; i < 50; i++) {
+                writer.saveMemory("/counter", "value-" + i);
+            }
+            // Visible locally right away, even though nothing has been flushed
+            assertEquals("value-49", writer.getMemory("/counter"));
+
+            assertTrue(writer.flush());
+            CentralMemory reader = new CentralMemory(sharedDb, tempDir.resolve("wb").resolve("r_stats.db"));
+            try {
+                assertEquals("value-49", reader.getMemory("/counter"));
+            } finally {
+                reader.close();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void listenersFireInWriteOrderWithWriteBehind() {
+        List<String> keys = new java.util.concurrent.CopyOnWriteArrayList<>();
+        memory.addListener((key, value) -> keys.add(key));
+
+        memory.saveMemory("/a", "1");
+        memory.addGoal("/project", new Goal("g"));
+        memory.saveMemory("/b", "2");
+
+        assertEquals(List.of("memory:/a", "goals:/project", "memory:/b"), keys);
+    }
+
     // ==========================================================================
     // CACHED PATH TESTS — MCP Servers
     // ==========================================================================
@@ -374,6 +551,119 @@ public class CentralMemoryTest {
         }
     }
 
+    // ==========================================================================
+    // COMPACT SERIALIZER MIGRATION TESTS
+    // ==========================================================================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void legacyJavaSerializedStoresAreMigrated() throws Exception {
+        Path sharedDb = tempDir.resolve("legacy").resolve("central_memory.db");
+        Path localDb = tempDir.resolve("legacy").resolve("stats.db");
+        java.nio.file.Files.createDirectories(sharedDb.getParent());
+        memory.close();
+        memory = null;
+
+        Goal goal = new Goal("Legacy goal");
+        goal.addSubGoal(new Goal("Legacy sub-goal"));
+        try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+            Map<String, Object> configs = db.hashMap("agent_configs", org.mapdb.Serializer.STRING, org.mapdb.Serializer.JAVA).createOrOpen();
+            configs.put("Coder", new AgentConfig(Provider.AZURE, "gpt-4o", "http://gpu:11434"));
+            Map<String, Object> goals = db.hashMap("project_goals", org.mapdb.Serializer.STRING, org.mapdb.Serializer.JAVA).createOrOpen();
+            goals.put("/project", new java.util.ArrayList<>(List.of(goal)));
+            db.commit();
+        }
+        try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(localDb.toString()).transactionEnable().make()) {
+            List<Object> stats = (List<Object>) db.indexTreeList("agent_stats", org.mapdb.Serializer.JAVA).createOrOpen();
+            stats.add(createStat("Legacy", true, 42));
+            db.commit();
+        }
+
+        CentralMemory migrated = new CentralMemory(sharedDb, localDb);
+        try {
+            AgentConfig config = migrated.getAgentConfigs("Coder");
+            assertNotNull(config);
+            assertEquals(Provider.AZURE, config.getProvider());
+            assertEquals("http://gpu:11434", config.getServerUrl());
+
+            List<Goal> goals = migrated.getGoals("/project");
+            assertEquals(1, goals.size());
+            assertEquals(goal.getId(), goals.get(0).getId());
+            assertEquals(goal.getCreatedAt(), goals.get(0).getCreatedAt());
+            assertEquals("Legacy sub-goal", goals.get(0).getSubGoals().get(0).getDescription());
+
+            List<AgentStat> stats = migrated.getAgentStats();
+            assertEquals(1, stats.size());
+            assertEquals("Legacy", stats.get(0).getAgentName());
+            assertEquals(42, stats.get(0).getDurationMs());
+
+            // Without legacy mirroring the Java-serialized store is never written again
+            migrated.saveAgentConfig("Tester", new AgentConfig(Provider.OLLAMA, "llama3"));
+            migrated.flush();
+            try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+                assertFalse(db.hashMap("agent_configs", org.mapdb.Serializer.STRING, org.mapdb.Serializer.JAVA)
+                    .createOrOpen().containsKey("Tester"));
+            }
+        } finally {
+            migrated.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void legacyMirrorKeepsJavaSerializedStoresInSync() throws Exception {
+        Path sharedDb = tempDir.resolve("legacy-mirror").resolve("central_memory.db");
+        Path localDb = tempDir.resolve("legacy-mirror").resolve("stats.db");
+        memory.close();
+        memory = null;
+
+        System.setProperty("mkpro.memory.legacyMirror", "true");
+        CentralMemory current;
+        try {
+            current = new CentralMemory(sharedDb, localDb, 0);
+        } finally {
+            System.clearProperty("mkpro.memory.legacyMirror");
+        }
+        try {
+            current.saveAgentConfig("Coder", new AgentConfig(Provider.AZURE, "gpt-4o"));
+            current.setGoals("/project", List.of(new Goal("Ship it")));
+            current.saveMcpServers(List.of(new McpServer("Files", "http://localhost:3000", McpServer.McpType.API)));
+
+            // An older instance only knows the Java-serialized stores
+            try (org.mapdb.DB db = org.mapdb.DBMaker.fileDB(sharedDb.toString()).transactionEnable().make()) {
+                Map<String, Object> configs = db.hashMap("agent_configs", org.mapdb.Serializer.STRING, org.mapdb.Serializer.JAVA).createOrOpen();
+                Map<String, Object> servers = db.hashMap("mcp_servers", org.mapdb.Serializer.STRING, org.mapdb.Serializer.JAVA).createOrOpen();
+                assertEquals("gpt-4o", ((AgentConfig) configs.get("Coder")).getModelName());
+                assertEquals(1, ((List<McpServer>) servers.get("all")).size());
+                configs.put("Coder", new AgentConfig(Provider.OLLAMA, "llama3"));
+                configs.put("Tester", new AgentConfig(Provider.GEMINI, "gemini-2.0-flash"));
+                servers.put("all", new java.util.ArrayList<McpServer>());
+                db.hashMap("project_goals", org.mapdb.Serializer.STRING, org.mapdb.Serializer.JAVA).createOrOpen().remove("/project");
+                db.commit();
+            }
+
+            current.refreshCache();
+            assertEquals("llama3", current.getAgentConfigs("Coder").getModelName());
+            assertEquals(Provider.GEMINI, current.getAgentConfigs("Tester").getProvider());
+            assertTrue(current.getMcpServers().isEmpty());
+            assertEquals(1, current.getGoals("/project").size(), "absence from the legacy store is not a delete");
+        } finally {
+            current.close();
+        }
+    }
+
+    @Test
+    void statTimestampSurvivesRoundTrip() throws Exception {
+        AgentStat stat = createStat("Coder", false, 1234);
+        memory.saveAgentStat(stat);
+
+        AgentStat loaded = memory.getAgentStats().get(0);
+        assertEquals(stat.getTimestamp(), loaded.getTimestamp());
+        assertFalse(loaded.isSuccess());
+        assertEquals(150, loaded.getTotalTokens());
+        assertEquals(stat.getSessionId(), loaded.getSessionId());
+    }
+
     // ==========================================================================
     // LISTENER TESTS
     // ==========================================================================
@@ -428,11 +718,54 @@ public class CentralMemoryTest {
         }
     }
 
+    @Test
+    void statRollupsTrackTotalsAndSessions() {
+        memory.saveAgentStat(createStat("Coder", true, 1000, "s1"));
+        memory.saveAgentStat(createStat("Coder", false, 3000, "s1"));
+        memory.saveAgentStat(createStat("Tester", true, 2000, "s2"));
+
+        List<StatBucket> totals = memory.getAgentStatTotals();
+        assertEquals(2, totals.size());
+        StatBucket coder = totals.stream().filter(b -> b.getAgentName().equals("Coder")).findFirst().orElseThrow();
+        assertEquals(2, coder.getCount());
+        assertEquals(1, coder.getSuccessCount());
+        assertEquals(300, coder.getTotalTokens());
+        assertEquals(2000, coder.getAvgLatencyMs());
+
+        assertEquals(2, memory.getStatSessionCount());
+        assertEquals("s2", memory.getLatestStatSessionId());
+        assertEquals(1, memory.getSessionStatTotals("s1").size());
+        assertEquals(2, memory.getSessionStatTotals("s1").get(0).getCount());
+        assertTrue(memory.getSessionStatTotals("unknown").isEmpty());
+
+        Instant now = Instant.now();
+        long lastHourCalls = memory.getAgentStatBuckets(AgentStatsRollup.Granularity.MINUTE,
+                now.minus(Duration.ofHours(1)), now.plusSeconds(60))
+                .stream().mapToLong(StatBucket::getCount).sum();
+        assertEquals(3, lastHourCalls);
+    }
+
+    @Test
+    void compactAgentStatsDropsRawRowsButKeepsTotals() throws Exception {
+        memory.saveAgentStat(createStat("Coder", true, 1000, "s1"));
+        memory.saveAgentStat(createStat("Coder", true, 1000, "s1"));
+        Thread.sleep(5);
+
+        assertEquals(2, memory.compactAgentStats(Duration.ZERO));
+        assertTrue(memory.getAgentStats().isEmpty());
+        assertEquals(2, memory.getAgentStatTotals().get(0).getCount());
+        assertEquals(2, memory.getSessionStatTotals("s1").get(0).getCount());
+    }
+
     // ==========================================================================
     // HELPERS
     // ==========================================================================
 
     private AgentStat createStat(String agentName, boolean success, long durationMs) {
+        return createStat(agentName, success, durationMs, "session-" + System.nanoTime());
+    }
+
+    private AgentStat createStat(String agentName, boolean success, long durationMs, String sessionId) {
         return new AgentStat(
                 agentName,
                 "GEMINI",
@@ -444,7 +777,7 @@ public class CentralMemoryTest {
                 50,    // promptTokens
                 100,   // candidateTokens
                 150,   // totalTokens
-                "session-" + System.nanoTime()
+                sessionId
         );
     }
 }
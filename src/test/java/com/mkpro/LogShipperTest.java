@@ -0,0 +1,129 @@
+package com.mkpro;
+
+import org.junit.jupiter.api.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for batched log shipping: NDJSON encoding, delivery to a master's
+ * LogHttpServer and bounded buffering while the master is unreachable.
+ */
+public class LogShipperTest {
+
+    private LogHttpServer master;
+    private LogShipper shipper;
+
+    @AfterEach
+    void tearDown() {
+        if (shipper != null) shipper.shutdown();
+        if (master != null) master.stop();
+    }
+
+    private static InstanceRegistry.InstanceInfo masterAt(int port) {
+        InstanceRegistry.InstanceInfo info = new InstanceRegistry.InstanceInfo();
+        info.name = "master";
+        info.httpPort = port;
+        return info;
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void encodedBatchIsIngestedLineByLine() throws Exception {
+        byte[] encoded = LogShipper.encode("worker-1", List.of("first", "second \"quoted\""));
+        LogHttpServer server = new LogHttpServer(0, 0);
+
+        int accepted = server.ingestBatch(new GZIPInputStream(new ByteArrayInputStream(encoded)));
+
+        assertEquals(2, accepted);
+        assertEquals(List.of("[worker-1] first", "[worker-1] second \"quoted\""), server.getAggregatedLogs());
+    }
+
+    @Test
+    void linesAreShippedToMasterInOneBatch() throws Exception {
+        int port = InstanceRegistry.findAvailablePort(18700);
+        master = new LogHttpServer(port, 0);
+        master.start();
+
+        shipper = new LogShipper(() -> masterAt(port), 100);
+        shipper.setInstanceName("worker-1");
+        for (int i = 0; i < 3; i++) shipper.add("line " + i);
+
+        waitFor(() -> shipper.getShippedCount() == 3);
+        assertEquals(3, shipper.getShippedCount());
+        assertEquals(List.of("[worker-1] line 0", "[worker-1] line 1", "[worker-1] line 2"), master.getAggregatedLogs());
+    }
+
+    @Test
+    void unreachableMasterKeepsNewestLinesUpToCapacity() throws Exception {
+        int deadPort = InstanceRegistry.findAvailablePort(18800);
+        shipper = new LogShipper(() -> masterAt(deadPort), 5);
+
+        for (int i = 0; i < 8; i++) shipper.add("line " + i);
+        waitFor(() -> shipper.getPendingCount() == 5); // between retries
+
+        assertEquals(0, shipper.getShippedCount());
+        assertEquals(5, shipper.getPendingCount());
+        assertEquals(3, shipper.getDroppedCount());
+    }
+
+    @Test
+    void legacyMasterFailureRetriesOnlyTheUndeliveredLines() throws Exception {
+        // A master without the batch endpoint that rejects the second line once
+        List<String> received = new CopyOnWriteArrayList<>();
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer legacy = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        legacy.createContext("/logs/aggregate", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            int status;
+            if (exchange.getRequestURI().getPath().endsWith("/batch")) {
+                status = 404;
+            } else if (requests.incrementAndGet() == 2) {
+                status = 500;
+            } else {
+                received.add(body);
+                status = 200;
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        legacy.start();
+        try {
+            int port = legacy.getAddress().getPort();
+            shipper = new LogShipper(() -> masterAt(port), 100);
+            shipper.setInstanceName("worker-1");
+            for (int i = 0; i < 3; i++) shipper.add("line " + i);
+
+            waitFor(() -> shipper.getShippedCount() == 3);
+            assertEquals(3, shipper.getShippedCount());
+            assertEquals(3, received.size(), "line 0 must not be resent: " + received);
+            for (int i = 0; i < 3; i++) {
+                assertTrue(received.get(i).contains("line " + i), received.toString());
+            }
+        } finally {
+            legacy.stop(0);
+        }
+    }
+
+    @Test
+    void nothingIsBufferedWithoutAMaster() {
+        shipper = new LogShipper(() -> null, 5);
+        shipper.add("line");
+        assertEquals(0, shipper.getPendingCount());
+    }
+}
@@ -0,0 +1,143 @@
+package com.mkpro;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the segmented ActionLogger store: paging across segment
+ * boundaries, time lookup, reopen/recovery, locking and retention.
+ */
+public class SegmentedLogStoreTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    private Path dir;
+    private SegmentedLogStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("segstore-");
+        store = new SegmentedLogStore(dir, SEGMENT_BYTES, 0, 0, false);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) store.close();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void appendEntries(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            store.append("entry-" + i, 1000 + i);
+        }
+        store.sync();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void rangeReadsCrossSegmentBoundaries() throws Exception {
+        appendEntries(2000);
+        assertTrue(segmentCount() > 1, "Expected several segments");
+        assertEquals(2000, store.size());
+
+        List<String> page = store.getRange(1234, 3);
+        assertEquals(List.of("entry-1234", "entry-1235", "entry-1236"), page);
+
+        // Spans every segment
+        List<String> all = store.getRange(0, 5000);
+        assertEquals(2000, all.size());
+        assertEquals("entry-1999", all.get(1999));
+    }
+
+    @Test
+    void latestPagesBackwardsFromTheEnd() throws Exception {
+        appendEntries(500);
+        assertEquals(List.of("entry-498", "entry-499"), store.getLatest(0, 2));
+        assertEquals(List.of("entry-488", "entry-489"), store.getLatest(10, 2));
+        assertEquals(List.of("entry-0"), store.getLatest(499, 5));
+        assertTrue(store.getLatest(600, 5).isEmpty());
+    }
+
+    @Test
+    void timeLookupUsesRecordTimestamps() throws Exception {
+        appendEntries(1000);
+        assertEquals(777, store.offsetForTime(1777));
+        assertEquals(0, store.offsetForTime(0));
+        assertEquals(1000, store.offsetForTime(Long.MAX_VALUE));
+        assertEquals(List.of("entry-100", "entry-101", "entry-102"), store.getRangeByTime(1100, 1103, 10));
+    }
+
+    @Test
+    void reopenRestoresEntriesAndContinuesOffsets() throws Exception {
+        appendEntries(1500);
+        store.close();
+
+        store = new SegmentedLogStore(dir, SEGMENT_BYTES, 0, 0, false);
+        assertEquals(1500, store.size());
+        assertEquals("entry-1321", store.getRange(1321, 1).get(0));
+        assertEquals(1500, store.append("after reopen"));
+        assertEquals(List.of("after reopen"), store.getLatest(0, 1));
+    }
+
+    @Test
+    void tornRecordIsDiscardedOnReopen() throws Exception {
+        appendEntries(3);
+        store.close();
+
+        // Simulate a crash after the length was written but before the timestamp
+        Path active;
+        try (Stream<Path> files = Files.list(dir)) {
+            active = files.filter(p -> p.toString().endsWith(".seg")).max(Comparator.naturalOrder()).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(active, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+            int pos = 0;
+            for (int i = 0; i < 3; i++) pos += 12 + buffer.getInt(pos);
+            buffer.putInt(pos, 40);
+            buffer.put(pos + 4, "half-written".getBytes());
+            buffer.force();
+        }
+
+        store = new SegmentedLogStore(dir, SEGMENT_BYTES, 0, 0, false);
+        assertEquals(3, store.size());
+        store.append("x");
+        store.append("y");
+        assertEquals(List.of("entry-2", "x", "y"), store.getLatest(0, 3));
+    }
+
+    @Test
+    void secondOpenOfSameDirectoryFails() {
+        assertThrows(IOException.class, () -> new SegmentedLogStore(dir, SEGMENT_BYTES, 0, 0, false));
+    }
+
+    @Test
+    void retentionDropsOldestSegmentsOverBudget() throws Exception {
+        appendEntries(2000);
+        store.close();
+
+        store = new SegmentedLogStore(dir, SEGMENT_BYTES, 0, SEGMENT_BYTES * 3L, false);
+        assertTrue(segmentCount() <= 3);
+        long first = store.firstOffset();
+        assertTrue(first > 0);
+        assertEquals(2000, store.endOffset());
+        // Offsets before the retained range are clamped
+        assertEquals("entry-" + first, store.getRange(0, 1).get(0));
+    }
+}
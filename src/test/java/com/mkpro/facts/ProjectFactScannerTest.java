@@ -0,0 +1,118 @@
+package com.mkpro.facts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for re-scanning project files: each file's facts are replaced, not
+ * accumulated, and disappear with the file.
+ */
+public class ProjectFactScannerTest {
+
+    @TempDir
+    Path project;
+
+    private FactEngine engine;
+    private ProjectFactScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        engine = new FactEngine();
+        scanner = new ProjectFactScanner(engine);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    private Path writePom(String junitVersion) throws Exception {
+        return Files.writeString(project.resolve("pom.xml"),
+            "<project>\n  <dependency>\n    <artifactId>junit</artifactId>\n    <version>" + junitVersion
+                + "</version>\n  </dependency>\n</project>\n");
+    }
+
+    private List<String> targets(String domain) {
+        return engine.getGraph().getAllEdges().stream()
+            .filter(e -> domain.equals(e.domain))
+            .map(e -> e.target)
+            .collect(Collectors.toList());
+    }
+
+    private Set<String> projectMathKeys() {
+        return engine.getStore().getAllMathFacts().stream()
+            .map(MathFact::getKey)
+            .filter(k -> k.startsWith("project."))
+            .collect(Collectors.toSet());
+    }
+
+    @Test
+    void rescanningAFileReplacesItsFacts() throws Exception {
+        Path pom = writePom("5.10.0");
+        scanner.scan(project);
+        scanner.scanFiles(project, List.of(pom));
+        assertEquals(List.of("junit 5.10.0"), targets("project:pom.xml"));
+
+        // A version bump is not rejected as contradicting the old version
+        writePom("5.11.0");
+        scanner.scanFiles(project, List.of(pom));
+        assertEquals(List.of("junit 5.11.0"), targets("project:pom.xml"));
+        assertEquals(1, engine.getStore().getAllRelationships().stream()
+            .filter(t -> "project:pom.xml".equals(t.getDomain())).count());
+    }
+
+    @Test
+    void formulaKeysAreStableAcrossRescans() throws Exception {
+        Path pkg = Files.createDirectories(project.resolve("src/demo"));
+        Path source = Files.writeString(pkg.resolve("Rates.java"),
+            "class Rates {\n  static final int MAX_RATE = 10;\n"
+                + "  // formula: rate = hits / window\n  // formula: window = end - start\n}\n");
+        scanner.scan(project);
+        Set<String> keys = projectMathKeys();
+        assertEquals(Set.of("project.src/demo/Rates.java#0", "project.src/demo/Rates.java#1"), keys);
+
+        scanner.scanFiles(project, List.of(source));
+        scanner.scan(project);
+        assertEquals(keys, projectMathKeys());
+        assertEquals(List.of("max_rate = 10"), targets("project:src/demo/Rates.java"));
+    }
+
+    @Test
+    void deletedFilesLoseTheirFacts() throws Exception {
+        Path pkg = Files.createDirectories(project.resolve("src/demo"));
+        Path source = Files.writeString(pkg.resolve("Limits.java"),
+            "class Limits {\n  static final int MAX_SIZE = 64;\n  // formula: size = n * 2\n}\n");
+        scanner.scan(project);
+        assertFalse(targets("project:src/demo/Limits.java").isEmpty());
+
+        Files.delete(source);
+        scanner.scanFiles(project, List.of(source));
+        assertTrue(targets("project:src/demo/Limits.java").isEmpty());
+        assertTrue(projectMathKeys().isEmpty());
+    }
+
+    @Test
+    void fullScanDropsFactsOfFilesThatAreNowIgnored() throws Exception {
+        Path pkg = Files.createDirectories(project.resolve("gen"));
+        Files.writeString(pkg.resolve("Limits.java"),
+            "class Limits {\n  static final int MAX_SIZE = 64;\n  // formula: size = n * 2\n}\n");
+        scanner.scan(project);
+        assertFalse(targets("project:gen/Limits.java").isEmpty());
+
+        // Never visited again, so only a full reset can drop its facts
+        Files.writeString(project.resolve(".gitignore"), "gen/\n");
+        scanner.scan(project);
+        assertTrue(targets("project:gen/Limits.java").isEmpty());
+        assertTrue(projectMathKeys().isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.mkpro.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel scanner: agreement with a single-threaded scan, reuse
+ * of unchanged files through the per-file cache, and persisting that cache.
+ */
+public class JavaParserScannerTest {
+
+    @TempDir
+    Path project;
+
+    private Path writeSources(int count) throws Exception {
+        Path pkg = Files.createDirectories(project.resolve("src/main/java/demo"));
+        for (int i = 0; i < count; i++) {
+            String parent = i == 0 ? "" : " extends Type" + (i - 1);
+            Files.writeString(pkg.resolve("Type" + i + ".java"),
+                "package demo;\n\npublic class Type" + i + parent + " {\n"
+                    + "    void run() { helper(); }\n"
+                    + "    void helper() {}\n"
+                    + "}\n");
+        }
+        return pkg;
+    }
+
+    private static Set<String> entityIds(ExtractionResult result) {
+        return result.entities().stream().map(Entity::id).collect(Collectors.toSet());
+    }
+
+    @Test
+    void parallelScanMatchesSingleThreadedScan() throws Exception {
+        writeSources(12);
+        ExtractionResult parallel = new JavaParserScanner(4).scan(project);
+        ExtractionResult sequential = new JavaParserScanner(1).scan(project);
+
+        assertEquals(sequential, parallel);
+        assertTrue(entityIds(parallel).contains("demo.Type11"));
+        assertTrue(entityIds(parallel).contains("demo.Type11.helper"));
+        assertTrue(parallel.relationships().stream()
+            .anyMatch(r -> r.type() == RelType.EXTENDS && r.sourceId().equals("demo.Type3")));
+        assertTrue(parallel.entities().stream()
+            .allMatch(e -> e.metadata().get(JavaParserScanner.FILE_KEY).toString().startsWith("src/main/java/demo/")));
+    }
+
+    @Test
+    void unchangedFilesAreReusedFromTheFileCache() throws Exception {
+        Path pkg = writeSources(6);
+        JavaParserScanner scanner = new JavaParserScanner(3);
+        Map<String, FileExtraction> cache = new HashMap<>();
+
+        ExtractionResult first = scanner.scan(project, cache);
+        assertEquals(6, cache.size());
+        assertEquals(6, scanner.getLastStats().parsed());
+
+        ExtractionResult second = scanner.scan(project, cache);
+        assertEquals(first, second);
+        assertEquals(6, scanner.getLastStats().reused());
+        assertEquals(0, scanner.getLastStats().parsed());
+
+        // One edit, one delete, one unparsable file
+        Files.writeString(pkg.resolve("Type2.java"), "package demo;\n\npublic class Type2 { void renamed() {} }\n");
+        Files.delete(pkg.resolve("Type5.java"));
+        Files.writeString(pkg.resolve("Broken.java"), "package demo; class Broken {");
+        ExtractionResult third = scanner.scan(project, cache);
+
+        JavaParserScanner.ScanStats stats = scanner.getLastStats();
+        assertEquals(6, stats.files());
+        assertEquals(4, stats.reused());
+        assertEquals(2, stats.parsed());
+        assertEquals(1, stats.failed());
+        assertFalse(cache.containsKey("src/main/java/demo/Type5.java"));
+        assertTrue(cache.get("src/main/java/demo/Broken.java").result().entities().isEmpty());
+        assertTrue(entityIds(third).contains("demo.Type2.renamed"));
+        assertFalse(entityIds(third).contains("demo.Type2.helper"));
+        assertFalse(entityIds(third).contains("demo.Type5"));
+    }
+
+    @Test
+    void aFileThatFailsThisScanKeepsItsCachedEntities() throws Exception {
+        Path pkg = writeSources(2);
+        JavaParserScanner scanner = new JavaParserScanner(2);
+        Map<String, FileExtraction> cache = new HashMap<>();
+        scanner.scan(project, cache);
+
+        // Deep enough to overflow JavaParser's recursion, which leaves no new entry
+        int depth = 100_000;
+        Files.writeString(pkg.resolve("Type1.java"),
+            "package demo; class Type1 { int x = " + "(".repeat(depth) + "1" + ")".repeat(depth) + "; }");
+        ExtractionResult result = scanner.scan(project, cache);
+
+        assertEquals(1, scanner.getLastStats().failed());
+        assertTrue(entityIds(result).contains("demo.Type1.helper"));
+        assertTrue(entityIds(result).contains("demo.Type0"));
+    }
+
+    @Test
+    void fileExtractionsRoundTripThroughTheRepository() throws Exception {
+        writeSources(3);
+        Map<String, FileExtraction> cache = new HashMap<>();
+        new JavaParserScanner(2).scan(project, cache);
+
+        String dbPath = project.resolve("cache/graphify.db").toString();
+        try (MapDbGraphRepository repository = new MapDbGraphRepository(dbPath)) {
+            repository.saveFileExtractions(cache);
+        }
+        cache.remove("src/main/java/demo/Type0.java");
+        try (MapDbGraphRepository repository = new MapDbGraphRepository(dbPath)) {
+            assertEquals(3, repository.loadFileExtractions().size());
+            repository.saveFileExtractions(cache);
+        }
+        try (MapDbGraphRepository repository = new MapDbGraphRepository(dbPath)) {
+            Map<String, FileExtraction> loaded = repository.loadFileExtractions();
+            assertEquals(cache.keySet(), loaded.keySet());
+            FileExtraction type1 = loaded.get("src/main/java/demo/Type1.java");
+            assertEquals(cache.get("src/main/java/demo/Type1.java").contentHash(), type1.contentHash());
+            assertEquals(entityIds(cache.get("src/main/java/demo/Type1.java").result()), entityIds(type1.result()));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mkpro.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the codebase index chunkers: declaration boundaries, line ranges,
+ * coverage of large inputs and the parse-failure fallback.
+ */
+public class ChunkerTest {
+
+    private static List<CodeSearchIndex.Chunk> chunk(Chunker chunker, String content) throws IOException {
+        List<CodeSearchIndex.Chunk> chunks = new ArrayList<>();
+        chunker.chunk("src/Sample.java", new StringReader(content), chunks::add);
+        return chunks;
+    }
+
+    /** A method of {@code lines} statement lines, about 60 characters each. */
+    private static String method(String name, int lines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("    /** Does ").append(name).append(". */\n");
+        sb.append("    void ").append(name).append("() {\n");
+        for (int i = 0; i < lines; i++) {
+            sb.append("        System.out.println(\"").append(name).append(" line ").append(i).append("\");\n");
+        }
+        sb.append("    }\n\n");
+        return sb.toString();
+    }
+
+    @Test
+    void javaChunksStartAtMemberBoundariesWithTheirJavadoc() throws IOException {
+        String source = "package demo;\n\nclass Sample {\n" + method("first", 20) + method("second", 20)
+                + method("third", 20) + "}\n";
+        List<CodeSearchIndex.Chunk> chunks = chunk(new JavaChunker(), source);
+
+        assertTrue(chunks.size() > 1);
+        String[] lines = source.split("\n", -1);
+        for (CodeSearchIndex.Chunk chunk : chunks) {
+            assertEquals(chunk.offset(), source.indexOf(chunk.text(), chunk.offset()), "offset points at the text");
+            assertTrue(source.startsWith(chunk.text(), chunk.offset()));
+            // Line range matches the text
+            String first = chunk.text().split("\n", -1)[0];
+            assertEquals(lines[chunk.startLine() - 1], first);
+            assertEquals(chunk.startLine() + chunk.text().stripTrailing().split("\n", -1).length - 1, chunk.endLine());
+        }
+        // Each method's chunk starts at its Javadoc, not mid-body
+        for (String name : List.of("second", "third")) {
+            assertTrue(chunks.stream().anyMatch(c -> c.text().startsWith("    /** Does " + name + ". */")),
+                    name + " starts a chunk");
+        }
+        assertTrue(chunks.stream().noneMatch(c -> c.text().startsWith("        System.out")));
+        assertEquals("src/Sample.java:" + chunks.get(0).startLine() + "-" + chunks.get(0).endLine(),
+                chunks.get(0).location());
+    }
+
+    @Test
+    void unparsableJavaFallsBackToTextChunking() throws IOException {
+        String source = "class Broken {\n" + method("one", 30) + method("two", 30) + "  void missingBrace( {\n";
+        List<CodeSearchIndex.Chunk> java = chunk(new JavaChunker(), source);
+        List<CodeSearchIndex.Chunk> text = chunk(new TextChunker(), source);
+        assertEquals(text, java);
+        assertFalse(java.isEmpty());
+    }
+
+    @Test
+    void textChunkerCoversLargeInputsContiguously() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("def f").append(i).append("():\n    return ").append(i).append("\n\n");
+        }
+        sb.append("x".repeat(Chunker.MAX_CHARS * 3)).append('\n'); // one minified line
+        sb.append("tail\n");
+        String content = sb.toString();
+        List<CodeSearchIndex.Chunk> chunks = chunk(new TextChunker(), content);
+
+        int expectedOffset = 0;
+        int expectedLine = 1;
+        StringBuilder rebuilt = new StringBuilder();
+        for (CodeSearchIndex.Chunk chunk : chunks) {
+            // Only whitespace is ever skipped between chunks
+            assertTrue(content.substring(expectedOffset, chunk.offset()).isBlank());
+            expectedLine += (int) content.substring(expectedOffset, chunk.offset()).chars().filter(c -> c == '\n').count();
+            assertEquals(expectedLine, chunk.startLine(), "line of chunk at " + chunk.offset());
+            assertTrue(chunk.text().length() <= Chunker.MAX_CHARS);
+            rebuilt.append(content, expectedOffset, chunk.offset()).append(chunk.text());
+            expectedOffset = chunk.offset() + chunk.text().length();
+            expectedLine += (int) chunk.text().chars().filter(c -> c == '\n').count();
+        }
+        assertEquals(content.stripTrailing(), rebuilt.toString().stripTrailing(), "nothing truncated");
+        assertTrue(chunks.get(chunks.size() - 1).text().contains("tail"));
+    }
+
+    @Test
+    void forFilePicksTheChunkerByExtensionAndSize() {
+        assertInstanceOf(JavaChunker.class, Chunker.forFile("src/A.java", 10_000));
+        assertInstanceOf(TextChunker.class, Chunker.forFile("src/A.java", JavaChunker.MAX_PARSE_CHARS + 1L));
+        assertInstanceOf(TextChunker.class, Chunker.forFile("README.md", 10_000));
+    }
+}
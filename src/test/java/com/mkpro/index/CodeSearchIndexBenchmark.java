@@ -0,0 +1,116 @@
+package com.mkpro.index;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Search latency of the HNSW index against an exhaustive scan, on this repository's
+ * own sources chunked the way index_codebase chunks them. Setup also prints the
+ * indexing time and recall@10 of the graph search against the exhaustive one.
+ *
+ * {@code copies} indexes the tree several times under different prefixes to get
+ * past the graph threshold and to stress near-duplicate chunks.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.mkpro.index.CodeSearchIndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dmkpro.index.graphThreshold=256")
+@State(Scope.Benchmark)
+public class CodeSearchIndexBenchmark {
+
+    private static final String[] QUERIES = {
+        "save the markov model to a file",
+        "predict whether the agents are stalling",
+        "parse the yaml team configuration",
+        "broadcast a message to websocket clients",
+        "flush checkpoints on shutdown",
+        "classify user intent by keywords",
+        "respect gitignore rules when scanning",
+        "discover peers on the local network",
+        "read an image from the clipboard",
+        "run a shell command with a timeout",
+        "approve or reject a proposed file edit",
+        "rotate log segments",
+        "download a jlama model",
+        "command allow list security policy",
+    };
+
+    @Param({"1", "4"})
+    public int copies;
+
+    private CodeSearchIndex index;
+    private int next;
+
+    @Setup
+    public void indexRepository() throws IOException {
+        index = new CodeSearchIndex(null, new LocalEmbeddingService(new HashedNgramEmbedder()));
+        Path root = Paths.get("").toAbsolutePath();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root.resolve("src"))) {
+            files = paths.filter(p -> p.toString().endsWith(".java") || p.toString().endsWith(".md"))
+                    .collect(Collectors.toList());
+        }
+        long start = System.nanoTime();
+        for (int copy = 0; copy < copies; copy++) {
+            for (Path file : files) {
+                String content = Files.readString(file);
+                String relative = (copy == 0 ? "" : "copy" + copy + "/") + root.relativize(file).toString().replace('\\', '/');
+                List<CodeSearchIndex.Chunk> chunks = new ArrayList<>();
+                for (int offset = 0; offset < content.length(); offset += 1000) {
+                    chunks.add(new CodeSearchIndex.Chunk(relative, offset,
+                            content.substring(offset, Math.min(content.length(), offset + 1000))));
+                }
+                index.replaceFile(relative, chunks);
+            }
+        }
+        long indexMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        double recall = 0;
+        for (String query : QUERIES) {
+            Set<String> expected = new HashSet<>();
+            for (CodeSearchIndex.Hit hit : index.searchExact(query, 10)) expected.add(hit.chunk().id());
+            long found = index.search(query, 10).stream().filter(hit -> expected.contains(hit.chunk().id())).count();
+            recall += (double) found / Math.max(1, expected.size());
+        }
+        System.out.printf("%n[CodeSearchIndexBenchmark] %d chunks indexed in %d ms, graph=%b, recall@10=%.3f%n",
+                index.size(), indexMs, index.hasGraph(), recall / QUERIES.length);
+    }
+
+    private String nextQuery() {
+        return QUERIES[next++ % QUERIES.length];
+    }
+
+    @Benchmark
+    public void hnsw(Blackhole bh) {
+        bh.consume(index.search(nextQuery(), 10));
+    }
+
+    @Benchmark
+    public void exhaustive(Blackhole bh) {
+        bh.consume(index.searchExact(nextQuery(), 10));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CodeSearchIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
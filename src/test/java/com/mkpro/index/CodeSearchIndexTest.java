@@ -0,0 +1,161 @@
+package com.mkpro.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the offline embeddings and the quantised HNSW code index.
+ */
+public class CodeSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CodeSearchIndex newIndex(Path path) {
+        return new CodeSearchIndex(path, new LocalEmbeddingService(new HashedNgramEmbedder()));
+    }
+
+    @Test
+    void hashedEmbeddingsMatchIdentifierParts() {
+        HashedNgramEmbedder embedder = new HashedNgramEmbedder();
+        float[] query = embedder.embed("load user profile");
+        float[] related = embedder.embed("public UserProfile loadUserProfile(String id) { return repo.find(id); }");
+        float[] unrelated = embedder.embed("docker compose up -d --build nginx");
+
+        assertTrue(VectorMath.dot(query, related) > 0.3, "camelCase parts should match words");
+        assertTrue(VectorMath.dot(query, related) > VectorMath.dot(query, unrelated) + 0.2);
+        assertEquals(1.0, VectorMath.dot(related, related), 1e-4, "vectors are unit length");
+        assertArrayEquals(related, embedder.embed("public UserProfile loadUserProfile(String id) { return repo.find(id); }"),
+                "embeddings are deterministic");
+        assertEquals(List.of("http", "server", "v", "2", "config"), HashedNgramEmbedder.splitIdentifier("HTTPServer_v2Config"));
+    }
+
+    @Test
+    void embeddingServicePadsToTheStoreWidth() {
+        LocalEmbeddingService service = new LocalEmbeddingService(new HashedNgramEmbedder(64));
+        double[] padded = service.generateEmbedding("index the codebase").blockingGet();
+        assertEquals(LocalEmbeddingService.STORE_DIMENSION, padded.length);
+        assertEquals(64, service.embed("index the codebase").length);
+        assertEquals(2, service.embedAll(List.of("a bc", "de fg")).size());
+    }
+
+    @Test
+    void searchFindsTheRelevantFileAndReplacingAFileDropsItsOldChunks() {
+        CodeSearchIndex index = newIndex(null);
+        index.replaceFile("src/Auth.java", List.of(
+                new CodeSearchIndex.Chunk("src/Auth.java", 0, "class AuthService { boolean verifyPassword(String hash) {} }"),
+                new CodeSearchIndex.Chunk("src/Auth.java", 1000, "void issueSessionToken(User user) {}")));
+        index.replaceFile("src/Invoice.java", List.of(
+                new CodeSearchIndex.Chunk("src/Invoice.java", 0, "class InvoiceRenderer { String renderPdf(Invoice invoice) {} }")));
+
+        assertEquals("src/Auth.java", index.search("verify the password hash", 1).get(0).chunk().file());
+        assertEquals("src/Invoice.java", index.search("render invoice pdf", 1).get(0).chunk().file());
+        assertEquals(3, index.size());
+
+        index.replaceFile("src/Auth.java", List.of(
+                new CodeSearchIndex.Chunk("src/Auth.java", 0, "class AuthService { void logout() {} }")));
+        assertEquals(2, index.size());
+        for (CodeSearchIndex.Hit hit : index.search("session token", 5)) {
+            assertFalse(hit.chunk().text().contains("issueSessionToken"), "stale chunk still indexed");
+        }
+
+        index.removeFile("src/Invoice.java");
+        assertFalse(index.containsFile("src/Invoice.java"));
+        assertEquals(1, index.fileCount());
+    }
+
+    @Test
+    void graphSearchRecallsTheExactNeighbours() throws Exception {
+        int dimension = 48;
+        QuantizedVectorIndex index = new QuantizedVectorIndex(dimension);
+        Random random = new Random(7);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < QuantizedVectorIndex.DEFAULT_GRAPH_AT + 500; i++) {
+            float[] v = new float[dimension];
+            for (int d = 0; d < dimension; d++) v[d] = (float) random.nextGaussian();
+            vectors.add(VectorMath.normalize(v));
+            index.add(v);
+        }
+        assertTrue(index.hasGraph());
+
+        // Remove a tenth; they must never come back as results
+        Set<Integer> removed = new HashSet<>();
+        for (int slot = 0; slot < vectors.size(); slot += 10) {
+            index.remove(slot);
+            removed.add(slot);
+        }
+
+        double recall = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = vectors.get(random.nextInt(vectors.size())).clone();
+            for (int d = 0; d < dimension; d++) query[d] += (float) (0.3 * random.nextGaussian());
+            VectorMath.normalize(query);
+            Set<Integer> exact = new HashSet<>();
+            index.searchExact(query, 10).forEach(hit -> exact.add(hit.slot()));
+            List<QuantizedVectorIndex.Hit> approximate = index.search(query, 10);
+            assertEquals(10, approximate.size());
+            for (QuantizedVectorIndex.Hit hit : approximate) {
+                assertFalse(removed.contains(hit.slot()), "removed vector returned");
+                if (exact.contains(hit.slot())) recall += 0.1;
+            }
+        }
+        assertTrue(recall / queries > 0.9, "recall@10 = " + recall / queries);
+
+        // The graph is saved with the vectors, not rebuilt on load
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        QuantizedVectorIndex loaded = QuantizedVectorIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertTrue(loaded.hasGraph());
+        assertEquals(index.size(), loaded.size());
+        float[] query = vectors.get(1);
+        assertEquals(index.search(query, 10), loaded.search(query, 10));
+
+        // Past a quarter tombstones the graph is rebuilt and their slots reused
+        for (int slot = 1; slot < vectors.size(); slot += 3) {
+            index.remove(slot);
+            removed.add(slot);
+        }
+        assertEquals(vectors.size() - removed.size(), index.size());
+        for (QuantizedVectorIndex.Hit hit : index.search(vectors.get(1), 10)) {
+            assertFalse(removed.contains(hit.slot()), "removed vector returned");
+        }
+        assertTrue(removed.contains(index.add(vectors.get(1))), "freed slot reused");
+    }
+
+    @Test
+    void indexSurvivesSaveAndLoad() throws Exception {
+        Path path = tempDir.resolve("code_index.bin");
+        CodeSearchIndex index = newIndex(path);
+        List<CodeSearchIndex.Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            chunks.add(new CodeSearchIndex.Chunk("src/Big.java", i * 1000, "void handler" + i + "() { process(event" + i + "); }"));
+        }
+        index.replaceFile("src/Big.java", chunks);
+        index.replaceFile("docs/über.md", List.of(new CodeSearchIndex.Chunk("docs/über.md", 0, "Café deployment notes")));
+        index.save();
+
+        CodeSearchIndex loaded = CodeSearchIndex.open(path, new LocalEmbeddingService(new HashedNgramEmbedder()));
+        assertEquals(41, loaded.size());
+        assertEquals(2, loaded.fileCount());
+        assertEquals("src/Big.java#17000", loaded.search("handler17 event17", 1).get(0).chunk().id());
+        assertEquals("Café deployment notes", loaded.search("deployment notes", 1).get(0).chunk().text());
+
+        // A different embedding backend can't reuse the vectors
+        CodeSearchIndex other = CodeSearchIndex.open(path, new LocalEmbeddingService(new HashedNgramEmbedder(256)));
+        assertEquals(0, other.size());
+    }
+}
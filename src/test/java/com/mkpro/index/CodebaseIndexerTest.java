@@ -0,0 +1,133 @@
+package com.mkpro.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for incremental, parallel codebase indexing.
+ */
+public class CodebaseIndexerTest {
+
+    @TempDir
+    Path project;
+
+    private CodeSearchIndex newIndex() {
+        return new CodeSearchIndex(project.resolve(".mkpro").resolve("code_index.bin"),
+                new LocalEmbeddingService(new HashedNgramEmbedder()));
+    }
+
+    private void write(String file, String content) throws Exception {
+        Path path = project.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+
+    @Test
+    void reindexingOnlyTouchesChangedAndRemovedFiles() throws Exception {
+        write("src/Auth.java", "class AuthService { boolean verifyPassword(String hash) { return true; } }");
+        write("src/Invoice.java", "class InvoiceRenderer { String renderPdf() { return null; } }");
+        write("src/Old.java", "class LegacyThing {}");
+        write("node_modules/lib/index.js", "module.exports = 1;");
+        write("generated/Gen.java", "class Generated {}");
+        write("README.bin", "not indexable");
+        Files.writeString(project.resolve(".gitignore"), "generated/\n");
+
+        CodeSearchIndex index = newIndex();
+        CodebaseIndexer indexer = new CodebaseIndexer(project, index, 4);
+        List<CodebaseIndexer.Progress> reports = new ArrayList<>();
+        CodebaseIndexer.Stats first = indexer.index(project, reports::add);
+        assertEquals(3, first.filesScanned(), "ignored and non-indexable files are skipped");
+        assertEquals(3, first.filesIndexed());
+        assertEquals("done", reports.get(reports.size() - 1).phase());
+        assertEquals(List.of("src/Auth.java#0"), index.chunkIds("src/Auth.java"));
+
+        // Nothing changed: nothing is read or embedded
+        CodebaseIndexer.Stats second = indexer.index(project, null);
+        assertEquals(0, second.filesIndexed());
+        assertEquals(3, second.filesUnchanged());
+
+        // Touched but identical content is re-stamped, not re-embedded
+        Path auth = project.resolve("src/Auth.java");
+        Files.setLastModifiedTime(auth, FileTime.fromMillis(Files.getLastModifiedTime(auth).toMillis() + 5000));
+        CodebaseIndexer.Stats touched = indexer.index(project, null);
+        assertEquals(0, touched.filesIndexed());
+        assertEquals(1, touched.filesRestamped());
+        assertEquals(3, touched.filesUnchanged());
+        assertEquals(0, touched.filesFailed());
+        assertEquals(Files.getLastModifiedTime(auth).toMillis(), index.stampOf("src/Auth.java").modifiedMillis());
+
+        // One edit and one deletion
+        write("src/Invoice.java", "class InvoiceRenderer { String renderCsv() { return null; } }");
+        Files.setLastModifiedTime(project.resolve("src/Invoice.java"), FileTime.fromMillis(1));
+        Files.delete(project.resolve("src/Old.java"));
+        CodebaseIndexer.Stats third = indexer.index(project, null);
+        assertEquals(1, third.filesIndexed());
+        assertEquals(1, third.filesRemoved());
+        assertFalse(index.containsFile("src/Old.java"));
+        assertTrue(index.search("render csv", 1).get(0).chunk().text().contains("renderCsv"));
+
+        // The manifest is saved with the vectors
+        CodeSearchIndex reloaded = CodeSearchIndex.open(project.resolve(".mkpro").resolve("code_index.bin"),
+                new LocalEmbeddingService(new HashedNgramEmbedder()));
+        assertEquals(index.stampOf("src/Auth.java"), reloaded.stampOf("src/Auth.java"));
+        assertEquals(0, new CodebaseIndexer(project, reloaded, 2).index(project, null).filesIndexed());
+    }
+
+    @Test
+    void indexFilesRemovesPathsThatAreGoneOrIgnored() throws Exception {
+        write("src/A.java", "class Alpha {}");
+        write("src/B.java", "class Beta {}");
+        CodeSearchIndex index = newIndex();
+        CodebaseIndexer indexer = new CodebaseIndexer(project, index, 2);
+        indexer.index(project, null);
+
+        Files.delete(project.resolve("src/B.java"));
+        write("src/A.java", "class AlphaRenamed { void longer() {} }");
+        CodebaseIndexer.Stats stats = indexer.indexFiles(
+                List.of(project.resolve("src/A.java"), project.resolve("src/B.java")), null);
+        assertEquals(1, stats.filesIndexed());
+        assertEquals(1, stats.filesRemoved());
+        assertFalse(index.containsFile("src/B.java"));
+        assertTrue(index.search("alpha renamed", 1).get(0).chunk().text().contains("AlphaRenamed"));
+    }
+
+    @Test
+    void largeScopesAreBatchedAcrossManyFiles() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            write("pkg" + (i % 7) + "/File" + i + ".java", "class File" + i + " { int value = " + i + "; }");
+        }
+        CodeSearchIndex index = newIndex();
+        CodebaseIndexer.Stats stats = new CodebaseIndexer(project, index, 4).index(project.resolve("pkg3"), null);
+        assertEquals(43, stats.filesIndexed());
+        assertEquals(43, index.fileCount(), "only the scope is indexed");
+        stats = new CodebaseIndexer(project, index, 4).index(project, null);
+        assertEquals(257, stats.filesIndexed());
+        assertEquals(300, index.size());
+    }
+
+    @Test
+    void aFileThatOverflowsTheParserIsSkippedWithoutStallingTheRun() throws Exception {
+        int depth = 100_000; // deep enough to overflow JavaParser's recursion
+        write("src/Deep.java", "class Deep { int x = " + "(".repeat(depth) + "1" + ")".repeat(depth) + "; }");
+        write("src/Fine.java", "class FineService { void work() {} }");
+        CodeSearchIndex index = newIndex();
+        CodebaseIndexer indexer = new CodebaseIndexer(project, index, 2);
+
+        CodebaseIndexer.Stats stats = assertTimeoutPreemptively(Duration.ofSeconds(60), () -> indexer.index(project, null));
+        assertEquals(2, stats.filesScanned());
+        assertEquals(1, stats.filesIndexed());
+        assertEquals(1, stats.filesFailed());
+        assertEquals(0, stats.filesUnchanged(), "a failed read is not unchanged");
+        assertTrue(index.containsFile("src/Fine.java"));
+        assertFalse(index.containsFile("src/Deep.java"));
+    }
+}
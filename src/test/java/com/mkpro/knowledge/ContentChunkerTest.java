@@ -0,0 +1,61 @@
+package com.mkpro.knowledge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentChunkerTest {
+
+    @Test
+    void editOnlyChangesTheTouchedParagraph() {
+        String before = "Intro paragraph about releases.\n\nSecond paragraph on GC.\n\nThird paragraph on JIT.";
+        String after = "Intro paragraph about releases.\n\nSecond paragraph on GC, now with ZGC.\n\nThird paragraph on JIT.";
+
+        Set<String> old = ContentChunker.split(before).stream().map(ContentChunker.Chunk::hash).collect(Collectors.toSet());
+        List<ContentChunker.Chunk> fresh = ContentChunker.split(after).stream()
+                .filter(c -> !old.contains(c.hash()))
+                .toList();
+
+        assertEquals(1, fresh.size());
+        assertTrue(fresh.get(0).text().contains("ZGC"));
+    }
+
+    @Test
+    void whitespaceReflowKeepsHashesAndLongParagraphsAreCut() {
+        assertEquals(ContentChunker.split("a  b\nc").get(0).hash(), ContentChunker.split("a b c").get(0).hash());
+
+        String longParagraph = "This sentence repeats to fill space. ".repeat(100);
+        List<ContentChunker.Chunk> chunks = ContentChunker.split(longParagraph);
+        assertTrue(chunks.size() > 1);
+        for (ContentChunker.Chunk chunk : chunks) {
+            assertTrue(chunk.text().length() <= ContentChunker.MAX_CHUNK_CHARS);
+        }
+    }
+
+    @Test
+    void insertionInALongParagraphOnlyChangesNearbyChunks() {
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            page.append("Release note ").append(i).append(" changes module ").append(i * 37 % 101).append(".\n");
+        }
+        String before = page.toString();
+        String after = before.replace("Release note 20 ", "A new sentence was inserted right here. Release note 20 ");
+
+        List<ContentChunker.Chunk> oldChunks = ContentChunker.split(before);
+        Set<String> old = oldChunks.stream().map(ContentChunker.Chunk::hash).collect(Collectors.toSet());
+        List<ContentChunker.Chunk> fresh = ContentChunker.split(after).stream()
+                .filter(c -> !old.contains(c.hash()))
+                .toList();
+
+        assertTrue(oldChunks.size() > 10, "chunks: " + oldChunks.size());
+        assertTrue(fresh.size() <= 2, "unseen chunks: " + fresh.size());
+        assertTrue(fresh.stream().anyMatch(c -> c.text().contains("inserted")));
+        for (ContentChunker.Chunk chunk : oldChunks) {
+            assertTrue(chunk.text().length() <= ContentChunker.MAX_CHUNK_CHARS);
+        }
+    }
+}
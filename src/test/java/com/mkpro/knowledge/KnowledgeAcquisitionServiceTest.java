@@ -0,0 +1,88 @@
+package com.mkpro.knowledge;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for KnowledgeAcquisitionService — cross-stream dedup and the bounded queue.
+ */
+public class KnowledgeAcquisitionServiceTest {
+
+    private KnowledgeAcquisitionService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.shutdown();
+    }
+
+    @Test
+    void sameKeyRunsOnceWhileInFlight() throws InterruptedException {
+        service = new KnowledgeAcquisitionService(2, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(service.submit("topic:helm", () -> {
+            runs.incrementAndGet();
+            await(release);
+            done.countDown();
+        }));
+        assertFalse(service.submit("topic:helm", runs::incrementAndGet));
+        assertTrue(service.isInFlight("topic:helm"));
+
+        release.countDown();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        // Released once finished, so a later request for the same key is accepted
+        assertFalse(service.isInFlight("topic:helm"));
+        CountDownLatch again = new CountDownLatch(1);
+        assertTrue(service.submit("topic:helm", again::countDown));
+        assertTrue(again.await(2, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(1, service.getDeduplicatedCount());
+    }
+
+    @Test
+    void fullQueueRejectsAndReleasesKey() {
+        service = new KnowledgeAcquisitionService(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(service.submit("a", () -> await(release)));   // running
+        waitUntil(() -> service.getQueuedCount() == 0);
+        assertTrue(service.submit("b", () -> {}));                // queued
+        assertFalse(service.submit("c", () -> {}));               // queue full
+        assertEquals(1, service.getRejectedCount());
+        assertFalse(service.isInFlight("c"));
+        release.countDown();
+    }
+
+    @Test
+    void claimExcludesConcurrentClaims() {
+        service = new KnowledgeAcquisitionService(1, 1);
+        assertTrue(service.claim("topic:k8s"));
+        assertFalse(service.claim("topic:k8s"));
+        service.release("topic:k8s");
+        assertTrue(service.claim("topic:k8s"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
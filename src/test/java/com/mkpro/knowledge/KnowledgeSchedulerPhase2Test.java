@@ -102,6 +102,168 @@ class KnowledgeSchedulerPhase2Test {
         assertNotNull(scheduler);
     }
 
+    @Test
+    void testRefreshSkipsAnalysisWhenSourcesUnchanged() throws Exception {
+        com.sun.net.httpserver.HttpServer server = startServer(() -> "stable upstream content");
+        try {
+            TopicConfig topic = serverTopic("stable-topic", server);
+            KnowledgeScheduler local = new KnowledgeScheduler(store, index, new SourceFetcher(), List.of(topic));
+            AtomicInteger callCount = new AtomicInteger(0);
+            local.setAnalyzeCallback((name, prompt) -> {
+                callCount.incrementAndGet();
+                return "Stable summary";
+            });
+
+            local.refreshTopic(topic);
+            local.refreshTopic(topic);
+
+            assertEquals(1, callCount.get(), "unchanged source should not be analyzed again");
+            assertEquals(1, store.getReport("stable-topic").getSourceStates().size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testRefreshSendsOnlyNewChunks() throws Exception {
+        java.util.concurrent.atomic.AtomicReference<String> page = new java.util.concurrent.atomic.AtomicReference<>(
+                "Release notes for version one.\n\nGarbage collector details.\n\nCompiler details.");
+        com.sun.net.httpserver.HttpServer server = startServer(page::get);
+        try {
+            TopicConfig topic = serverTopic("diff-topic", server);
+            KnowledgeScheduler local = new KnowledgeScheduler(store, index, new SourceFetcher(), List.of(topic));
+            List<String> prompts = new java.util.ArrayList<>();
+            local.setAnalyzeCallback((name, prompt) -> {
+                prompts.add(prompt);
+                return "Summary after " + prompts.size() + " refreshes";
+            });
+
+            local.refreshTopic(topic);
+            page.set("Release notes for version one.\n\nGarbage collector details.\n\nCompiler details.\n\nNew virtual thread section.");
+            local.refreshTopic(topic);
+
+            assertEquals(2, prompts.size());
+            assertTrue(prompts.get(0).contains("Garbage collector details."));
+            assertTrue(prompts.get(1).contains("New virtual thread section."));
+            assertFalse(prompts.get(1).contains("Garbage collector details."), "seen chunks should not be resent");
+            Map<String, Long> stats = local.getTokenStats();
+            assertEquals(2L, stats.get("refreshes"));
+            assertTrue(stats.get("tokensSaved") > 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testForceRefreshRequestsCoalesceWhileRunning() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        com.sun.net.httpserver.HttpServer server = startServer(() -> "content v" + version.incrementAndGet());
+        try {
+            TopicConfig topic = serverTopic("busy-topic", server);
+            KnowledgeScheduler local = new KnowledgeScheduler(store, index, new SourceFetcher(), List.of(topic));
+            java.util.concurrent.CountDownLatch entered = new java.util.concurrent.CountDownLatch(1);
+            java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+            AtomicInteger callCount = new AtomicInteger(0);
+            local.setAnalyzeCallback((name, prompt) -> {
+                callCount.incrementAndGet();
+                entered.countDown();
+                try {
+                    release.await(10, java.util.concurrent.TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "Summary " + callCount.get();
+            });
+
+            local.forceRefresh("busy-topic");
+            assertTrue(entered.await(10, java.util.concurrent.TimeUnit.SECONDS));
+            for (int i = 0; i < 5; i++) {
+                local.forceRefresh("busy-topic");
+                local.addAgentRequestedTopic("busy-topic", "again", List.of());
+            }
+            release.countDown();
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (callCount.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Thread.sleep(300);
+            assertEquals(2, callCount.get(), "requests made while running should collapse into one rerun");
+            local.stop();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testAnalysesAreLimitedPerProvider() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        com.sun.net.httpserver.HttpServer server = startServer(() -> "content v" + version.incrementAndGet());
+        try {
+            List<TopicConfig> topics = List.of(serverTopic("a", server), serverTopic("b", server), serverTopic("c", server));
+            KnowledgeScheduler local = new KnowledgeScheduler(store, index, new SourceFetcher(), topics);
+            local.setProviderResolver(t -> "ollama");
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger maxActive = new AtomicInteger();
+            AtomicInteger done = new AtomicInteger();
+            local.setAnalyzeCallback((name, prompt) -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+                done.incrementAndGet();
+                return "Summary of " + name;
+            });
+
+            topics.forEach(t -> local.forceRefresh(t.getName()));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (done.get() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(3, done.get());
+            assertEquals(1, maxActive.get(), "one analysis at a time for the same provider");
+            local.stop();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testNextDelayBacksOffForUnchangedSources() {
+        TopicConfig topic = new TopicConfig();
+        topic.setName("steady");
+        topic.setRefreshIntervalMinutes(60);
+
+        long fresh = scheduler.nextDelayMillis(topic, 0);
+        long stable = scheduler.nextDelayMillis(topic, 2);
+        assertTrue(fresh >= 54 * 60_000L && fresh <= 66 * 60_000L, "~60 min with jitter: " + fresh);
+        assertTrue(stable >= 108 * 60_000L && stable <= 132 * 60_000L, "~120 min with jitter: " + stable);
+    }
+
+    private static com.sun.net.httpserver.HttpServer startServer(java.util.function.Supplier<String> body) throws Exception {
+        com.sun.net.httpserver.HttpServer server =
+                com.sun.net.httpserver.HttpServer.create(new java.net.InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] bytes = body.get().getBytes();
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static TopicConfig serverTopic(String name, com.sun.net.httpserver.HttpServer server) {
+        TopicConfig topic = new TopicConfig();
+        topic.setName(name);
+        topic.setSources(List.of("http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+        topic.setRefreshIntervalMinutes(60);
+        return topic;
+    }
+
     @Test
     void testStaleDecayDoesNotCrashWithEmptyStore() {
         // Should not throw even with no reports
@@ -1,24 +1,88 @@
 package com.mkpro.knowledge;
 
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.*;
 
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * Tests for SourceFetcher — URL validation, error handling, fetchAll.
- * Note: These tests hit invalid/nonexistent URLs to verify error handling,
- * not actual remote servers (to avoid network dependency in CI).
+ * Tests for SourceFetcher — URL validation, error handling, fetchAll,
+ * conditional fetches and the body size cutoff.
+ * Note: These tests hit invalid/nonexistent URLs to verify error handling and a
+ * local HttpServer for the rest, not actual remote servers (to avoid network
+ * dependency in CI).
  */
 public class SourceFetcherTest {
 
     private SourceFetcher fetcher;
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         fetcher = new SourceFetcher();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/etag", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] body = "versioned content".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.createContext("/plain", exchange -> {
+            fullResponses.incrementAndGet();
+            byte[] body = "no validators here".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/large", exchange -> {
+            byte[] chunk = "x".repeat(64 * 1024).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, 0);
+            try {
+                for (int i = 0; i < 32; i++) exchange.getResponseBody().write(chunk); // 2MB
+            } catch (java.io.IOException ignored) {
+                // client stopped reading at the cutoff
+            }
+            exchange.close();
+        });
+        server.createContext("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("partial".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            try {
+                release.await(10, TimeUnit.SECONDS); // never finishes the body on its own
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
     }
 
     @Test
@@ -83,4 +147,62 @@ public class SourceFetcherTest {
         String result = fetcher.fetch(url);
         assertTrue(result.contains(url));
     }
+
+    @Test
+    void etagRevalidationReportsUnchanged() {
+        SourceFetcher.FetchResult first = fetcher.fetch(url("/etag"), null);
+        assertEquals(SourceFetcher.Status.CHANGED, first.getStatus());
+        assertEquals("versioned content", first.getContent());
+        assertEquals("\"v1\"", first.getState().getEtag());
+
+        SourceFetcher.FetchResult second = fetcher.fetch(url("/etag"), first.getState());
+        assertEquals(SourceFetcher.Status.UNCHANGED, second.getStatus());
+        assertEquals(1, fullResponses.get(), "second request should have been answered with 304");
+    }
+
+    @Test
+    void identicalBodyWithoutValidatorsReportsUnchanged() {
+        SourceFetcher.FetchResult first = fetcher.fetch(url("/plain"), null);
+        assertNotNull(first.getState().getContentHash());
+
+        SourceFetcher.FetchResult second = fetcher.fetch(url("/plain"), first.getState());
+        assertEquals(SourceFetcher.Status.UNCHANGED, second.getStatus());
+
+        TopicReport.SourceState stale = new TopicReport.SourceState(null, null, "0000");
+        assertEquals(SourceFetcher.Status.CHANGED, fetcher.fetch(url("/plain"), stale).getStatus());
+    }
+
+    @Test
+    void largeBodyIsCutOffWhileStreaming() {
+        String content = fetcher.fetch(url("/large"));
+        assertTrue(content.startsWith("xxxx"));
+        assertTrue(content.contains("[TRUNCATED: Response exceeded 500KB limit"));
+        assertTrue(content.length() < 500 * 1024 + 200);
+    }
+
+    @Test
+    void stalledBodyTimesOutInsteadOfBlocking() {
+        SourceFetcher impatient = new SourceFetcher(Duration.ofMillis(300));
+        long start = System.nanoTime();
+        SourceFetcher.FetchResult result = impatient.fetch(url("/stall"), null);
+
+        assertEquals(SourceFetcher.Status.ERROR, result.getStatus());
+        assertTrue(result.getContent().contains("timed out"), result.getContent());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void fetchAllKeepsRequestOrderAndPerUrlState() {
+        Map<String, SourceFetcher.FetchResult> first = fetcher.fetchAll(
+                List.of(url("/plain"), url("/etag"), "not-a-valid-url"), null);
+        assertEquals(List.of(url("/plain"), url("/etag"), "not-a-valid-url"), List.copyOf(first.keySet()));
+        assertEquals(SourceFetcher.Status.ERROR, first.get("not-a-valid-url").getStatus());
+
+        Map<String, TopicReport.SourceState> states = new java.util.HashMap<>();
+        first.forEach((u, r) -> { if (r.getState() != null) states.put(u, r.getState()); });
+        Map<String, SourceFetcher.FetchResult> second = fetcher.fetchAll(List.of(url("/plain"), url("/etag")), states);
+        for (SourceFetcher.FetchResult result : second.values()) {
+            assertEquals(SourceFetcher.Status.UNCHANGED, result.getStatus(), result.getUrl());
+        }
+    }
 }
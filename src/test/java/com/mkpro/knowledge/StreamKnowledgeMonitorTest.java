@@ -1,8 +1,12 @@
 package com.mkpro.knowledge;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,11 +20,15 @@ public class StreamKnowledgeMonitorTest {
     private KnowledgeStore store;
     private KnowledgeScheduler scheduler;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         index = new TopicIndex();
         store = new KnowledgeStore(null);
         scheduler = new KnowledgeScheduler(store, index, new SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
     }
 
     @Test
@@ -166,6 +174,22 @@ public class StreamKnowledgeMonitorTest {
         assertTrue(callCount.get() > 0, "onStreamEnd should trigger final scan");
     }
 
+    @Test
+    void detectsSignalSplitAcrossChunks() throws InterruptedException {
+        AtomicInteger callCount = new AtomicInteger(0);
+        StreamKnowledgeMonitor monitor = new StreamKnowledgeMonitor(scheduler, index, prompt -> {
+            callCount.incrementAndGet();
+            return "NONE";
+        });
+
+        monitor.onChunk("Honestly, I'm not fam");
+        monitor.onChunk("iliar with the Helm values schema.");
+        monitor.onStreamEnd();
+        Thread.sleep(500);
+
+        assertTrue(callCount.get() > 0, "phrase split between chunks should still be detected");
+    }
+
     @Test
     void nullChunksIgnored() {
         StreamKnowledgeMonitor monitor = new StreamKnowledgeMonitor(scheduler, index, prompt -> {
@@ -213,4 +237,48 @@ public class StreamKnowledgeMonitorTest {
         monitor.onChunk("I'm not familiar with anything at all and this is long enough to trigger.");
         monitor.onStreamEnd();
     }
+
+    @Test
+    void bufferKeepsOnlyTail() {
+        StreamKnowledgeMonitor monitor = new StreamKnowledgeMonitor(scheduler, index, prompt -> "NONE");
+
+        String sentence = "The deployment rolls out one pod at a time. ";
+        for (int i = 0; i < 5000; i++) {
+            monitor.onChunk(sentence);
+            assertTrue(monitor.bufferedChars() <= 1200, "tail grew to " + monitor.bufferedChars());
+        }
+        monitor.onChunk("x".repeat(10_000));
+        assertEquals(600, monitor.bufferedChars());
+    }
+
+    @Test
+    void concurrentStreamsShareOneRequest() throws InterruptedException {
+        KnowledgeAcquisitionService service = new KnowledgeAcquisitionService(2, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger callCount = new AtomicInteger(0);
+        java.util.function.Function<String, String> llm = prompt -> {
+            callCount.incrementAndGet();
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            return "NONE";
+        };
+        StreamKnowledgeMonitor first = new StreamKnowledgeMonitor(scheduler, index, llm, service);
+        StreamKnowledgeMonitor second = new StreamKnowledgeMonitor(scheduler, index, llm, service);
+
+        // The same response fanned out to two consumers
+        String response = "Applying the manifest. I'm not familiar with the Helm values schema here.";
+        first.onChunk(response);
+        second.onChunk(response);
+        first.onStreamEnd();
+        second.onStreamEnd();
+        Thread.sleep(200);
+        release.countDown();
+        Thread.sleep(200);
+
+        assertEquals(1, callCount.get());
+        assertEquals(1, service.getDeduplicatedCount());
+        service.shutdown();
+    }
 }
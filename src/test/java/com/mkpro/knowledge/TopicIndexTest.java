@@ -95,4 +95,87 @@ class TopicIndexTest {
         assertFalse(results.isEmpty());
         assertEquals("test", results.get(0).getTopicName());
     }
+
+    @Test
+    void testIncrementalIndexWithoutRebuild() {
+        index.indexTopic("java-gc", "Java garbage collection tuning");
+        index.rebuildIdf();
+
+        // Searchable immediately, no rebuildIdf() needed
+        index.indexTopic("rust-borrow", "Rust borrow checker ownership lifetimes");
+        List<TopicIndex.SearchResult> results = index.search("borrow checker", 3);
+        assertEquals(1, results.size());
+        assertEquals("rust-borrow", results.get(0).getTopicName());
+    }
+
+    @Test
+    void testReindexReplacesPreviousText() {
+        index.indexTopic("topic", "kafka streams partitions");
+        index.indexTopic("topic", "redis cache eviction");
+        index.rebuildIdf();
+
+        assertEquals(1, index.size());
+        assertTrue(index.search("kafka partitions", 3).isEmpty());
+        assertEquals("topic", index.search("redis eviction", 3).get(0).getTopicName());
+    }
+
+    @Test
+    void testTopKReturnsBestInDescendingOrder() {
+        for (int i = 0; i < 50; i++) {
+            // Topic i mentions "latency" i times among filler words
+            index.indexTopic("t" + i, "latency ".repeat(i) + "filler words padding text");
+        }
+        index.rebuildIdf();
+
+        List<TopicIndex.SearchResult> results = index.search("latency", 5);
+        assertEquals(5, results.size());
+        assertEquals("t49", results.get(0).getTopicName());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+        }
+    }
+
+    @Test
+    void testBm25ScoresStayNormalized() {
+        TopicIndex bm25 = new TopicIndex(TopicIndex.Scorer.BM25);
+        bm25.indexTopic("short", "vector database index");
+        bm25.indexTopic("long", "vector " + "unrelated filler prose about other things ".repeat(20));
+        bm25.indexTopic("other", "garbage collection pauses");
+        bm25.rebuildIdf();
+
+        List<TopicIndex.SearchResult> results = bm25.search("vector index", 3);
+        assertEquals("short", results.get(0).getTopicName());
+        for (TopicIndex.SearchResult result : results) {
+            assertTrue(result.getScore() > 0 && result.getScore() <= 1.0, "score " + result.getScore());
+        }
+    }
+
+    @Test
+    void testNameAndKeywordMatchesOutrankSummaryMentions() {
+        TopicReport named = new TopicReport("virtual-threads", "Virtual Threads");
+        named.setSummary("Loom scheduling on carrier threads");
+        named.setKeywords(List.of("loom", "concurrency"));
+        TopicReport mentioned = new TopicReport("jdk-release", "JDK Release");
+        mentioned.setSummary("The release adds virtual threads among many features of the platform");
+        index.indexReport(named);
+        index.indexReport(mentioned);
+        index.rebuildIdf();
+
+        List<TopicIndex.SearchResult> results = index.search("virtual threads", 2);
+        assertEquals("virtual-threads", results.get(0).getTopicName());
+    }
+
+    @Test
+    void testSnippetIsBestMatchingPassage() {
+        String text = "Introduction filler sentence. ".repeat(20)
+                + "The ZGC collector keeps pause times low. "
+                + "Closing remarks and more filler. ".repeat(20);
+        index.indexTopic("gc", text);
+        index.rebuildIdf();
+
+        String snippet = index.search("zgc pause", 1).get(0).getSnippet();
+        assertTrue(snippet.contains("ZGC collector keeps pause"), snippet);
+        assertTrue(snippet.startsWith("...") && snippet.endsWith("..."), snippet);
+        assertTrue(snippet.length() <= 210);
+    }
 }
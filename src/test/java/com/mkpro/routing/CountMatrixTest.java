@@ -0,0 +1,76 @@
+package com.mkpro.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CountMatrix — row totals, argmax tracking and map snapshots.
+ */
+public class CountMatrixTest {
+
+    @Test
+    void rowTracksTotalAndArgmax() {
+        SymbolTable agents = new SymbolTable();
+        CountMatrix matrix = new CountMatrix(new SymbolTable(), agents, agents);
+
+        matrix.add("CODING", "_START_", "Coder", 1);
+        matrix.add("CODING", "_START_", "Tester", 2);
+        matrix.add("CODING", "_START_", "Coder", 3);
+
+        CountMatrix.Row row = matrix.row("CODING", "_START_");
+        assertEquals(6, row.total());
+        CountMatrix.Top top = row.top();
+        assertEquals("Coder", agents.name(top.column()));
+        assertEquals(4, top.count());
+        assertEquals(4.0 / 6, top.probability(), 1e-9);
+
+        assertNull(matrix.row("CODING", "Coder"));
+        assertNull(matrix.row("TESTING", "_START_"));
+    }
+
+    @Test
+    void snapshotsRoundTrip() {
+        SymbolTable agents = new SymbolTable();
+        CountMatrix nested = new CountMatrix(new SymbolTable(), agents, agents);
+        nested.add("GIT", "Coder", "GitAgent", 5);
+        nested.add("GIT", "_START_", "GitAgent", 1);
+        assertEquals(Map.of("GIT", Map.of("Coder", Map.of("GitAgent", 5), "_START_", Map.of("GitAgent", 1))),
+            nested.toNestedMap());
+
+        CountMatrix flat = new CountMatrix(new SymbolTable(), null, agents);
+        flat.add("GIT", null, "GitAgent", 2);
+        flat.add("DOCS", null, "Writer", 1);
+        assertEquals(Map.of("GIT", Map.of("GitAgent", 2), "DOCS", Map.of("Writer", 1)), flat.toMap());
+
+        flat.clearOuter("GIT");
+        assertEquals(Map.of("DOCS", Map.of("Writer", 1)), flat.toMap());
+    }
+
+    @Test
+    void toolModelPredictsFromRows() {
+        ToolTransitionModel model = new ToolTransitionModel();
+        model.recordToolUsage("Coder", IntentClassifier.TaskCategory.CODING, List.of("read_file", "write_file", "read_file", "write_file"));
+        model.recordToolUsage("Coder", IntentClassifier.TaskCategory.CODING, List.of("read_file", "run_shell"));
+
+        ToolTransitionModel.ToolPrediction next = model.predictNextTool("Coder", "read_file");
+        assertEquals("write_file", next.tool);
+        assertEquals(2.0 / 3, next.confidence, 1e-9);
+        assertEquals("read_file", model.predictNextTool("Coder", null).tool);
+        assertNull(model.predictNextTool("Tester", "read_file"));
+
+        assertTrue(model.isAnomalousTool("Coder", IntentClassifier.TaskCategory.CODING, "deploy"));
+        assertFalse(model.isAnomalousTool("Coder", IntentClassifier.TaskCategory.CODING, "run_shell"));
+        assertEquals("read_file", model.getExpectedTools("Coder", IntentClassifier.TaskCategory.CODING, 1).get(0).tool);
+
+        ToolTransitionModel copy = new ToolTransitionModel();
+        copy.setToolTransitions(model.getToolTransitions());
+        copy.setAgentToolFrequency(model.getAgentToolFrequency());
+        assertEquals(model.getToolTransitions(), copy.getToolTransitions());
+        assertEquals(Map.of("read_file", 3, "write_file", 2, "run_shell", 1),
+            copy.getAgentToolFrequency().get("Coder:CODING"));
+    }
+}
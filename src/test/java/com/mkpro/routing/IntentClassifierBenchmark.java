@@ -0,0 +1,92 @@
+package com.mkpro.routing;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the single-pass keyword automaton with the per-Pattern scan it replaced,
+ * for what one routed user turn costs: classify, classifyWithConfidence and
+ * classifyToAgent on the same input.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.mkpro.routing.IntentClassifierBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntentClassifierBenchmark {
+
+    private static final String[] INPUTS = {
+        "fix the null pointer exception in the auth service",
+        "deep analyze the entire project structure and review code for security vulnerabilities",
+        "commit and push to the branch",
+        "ok",
+        "Can you write a PRD with user stories and acceptance criteria for the new onboarding flow, "
+            + "then check the deployment pipeline and the kubernetes helm chart?\nAlso list all files over 1MB.",
+    };
+
+    private int next;
+
+    @Setup
+    public void registerAgents() {
+        IntentClassifier.registerAgentKeywords("bench-infra", List.of("terraform plan", "state file", "provider block"));
+        IntentClassifier.registerAgentKeywords("bench-data", List.of("etl job", "airflow dag", "spark"));
+    }
+
+    private String nextInput() {
+        String input = INPUTS[next++ % INPUTS.length];
+        return input + " #" + next; // distinct inputs so no result is reused across invocations
+    }
+
+    @Benchmark
+    public void automaton(Blackhole bh) {
+        IntentClassifier classifier = new IntentClassifier();
+        String input = nextInput();
+        bh.consume(classifier.classify(input));
+        bh.consume(classifier.classifyWithConfidence(input));
+        bh.consume(classifier.classifyToAgent(input));
+    }
+
+    @Benchmark
+    public void regexScan(Blackhole bh) {
+        String input = nextInput();
+        String lower = input.toLowerCase().trim();
+        // classify and classifyWithConfidence each scanned every category
+        for (int pass = 0; pass < 2; pass++) {
+            bh.consume(bestGroup(IntentClassifier.getCategoryPatterns(), lower));
+        }
+        bh.consume(bestGroup(IntentClassifier.getDynamicAgentPatterns(), lower));
+    }
+
+    private static <K> K bestGroup(Map<K, List<Pattern>> groups, String lower) {
+        int bestScore = 0;
+        K best = null;
+        for (Map.Entry<K, List<Pattern>> entry : groups.entrySet()) {
+            int score = 0;
+            for (Pattern pattern : entry.getValue()) {
+                if (pattern.matcher(lower).find()) score++;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(IntentClassifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -167,4 +167,48 @@ public class IntentClassifierTest {
     void nullConfidenceReturnsZero() {
         assertEquals(0.0, classifier.classifyWithConfidence(null));
     }
+
+    // ==========================================================================
+    // Single-pass automaton
+    // ==========================================================================
+
+    @Test
+    void automatonScoresMatchRegexScan() {
+        KeywordAutomaton.Builder builder = KeywordAutomaton.builder();
+        java.util.List<java.util.List<java.util.regex.Pattern>> groups = new java.util.ArrayList<>(
+            IntentClassifier.getCategoryPatterns().values());
+        groups.add(java.util.List.of(
+            java.util.regex.Pattern.compile("c++", java.util.regex.Pattern.CASE_INSENSITIVE),
+            java.util.regex.Pattern.compile("a\\s*b\\s*c.*d", java.util.regex.Pattern.CASE_INSENSITIVE)));
+        groups.forEach(builder::addGroup);
+        KeywordAutomaton automaton = builder.build();
+
+        String[] inputs = {
+            "Show me the RECENT   changes and what\tchanged",
+            "recent\nchanges", "recentchanges", "recent\r\n  changes",
+            "log of the last\ncommit", "Log then COMMIT", "log\u2028commit",
+            "out of scope items", "outofscope", "out\nof scope",
+            "deep analyze the entire codebase and review code",
+            "gitlab prioritize the product requirement doc",
+            "ab c\nd", "a b c then d", "ccc++", "",
+        };
+        for (String input : inputs) {
+            String lower = input.toLowerCase().trim();
+            int[] expected = new int[groups.size()];
+            for (int g = 0; g < groups.size(); g++) {
+                for (java.util.regex.Pattern pattern : groups.get(g)) {
+                    if (pattern.matcher(lower).find()) expected[g]++;
+                }
+            }
+            assertArrayEquals(expected, automaton.score(input), "scores for: " + input);
+        }
+    }
+
+    @Test
+    void agentKeywordsScoredInSamePass() {
+        IntentClassifier.registerAgentKeywords("automaton-test-agent", java.util.List.of("terraform plan", "tf-(apply|plan)"));
+        assertEquals("automaton-test-agent", classifier.classifyToAgent("run terraform   plan"));
+        assertEquals("automaton-test-agent", classifier.classifyToAgent("then tf-apply it"));
+        assertNull(classifier.classifyToAgent("nothing relevant"));
+    }
 }
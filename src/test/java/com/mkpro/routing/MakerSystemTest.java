@@ -1,7 +1,9 @@
 package com.mkpro.routing;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +19,9 @@ public class MakerSystemTest {
     private MarkovRouter router;
     private MakerLoop maker;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         router = new MarkovRouter();
@@ -383,6 +388,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         // LLM callback should NOT be called for short goals
@@ -405,6 +411,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         // LLM should NOT be called since coverage exists
@@ -428,6 +435,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         // LLM responds with NONE (no knowledge needed — prevents actual fetch)
@@ -445,6 +453,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         maker.setLlmCallback(prompt -> "TOPIC:terraform-ecs\nURL:https://docs.aws.amazon.com/ecs\nFOCUS:Fargate task definitions");
@@ -463,6 +472,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         // First call (pre-goal): NONE. Second call (reactive): suggest topic
@@ -491,6 +501,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         maker.setLlmCallback(prompt -> "NONE");
@@ -514,6 +525,7 @@ public class MakerSystemTest {
         com.mkpro.knowledge.KnowledgeStore store = new com.mkpro.knowledge.KnowledgeStore(null);
         com.mkpro.knowledge.KnowledgeScheduler scheduler = new com.mkpro.knowledge.KnowledgeScheduler(
             store, index, new com.mkpro.knowledge.SourceFetcher(), List.of());
+        scheduler.setScheduleFile(tempDir.resolve("schedules.yaml"));
 
         maker.setKnowledgeComponents(scheduler, store, index);
         final int[] callCount = {0};
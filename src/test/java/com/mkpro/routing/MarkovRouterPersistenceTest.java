@@ -11,7 +11,8 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * Tests for MarkovRouter save/load — v4 format, corruption detection, legacy compat, Layer 2 persistence.
+ * Tests for MarkovRouter save/load — sectioned v5 format and delta saves, v4 and legacy compat,
+ * corruption detection, Layer 2 persistence.
  */
 public class MarkovRouterPersistenceTest {
 
@@ -182,4 +183,135 @@ public class MarkovRouterPersistenceTest {
         // This just verifies save/load doesn't crash with completion data present
         assertEquals(router.getTotalObservations(), loaded.getTotalObservations());
     }
+
+    @Test
+    void sectionedFormatRoundTripsEverySection() throws Exception {
+        MarkovRouter router = new MarkovRouter();
+        router.recordTransition(IntentClassifier.TaskCategory.CODING, null, "Coder");
+        router.recordTransition(IntentClassifier.TaskCategory.CODING, "Coder", "Tester");
+        router.recordTransition(IntentClassifier.TaskCategory.CODING, "Coder", "Tester");
+        router.recordStall(IntentClassifier.TaskCategory.CODING, List.of("Coder", "Tester", "Coder"));
+        router.recordToolUsage("Coder", IntentClassifier.TaskCategory.CODING, List.of("file_read", "file_write"));
+
+        Path modelPath = tempDir.resolve("v5.dat");
+        router.save(modelPath);
+
+        byte[] bytes = Files.readAllBytes(modelPath);
+        assertEquals(5, java.nio.ByteBuffer.wrap(bytes, 12, 4).getInt());
+
+        MarkovRouter loaded = new MarkovRouter();
+        loaded.load(modelPath);
+        assertEquals(router.getTransitionMatrix(), loaded.getTransitionMatrix());
+        assertEquals(router.getCategoryToAgentMatrix(), loaded.getCategoryToAgentMatrix());
+        assertEquals(router.getLearnedPatterns(), loaded.getLearnedPatterns());
+        assertEquals(1.0, loaded.predictStall(IntentClassifier.TaskCategory.CODING, List.of("Coder", "Tester", "Coder")));
+        assertEquals(router.getAgentToolFrequency(), loaded.getAgentToolFrequency());
+        assertEquals("file_write", loaded.predictNextTool("Coder", "file_read").tool);
+    }
+
+    @Test
+    void secondSaveAppendsOnlyChangedRows() throws Exception {
+        MarkovRouter router = new MarkovRouter();
+        for (String agent : List.of("Coder", "Tester", "Architect", "DevOps", "GitAgent")) {
+            router.recordTransition(IntentClassifier.TaskCategory.CODING, null, agent);
+            router.recordToolUsage(agent, IntentClassifier.TaskCategory.CODING, List.of("file_read", "file_write", "shell"));
+        }
+        Path modelPath = tempDir.resolve("delta.dat");
+        router.save(modelPath);
+        long fullSize = Files.size(modelPath);
+        byte[] firstFrame = Files.readAllBytes(modelPath);
+
+        router.recordTransition(IntentClassifier.TaskCategory.CODING, "Coder", "Tester");
+        router.save(modelPath);
+
+        byte[] bytes = Files.readAllBytes(modelPath);
+        assertTrue(bytes.length > fullSize);
+        assertTrue(bytes.length - fullSize < fullSize / 2, "delta should hold only the changed rows");
+        assertArrayEquals(firstFrame, java.util.Arrays.copyOf(bytes, (int) fullSize), "earlier bytes are left alone");
+        assertFalse(Files.exists(tempDir.resolve("delta.dat.bak")), "appending doesn't rewrite the file");
+
+        // Unchanged model: nothing to append
+        router.save(modelPath);
+        assertEquals(bytes.length, Files.size(modelPath));
+
+        MarkovRouter loaded = new MarkovRouter();
+        loaded.load(modelPath);
+        assertEquals(router.getTotalObservations(), loaded.getTotalObservations());
+        assertEquals(router.getTransitionMatrix(), loaded.getTransitionMatrix());
+        assertEquals(router.getAgentToolFrequency(), loaded.getAgentToolFrequency());
+    }
+
+    @Test
+    void tornAppendIsIgnoredAndNextSaveRewrites() throws Exception {
+        MarkovRouter router = new MarkovRouter();
+        router.recordTransition(IntentClassifier.TaskCategory.CODING, null, "Coder");
+        Path modelPath = tempDir.resolve("torn.dat");
+        router.save(modelPath);
+        long fullSize = Files.size(modelPath);
+
+        router.recordTransition(IntentClassifier.TaskCategory.TESTING, null, "Tester");
+        router.save(modelPath);
+
+        // Crash in the middle of the append
+        byte[] bytes = Files.readAllBytes(modelPath);
+        Files.write(modelPath, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+
+        MarkovRouter loaded = new MarkovRouter();
+        loaded.load(modelPath);
+        assertEquals(1, loaded.getTotalObservations());
+        assertFalse(loaded.getCategoryToAgentMatrix().containsKey("TESTING"));
+
+        loaded.recordTransition(IntentClassifier.TaskCategory.DEVOPS, null, "DevOps");
+        loaded.save(modelPath);
+        assertTrue(Files.exists(tempDir.resolve("torn.dat.bak")), "torn file is rewritten, not appended to");
+
+        MarkovRouter reloaded = new MarkovRouter();
+        reloaded.load(modelPath);
+        assertEquals(2, reloaded.getTotalObservations());
+        assertTrue(reloaded.getCategoryToAgentMatrix().containsKey("DEVOPS"));
+        assertTrue(Files.size(modelPath) >= fullSize);
+    }
+
+    @Test
+    void version4FileStillLoads() throws Exception {
+        java.util.HashMap<String, java.util.Map<String, java.util.Map<String, Integer>>> transitions = new java.util.HashMap<>();
+        transitions.put("GIT", new java.util.HashMap<>(java.util.Map.of("_START_", new java.util.HashMap<>(java.util.Map.of("GitAgent", 3)))));
+        java.util.HashMap<String, java.util.Map<String, Integer>> categoryToAgent = new java.util.HashMap<>();
+        categoryToAgent.put("GIT", new java.util.HashMap<>(java.util.Map.of("GitAgent", 3)));
+        java.util.HashMap<String, java.util.Map<String, java.util.Map<String, Integer>>> toolTransitions = new java.util.HashMap<>();
+        toolTransitions.put("GitAgent", new java.util.HashMap<>(java.util.Map.of("_START_", new java.util.HashMap<>(java.util.Map.of("git_status", 2)))));
+        java.util.HashMap<String, java.util.Map<String, Integer>> toolFrequency = new java.util.HashMap<>();
+        toolFrequency.put("GitAgent:GIT", new java.util.HashMap<>(java.util.Map.of("git_status", 2)));
+
+        java.io.ByteArrayOutputStream data = new java.io.ByteArrayOutputStream();
+        try (java.io.ObjectOutputStream oos = new java.io.ObjectOutputStream(data)) {
+            oos.writeObject(transitions);
+            oos.writeObject(categoryToAgent);
+            oos.writeInt(3);
+            oos.writeObject(new java.util.HashMap<String, java.util.Set<String>>());
+            oos.writeObject(new java.util.HashMap<String, List<List<String>>>());
+            oos.writeObject(toolTransitions);
+            oos.writeObject(toolFrequency);
+        }
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update(data.toByteArray());
+        Path modelPath = tempDir.resolve("v4.dat");
+        try (java.io.DataOutputStream dos = new java.io.DataOutputStream(Files.newOutputStream(modelPath))) {
+            dos.write("MKPRO_MARKOV".getBytes());
+            dos.writeInt(4);
+            dos.writeInt(data.size());
+            dos.write(data.toByteArray());
+            dos.writeLong(crc.getValue());
+        }
+
+        MarkovRouter loaded = new MarkovRouter();
+        loaded.load(modelPath);
+        assertEquals(3, loaded.getTotalObservations());
+        assertEquals("GitAgent", loaded.route(IntentClassifier.TaskCategory.GIT, null).agent);
+        assertEquals("git_status", loaded.predictNextTool("GitAgent", null).tool);
+
+        // Saving upgrades it to the sectioned format
+        loaded.save(modelPath);
+        assertEquals(5, java.nio.ByteBuffer.wrap(Files.readAllBytes(modelPath), 12, 4).getInt());
+    }
 }
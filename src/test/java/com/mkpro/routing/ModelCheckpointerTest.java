@@ -0,0 +1,69 @@
+package com.mkpro.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for background, coalesced Markov model checkpoints.
+ */
+public class ModelCheckpointerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void requestsBeforeTheWriteAreCoalesced() throws Exception {
+        MarkovRouter router = new MarkovRouter();
+        router.recordTransition(IntentClassifier.TaskCategory.CODING, null, "Coder");
+        Path modelPath = tempDir.resolve("model.dat");
+        ModelCheckpointer checkpointer = new ModelCheckpointer(router, 200);
+
+        for (int i = 0; i < 5; i++) checkpointer.request(modelPath);
+        assertFalse(Files.exists(modelPath), "request() doesn't write on the caller's thread");
+
+        assertTrue(checkpointer.flush(5000));
+        assertTrue(Files.exists(modelPath));
+        assertEquals(5L, checkpointer.getStats().get("requested"));
+        assertEquals(4L, checkpointer.getStats().get("coalesced"));
+        assertEquals(1L, checkpointer.getStats().get("written"));
+        assertTrue(checkpointer.getLastCheckpointAgeMs() >= 0);
+        assertTrue(checkpointer.getLastCheckpointDurationMs() >= 0);
+    }
+
+    @Test
+    void debouncedWriteHappensInBackground() throws Exception {
+        MarkovRouter router = new MarkovRouter();
+        router.recordTransition(IntentClassifier.TaskCategory.TESTING, null, "Tester");
+        Path modelPath = tempDir.resolve("bg.dat");
+        ModelCheckpointer checkpointer = new ModelCheckpointer(router, 0);
+
+        checkpointer.request(modelPath);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (checkpointer.getStats().get("written") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1L, checkpointer.getStats().get("written"));
+
+        MarkovRouter loaded = new MarkovRouter();
+        loaded.load(modelPath);
+        assertEquals(1, loaded.getTotalObservations());
+        assertTrue(checkpointer.flush(5000));
+    }
+
+    @Test
+    void flushWithoutRequestsAndRequestsAfterFlush() throws Exception {
+        ModelCheckpointer checkpointer = new ModelCheckpointer(new MarkovRouter(), 0);
+        assertTrue(checkpointer.flush(1000));
+
+        Path modelPath = tempDir.resolve("late.dat");
+        checkpointer.request(modelPath);
+        Thread.sleep(50);
+        assertFalse(Files.exists(modelPath), "requests after shutdown are ignored");
+        assertEquals(-1L, checkpointer.getLastCheckpointAgeMs());
+    }
+}
@@ -0,0 +1,61 @@
+package com.mkpro.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignalMatcherTest {
+
+    private static final SignalMatcher<String> MATCHER = SignalMatcher.<String>builder()
+            .add("gap", "i'm not familiar with", "outside my knowledge")
+            .add("error", "command not found", "not found")
+            .add("hedge", "may", "might")
+            .build();
+
+    @Test
+    void findsOverlappingPhrasesCaseInsensitively() {
+        List<SignalMatcher.Hit<String>> hits = MATCHER.findAll("Error: COMMAND NOT FOUND, it May help");
+
+        assertEquals(List.of("command not found", "not found", "may"),
+                hits.stream().map(SignalMatcher.Hit::phrase).toList());
+        SignalMatcher.Hit<String> first = hits.get(0);
+        assertEquals("error", first.category());
+        assertEquals(7, first.start());
+        assertEquals(24, first.end());
+    }
+
+    @Test
+    void scannerMatchesAcrossChunkBoundaries() {
+        SignalMatcher<String>.Scanner scanner = MATCHER.scanner();
+        List<SignalMatcher.Hit<String>> hits = new ArrayList<>();
+
+        scanner.feed("Honestly I'm not fam", hits::add);
+        assertTrue(hits.isEmpty());
+        scanner.feed("iliar with Helm charts", hits::add);
+
+        assertEquals(1, hits.size());
+        assertEquals("gap", hits.get(0).category());
+        assertEquals(9, hits.get(0).start());
+    }
+
+    @Test
+    void scoreCountsDistinctPhrasesLikeContains() {
+        String[] phrases = {"may", "might", "not found", "command not found", "outside my knowledge"};
+        Random random = new Random(7);
+        String[] words = {"may", "might", "not", "found", "command", "outside", "my", "knowledge", "x", "MAY"};
+        for (int i = 0; i < 500; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = random.nextInt(12); w > 0; w--) text.append(words[random.nextInt(words.length)]).append(' ');
+            String lower = text.toString().toLowerCase();
+            int expected = 0;
+            for (String phrase : phrases) {
+                if (lower.contains(phrase)) expected++;
+            }
+            assertEquals(expected, MATCHER.score(text, category -> 1), text.toString());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mkpro.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the indexed stall and completion matching behind MarkovRouter's Maker support.
+ */
+public class StallPatternIndexTest {
+
+    @Test
+    void windowAllowsOneMismatchFromThreeAgentsOn() {
+        List<List<String>> stalls = new ArrayList<>();
+        stalls.add(List.of("Coder", "Tester", "Coder", "Tester"));
+        StallPatternIndex index = StallPatternIndex.of(stalls);
+
+        assertEquals(1.0, index.predict(List.of("Architect", "Coder", "Tester", "Coder", "Tester")), 1e-9);
+        assertEquals(1.0, index.predict(List.of("Coder", "Tester", "Coder", "Coder")), 1e-9, "one mismatch in four");
+        assertEquals(0.0, index.predict(List.of("Coder", "Coder", "Coder", "Coder")), 1e-9, "two mismatches");
+        assertEquals(0.0, index.predict(List.of("Tester", "Tester")), 1e-9, "windows of two must match exactly");
+        assertEquals(1.0, index.predict(List.of("Coder", "Tester")), 1e-9);
+    }
+
+    @Test
+    void recentStallsWeighMoreAndOldestAreDropped() {
+        List<List<String>> stalls = new ArrayList<>();
+        StallPatternIndex index = StallPatternIndex.of(stalls);
+        index.add(List.of("DevOps", "DevOps"));
+        index.add(List.of("Coder", "Coder"));
+
+        double recent = index.predict(List.of("Coder", "Coder"));
+        double older = index.predict(List.of("DevOps", "DevOps"));
+        assertTrue(recent > older, recent + " vs " + older);
+        assertEquals(1.0, recent + older, 1e-9);
+
+        index.removeOldest();
+        assertEquals(1, index.size());
+        assertEquals(0.0, index.predict(List.of("DevOps", "DevOps")), 1e-9);
+        assertEquals(1.0, index.predict(List.of("Coder", "Coder")), 1e-9);
+    }
+
+    @Test
+    void routerRebuildsIndexForReplacedStallList() throws Exception {
+        MarkovRouter router = new MarkovRouter();
+        router.recordStall(IntentClassifier.TaskCategory.CODING, List.of("Coder", "Coder", "Coder"));
+        assertTrue(router.predictStall(IntentClassifier.TaskCategory.CODING, List.of("Coder", "Coder")) > 0.0);
+
+        java.nio.file.Path modelPath = java.nio.file.Files.createTempFile("stall_index", ".dat");
+        try {
+            MarkovRouter other = new MarkovRouter();
+            other.recordStall(IntentClassifier.TaskCategory.CODING, List.of("Tester", "Tester"));
+            other.save(modelPath);
+            router.load(modelPath); // replaces the CODING stall list
+
+            assertEquals(0.0, router.predictStall(IntentClassifier.TaskCategory.CODING, List.of("Coder", "Coder")));
+            assertEquals(1.0, router.predictStall(IntentClassifier.TaskCategory.CODING, List.of("Tester", "Tester")), 1e-9);
+        } finally {
+            java.nio.file.Files.deleteIfExists(modelPath);
+        }
+    }
+
+    @Test
+    void partialCompletionMatchOnlyNeedsSharedTools() {
+        MarkovRouter router = new MarkovRouter();
+        router.recordCompletion(IntentClassifier.TaskCategory.CODING, List.of("file_read", "file_write", "shell", "git_commit"), true, 4);
+        router.recordCompletion(IntentClassifier.TaskCategory.CODING, List.of("web_search"), false, 2);
+
+        // Half of the first set covered, fully confident → 0.5
+        assertEquals(0.5, router.predictCompletion(IntentClassifier.TaskCategory.CODING, List.of("file_read", "shell")), 1e-9);
+        assertEquals(0.0, router.predictCompletion(IntentClassifier.TaskCategory.CODING, List.of("docker_build")));
+    }
+
+    @Test
+    void completionPatternsStayBoundedPerCategory() {
+        MarkovRouter router = new MarkovRouter();
+        for (int i = 0; i < 8; i++) {
+            router.recordCompletion(IntentClassifier.TaskCategory.TESTING, List.of("shell", "file_write"), true, 2);
+        }
+        for (int i = 0; i < 1200; i++) {
+            router.recordCompletion(IntentClassifier.TaskCategory.TESTING, List.of("tool_" + i), false, 1);
+        }
+
+        // Frequent set survives ageing, one-off sets are evicted
+        assertEquals(1.0, router.predictCompletion(IntentClassifier.TaskCategory.TESTING, List.of("file_write", "shell")), 1e-9);
+        assertEquals(0.0, router.predictCompletion(IntentClassifier.TaskCategory.TESTING, List.of("tool_0")));
+        assertEquals(0.0, router.predictCompletion(IntentClassifier.TaskCategory.TESTING, List.of("tool_1199")));
+    }
+
+    @Test
+    void fullCategoryEvictsOnlyItsLeastUsedOldestSets() {
+        MarkovRouter router = new MarkovRouter();
+        router.recordCompletion(IntentClassifier.TaskCategory.DOCS, List.of("debugger", "shell"), true, 3);
+        router.recordCompletion(IntentClassifier.TaskCategory.DOCS, List.of("debugger", "shell"), true, 3);
+        for (int i = 0; i < 500; i++) {
+            router.recordCompletion(IntentClassifier.TaskCategory.DOCS, List.of("tool_" + i), true, 1);
+        }
+
+        // The 501st set evicts down to 90% of the cap: the oldest one-off sets, not the repeated one
+        assertEquals(1.0, router.predictCompletion(IntentClassifier.TaskCategory.DOCS, List.of("debugger", "shell")), 1e-9);
+        assertEquals(0.0, router.predictCompletion(IntentClassifier.TaskCategory.DOCS, List.of("tool_0")));
+        assertEquals(0.0, router.predictCompletion(IntentClassifier.TaskCategory.DOCS, List.of("tool_49")));
+        for (int i = 50; i < 500; i++) {
+            assertEquals(1.0, router.predictCompletion(IntentClassifier.TaskCategory.DOCS, List.of("tool_" + i)), 1e-9,
+                "tool_" + i + " kept");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.mkpro.watch;
+
+import com.mkpro.events.FileChangeBatch;
+import com.mkpro.events.MkProEvent;
+import com.mkpro.events.MkProEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the file change service: coalescing, ignored directories,
+ * directory deletes and the rescan fallback.
+ */
+public class FileChangeServiceTest {
+
+    @TempDir
+    Path project;
+
+    private FileChangeService service;
+    private final BlockingQueue<FileChangeBatch> batches = new LinkedBlockingQueue<>();
+
+    private MkProEventBus bus() {
+        MkProEventBus bus = new MkProEventBus();
+        bus.register(event -> {
+            if (event.getType() == MkProEvent.Type.FILES_CHANGED) batches.add(event.getFileChanges());
+        });
+        return bus;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    /** Collects batches until the union of their {@code part} covers {@code expected}, or fails after 10s. */
+    private Set<Path> await(java.util.function.Function<FileChangeBatch, Set<Path>> part, Set<Path> expected) throws Exception {
+        Set<Path> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!seen.containsAll(expected)) {
+            FileChangeBatch batch = batches.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            assertNotNull(batch, "timed out waiting for " + expected + ", saw " + seen);
+            seen.addAll(part.apply(batch));
+        }
+        return seen;
+    }
+
+    @Test
+    void publishesCoalescedCreatesModifiesAndDeletes() throws Exception {
+        Files.createDirectories(project.resolve("src"));
+        Path existing = Files.writeString(project.resolve("src/Existing.java"), "class Existing {}");
+        service = new FileChangeService(project, bus(), 100);
+        service.start();
+        assertEquals(1, service.trackedFiles());
+
+        // Several writes to one file within the debounce window arrive as one created path
+        Path created = project.resolve("src/Created.java");
+        for (int i = 0; i < 5; i++) Files.writeString(created, "class Created { int v = " + i + "; }");
+        await(FileChangeBatch::getCreated, Set.of(created.toAbsolutePath().normalize()));
+
+        Files.writeString(existing, "class Existing { void changed() {} }");
+        await(FileChangeBatch::getModified, Set.of(existing.toAbsolutePath().normalize()));
+
+        // Files in a new directory are reported even if written before it was registered
+        Path nested = project.resolve("src/pkg/deep");
+        Files.createDirectories(nested);
+        Path inNested = Files.writeString(nested.resolve("Deep.java"), "class Deep {}");
+        await(FileChangeBatch::getCreated, Set.of(inNested.toAbsolutePath().normalize()));
+
+        // Ignored directories are never reported
+        Files.createDirectories(project.resolve("node_modules/lib"));
+        Files.writeString(project.resolve("node_modules/lib/index.js"), "module.exports = 1;");
+
+        // Deleting a directory reports the files it held
+        Files.delete(inNested);
+        Files.delete(nested);
+        Set<Path> deleted = await(FileChangeBatch::getDeleted, Set.of(inNested.toAbsolutePath().normalize()));
+        assertTrue(deleted.stream().noneMatch(p -> p.toString().contains("node_modules")));
+        for (FileChangeBatch batch : List.copyOf(batches)) {
+            assertTrue(batch.getAllPaths().stream().noneMatch(p -> p.toString().contains("node_modules")));
+        }
+    }
+
+    @Test
+    void rescanDiffsTheTreeAgainstTheManifest() throws Exception {
+        Path kept = Files.writeString(project.resolve("Kept.java"), "class Kept {}");
+        Path edited = Files.writeString(project.resolve("Edited.java"), "class Edited {}");
+        Path removed = Files.writeString(project.resolve("Removed.java"), "class Removed {}");
+        service = new FileChangeService(project, null, 100);
+        service.start();
+        service.stop(); // no watcher thread: rescan() below runs alone
+
+        Files.writeString(edited, "class Edited { int more; }");
+        Files.delete(removed);
+        Path added = Files.writeString(project.resolve("Added.java"), "class Added {}");
+
+        FileChangeBatch batch = service.rescan();
+        assertTrue(batch.isRescan());
+        assertEquals(Set.of(added.toAbsolutePath().normalize()), batch.getCreated());
+        assertEquals(Set.of(edited.toAbsolutePath().normalize()), batch.getModified());
+        assertEquals(Set.of(removed.toAbsolutePath().normalize()), batch.getDeleted());
+        assertFalse(batch.getAllPaths().contains(kept.toAbsolutePath().normalize()));
+        assertTrue(service.rescan().isEmpty(), "a second rescan finds nothing new");
+    }
+
+    @Test
+    void changeBatchListenerAppliesBatchesOffTheBusThread() throws Exception {
+        BlockingQueue<String> threads = new LinkedBlockingQueue<>();
+        try (ChangeBatchListener listener = new ChangeBatchListener("test",
+                batch -> threads.add(Thread.currentThread().getName()))) {
+            MkProEventBus bus = new MkProEventBus();
+            bus.register(listener);
+            bus.emit(MkProEvent.system("ignored"));
+            bus.emit(MkProEvent.filesChanged(new FileChangeBatch(project,
+                Set.of(project.resolve("A.java")), Set.of(), Set.of(), false)));
+            assertTrue(listener.awaitIdle(5000));
+            assertEquals(List.of("live-test"), List.copyOf(threads));
+        }
+    }
+}